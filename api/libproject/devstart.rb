@@ -153,7 +153,7 @@ def setup_local_environment()
   ENV.update(must_get_env_value("local", :gae_vars))
   ENV.update({"WORKBENCH_ENV" => "local"})
   ENV["DB_HOST"] = "127.0.0.1"
-  ENV["DB_CONNECTION_STRING"] = "jdbc:mysql://127.0.0.1/workbench?useSSL=false"
+  ENV["DB_CONNECTION_STRING"] = "jdbc:mysql://127.0.0.1/workbench?useSSL=false&rewriteBatchedStatements=true"
 end
 
 def run_local_api_tests()
@@ -258,7 +258,6 @@ public class DataSetControllerBQTest extends BigQueryBaseTest {
             new DataSetController(
                 cdrVersionService,
                 dataSetServiceImpl,
-                fireCloudService,
                 notebooksService,
                 userProvider,
                 genomicExtractionService,
@@ -1,6 +1,8 @@
 package org.pmiops.workbench.access;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.pmiops.workbench.db.model.DbAccessTier;
 import org.pmiops.workbench.db.model.DbUser;
@@ -54,6 +56,16 @@ public interface AccessTierService {
    */
   List<DbAccessTier> getAccessTiersForUser(DbUser user);
 
+  /**
+   * Bulk version of {@link #getAccessTiersForUser(DbUser)}, which looks up the tiers of all the
+   * users in a single query.
+   *
+   * @param users the users whose access we're checking
+   * @return The DbAccessTiers each user has access to, in alphabetical order by shortName, keyed by
+   *     user ID. Users without access to any tier are absent.
+   */
+  Map<Long, List<DbAccessTier>> getAccessTiersForUsers(Collection<DbUser> users);
+
   /**
    * Return the list of tiers a user has access to, as shortNames
    *
@@ -2,8 +2,11 @@ package org.pmiops.workbench.access;
 
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -58,6 +61,20 @@ public class AccessTierServiceImpl implements AccessTierService {
         .collect(Collectors.toList());
   }
 
+  @Override
+  public Map<Long, List<DbAccessTier>> getAccessTiersForUsers(Collection<DbUser> users) {
+    if (users.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return userAccessTierDao.getAllByUserIn(users).stream()
+        .filter(uat -> uat.getTierAccessStatusEnum() == TierAccessStatus.ENABLED)
+        .sorted(Comparator.comparing(uat -> uat.getAccessTier().getShortName()))
+        .collect(
+            Collectors.groupingBy(
+                uat -> uat.getUser().getUserId(),
+                Collectors.mapping(DbUserAccessTier::getAccessTier, Collectors.toList())));
+  }
+
   /**
    * Add memberships to all tiers for a user if they don't exist by inserting DB row(s) set to
    * ENABLED. For any memberships which exist and are DISABLED, set them to ENABLED.
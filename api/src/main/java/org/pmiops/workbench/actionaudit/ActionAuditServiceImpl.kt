@@ -5,23 +5,62 @@ import com.google.cloud.logging.LogEntry
 import com.google.cloud.logging.Logging
 import com.google.cloud.logging.Payload.JsonPayload
 import com.google.cloud.logging.Severity
+import java.time.Duration
 import java.util.HashMap
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
 import java.util.logging.Level
 import java.util.logging.Logger
 import javax.inject.Provider
 import org.pmiops.workbench.config.WorkbenchConfig
+import org.pmiops.workbench.config.WorkbenchConfig.ActionAuditConfig.QueueOverflowPolicy
+import org.pmiops.workbench.monitoring.GaugeDataCollector
+import org.pmiops.workbench.monitoring.MeasurementBundle
+import org.pmiops.workbench.monitoring.views.GaugeMetric
+import org.springframework.beans.factory.DisposableBean
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.stereotype.Service
 
+/**
+ * Writes audit events to Cloud Logging. With actionAudit.asyncWrites set, entries are queued and a
+ * background thread writes them in batches of up to MAX_BATCH_SIZE, at most MAX_BATCH_DELAY after
+ * the first entry of a batch was queued. Entries are written in the order they were queued. The
+ * queue is drained when the application context shuts down.
+ */
 @Service
-class ActionAuditServiceImpl @Autowired
-constructor(private val configProvider: Provider<WorkbenchConfig>, private val cloudLogging: Logging) : ActionAuditService {
+class ActionAuditServiceImpl
+constructor(
+    private val configProvider: Provider<WorkbenchConfig>,
+    private val cloudLogging: Logging,
+    queueCapacity: Int
+) : ActionAuditService, GaugeDataCollector, DisposableBean {
+
+    @Autowired
+    constructor(configProvider: Provider<WorkbenchConfig>, cloudLogging: Logging) :
+            this(configProvider, cloudLogging, QUEUE_CAPACITY)
+
+    private val pendingEntries: BlockingQueue<LogEntry> = LinkedBlockingQueue(queueCapacity)
+    private val droppedEntryCount = AtomicLong()
+
+    // Started on the first asynchronous write, so instances which never write don't hold a thread
+    private var writerThread: Thread? = null
+    @Volatile
+    private var shuttingDown = false
 
     override fun send(events: Collection<ActionAuditEvent>) {
         try {
             val logEntries: List<LogEntry> = events
                     .map { this.auditEventToLogEntry(it) }
-            if (logEntries.isNotEmpty()) {
+            if (logEntries.isEmpty()) {
+                return
+            }
+            val actionAuditConfig = configProvider.get().actionAudit
+            if (actionAuditConfig.asyncWrites == true && !shuttingDown) {
+                enqueue(logEntries, actionAuditConfig.queueOverflowPolicy
+                        ?: QueueOverflowPolicy.WRITE_SYNCHRONOUSLY)
+            } else {
                 cloudLogging.write(logEntries)
             }
         } catch (e: RuntimeException) {
@@ -30,6 +69,81 @@ constructor(private val configProvider: Provider<WorkbenchConfig>, private val c
         }
     }
 
+    private fun enqueue(logEntries: List<LogEntry>, overflowPolicy: QueueOverflowPolicy) {
+        startWriterIfNeeded()
+        val overflow = logEntries.dropWhile { pendingEntries.offer(it) }
+        if (overflow.isEmpty()) {
+            return
+        }
+        when (overflowPolicy) {
+            QueueOverflowPolicy.DROP -> {
+                droppedEntryCount.addAndGet(overflow.size.toLong())
+                serviceLogger.warning { "Action audit queue is full, dropped ${overflow.size} log entries." }
+            }
+            QueueOverflowPolicy.WRITE_SYNCHRONOUSLY -> cloudLogging.write(overflow)
+        }
+    }
+
+    @Synchronized
+    private fun startWriterIfNeeded() {
+        if (writerThread == null) {
+            writerThread = Thread(this::writeBatches, "action-audit-writer")
+                    .apply { isDaemon = true }
+                    .apply { start() }
+        }
+    }
+
+    private fun writeBatches() {
+        val batch = ArrayList<LogEntry>(MAX_BATCH_SIZE)
+        while (!shuttingDown || pendingEntries.isNotEmpty()) {
+            val first = pendingEntries.poll(IDLE_POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS)
+                    ?: continue
+            batch.add(first)
+            val deadline = System.nanoTime() + MAX_BATCH_DELAY.toNanos()
+            while (batch.size < MAX_BATCH_SIZE) {
+                val next = pendingEntries.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                        ?: break
+                batch.add(next)
+            }
+            try {
+                cloudLogging.write(batch)
+            } catch (e: RuntimeException) {
+                serviceLogger.log(Level.SEVERE, e) {
+                    "Exception encountered writing ${batch.size} log entries to Cloud Logging."
+                }
+            }
+            batch.clear()
+        }
+    }
+
+    /** Stops accepting asynchronous writes, and waits for the queued entries to be written.  */
+    override fun destroy() {
+        shuttingDown = true
+        val writer = synchronized(this) { writerThread } ?: return
+        writer.join(SHUTDOWN_TIMEOUT.toMillis())
+        if (writer.isAlive) {
+            serviceLogger.severe {
+                "Timed out writing action audit log entries at shutdown, ${pendingEntries.size} were not written."
+            }
+            return
+        }
+        // A send() racing with shutdown may have queued entries after the writer exited
+        val remaining = ArrayList<LogEntry>()
+        pendingEntries.drainTo(remaining)
+        if (remaining.isNotEmpty()) {
+            cloudLogging.write(remaining)
+        }
+    }
+
+    override fun getGaugeData(): Collection<MeasurementBundle> {
+        return listOf(
+                MeasurementBundle.builder()
+                        .addMeasurement(GaugeMetric.ACTION_AUDIT_QUEUE_SIZE, pendingEntries.size.toLong())
+                        .addMeasurement(
+                                GaugeMetric.ACTION_AUDIT_DROPPED_ENTRY_COUNT, droppedEntryCount.get())
+                        .build())
+    }
+
     private fun auditEventToLogEntry(auditEvent: ActionAuditEvent): LogEntry {
         val actionAuditConfig = configProvider.get().actionAudit
         return LogEntry.newBuilder(toJsonPayload(auditEvent))
@@ -66,5 +180,12 @@ constructor(private val configProvider: Provider<WorkbenchConfig>, private val c
         private val serviceLogger = Logger.getLogger(ActionAuditServiceImpl::class.java.name)
         private const val MONITORED_RESOURCE_TYPE = "global"
         private val monitoredResource: MonitoredResource = MonitoredResource.newBuilder(MONITORED_RESOURCE_TYPE).build()
+
+        private const val QUEUE_CAPACITY = 10_000
+        // Cloud Logging accepts up to 1000 entries per write request
+        private const val MAX_BATCH_SIZE = 500
+        private val MAX_BATCH_DELAY = Duration.ofSeconds(1)
+        private val IDLE_POLL_INTERVAL = Duration.ofMillis(200)
+        private val SHUTDOWN_TIMEOUT = Duration.ofSeconds(20)
     }
 }
@@ -0,0 +1,26 @@
+package org.pmiops.workbench.api;
+
+import org.pmiops.workbench.annotations.AuthorityRequired;
+import org.pmiops.workbench.model.ApiLatencyResponse;
+import org.pmiops.workbench.model.Authority;
+import org.pmiops.workbench.monitoring.ApiLatencyHistograms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class ApiLatencyAdminController implements ApiLatencyAdminApiDelegate {
+
+  private final ApiLatencyHistograms apiLatencyHistograms;
+
+  @Autowired
+  ApiLatencyAdminController(ApiLatencyHistograms apiLatencyHistograms) {
+    this.apiLatencyHistograms = apiLatencyHistograms;
+  }
+
+  @AuthorityRequired({Authority.DEVELOPER})
+  @Override
+  public ResponseEntity<ApiLatencyResponse> getApiLatencies() {
+    return ResponseEntity.ok(apiLatencyHistograms.getLatencies());
+  }
+}
@@ -7,12 +7,30 @@ import com.google.cloud.bigquery.FieldList;
 import com.google.cloud.bigquery.InsertAllRequest;
 import com.google.cloud.bigquery.InsertAllResponse;
 import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobId;
 import com.google.cloud.bigquery.JobInfo;
+import com.google.cloud.bigquery.JobStatus;
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.Schema;
 import com.google.cloud.bigquery.TableId;
 import com.google.cloud.bigquery.TableResult;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Provider;
@@ -22,31 +40,102 @@ import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.dataset.BigQueryDataSetTableInfo;
 import org.pmiops.workbench.db.model.DbCdrVersion;
 import org.pmiops.workbench.exceptions.ForbiddenException;
+import org.pmiops.workbench.exceptions.NotFoundException;
 import org.pmiops.workbench.exceptions.ServerErrorException;
 import org.pmiops.workbench.exceptions.ServerUnavailableException;
+import org.pmiops.workbench.exceptions.TooManyRequestsException;
 import org.pmiops.workbench.model.Domain;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
-public class BigQueryService {
+public class BigQueryService implements GaugeDataCollector {
 
   private static final Logger logger = Logger.getLogger(BigQueryService.class.getName());
 
+  // Label on asynchronous query jobs identifying the user who submitted them.
+  @VisibleForTesting static final String SUBMITTER_LABEL = "workbench_submitter_id";
+
+  // There are only a handful of CDR projects in use at a time; the bound is a backstop.
+  private static final int MAX_POOLED_CLIENTS = 20;
+  private static final Duration POOLED_CLIENT_IDLE_EXPIRY = Duration.ofHours(1);
+  // A few dozen domain tables for each of a handful of CDRs.
+  private static final int MAX_CACHED_TABLE_SCHEMAS = 500;
+  // The longest BigQuery lets a query job run.
+  private static final Duration MAX_QUERY_JOB_DURATION = Duration.ofHours(6);
+
   @Autowired private Provider<WorkbenchConfig> workbenchConfigProvider;
   @Autowired private BigQuery defaultBigQuery;
   @Autowired private Duration defaultBigQueryTimeout;
 
+  // BigQuery clients are thread-safe, and building one means a credential lookup and a new HTTP
+  // transport, so keep one client per CDR project rather than building one per query.
+  private final LoadingCache<String, BigQuery> clientsByProject =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_POOLED_CLIENTS)
+          .expireAfterAccess(POOLED_CLIENT_IDLE_EXPIRY)
+          .recordStats()
+          .build(CacheLoader.from(this::createBigQueryClient));
+
+  // CDR datasets are not modified once published, so their table schemas are cached without
+  // expiry. Keyed by the fully qualified table, which identifies the CDR version as well.
+  private final Cache<TableId, CdrTableSchema> cdrTableSchemas =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_TABLE_SCHEMAS).recordStats().build();
+
+  // Jobs started by startQueryForUser on this instance which may still be pending or running, by
+  // submitter. Each submitter's set is also the lock on their submissions.
+  private final Cache<String, Set<JobId>> inFlightJobsBySubmitter =
+      CacheBuilder.newBuilder().expireAfterAccess(MAX_QUERY_JOB_DURATION).build();
+
+  /** The fields of a CDR table, and their names in lowercase for matching requested columns. */
+  public static class CdrTableSchema {
+    private final FieldList fields;
+    private final ImmutableSet<String> lowercaseColumnNames;
+
+    CdrTableSchema(FieldList fields) {
+      this.fields = fields;
+      this.lowercaseColumnNames =
+          fields.stream()
+              .map(field -> field.getName().toLowerCase())
+              .collect(ImmutableSet.toImmutableSet());
+    }
+
+    public FieldList getFields() {
+      return fields;
+    }
+
+    /** Column names in table order. */
+    public Set<String> getLowercaseColumnNames() {
+      return lowercaseColumnNames;
+    }
+  }
+
   @VisibleForTesting
   protected BigQuery getBigQueryService() {
     // If a query is being executed in the context of a CDR, it must be run within that project as
     // well. By default, the query would run in the Workbench App Engine project, which would
     // violate VPC-SC restrictions.
     return CdrVersionContext.maybeGetBigQueryProject()
-        .map(projectId -> BigQueryOptions.newBuilder().setProjectId(projectId).build().getService())
+        .map(clientsByProject::getUnchecked)
         .orElse(defaultBigQuery);
   }
 
+  @VisibleForTesting
+  protected BigQuery createBigQueryClient(String projectId) {
+    return BigQueryOptions.newBuilder().setProjectId(projectId).build().getService();
+  }
+
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    return ImmutableList.<MeasurementBundle>builder()
+        .addAll(CacheMetrics.getGaugeData("bigquery_client", clientsByProject))
+        .addAll(CacheMetrics.getGaugeData("cdr_table_schema", cdrTableSchemas))
+        .build();
+  }
+
   public TableResult filterBigQueryConfigAndExecuteQuery(QueryJobConfiguration query) {
     return executeQuery(filterBigQueryConfig(query), defaultBigQueryTimeout.toMillis());
   }
@@ -92,6 +181,85 @@ public class BigQueryService {
     }
   }
 
+  /**
+   * Starts the query on behalf of a user and returns its job ID without waiting for it to finish;
+   * poll for the results with {@link #getQueryResultsIfDone(JobId, long)}. The job is labelled
+   * with the user, so only they can read the results, and it counts against the user's limit of
+   * cdr.maxInFlightQueryJobsPerUser pending or running jobs.
+   *
+   * <p>The limit counts the jobs which this app instance started for the user, so checking it
+   * never lists the project's jobs. The states of the user's jobs are only looked up once they
+   * reach the limit. A user's submissions to an instance are checked one at a time, but a user
+   * whose requests are spread over several instances may reach the limit on each of them.
+   */
+  public JobId startQueryForUser(QueryJobConfiguration query, long userId) {
+    final String submitter = Long.toString(userId);
+    final int maxInFlightJobs = workbenchConfigProvider.get().cdr.maxInFlightQueryJobsPerUser;
+    final Set<JobId> inFlightJobs =
+        inFlightJobsBySubmitter.asMap().computeIfAbsent(submitter, s -> new HashSet<>());
+    synchronized (inFlightJobs) {
+      if (inFlightJobs.size() >= maxInFlightJobs) {
+        inFlightJobs.removeIf(this::isJobDone);
+      }
+      if (inFlightJobs.size() >= maxInFlightJobs) {
+        throw new TooManyRequestsException(
+            String.format(
+                "At most %d queries may run at once; try again once one has finished",
+                maxInFlightJobs));
+      }
+
+      final Map<String, String> labels = new HashMap<>();
+      Optional.ofNullable(query.getLabels()).ifPresent(labels::putAll);
+      labels.put(SUBMITTER_LABEL, submitter);
+      final JobId jobId = startQuery(query.toBuilder().setLabels(labels).build()).getJobId();
+      inFlightJobs.add(jobId);
+      return jobId;
+    }
+  }
+
+  /**
+   * Returns the first page of results of a job started by {@link #startQueryForUser}, or EMPTY if
+   * the job is still pending or running. Jobs submitted by other users are reported as not found.
+   */
+  public Optional<TableResult> getQueryResultsIfDone(JobId jobId, long userId) {
+    final Job job = getBigQueryService().getJob(jobId);
+    if (job == null || !isSubmittedBy(job, Long.toString(userId))) {
+      throw new NotFoundException(String.format("Query job %s not found", jobId.getJob()));
+    }
+    if (!JobStatus.State.DONE.equals(job.getStatus().getState())) {
+      return Optional.empty();
+    }
+    final Set<JobId> inFlightJobs = inFlightJobsBySubmitter.getIfPresent(Long.toString(userId));
+    if (inFlightJobs != null) {
+      synchronized (inFlightJobs) {
+        inFlightJobs.removeIf(inFlightJobId -> inFlightJobId.getJob().equals(jobId.getJob()));
+      }
+    }
+    if (job.getStatus().getError() != null) {
+      throw new ServerErrorException(
+          String.format(
+              "Query job %s failed: %s", jobId.getJob(), job.getStatus().getError().getMessage()));
+    }
+    try {
+      return Optional.of(job.getQueryResults());
+    } catch (InterruptedException e) {
+      throw new BigQueryException(500, "Something went wrong with BigQuery: " + e.getMessage());
+    }
+  }
+
+  private boolean isJobDone(JobId jobId) {
+    final Job job = getBigQueryService().getJob(jobId);
+    return job == null || JobStatus.State.DONE.equals(job.getStatus().getState());
+  }
+
+  private static boolean isSubmittedBy(Job job, String submitter) {
+    if (!(job.getConfiguration() instanceof QueryJobConfiguration)) {
+      return false;
+    }
+    final Map<String, String> labels = ((QueryJobConfiguration) job.getConfiguration()).getLabels();
+    return labels != null && submitter.equals(labels.get(SUBMITTER_LABEL));
+  }
+
   public QueryJobConfiguration filterBigQueryConfig(QueryJobConfiguration queryJobConfiguration) {
     DbCdrVersion cdrVersion = CdrVersionContext.getCdrVersion();
     String returnSql =
@@ -103,14 +271,40 @@ public class BigQueryService {
   }
 
   public FieldList getTableFieldsFromDomain(Domain domain) {
+    return getCdrTableSchema(domain).getFields();
+  }
+
+  /** Returns the lowercase column names of the domain's table in the current CDR. */
+  public Set<String> getTableColumnNamesFromDomain(Domain domain) {
+    return getCdrTableSchema(domain).getLowercaseColumnNames();
+  }
+
+  /**
+   * Returns the schema of the domain's table in the current CDR, fetching it from BigQuery on the
+   * first request for each CDR version.
+   */
+  public CdrTableSchema getCdrTableSchema(Domain domain) {
     DbCdrVersion cdrVersion = CdrVersionContext.getCdrVersion();
     TableId tableId =
         TableId.of(
             cdrVersion.getBigqueryProject(),
             cdrVersion.getBigqueryDataset(),
             BigQueryDataSetTableInfo.getTableName(domain));
+    try {
+      return cdrTableSchemas.get(
+          tableId,
+          () ->
+              new CdrTableSchema(
+                  getBigQueryService().getTable(tableId).getDefinition().getSchema().getFields()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new ServerErrorException("Failed to fetch the schema of " + tableId.getTable(), e);
+    }
+  }
 
-    return getBigQueryService().getTable(tableId).getDefinition().getSchema().getFields();
+  /** Fetches the schema of a table in the default (workbench) BigQuery project. */
+  public Schema getTableSchema(TableId tableId) {
+    return defaultBigQuery.getTable(tableId).getDefinition().getSchema();
   }
 
   public InsertAllResponse insertAll(InsertAllRequest insertAllRequest) {
@@ -1,24 +1,36 @@
 package org.pmiops.workbench.api;
 
+import com.google.api.services.cloudresourcemanager.v3.model.Project;
 import com.google.common.collect.ImmutableSet;
-import java.io.IOException;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import javax.inject.Provider;
 import org.pmiops.workbench.access.AccessModuleService;
 import org.pmiops.workbench.actionaudit.Agent;
+import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.UserService;
 import org.pmiops.workbench.db.model.DbAccessModule.DbAccessModuleName;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.exceptions.WorkbenchException;
 import org.pmiops.workbench.google.CloudResourceManagerService;
-import org.pmiops.workbench.model.AccessModuleStatus;
+import org.pmiops.workbench.google.DirectoryService;
 import org.pmiops.workbench.model.AuditProjectAccessRequest;
 import org.pmiops.workbench.model.SynchronizeUserAccessRequest;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
@@ -49,59 +61,84 @@ public class CloudTaskUserController implements CloudTaskUserApiDelegate {
           "762320479256"); // terra_prod_aou_prod_2
   private static final Logger log = Logger.getLogger(CloudTaskUserController.class.getName());
 
+  // Used when offlineBatch doesn't configure the concurrency or rate of Google API calls
+  private static final int DEFAULT_USER_TASK_CONCURRENCY = 1;
+  private static final double DEFAULT_GOOGLE_API_REQUESTS_PER_SECOND = 10.0;
+
   private final UserDao userDao;
   private final CloudResourceManagerService cloudResourceManagerService;
+  private final DirectoryService directoryService;
   private final UserService userService;
   private final AccessModuleService accessModuleService;
+  private final Provider<WorkbenchConfig> workbenchConfigProvider;
+
+  // Shared by all tasks handled by this instance, so that the limit holds however many tasks the
+  // queue dispatches to it at once.
+  private final RateLimiter googleApiRateLimiter =
+      RateLimiter.create(DEFAULT_GOOGLE_API_REQUESTS_PER_SECOND);
 
   CloudTaskUserController(
       UserDao userDao,
       CloudResourceManagerService cloudResourceManagerService,
+      DirectoryService directoryService,
       UserService userService,
-      AccessModuleService accessModuleService) {
+      AccessModuleService accessModuleService,
+      Provider<WorkbenchConfig> workbenchConfigProvider) {
     this.userDao = userDao;
     this.cloudResourceManagerService = cloudResourceManagerService;
+    this.directoryService = directoryService;
     this.userService = userService;
     this.accessModuleService = accessModuleService;
+    this.workbenchConfigProvider = workbenchConfigProvider;
   }
 
   @Override
   public ResponseEntity<Void> auditProjectAccess(AuditProjectAccessRequest request) {
-    int errorCount = 0;
-    for (long userId : request.getUserIds()) {
-      DbUser user = userDao.findUserByUserId(userId);
+    final List<DbUser> users = findUsers(request.getUserIds());
+    int errorCount = request.getUserIds().size() - users.size();
 
+    final ExecutorService executor = newUserTaskExecutor();
+    try {
       // TODO(RW-2062): Move to using the gcloud api for list all resources when it is available.
-      try {
-        List<String> unauthorizedLogs =
-            cloudResourceManagerService.getAllProjectsForUser(user).stream()
-                .filter(
-                    project ->
-                        project.getParent() == null
-                            || !(ALLOWED_PARENT_IDS.contains(getId(project.getParent()))))
-                .map(
-                    project ->
-                        String.format(
-                            "%s in %s %s",
-                            project.getName(),
-                            Optional.ofNullable(project.getParent())
-                                .map(this::getType)
-                                .orElse("[type unknown]"),
-                            Optional.ofNullable(project.getParent())
-                                .map(this::getId)
-                                .orElse("[id unknown]")))
-                .collect(Collectors.toList());
-        if (unauthorizedLogs.size() > 0) {
-          log.warning(
-              "User "
-                  + user.getUsername()
-                  + " has access to projects: "
-                  + String.join(", ", unauthorizedLogs));
+      final Map<Long, Future<List<Project>>> projectsByUserId =
+          callGoogleApiForUsers(
+              executor,
+              users,
+              user -> () -> cloudResourceManagerService.getAllProjectsForUser(user));
+      for (DbUser user : users) {
+        try {
+          List<String> unauthorizedLogs =
+              ConcurrencyUtils.getUnchecked(projectsByUserId.get(user.getUserId())).stream()
+                  .filter(
+                      project ->
+                          project.getParent() == null
+                              || !(ALLOWED_PARENT_IDS.contains(getId(project.getParent()))))
+                  .map(
+                      project ->
+                          String.format(
+                              "%s in %s %s",
+                              project.getName(),
+                              Optional.ofNullable(project.getParent())
+                                  .map(this::getType)
+                                  .orElse("[type unknown]"),
+                              Optional.ofNullable(project.getParent())
+                                  .map(this::getId)
+                                  .orElse("[id unknown]")))
+                  .collect(Collectors.toList());
+          if (unauthorizedLogs.size() > 0) {
+            log.warning(
+                "User "
+                    + user.getUsername()
+                    + " has access to projects: "
+                    + String.join(", ", unauthorizedLogs));
+          }
+        } catch (RuntimeException e) {
+          log.log(Level.SEVERE, "failed to audit project access for user " + user.getUsername(), e);
+          errorCount++;
         }
-      } catch (IOException e) {
-        log.log(Level.SEVERE, "failed to audit project access for user " + user.getUsername(), e);
-        errorCount++;
       }
+    } finally {
+      executor.shutdown();
     }
     if (errorCount > 0) {
       log.severe(
@@ -115,34 +152,53 @@ public class CloudTaskUserController implements CloudTaskUserApiDelegate {
 
   @Override
   public ResponseEntity<Void> synchronizeUserAccess(SynchronizeUserAccessRequest request) {
-    int errorCount = 0;
-    for (long userId : request.getUserIds()) {
-      DbUser user = userDao.findUserByUserId(userId);
-
-      try {
-
-        // 2FA synchronization requires an outgoing call to gsuite. For this reason, we
-        // optimize to only verify that users who have 2FA enabled, still have it enabled.
-        // Users who don't have 2FA will go through an active flow to enable it, and are not
-        // dependent on this offline check. Disabled users have no access anyways, so don't
-        // bother checking them either.
-        if (!user.getDisabled()) {
-          Optional<AccessModuleStatus> status =
-              accessModuleService.getAccessModuleStatus(user, DbAccessModuleName.TWO_FACTOR_AUTH);
-          if (status.isPresent() && status.get().getCompletionEpochMillis() != null) {
-            user = userService.syncTwoFactorAuthStatus(user, Agent.asSystem());
+    final List<DbUser> users = findUsers(request.getUserIds());
+    int errorCount = request.getUserIds().size() - users.size();
+
+    // 2FA synchronization requires an outgoing call to gsuite. For this reason, we
+    // optimize to only verify that users who have 2FA enabled, still have it enabled.
+    // Users who don't have 2FA will go through an active flow to enable it, and are not
+    // dependent on this offline check. Disabled users have no access anyways, so don't
+    // bother checking them either.
+    final List<DbUser> twoFactorAuthUsers =
+        users.stream()
+            .filter(user -> !user.getDisabled())
+            .filter(this::hasCompletedTwoFactorAuth)
+            .collect(Collectors.toList());
+
+    final ExecutorService executor = newUserTaskExecutor();
+    try {
+      // Only the gsuite lookups run concurrently. The database updates below stay on this thread,
+      // in this request's persistence context.
+      final Map<Long, Future<Boolean>> twoFactorAuthEnrollmentsByUserId =
+          callGoogleApiForUsers(
+              executor,
+              twoFactorAuthUsers,
+              user ->
+                  () -> directoryService.getUserOrThrow(user.getUsername()).getIsEnrolledIn2Sv());
+      for (DbUser user : users) {
+        try {
+          DbUser updatedUser = user;
+          final Future<Boolean> isEnrolledIn2FA =
+              twoFactorAuthEnrollmentsByUserId.get(user.getUserId());
+          if (isEnrolledIn2FA != null) {
+            updatedUser =
+                userService.syncTwoFactorAuthStatus(
+                    updatedUser, Agent.asSystem(), ConcurrencyUtils.getUnchecked(isEnrolledIn2FA));
           }
-        }
 
-        // Note: each module synchronization calls updateUserAccessTiers() which checks the status
-        // of *all* modules, so this serves as a general fallback as well (e.g. due to partial
-        // system failures or bugs), ensuring that the database and access tier groups are
-        // consistent with access module statuses.
-        user = userService.syncDuccVersionStatus(user, Agent.asSystem());
-      } catch (WorkbenchException e) {
-        log.log(Level.SEVERE, "failed to synchronize access for user " + user.getUsername(), e);
-        errorCount++;
+          // Note: each module synchronization calls updateUserAccessTiers() which checks the
+          // status of *all* modules, so this serves as a general fallback as well (e.g. due to
+          // partial system failures or bugs), ensuring that the database and access tier groups
+          // are consistent with access module statuses.
+          userService.syncDuccVersionStatus(updatedUser, Agent.asSystem());
+        } catch (WorkbenchException e) {
+          log.log(Level.SEVERE, "failed to synchronize access for user " + user.getUsername(), e);
+          errorCount++;
+        }
       }
+    } finally {
+      executor.shutdown();
     }
     if (errorCount > 0) {
       log.severe(
@@ -154,6 +210,63 @@ public class CloudTaskUserController implements CloudTaskUserApiDelegate {
     return ResponseEntity.noContent().build();
   }
 
+  /** Loads the users with one query, in the order of the IDs. Missing users are logged. */
+  private List<DbUser> findUsers(List<Long> userIds) {
+    final Map<Long, DbUser> usersById =
+        StreamSupport.stream(userDao.findAllById(userIds).spliterator(), false)
+            .collect(Collectors.toMap(DbUser::getUserId, Function.identity()));
+    final List<DbUser> users = new ArrayList<>();
+    for (long userId : userIds) {
+      final DbUser user = usersById.get(userId);
+      if (user == null) {
+        log.severe("user not found: " + userId);
+      } else {
+        users.add(user);
+      }
+    }
+    return users;
+  }
+
+  private boolean hasCompletedTwoFactorAuth(DbUser user) {
+    return accessModuleService
+        .getAccessModuleStatus(user, DbAccessModuleName.TWO_FACTOR_AUTH)
+        .map(status -> status.getCompletionEpochMillis() != null)
+        .orElse(false);
+  }
+
+  private ExecutorService newUserTaskExecutor() {
+    final WorkbenchConfig.OfflineBatchConfig config = workbenchConfigProvider.get().offlineBatch;
+    Optional.ofNullable(config.googleApiRequestsPerSecond)
+        .filter(rate -> rate > 0)
+        .ifPresent(googleApiRateLimiter::setRate);
+    return ConcurrencyUtils.newFixedDaemonThreadPool(
+        "cloud-task-user",
+        Optional.ofNullable(config.userTaskConcurrency)
+            .filter(n -> n > 0)
+            .orElse(DEFAULT_USER_TASK_CONCURRENCY));
+  }
+
+  /**
+   * Starts a Google API call for each user on the executor, each throttled by the shared rate
+   * limiter. Returns the pending results by user ID; failures are rethrown when they're fetched.
+   */
+  private <T> Map<Long, Future<T>> callGoogleApiForUsers(
+      ExecutorService executor, List<DbUser> users, Function<DbUser, Callable<T>> apiCall) {
+    final Map<Long, Future<T>> resultsByUserId = new HashMap<>();
+    for (DbUser user : users) {
+      final Callable<T> call = apiCall.apply(user);
+      resultsByUserId.put(
+          user.getUserId(),
+          executor.submit(
+              ConcurrencyUtils.withRequestAttributes(
+                  () -> {
+                    googleApiRateLimiter.acquire();
+                    return call.call();
+                  })));
+    }
+    return resultsByUserId;
+  }
+
   // v1 cloudresourcemanager project.getParent() returned a ResourceId with type and id fields
   // v3 returns a string instead, in the format type/id
 
@@ -16,6 +16,7 @@ import org.pmiops.workbench.cohortbuilder.chart.ChartService;
 import org.pmiops.workbench.cohortreview.CohortReviewService;
 import org.pmiops.workbench.cohortreview.util.PageRequest;
 import org.pmiops.workbench.cohortreview.util.ParticipantCohortStatusDbInfo;
+import org.pmiops.workbench.cohortreview.util.ParticipantCohortStatusPageToken;
 import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.model.DbCohort;
 import org.pmiops.workbench.db.model.DbParticipantCohortStatus;
@@ -359,7 +360,8 @@ public class CohortReviewController implements CohortReviewApiDelegate {
 
   /**
    * Get all participants for the specified cohortId and cohortReviewId. This endpoint does
-   * pagination based on page, pageSize, sortOrder and sortColumn.
+   * pagination based on page, pageSize, sortOrder and sortColumn, or seeks past the previous page
+   * when given its continuationToken.
    */
   @Override
   public ResponseEntity<CohortReviewWithCountResponse> getParticipantCohortStatuses(
@@ -395,6 +397,10 @@ public class CohortReviewController implements CohortReviewApiDelegate {
     return ResponseEntity.ok(
         new CohortReviewWithCountResponse()
             .cohortReview(cohortReview)
+            .nextContinuationToken(
+                ParticipantCohortStatusPageToken.nextPageToken(
+                        pageRequest, participantCohortStatuses)
+                    .orElse(null))
             .queryResultSize(
                 pageRequest.getFilters().isEmpty()
                     ? cohortReview.getReviewSize()
@@ -568,6 +574,7 @@ public class CohortReviewController implements CohortReviewApiDelegate {
         .sortOrder(sortOrderParam)
         .sortColumn(sortColumn)
         .filters(
-            request.getFilters() == null ? new ArrayList<>() : request.getFilters().getItems());
+            request.getFilters() == null ? new ArrayList<>() : request.getFilters().getItems())
+        .continuationToken(request.getContinuationToken());
   }
 }
@@ -2,6 +2,7 @@ package org.pmiops.workbench.api;
 
 import com.google.cloud.bigquery.Field;
 import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.JobId;
 import com.google.cloud.bigquery.LegacySQLTypeName;
 import com.google.cloud.bigquery.TableResult;
 import com.google.common.annotations.VisibleForTesting;
@@ -34,13 +35,13 @@ import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.exceptions.BadRequestException;
 import org.pmiops.workbench.exceptions.NotFoundException;
 import org.pmiops.workbench.exceptions.ServerErrorException;
-import org.pmiops.workbench.firecloud.FireCloudService;
 import org.pmiops.workbench.genomics.GenomicExtractionService;
 import org.pmiops.workbench.model.DataDictionaryEntry;
 import org.pmiops.workbench.model.DataSet;
 import org.pmiops.workbench.model.DataSetCodeResponse;
 import org.pmiops.workbench.model.DataSetExportRequest;
 import org.pmiops.workbench.model.DataSetListResponse;
+import org.pmiops.workbench.model.DataSetPreviewOperation;
 import org.pmiops.workbench.model.DataSetPreviewRequest;
 import org.pmiops.workbench.model.DataSetPreviewResponse;
 import org.pmiops.workbench.model.DataSetPreviewValueList;
@@ -55,6 +56,7 @@ import org.pmiops.workbench.model.GenomicExtractionJobListResponse;
 import org.pmiops.workbench.model.KernelTypeEnum;
 import org.pmiops.workbench.model.MarkDataSetRequest;
 import org.pmiops.workbench.model.PrePackagedConceptSetEnum;
+import org.pmiops.workbench.model.QueryJobStatus;
 import org.pmiops.workbench.model.ReadOnlyNotebookResponse;
 import org.pmiops.workbench.model.ResourceType;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
@@ -80,7 +82,6 @@ public class DataSetController implements DataSetApiDelegate {
   private final Provider<DbUser> userProvider;
 
   private final CdrVersionService cdrVersionService;
-  private final FireCloudService fireCloudService;
   private final NotebooksService notebooksService;
   private final GenomicExtractionService genomicExtractionService;
   private final WorkspaceAuthService workspaceAuthService;
@@ -90,7 +91,6 @@ public class DataSetController implements DataSetApiDelegate {
   DataSetController(
       CdrVersionService cdrVersionService,
       DataSetService dataSetService,
-      FireCloudService fireCloudService,
       NotebooksService notebooksService,
       Provider<DbUser> userProvider,
       GenomicExtractionService genomicExtractionService,
@@ -98,7 +98,6 @@ public class DataSetController implements DataSetApiDelegate {
       Provider<WorkbenchConfig> workbenchConfigProvider) {
     this.cdrVersionService = cdrVersionService;
     this.dataSetService = dataSetService;
-    this.fireCloudService = fireCloudService;
     this.notebooksService = notebooksService;
     this.userProvider = userProvider;
     this.genomicExtractionService = genomicExtractionService;
@@ -146,9 +145,63 @@ public class DataSetController implements DataSetApiDelegate {
     dataSetService.validateDataSetPreviewRequestResources(
         dbWorkspace.getWorkspaceId(), dataSetPreviewRequest);
 
-    List<DataSetPreviewValueList> valuePreviewList = new ArrayList<>();
     TableResult queryResponse = dataSetService.previewBigQueryJobConfig(dataSetPreviewRequest);
+    return ResponseEntity.ok(toPreviewResponse(dataSetPreviewRequest, queryResponse));
+  }
+
+  /**
+   * Starts the preview query and returns its job for polling with getDataSetPreviewOperation. The
+   * limit on a user's in-flight queries is per app instance, see {@link
+   * BigQueryService#startQueryForUser}.
+   */
+  @Override
+  public ResponseEntity<DataSetPreviewOperation> previewDataSetByDomainAsync(
+      String workspaceNamespace, String workspaceId, DataSetPreviewRequest dataSetPreviewRequest) {
+    DbWorkspace dbWorkspace =
+        workspaceAuthService.getWorkspaceEnforceAccessLevelAndSetCdrVersion(
+            workspaceNamespace, workspaceId, WorkspaceAccessLevel.READER);
+    dataSetService.validateDataSetPreviewRequestResources(
+        dbWorkspace.getWorkspaceId(), dataSetPreviewRequest);
+
+    JobId jobId =
+        dataSetService.startPreviewQuery(dataSetPreviewRequest, userProvider.get().getUserId());
+    return ResponseEntity.ok(
+        new DataSetPreviewOperation()
+            .jobId(jobId.getJob())
+            .location(jobId.getLocation())
+            .status(QueryJobStatus.RUNNING));
+  }
 
+  @Override
+  public ResponseEntity<DataSetPreviewOperation> getDataSetPreviewOperation(
+      String workspaceNamespace,
+      String workspaceId,
+      String jobId,
+      DataSetPreviewRequest dataSetPreviewRequest,
+      String location) {
+    // Sets the CDR version, so the job is looked up in the CDR's BigQuery project.
+    workspaceAuthService.getWorkspaceEnforceAccessLevelAndSetCdrVersion(
+        workspaceNamespace, workspaceId, WorkspaceAccessLevel.READER);
+
+    Optional<TableResult> queryResponse =
+        dataSetService.getPreviewQueryResults(
+            JobId.newBuilder().setJob(jobId).setLocation(location).build(),
+            userProvider.get().getUserId());
+    DataSetPreviewOperation operation =
+        new DataSetPreviewOperation().jobId(jobId).location(location);
+    if (queryResponse.isPresent()) {
+      operation
+          .status(QueryJobStatus.DONE)
+          .preview(toPreviewResponse(dataSetPreviewRequest, queryResponse.get()));
+    } else {
+      operation.status(QueryJobStatus.RUNNING);
+    }
+    return ResponseEntity.ok(operation);
+  }
+
+  private DataSetPreviewResponse toPreviewResponse(
+      DataSetPreviewRequest dataSetPreviewRequest, TableResult queryResponse) {
+    List<DataSetPreviewValueList> valuePreviewList = new ArrayList<>();
     if (queryResponse.getTotalRows() != 0) {
       valuePreviewList.addAll(
           queryResponse.getSchema().getFields().stream()
@@ -170,10 +223,9 @@ public class DataSetController implements DataSetApiDelegate {
           valuePreviewList,
           Comparator.comparing(item -> dataSetPreviewRequest.getValues().indexOf(item.getValue())));
     }
-    return ResponseEntity.ok(
-        new DataSetPreviewResponse()
-            .domain(dataSetPreviewRequest.getDomain())
-            .values(valuePreviewList));
+    return new DataSetPreviewResponse()
+        .domain(dataSetPreviewRequest.getDomain())
+        .values(valuePreviewList);
   }
 
   @VisibleForTesting
@@ -274,8 +326,8 @@ public class DataSetController implements DataSetApiDelegate {
     workspaceAuthService.validateActiveBilling(workspaceNamespace, workspaceId);
 
     String bucketName =
-        fireCloudService
-            .getWorkspace(workspaceNamespace, workspaceId)
+        workspaceAuthService
+            .getFirecloudWorkspace(workspaceNamespace, workspaceId)
             .getWorkspace()
             .getBucketName();
 
@@ -0,0 +1,40 @@
+package org.pmiops.workbench.api;
+
+import java.util.logging.Logger;
+import org.pmiops.workbench.genomics.GenomicExtractionService;
+import org.pmiops.workbench.monitoring.LogsBasedMetricService;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.views.DistributionMetric;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class OfflineGenomicExtractionController implements OfflineGenomicExtractionApiDelegate {
+  private static final Logger log =
+      Logger.getLogger(OfflineGenomicExtractionController.class.getName());
+
+  private final GenomicExtractionService genomicExtractionService;
+  private final LogsBasedMetricService logsBasedMetricService;
+
+  @Autowired
+  OfflineGenomicExtractionController(
+      GenomicExtractionService genomicExtractionService,
+      LogsBasedMetricService logsBasedMetricService) {
+    this.genomicExtractionService = genomicExtractionService;
+    this.logsBasedMetricService = logsBasedMetricService;
+  }
+
+  @Override
+  public ResponseEntity<Void> refreshGenomicExtractionJobs() {
+    final int checkedJobCount =
+        logsBasedMetricService.recordElapsedTime(
+            MeasurementBundle.builder(),
+            DistributionMetric.GENOMIC_EXTRACTION_STATUS_POLL_TIME,
+            genomicExtractionService::refreshActiveJobStatuses);
+    if (checkedJobCount > 0) {
+      log.info(String.format("checked the status of %d genomic extraction jobs", checkedJobCount));
+    }
+    return ResponseEntity.noContent().build();
+  }
+}
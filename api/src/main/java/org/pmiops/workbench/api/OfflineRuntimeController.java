@@ -3,16 +3,29 @@ package org.pmiops.workbench.api;
 import static org.pmiops.workbench.leonardo.LeonardoLabelHelper.LEONARDO_DISK_LABEL_KEYS;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.RateLimiter;
+import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -20,8 +33,10 @@ import javax.inject.Provider;
 import javax.mail.MessagingException;
 import org.pmiops.workbench.billing.FreeTierBillingService;
 import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.db.dao.OfflineSweepCheckpointDao;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
+import org.pmiops.workbench.db.model.DbOfflineSweepCheckpoint;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.exceptions.ExceptionUtils;
@@ -39,6 +54,7 @@ import org.pmiops.workbench.leonardo.model.LeonardoListRuntimeResponse;
 import org.pmiops.workbench.leonardo.model.LeonardoRuntimeStatus;
 import org.pmiops.workbench.mail.MailService;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
@@ -63,6 +79,16 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
   // idle deletion.
   private static final int IDLE_AFTER_HOURS = 3;
 
+  // Each sweep stops after this long, leaving a checkpoint to resume from, so that it finishes
+  // within the 10 minute App Engine cron deadline.
+  private static final Duration SWEEP_TIME_BUDGET = Duration.ofMinutes(8);
+  // A checkpoint older than this is from an abandoned sweep; start over rather than resume it.
+  private static final Duration MAX_CHECKPOINT_AGE = Duration.ofDays(2);
+  private static final String RUNTIMES_SWEEP_NAME = "checkRuntimes";
+  private static final String DISKS_SWEEP_NAME = "checkPersistentDisks";
+  private static final int DEFAULT_SWEEP_CONCURRENCY = 8;
+  private static final double DEFAULT_SWEEP_REQUESTS_PER_SECOND = 10.0;
+
   private final FireCloudService fireCloudService;
   private final FreeTierBillingService freeTierBillingService;
   private final MailService mailService;
@@ -71,8 +97,13 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
   private final Provider<WorkbenchConfig> configProvider;
   private final WorkspaceDao workspaceDao;
   private final UserDao userDao;
+  private final OfflineSweepCheckpointDao offlineSweepCheckpointDao;
   private final Clock clock;
 
+  // Shared by all sweeps, so that overlapping cron runs don't multiply the load on Leonardo/Terra
+  private final RateLimiter sweepRateLimiter =
+      RateLimiter.create(DEFAULT_SWEEP_REQUESTS_PER_SECOND);
+
   @Autowired
   OfflineRuntimeController(
       FireCloudService firecloudService,
@@ -83,6 +114,7 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
       Provider<WorkbenchConfig> configProvider,
       WorkspaceDao workspaceDao,
       UserDao userDao,
+      OfflineSweepCheckpointDao offlineSweepCheckpointDao,
       Clock clock) {
     this.fireCloudService = firecloudService;
     this.freeTierBillingService = freeTierBillingService;
@@ -91,6 +123,7 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
     this.disksApiProvider = disksApiProvider;
     this.workspaceDao = workspaceDao;
     this.userDao = userDao;
+    this.offlineSweepCheckpointDao = offlineSweepCheckpointDao;
     this.clock = clock;
     this.configProvider = configProvider;
   }
@@ -109,7 +142,9 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
    *   <li>It is idle and exceeds the max idle runtime age. Per environment, smaller than (1).
    * </ol>
    *
-   * <p>As an App Engine cron endpoint, the runtime of this method may not exceed 10 minutes.
+   * <p>As an App Engine cron endpoint, the runtime of this method may not exceed 10 minutes. If the
+   * runtimes can't all be checked within SWEEP_TIME_BUDGET, the next run resumes where this one
+   * stopped.
    */
   @Override
   public ResponseEntity<Void> checkRuntimes() {
@@ -126,79 +161,128 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
       throw ExceptionUtils.convertLeonardoException(e);
     }
 
-    int errors = 0;
-    int idles = 0;
-    int activeDeletes = 0;
-    int unusedDeletes = 0;
-    for (LeonardoListRuntimeResponse listRuntimeResponse : listRuntimeResponses) {
-      final String runtimeId =
-          listRuntimeResponse.getGoogleProject() + "/" + listRuntimeResponse.getRuntimeName();
-      final LeonardoGetRuntimeResponse runtime;
-      try {
-        // Refetch the runtime to ensure freshness as this iteration may take
-        // some time.
-        runtime =
-            runtimesApi.getRuntime(
-                listRuntimeResponse.getGoogleProject(), listRuntimeResponse.getRuntimeName());
-      } catch (ApiException e) {
-        log.log(Level.WARNING, String.format("failed to refetch runtime '%s'", runtimeId), e);
-        errors++;
-        continue;
-      }
-      if (LeonardoRuntimeStatus.UNKNOWN.equals(runtime.getStatus())
-          || runtime.getStatus() == null) {
-        log.warning(String.format("unknown runtime status for runtime '%s'", runtimeId));
-        continue;
-      }
-      if (!LeonardoRuntimeStatus.RUNNING.equals(runtime.getStatus())
-          && !LeonardoRuntimeStatus.STOPPED.equals(runtime.getStatus())) {
-        // For now, we only handle running or stopped (suspended) runtimes.
-        continue;
-      }
-
-      final Instant lastUsed = Instant.parse(runtime.getAuditInfo().getDateAccessed());
-      final boolean isIdle = Duration.between(lastUsed, now).toHours() > IDLE_AFTER_HOURS;
-      if (isIdle) {
-        idles++;
-      }
-
-      final Instant created = Instant.parse(runtime.getAuditInfo().getCreatedDate());
-      final Duration age = Duration.between(created, now);
-      if (age.toMillis() > maxAge.toMillis()) {
-        log.info(
-            String.format(
-                "deleting runtime '%s', exceeded max lifetime @ %s (>%s)",
-                runtimeId, formatDuration(age), formatDuration(maxAge)));
-        activeDeletes++;
-      } else if (isIdle && age.toMillis() > idleMaxAge.toMillis()) {
-        log.info(
-            String.format(
-                "deleting runtime '%s', idle with age %s (>%s)",
-                runtimeId, formatDuration(age), formatDuration(idleMaxAge)));
-        unusedDeletes++;
-      } else {
-        // Don't delete.
-        continue;
-      }
-      try {
-        runtimesApi.deleteRuntime(
-            runtime.getGoogleProject(), runtime.getRuntimeName(), /* includeDisk */ false);
-      } catch (ApiException e) {
-        log.log(Level.WARNING, String.format("failed to delete runtime '%s'", runtimeId), e);
-        errors++;
-      }
+    final List<RuntimeCheckResult> results = new ArrayList<>();
+    final ExecutorService executor = newSweepExecutor();
+    try {
+      sweep(
+          RUNTIMES_SWEEP_NAME,
+          getResumableCheckpoint(RUNTIMES_SWEEP_NAME, now),
+          now,
+          listRuntimeResponses,
+          r -> r.getGoogleProject() + "/" + r.getRuntimeName(),
+          batch -> {
+            final List<Future<RuntimeCheckResult>> batchResults =
+                batch.stream()
+                    .map(
+                        r ->
+                            executor.submit(
+                                () -> checkRuntime(runtimesApi, r, now, maxAge, idleMaxAge)))
+                    .collect(Collectors.toList());
+            batchResults.forEach(f -> results.add(ConcurrencyUtils.getUnchecked(f)));
+          });
+    } finally {
+      executor.shutdown();
     }
+
+    final int errors = (int) results.stream().filter(r -> r.error).count();
+    final int idles = (int) results.stream().filter(r -> r.idle).count();
+    final int activeDeletes =
+        (int) results.stream().filter(r -> r.deletion == RuntimeDeletion.MAX_AGE).count();
+    final int unusedDeletes =
+        (int) results.stream().filter(r -> r.deletion == RuntimeDeletion.IDLE).count();
     log.info(
         String.format(
             "deleted %d old runtimes and %d idle runtimes (with %d errors) "
-                + "of %d total runtimes (%d of which were idle)",
-            activeDeletes, unusedDeletes, errors, listRuntimeResponses.size(), idles));
+                + "of %d checked runtimes (%d of which were idle)",
+            activeDeletes, unusedDeletes, errors, results.size(), idles));
     if (errors > 0) {
       throw new ServerErrorException(String.format("%d runtime deletion calls failed", errors));
     }
     return ResponseEntity.noContent().build();
   }
 
+  private enum RuntimeDeletion {
+    NONE,
+    MAX_AGE,
+    IDLE
+  }
+
+  private static class RuntimeCheckResult {
+    private final boolean idle;
+    private final RuntimeDeletion deletion;
+    private final boolean error;
+
+    private RuntimeCheckResult(boolean idle, RuntimeDeletion deletion, boolean error) {
+      this.idle = idle;
+      this.deletion = deletion;
+      this.error = error;
+    }
+  }
+
+  // Runs on a sweep executor thread, so it only calls Leonardo.
+  private RuntimeCheckResult checkRuntime(
+      RuntimesApi runtimesApi,
+      LeonardoListRuntimeResponse listRuntimeResponse,
+      Instant now,
+      Duration maxAge,
+      Duration idleMaxAge) {
+    final String runtimeId =
+        listRuntimeResponse.getGoogleProject() + "/" + listRuntimeResponse.getRuntimeName();
+    final LeonardoGetRuntimeResponse runtime;
+    try {
+      // Refetch the runtime to ensure freshness as this iteration may take
+      // some time.
+      sweepRateLimiter.acquire();
+      runtime =
+          runtimesApi.getRuntime(
+              listRuntimeResponse.getGoogleProject(), listRuntimeResponse.getRuntimeName());
+    } catch (ApiException e) {
+      log.log(Level.WARNING, String.format("failed to refetch runtime '%s'", runtimeId), e);
+      return new RuntimeCheckResult(false, RuntimeDeletion.NONE, true);
+    }
+    if (LeonardoRuntimeStatus.UNKNOWN.equals(runtime.getStatus()) || runtime.getStatus() == null) {
+      log.warning(String.format("unknown runtime status for runtime '%s'", runtimeId));
+      return new RuntimeCheckResult(false, RuntimeDeletion.NONE, false);
+    }
+    if (!LeonardoRuntimeStatus.RUNNING.equals(runtime.getStatus())
+        && !LeonardoRuntimeStatus.STOPPED.equals(runtime.getStatus())) {
+      // For now, we only handle running or stopped (suspended) runtimes.
+      return new RuntimeCheckResult(false, RuntimeDeletion.NONE, false);
+    }
+
+    final Instant lastUsed = Instant.parse(runtime.getAuditInfo().getDateAccessed());
+    final boolean isIdle = Duration.between(lastUsed, now).toHours() > IDLE_AFTER_HOURS;
+
+    final Instant created = Instant.parse(runtime.getAuditInfo().getCreatedDate());
+    final Duration age = Duration.between(created, now);
+    final RuntimeDeletion deletion;
+    if (age.toMillis() > maxAge.toMillis()) {
+      log.info(
+          String.format(
+              "deleting runtime '%s', exceeded max lifetime @ %s (>%s)",
+              runtimeId, formatDuration(age), formatDuration(maxAge)));
+      deletion = RuntimeDeletion.MAX_AGE;
+    } else if (isIdle && age.toMillis() > idleMaxAge.toMillis()) {
+      log.info(
+          String.format(
+              "deleting runtime '%s', idle with age %s (>%s)",
+              runtimeId, formatDuration(age), formatDuration(idleMaxAge)));
+      deletion = RuntimeDeletion.IDLE;
+    } else {
+      // Don't delete.
+      return new RuntimeCheckResult(isIdle, RuntimeDeletion.NONE, false);
+    }
+    try {
+      sweepRateLimiter.acquire();
+      runtimesApi.deleteRuntime(
+          runtime.getGoogleProject(), runtime.getRuntimeName(), /* includeDisk */ false);
+    } catch (ApiException e) {
+      log.log(Level.WARNING, String.format("failed to delete runtime '%s'", runtimeId), e);
+      return new RuntimeCheckResult(isIdle, deletion, true);
+    }
+    return new RuntimeCheckResult(isIdle, deletion, false);
+  }
+
   private static String formatDuration(Duration d) {
     if ((d.toHours() % 24) == 0) {
       return String.format("%dd", d.toDays());
@@ -206,6 +290,12 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
     return String.format("%dd %dh", d.toDays(), d.toHours() % 24);
   }
 
+  /**
+   * Notifies the owners of persistent disks which have gone unused for one of the notification
+   * thresholds. If the disks can't all be handled within SWEEP_TIME_BUDGET, the next run resumes
+   * where this one stopped, computing the days unused as of the interrupted run so that the
+   * remaining disks still get their notifications.
+   */
   @Override
   public ResponseEntity<Void> checkPersistentDisks() {
     // Fetch disks as the service, which gets all disks for all workspaces.
@@ -219,73 +309,187 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
       throw new ServerErrorException("listDisks failed", e);
     }
 
-    // Bucket disks by days since last access.
-    final Instant now = clock.instant();
-    Map<Integer, List<LeonardoListPersistentDiskResponse>> disksByDaysUnused =
-        disks.stream()
-            .filter(disk -> LeonardoDiskStatus.READY.equals(disk.getStatus()))
-            .collect(
-                Collectors.groupingBy(
-                    disk -> {
-                      Instant lastAccessed = Instant.parse(disk.getAuditInfo().getDateAccessed());
-                      return (int) Duration.between(lastAccessed, now).toDays();
-                    }));
-
-    // Dispatch notifications if any disks are the right number of days old.
-    int notifySuccess = 0;
-    int notifySkip = 0;
-    int notifyFail = 0;
-    Exception lastException = null;
-    for (int daysUnused : disksByDaysUnused.keySet()) {
+    final Optional<DbOfflineSweepCheckpoint> checkpoint =
+        getResumableCheckpoint(DISKS_SWEEP_NAME, clock.instant());
+    final Instant now =
+        checkpoint.map(c -> c.getSweepStartTime().toInstant()).orElseGet(clock::instant);
+
+    // Find disks which are the right number of days old for a notification.
+    final Map<LeonardoListPersistentDiskResponse, Integer> daysUnusedByDisk =
+        new IdentityHashMap<>();
+    for (LeonardoListPersistentDiskResponse disk : disks) {
+      if (!LeonardoDiskStatus.READY.equals(disk.getStatus())) {
+        continue;
+      }
+      Instant lastAccessed = Instant.parse(disk.getAuditInfo().getDateAccessed());
+      final int daysUnused = (int) Duration.between(lastAccessed, now).toDays();
       if (daysUnused <= 0) {
         // Our periodic notifications should not trigger on day 0.
         continue;
       }
-
       if (!INACTIVE_DISK_NOTIFY_THRESHOLDS_DAYS.contains(daysUnused)
           && daysUnused % INACTIVE_DISK_NOTIFY_PERIOD_DAYS != 0) {
         continue;
       }
+      daysUnusedByDisk.put(disk, daysUnused);
+    }
 
-      for (LeonardoListPersistentDiskResponse disk : disksByDaysUnused.get(daysUnused)) {
-        try {
-          if (notifyForUnusedDisk(disk, daysUnused)) {
-            notifySuccess++;
-          } else {
-            notifySkip++;
-          }
-        } catch (MessagingException e) {
-          log.log(
-              Level.WARNING,
-              String.format(
-                  "failed to send notification for disk '%s/%s'",
-                  disk.getGoogleProject(), disk.getName()),
-              e);
-          lastException = e;
-          notifyFail++;
-        }
-      }
+    // Dispatch notifications.
+    final AtomicInteger notifySuccess = new AtomicInteger();
+    final AtomicInteger notifySkip = new AtomicInteger();
+    final AtomicInteger notifyFail = new AtomicInteger();
+    final AtomicReference<Exception> lastException = new AtomicReference<>();
+    final ExecutorService executor = newSweepExecutor();
+    try {
+      sweep(
+          DISKS_SWEEP_NAME,
+          checkpoint,
+          now,
+          new ArrayList<>(daysUnusedByDisk.keySet()),
+          disk -> disk.getGoogleProject() + "/" + disk.getName(),
+          batch -> {
+            // Only the Terra ACL lookups run concurrently. The database lookups and emails stay
+            // on this thread.
+            final Map<LeonardoListPersistentDiskResponse, Optional<DbWorkspace>> workspaceByDisk =
+                new IdentityHashMap<>();
+            final Map<LeonardoListPersistentDiskResponse, Future<FirecloudWorkspaceACL>>
+                aclByDisk = new IdentityHashMap<>();
+            for (LeonardoListPersistentDiskResponse disk : batch) {
+              final Optional<DbWorkspace> workspace =
+                  workspaceDao.getByGoogleProject(disk.getGoogleProject());
+              workspaceByDisk.put(disk, workspace);
+              workspace.ifPresent(
+                  w ->
+                      aclByDisk.put(
+                          disk,
+                          executor.submit(
+                              ConcurrencyUtils.withRequestAttributes(
+                                  () -> {
+                                    sweepRateLimiter.acquire();
+                                    return fireCloudService.getWorkspaceAclAsService(
+                                        w.getWorkspaceNamespace(), w.getFirecloudName());
+                                  }))));
+            }
+            for (LeonardoListPersistentDiskResponse disk : batch) {
+              try {
+                if (notifyForUnusedDisk(
+                    disk,
+                    daysUnusedByDisk.get(disk),
+                    workspaceByDisk.get(disk),
+                    aclByDisk.get(disk))) {
+                  notifySuccess.incrementAndGet();
+                } else {
+                  notifySkip.incrementAndGet();
+                }
+              } catch (MessagingException e) {
+                log.log(
+                    Level.WARNING,
+                    String.format(
+                        "failed to send notification for disk '%s/%s'",
+                        disk.getGoogleProject(), disk.getName()),
+                    e);
+                lastException.set(e);
+                notifyFail.incrementAndGet();
+              }
+            }
+          });
+    } finally {
+      executor.shutdown();
     }
 
     log.info(
         String.format(
             "sent %d notifications successfully (%d skipped, %d failed)",
-            notifySuccess, notifySkip, notifyFail));
-    if (lastException != null) {
+            notifySuccess.get(), notifySkip.get(), notifyFail.get()));
+    if (lastException.get() != null) {
       throw new ServerErrorException(
           String.format(
               "%d/%d disk notifications failed to send, see logs for details",
-              notifyFail, notifySuccess + notifyFail + notifySkip),
-          lastException);
+              notifyFail.get(), notifySuccess.get() + notifyFail.get() + notifySkip.get()),
+          lastException.get());
     }
 
     return ResponseEntity.noContent().build();
   }
 
+  private Optional<DbOfflineSweepCheckpoint> getResumableCheckpoint(String sweepName, Instant now) {
+    return offlineSweepCheckpointDao
+        .findById(sweepName)
+        .filter(c -> c.getSweepStartTime().toInstant().isAfter(now.minus(MAX_CHECKPOINT_AGE)));
+  }
+
+  /**
+   * Checks the items in batches, in order of their keys, starting after the checkpoint if there is
+   * one. A checkpoint is saved after each batch. Stops once SWEEP_TIME_BUDGET has elapsed, leaving
+   * the checkpoint for the next run; otherwise deletes it once every item has been checked.
+   */
+  private <T> void sweep(
+      String sweepName,
+      Optional<DbOfflineSweepCheckpoint> checkpoint,
+      Instant now,
+      List<T> items,
+      Function<T, String> getKey,
+      Consumer<List<T>> checkBatch) {
+    final Optional<String> resumeAfter = checkpoint.map(DbOfflineSweepCheckpoint::getResumeAfter);
+    // A resumed sweep keeps its original start time, so that MAX_CHECKPOINT_AGE bounds the whole
+    // sweep rather than each run of it.
+    final Timestamp sweepStartTime =
+        checkpoint
+            .map(DbOfflineSweepCheckpoint::getSweepStartTime)
+            .orElseGet(() -> Timestamp.from(now));
+    final List<T> remainingItems =
+        items.stream()
+            .filter(item -> resumeAfter.map(k -> getKey.apply(item).compareTo(k) > 0).orElse(true))
+            .sorted(Comparator.comparing(getKey))
+            .collect(Collectors.toList());
+    resumeAfter.ifPresent(
+        k ->
+            log.info(
+                String.format(
+                    "resuming %s sweep after '%s', %d of %d items remain",
+                    sweepName, k, remainingItems.size(), items.size())));
+
+    final Instant deadline = clock.instant().plus(SWEEP_TIME_BUDGET);
+    for (List<T> batch : Lists.partition(remainingItems, getSweepConcurrency())) {
+      if (clock.instant().isAfter(deadline)) {
+        log.warning(
+            String.format(
+                "%s sweep ran out of time, the next run will resume before '%s'",
+                sweepName, getKey.apply(batch.get(0))));
+        return;
+      }
+      checkBatch.accept(batch);
+      offlineSweepCheckpointDao.save(
+          new DbOfflineSweepCheckpoint()
+              .setSweepName(sweepName)
+              .setSweepStartTime(sweepStartTime)
+              .setResumeAfter(getKey.apply(Iterables.getLast(batch))));
+    }
+    if (offlineSweepCheckpointDao.existsById(sweepName)) {
+      offlineSweepCheckpointDao.deleteById(sweepName);
+    }
+  }
+
+  private int getSweepConcurrency() {
+    return Optional.ofNullable(configProvider.get().offlineBatch.runtimeSweepConcurrency)
+        .filter(n -> n > 0)
+        .orElse(DEFAULT_SWEEP_CONCURRENCY);
+  }
+
+  private ExecutorService newSweepExecutor() {
+    Optional.ofNullable(configProvider.get().offlineBatch.runtimeSweepRequestsPerSecond)
+        .filter(rate -> rate > 0)
+        .ifPresent(sweepRateLimiter::setRate);
+    return ConcurrencyUtils.newFixedDaemonThreadPool("offline-runtime", getSweepConcurrency());
+  }
+
   // Returns true if an email is sent.
-  private boolean notifyForUnusedDisk(LeonardoListPersistentDiskResponse disk, int daysUnused)
+  private boolean notifyForUnusedDisk(
+      LeonardoListPersistentDiskResponse disk,
+      int daysUnused,
+      Optional<DbWorkspace> workspace,
+      Future<FirecloudWorkspaceACL> workspaceAcl)
       throws MessagingException {
-    Optional<DbWorkspace> workspace = workspaceDao.getByGoogleProject(disk.getGoogleProject());
     if (!workspace.isPresent()) {
       log.warning(
           String.format(
@@ -295,9 +499,7 @@ public class OfflineRuntimeController implements OfflineRuntimeApiDelegate {
     }
 
     // Lookup the owners and disk creators.
-    FirecloudWorkspaceACL acl =
-        fireCloudService.getWorkspaceAclAsService(
-            workspace.get().getWorkspaceNamespace(), workspace.get().getFirecloudName());
+    FirecloudWorkspaceACL acl = ConcurrencyUtils.getUnchecked(workspaceAcl);
     List<String> notifyUsernames =
         acl.getAcl().entrySet().stream()
             .filter(
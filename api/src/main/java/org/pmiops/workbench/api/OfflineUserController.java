@@ -37,7 +37,7 @@ public class OfflineUserController implements OfflineUserApiDelegate {
 
   @Override
   public ResponseEntity<Void> sendAccessExpirationEmails() {
-    userService.getAllUsers().forEach(userService::maybeSendAccessExpirationEmail);
+    userService.sendAccessExpirationEmails(userService.getAllUsers());
     return ResponseEntity.noContent().build();
   }
 }
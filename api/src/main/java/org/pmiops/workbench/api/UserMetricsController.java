@@ -7,13 +7,15 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Streams;
 import com.google.common.primitives.Longs;
-import java.util.AbstractMap;
-import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -34,8 +36,10 @@ import org.pmiops.workbench.model.RecentResourceRequest;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
 import org.pmiops.workbench.model.WorkspaceResource;
 import org.pmiops.workbench.model.WorkspaceResourceResponse;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.pmiops.workbench.workspaces.WorkspaceAuthService;
 import org.pmiops.workbench.workspaces.resources.UserRecentResourceService;
+import org.pmiops.workbench.workspaces.resources.UserRecentResourcesCache;
 import org.pmiops.workbench.workspaces.resources.WorkspaceResourceMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -45,6 +49,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserMetricsController implements UserMetricsApiDelegate {
 
   private static final int MAX_RECENT_NOTEBOOKS = 8;
+  private static final int FIRECLOUD_FETCH_CONCURRENCY = 5;
 
   private static final Logger log = Logger.getLogger(UserMetricsController.class.getName());
 
@@ -59,6 +64,10 @@ public class UserMetricsController implements UserMetricsApiDelegate {
   private final DataSetService dataSetService;
   private final CohortService cohortService;
   private final CohortReviewService cohortReviewService;
+  private final UserRecentResourcesCache userRecentResourcesCache;
+  private final ExecutorService firecloudExecutor =
+      ConcurrencyUtils.newFixedDaemonThreadPool(
+          "recent-resources-firecloud", FIRECLOUD_FETCH_CONCURRENCY);
 
   private int distinctWorkspaceLimit = 5;
 
@@ -72,6 +81,7 @@ public class UserMetricsController implements UserMetricsApiDelegate {
       FireCloudService fireCloudService,
       Provider<DbUser> userProvider,
       UserRecentResourceService userRecentResourceService,
+      UserRecentResourcesCache userRecentResourcesCache,
       WorkspaceAuthService workspaceAuthService,
       WorkspaceDao workspaceDao,
       WorkspaceResourceMapper workspaceResourceMapper) {
@@ -83,6 +93,7 @@ public class UserMetricsController implements UserMetricsApiDelegate {
     this.fireCloudService = fireCloudService;
     this.userProvider = userProvider;
     this.userRecentResourceService = userRecentResourceService;
+    this.userRecentResourcesCache = userRecentResourcesCache;
     this.workspaceAuthService = workspaceAuthService;
     this.workspaceDao = workspaceDao;
     this.workspaceResourceMapper = workspaceResourceMapper;
@@ -135,7 +146,14 @@ public class UserMetricsController implements UserMetricsApiDelegate {
   /** Gets the list of all resources recently access by user in order of access date time */
   @Override
   public ResponseEntity<WorkspaceResourceResponse> getUserRecentResources() {
-    long userId = userProvider.get().getUserId();
+    final long userId = userProvider.get().getUserId();
+    final WorkspaceResourceResponse recentResponse = new WorkspaceResourceResponse();
+    recentResponse.addAll(
+        userRecentResourcesCache.get(userId, () -> loadUserRecentResources(userId)));
+    return ResponseEntity.ok(recentResponse);
+  }
+
+  private List<WorkspaceResource> loadUserRecentResources(long userId) {
     List<DbUserRecentlyModifiedResource> userRecentlyModifiedResourceList =
         userRecentResourceService.findAllRecentlyModifiedResourcesByUser(userId);
 
@@ -147,34 +165,12 @@ public class UserMetricsController implements UserMetricsApiDelegate {
             .collect(Collectors.toList());
 
     final Map<Long, DbWorkspace> idToDbWorkspace =
-        workspaceIdList.stream()
-            .map(
-                id ->
-                    workspaceDao
-                        .findActiveByWorkspaceId(id)
-                        .map(
-                            dbWorkspace ->
-                                new AbstractMap.SimpleImmutableEntry<>(
-                                    dbWorkspace.getWorkspaceId(), dbWorkspace)))
-            .flatMap(Streams::stream)
-            .collect(
-                ImmutableMap.toImmutableMap(
-                    SimpleImmutableEntry::getKey, SimpleImmutableEntry::getValue));
+        workspaceDao.findAllByWorkspaceIdIn(workspaceIdList).stream()
+            .filter(DbWorkspace::isActive)
+            .collect(ImmutableMap.toImmutableMap(DbWorkspace::getWorkspaceId, w -> w));
 
     final Map<Long, FirecloudWorkspaceResponse> idToFirecloudWorkspace =
-        idToDbWorkspace.entrySet().stream()
-            .map(
-                entry ->
-                    fireCloudService
-                        .getWorkspace(entry.getValue())
-                        .map(
-                            workspaceResponse ->
-                                new AbstractMap.SimpleImmutableEntry<>(
-                                    entry.getKey(), workspaceResponse)))
-            .flatMap(Streams::stream)
-            .collect(
-                ImmutableMap.toImmutableMap(
-                    SimpleImmutableEntry::getKey, SimpleImmutableEntry::getValue));
+        getFirecloudWorkspaces(idToDbWorkspace);
 
     final ImmutableList<DbUserRecentlyModifiedResource> workspaceFilteredResources =
         userRecentlyModifiedResourceList.stream()
@@ -203,15 +199,36 @@ public class UserMetricsController implements UserMetricsApiDelegate {
                 .limit(MAX_RECENT_NOTEBOOKS)
                 .collect(Collectors.toList()));
 
-    final ImmutableList<WorkspaceResource> userVisibleRecentResources =
-        workspaceFilteredResources.stream()
-            .filter(urr -> foundBlobIdsContainsUserRecentlyModifiedResource(foundBlobIds, urr))
-            .map(urr -> toWorkspaceResource(idToDbWorkspace, idToFirecloudWorkspace, urr))
-            .collect(ImmutableList.toImmutableList());
-    final WorkspaceResourceResponse recentResponse = new WorkspaceResourceResponse();
-    recentResponse.addAll(userVisibleRecentResources);
+    return workspaceFilteredResources.stream()
+        .filter(urr -> foundBlobIdsContainsUserRecentlyModifiedResource(foundBlobIds, urr))
+        .map(urr -> toWorkspaceResource(idToDbWorkspace, idToFirecloudWorkspace, urr))
+        .collect(ImmutableList.toImmutableList());
+  }
 
-    return ResponseEntity.ok(recentResponse);
+  /**
+   * Fetches the FireCloud workspaces concurrently. Workspaces which FireCloud can't return, e.g.
+   * because the user has lost access, are left out of the result.
+   */
+  private Map<Long, FirecloudWorkspaceResponse> getFirecloudWorkspaces(
+      Map<Long, DbWorkspace> idToDbWorkspace) {
+    final Map<Long, Future<Optional<FirecloudWorkspaceResponse>>> pendingWorkspaces =
+        new LinkedHashMap<>();
+    idToDbWorkspace.forEach(
+        (id, dbWorkspace) -> {
+          final Callable<Optional<FirecloudWorkspaceResponse>> fetchWorkspace =
+              () -> fireCloudService.getWorkspace(dbWorkspace);
+          pendingWorkspaces.put(
+              id,
+              firecloudExecutor.submit(ConcurrencyUtils.withRequestAttributes(fetchWorkspace)));
+        });
+
+    final ImmutableMap.Builder<Long, FirecloudWorkspaceResponse> idToFirecloudWorkspace =
+        ImmutableMap.builder();
+    pendingWorkspaces.forEach(
+        (id, pending) ->
+            ConcurrencyUtils.getUnchecked(pending)
+                .ifPresent(response -> idToFirecloudWorkspace.put(id, response)));
+    return idToFirecloudWorkspace.build();
   }
 
   private boolean foundBlobIdsContainsUserRecentlyModifiedResource(
@@ -455,7 +455,7 @@ public class WorkspacesController implements WorkspacesApiDelegate {
         workspaceNamespace, workspaceId, WorkspaceAccessLevel.OWNER);
     Workspace workspace = request.getWorkspace();
     FirecloudWorkspaceDetails fcWorkspace =
-        fireCloudService.getWorkspace(workspaceNamespace, workspaceId).getWorkspace();
+        workspaceAuthService.getFirecloudWorkspace(workspaceNamespace, workspaceId).getWorkspace();
     if (workspace == null) {
       throw new BadRequestException("No workspace provided in request");
     }
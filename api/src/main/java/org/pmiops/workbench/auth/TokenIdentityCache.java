@@ -0,0 +1,112 @@
+package org.pmiops.workbench.auth;
+
+import com.google.api.services.oauth2.model.Userinfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+import org.pmiops.workbench.auth.UserAuthentication.UserType;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches the identity which AuthInterceptor resolves from a bearer token, so that repeat requests
+ * with the same token skip the OAuth2 userinfo call (and the FireCloud lookup for pet service
+ * accounts). Entries are keyed by a SHA-256 hash of the token, so raw tokens are never held.
+ *
+ * <p>An entry lives for at most TTL, and never past the expiry of its token. Only the user ID is
+ * cached, not the user row: callers reload the user on every request, so a disabled user is
+ * rejected immediately, and should then drop the user's entries with {@link #invalidateUser}.
+ */
+@Service
+public class TokenIdentityCache implements GaugeDataCollector {
+  static final Duration TTL = Duration.ofMinutes(5);
+  private static final long MAX_ENTRIES = 10_000;
+
+  private final Clock clock;
+  private final Cache<HashCode, CachedIdentity> identitiesByTokenHash =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_ENTRIES)
+          .expireAfterWrite(TTL)
+          .recordStats()
+          .build();
+
+  public TokenIdentityCache(Clock clock) {
+    this.clock = clock;
+  }
+
+  /** The identity resolved from a token: who the token belongs to, and which user it acts as. */
+  public static class CachedIdentity {
+    private final Userinfo userInfo;
+    private final long userId;
+    private final UserType userType;
+    private final Instant expiresAt;
+
+    private CachedIdentity(Userinfo userInfo, long userId, UserType userType, Instant expiresAt) {
+      this.userInfo = userInfo;
+      this.userId = userId;
+      this.userType = userType;
+      this.expiresAt = expiresAt;
+    }
+
+    public Userinfo getUserInfo() {
+      return userInfo;
+    }
+
+    public long getUserId() {
+      return userId;
+    }
+
+    public UserType getUserType() {
+      return userType;
+    }
+  }
+
+  public Optional<CachedIdentity> get(String token) {
+    final HashCode tokenHash = hash(token);
+    final CachedIdentity identity = identitiesByTokenHash.getIfPresent(tokenHash);
+    if (identity == null) {
+      return Optional.empty();
+    }
+    if (!clock.instant().isBefore(identity.expiresAt)) {
+      identitiesByTokenHash.invalidate(tokenHash);
+      return Optional.empty();
+    }
+    return Optional.of(identity);
+  }
+
+  /**
+   * Caches the identity for the token until TTL elapses or the token expires, whichever is first.
+   */
+  public void put(
+      String token, Userinfo userInfo, long userId, UserType userType, Duration tokenExpiresIn) {
+    final Duration ttl = tokenExpiresIn.compareTo(TTL) < 0 ? tokenExpiresIn : TTL;
+    if (ttl.isNegative() || ttl.isZero()) {
+      return;
+    }
+    identitiesByTokenHash.put(
+        hash(token), new CachedIdentity(userInfo, userId, userType, clock.instant().plus(ttl)));
+  }
+
+  /** Drops every cached token of the user, e.g. when they are disabled. */
+  public void invalidateUser(long userId) {
+    identitiesByTokenHash.asMap().values().removeIf(identity -> identity.userId == userId);
+  }
+
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    return CacheMetrics.getGaugeData("auth_token_identity", identitiesByTokenHash);
+  }
+
+  private static HashCode hash(String token) {
+    return Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+  }
+}
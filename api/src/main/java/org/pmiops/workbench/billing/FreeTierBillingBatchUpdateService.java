@@ -1,19 +1,39 @@
 package org.pmiops.workbench.billing;
 
+import com.google.cloud.bigquery.FieldValue;
 import com.google.cloud.bigquery.FieldValueList;
 import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Range;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import javax.inject.Provider;
 import org.pmiops.workbench.api.BigQueryService;
 import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.db.dao.BillingProjectCostDao;
+import org.pmiops.workbench.db.dao.BillingProjectDailyCostDao;
+import org.pmiops.workbench.db.dao.BillingProjectDailyCostDao.ProjectCostTotal;
 import org.pmiops.workbench.db.dao.UserDao;
+import org.pmiops.workbench.db.model.DbBillingProjectCost;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCost;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCostKey;
 import org.pmiops.workbench.db.model.DbUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -30,11 +50,24 @@ public class FreeTierBillingBatchUpdateService {
       Logger.getLogger(FreeTierBillingBatchUpdateService.class.getName());
 
   private final UserDao userDao;
+  private final BillingProjectCostDao billingProjectCostDao;
+  private final BillingProjectDailyCostDao billingProjectDailyCostDao;
   private final FreeTierBillingService freeTierBillingService;
   private final Provider<WorkbenchConfig> workbenchConfigProvider;
+  private final Clock clock;
 
   private final BigQueryService bigQueryService;
 
+  // Matches the tolerance of CostComparisonUtils, which FreeTierBillingService compares costs with
+  private static final double COST_TOLERANCE = 0.000001;
+  // Matches FreeTierBillingService, which stops updating the usage of workspaces deleted longer ago
+  private static final long DELETED_WORKSPACE_UPDATE_MONTHS = 6;
+  // Matches FreeTierBillingService's default for billing.minutesBeforeLastFreeTierJob
+  private static final int DEFAULT_MINUTES_BEFORE_LAST_FREE_TIER_JOB = 120;
+  // Rows can become visible in the billing export after rows with later export_times, so each run
+  // also re-aggregates the daily partitions up to this long before the watermark.
+  private static final Duration EXPORT_TIME_OVERLAP = Duration.ofDays(1);
+
   private static final int MIN_USERS_BATCH = 5;
   private static final int MAX_USERS_BATCH = 999;
   public static final Range<Integer> batchSizeRange =
@@ -43,12 +76,18 @@ public class FreeTierBillingBatchUpdateService {
   @Autowired
   public FreeTierBillingBatchUpdateService(
       UserDao userDao,
+      BillingProjectCostDao billingProjectCostDao,
+      BillingProjectDailyCostDao billingProjectDailyCostDao,
       FreeTierBillingService freeTierBillingService,
       Provider<WorkbenchConfig> workbenchConfigProvider,
+      Clock clock,
       BigQueryService bigQueryService) {
     this.userDao = userDao;
+    this.billingProjectCostDao = billingProjectCostDao;
+    this.billingProjectDailyCostDao = billingProjectDailyCostDao;
     this.freeTierBillingService = freeTierBillingService;
     this.workbenchConfigProvider = workbenchConfigProvider;
+    this.clock = clock;
     this.bigQueryService = bigQueryService;
   }
 
@@ -59,6 +98,12 @@ public class FreeTierBillingBatchUpdateService {
   public void checkFreeTierBillingUsage() {
     logger.info("Checking Free Tier Billing usage - start");
 
+    if (Boolean.TRUE.equals(workbenchConfigProvider.get().billing.incrementalCostIngestion)) {
+      checkFreeTierBillingUsageIncrementally();
+      logger.info("Checking Free Tier Billing usage - finish");
+      return;
+    }
+
     Iterable<DbUser> freeTierActiveWorkspaceCreators = userDao.findAll();
     long numberOfUsers = Iterators.size(freeTierActiveWorkspaceCreators.iterator());
     int count = 0;
@@ -81,6 +126,132 @@ public class FreeTierBillingBatchUpdateService {
     logger.info("Checking Free Tier Billing usage - finish");
   }
 
+  /**
+   * Like {@link #checkFreeTierBillingUsage()}, but only re-aggregates the billing export partitions
+   * written since the last run, and recomputes the totals in billing_project_cost of the projects
+   * with rows in them. Only the creators of workspaces whose total changed since it was last passed
+   * to FreeTierBillingService are then checked, in batches, rather than every user.
+   */
+  private void checkFreeTierBillingUsageIncrementally() {
+    final Instant partitionsFrom =
+        billingProjectCostDao
+            .getWatermark()
+            .map(
+                watermark ->
+                    watermark.toInstant().minus(EXPORT_TIME_OVERLAP).truncatedTo(ChronoUnit.DAYS))
+            .orElse(Instant.EPOCH);
+    final int projectCount = recomputeCostsOfPartitionsFrom(partitionsFrom);
+    logger.info(
+        String.format(
+            "Recomputed costs of %d projects with rows in partitions from %s",
+            projectCount, partitionsFrom));
+
+    final Timestamp modifiedSince =
+        Timestamp.valueOf(LocalDateTime.now(clock).minusMonths(DELETED_WORKSPACE_UPDATE_MONTHS));
+    final Set<DbUser> creators =
+        billingProjectCostDao.findCreatorsWithUnappliedCosts(modifiedSince, COST_TOLERANCE);
+    int count = 0;
+    for (List<DbUser> usersPartition :
+        Iterables.partition(creators, freeTierCronUserBatchSizeFromConfig())) {
+      logger.info(
+          String.format(
+              "Processing users batch of size/total: %d/%d. Current iteration is: %d",
+              usersPartition.size(), creators.size(), count++));
+      final Set<DbUser> batch = new HashSet<>(usersPartition);
+      final Map<String, Double> costByProject =
+          billingProjectCostDao.getCostByProjectForCreators(batch);
+      // FreeTierBillingService skips workspaces whose usage it updated recently, so their costs
+      // are left unapplied to be passed again at the next run. It uses the system time too.
+      final Set<String> skippedProjects =
+          billingProjectCostDao.findProjectsWithUsageUpdatedAfter(
+              batch,
+              Timestamp.valueOf(
+                  LocalDateTime.now().minusMinutes(minutesBeforeLastFreeTierJobFromConfig())));
+      freeTierBillingService.checkFreeTierBillingUsageForUsers(batch, costByProject);
+      markCostsApplied(costByProject, skippedProjects);
+    }
+  }
+
+  /**
+   * Re-aggregates the daily partitions of the billing export from the given time into
+   * billing_project_daily_cost, then recomputes the totals of the projects with rows in them from
+   * their daily costs. Returns the number of projects recomputed. Each partition's sums replace the
+   * stored ones rather than being added to them, so ingesting a row twice is harmless and the
+   * partitions can overlap the previous run's.
+   */
+  private int recomputeCostsOfPartitionsFrom(Instant partitionsFrom) {
+    final QueryJobConfiguration queryConfig =
+        QueryJobConfiguration.newBuilder(
+                "SELECT id, _PARTITIONTIME partition_time, SUM(cost) cost, "
+                    + "MAX(export_time) last_export_time FROM `"
+                    + workbenchConfigProvider.get().billing.exportBigQueryTable
+                    + "` WHERE _PARTITIONTIME >= @partitionsFrom AND id IS NOT NULL "
+                    + "GROUP BY id, partition_time")
+            .addNamedParameter(
+                "partitionsFrom",
+                QueryParameterValue.timestamp(
+                    ChronoUnit.MICROS.between(Instant.EPOCH, partitionsFrom)))
+            .build();
+
+    final Map<DbBillingProjectDailyCostKey, FieldValueList> rowsByKey = new HashMap<>();
+    for (FieldValueList tableRow : bigQueryService.executeQuery(queryConfig).getValues()) {
+      rowsByKey.put(
+          new DbBillingProjectDailyCostKey(
+              tableRow.get("id").getStringValue(), toTimestamp(tableRow.get("partition_time"))),
+          tableRow);
+    }
+    if (rowsByKey.isEmpty()) {
+      return 0;
+    }
+
+    final Map<DbBillingProjectDailyCostKey, DbBillingProjectDailyCost> dailyCostsByKey =
+        StreamSupport.stream(
+                billingProjectDailyCostDao.findAllById(rowsByKey.keySet()).spliterator(), false)
+            .collect(Collectors.toMap(DbBillingProjectDailyCost::getKey, Function.identity()));
+    for (Map.Entry<DbBillingProjectDailyCostKey, FieldValueList> entry : rowsByKey.entrySet()) {
+      final FieldValueList tableRow = entry.getValue();
+      dailyCostsByKey
+          .computeIfAbsent(entry.getKey(), k -> new DbBillingProjectDailyCost().setKey(k))
+          .setCost(tableRow.get("cost").getDoubleValue())
+          .setLastExportTime(toTimestamp(tableRow.get("last_export_time")));
+    }
+    billingProjectDailyCostDao.saveAll(dailyCostsByKey.values());
+
+    final Set<String> projects =
+        rowsByKey.keySet().stream()
+            .map(DbBillingProjectDailyCostKey::getGoogleProject)
+            .collect(Collectors.toSet());
+    final Map<String, DbBillingProjectCost> costsByProject =
+        StreamSupport.stream(billingProjectCostDao.findAllById(projects).spliterator(), false)
+            .collect(Collectors.toMap(DbBillingProjectCost::getGoogleProject, Function.identity()));
+    for (ProjectCostTotal total : billingProjectDailyCostDao.getTotalsForProjects(projects)) {
+      costsByProject
+          .computeIfAbsent(
+              total.getGoogleProject(), p -> new DbBillingProjectCost().setGoogleProject(p))
+          .setCost(total.getCost())
+          .setLastExportTime(total.getLastExportTime());
+    }
+    billingProjectCostDao.saveAll(costsByProject.values());
+    return costsByProject.size();
+  }
+
+  private static Timestamp toTimestamp(FieldValue timestampValue) {
+    return Timestamp.from(
+        Instant.EPOCH.plus(timestampValue.getTimestampValue(), ChronoUnit.MICROS));
+  }
+
+  /** Records the costs passed to FreeTierBillingService, except those of the skipped projects. */
+  private void markCostsApplied(Map<String, Double> costByProject, Set<String> skippedProjects) {
+    final Set<String> appliedProjects = new HashSet<>(costByProject.keySet());
+    appliedProjects.removeAll(skippedProjects);
+    final List<DbBillingProjectCost> appliedCosts = new ArrayList<>();
+    for (DbBillingProjectCost projectCost : billingProjectCostDao.findAllById(appliedProjects)) {
+      appliedCosts.add(
+          projectCost.setAppliedCost(costByProject.get(projectCost.getGoogleProject())));
+    }
+    billingProjectCostDao.saveAll(appliedCosts);
+  }
+
   private Map<String, Double> getFreeTierWorkspaceCostsFromBQ() {
     final QueryJobConfiguration queryConfig =
         QueryJobConfiguration.newBuilder(
@@ -99,6 +270,11 @@ public class FreeTierBillingBatchUpdateService {
     return liveCostByWorkspace;
   }
 
+  private int minutesBeforeLastFreeTierJobFromConfig() {
+    return Optional.ofNullable(workbenchConfigProvider.get().billing.minutesBeforeLastFreeTierJob)
+        .orElse(DEFAULT_MINUTES_BEFORE_LAST_FREE_TIER_JOB);
+  }
+
   private int freeTierCronUserBatchSizeFromConfig() {
     Integer freeTierCronUserBatchSize =
         workbenchConfigProvider.get().billing.freeTierCronUserBatchSize;
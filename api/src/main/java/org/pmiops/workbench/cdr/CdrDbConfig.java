@@ -1,7 +1,17 @@
 package org.pmiops.workbench.cdr;
 
-import java.util.HashMap;
+import com.google.common.annotations.VisibleForTesting;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
@@ -9,6 +19,10 @@ import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.pmiops.workbench.db.dao.CdrVersionDao;
 import org.pmiops.workbench.db.model.DbCdrVersion;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -39,71 +53,178 @@ public class CdrDbConfig {
   private static final Logger log = Logger.getLogger(CdrDbConfig.class.getName());
 
   @Service
-  public static class CdrDataSource extends AbstractRoutingDataSource {
+  public static class CdrDataSource extends AbstractRoutingDataSource
+      implements GaugeDataCollector {
+    // CDR pools are validated and shrunk in the background, rather than by testing every borrowed
+    // connection. Connections idle for longer than POOL_IDLE_EVICTION are closed, so the pools of
+    // CDR versions which are no longer in use drain to nothing.
+    private static final Duration POOL_CLEANER_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration POOL_IDLE_EVICTION = Duration.ofMinutes(10);
+
+    private final CdrVersionDao cdrVersionDao;
+    private final PoolConfiguration basePoolConfig;
+    private final String dbUser;
+    private final String dbPassword;
+    private final String originalDbUrl;
+
+    private final Map<Long, CdrPool> poolsByCdrVersionId = new ConcurrentHashMap<>();
+
     @Autowired
     public CdrDataSource(
         CdrVersionDao cdrVersionDao,
         @Qualifier("poolConfiguration") PoolConfiguration basePoolConfig,
         @Qualifier("cdrPoolConfiguration") PoolConfiguration cdrPoolConfig) {
-      String dbUser = cdrPoolConfig.getUsername();
-      String dbPassword = cdrPoolConfig.getPassword();
-      String originalDbUrl = cdrPoolConfig.getUrl();
-
-      // Build a map of CDR version ID -> DataSource for use later, based on all the entries in the
-      // cdr_version table. Note that if new CDR versions are inserted, we need to restart the
-      // server in order for it to be used.
-      // TODO: find a way to make sure CDR versions aren't shown in the UI until they are in use by
-      // all servers.
-      Map<Object, Object> cdrVersionDataSourceMap = new HashMap<>();
-      for (DbCdrVersion cdrVersion : cdrVersionDao.findAll()) {
-        int slashIndex = originalDbUrl.lastIndexOf('/');
-        String dbUrl =
-            originalDbUrl.substring(0, slashIndex + 1)
-                + cdrVersion.getCdrDbName()
-                + "?useSSL=false";
-        DataSource dataSource =
-            DataSourceBuilder.create()
-                .driverClassName(basePoolConfig.getDriverClassName())
-                .username(dbUser)
-                .password(dbPassword)
-                .url(dbUrl)
-                .build();
-        if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
-          org.apache.tomcat.jdbc.pool.DataSource tomcatSource =
-              (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
-          // A Tomcat DataSource implements PoolConfiguration, therefore these pool parameters can
-          // normally be populated via @ConfigurationProperties. Since we are directly initializing
-          // DataSources here without a hook to @ConfigurationProperties, we instead need to
-          // explicitly initialize the pool parameters here. We override the primary connection
-          // info, as the autowired PoolConfiguration is initialized from the same set of properties
-          // as the workbench DB.
-          PoolConfiguration cdrPool = new PoolProperties();
-          BeanUtils.copyProperties(basePoolConfig, cdrPool);
-          cdrPool.setUsername(dbUser);
-          cdrPool.setPassword(dbPassword);
-          cdrPool.setUrl(dbUrl);
-          tomcatSource.setPoolProperties(cdrPool);
-
-          // The Spring autowiring is a bit of a maze here, log something concrete which will allow
-          // verification that the DB settings in application.properties are actually being loaded.
-          log.info("using Tomcat pool for CDR data source, with minIdle: " + cdrPool.getMinIdle());
-        } else {
-          log.warning(
-              "not using Tomcat pool or initializing pool configuration; "
-                  + "this should only happen within tests");
-        }
-
-        cdrVersionDataSourceMap.put(cdrVersion.getCdrVersionId(), dataSource);
-      }
+      this.cdrVersionDao = cdrVersionDao;
+      this.basePoolConfig = basePoolConfig;
+      this.dbUser = cdrPoolConfig.getUsername();
+      this.dbPassword = cdrPoolConfig.getPassword();
+      this.originalDbUrl = cdrPoolConfig.getUrl();
 
-      setTargetDataSources(cdrVersionDataSourceMap);
+      // A pool is created for each CDR version the first time a request routes to it, in
+      // determineTargetDataSource(), rather than for every row of cdr_version at startup. This
+      // also means CDR versions inserted after startup are usable without a restart.
+      setTargetDataSources(Collections.emptyMap());
       afterPropertiesSet();
     }
 
+    /** A CDR version's pool, and the time spent borrowing connections from it. */
+    private static class CdrPool {
+      private final DataSource dataSource;
+      private final LongAdder borrowCount = new LongAdder();
+      private final LongAdder borrowWaitNanos = new LongAdder();
+
+      private CdrPool(DataSource dataSource) {
+        this.dataSource = dataSource;
+      }
+
+      private void recordBorrow(long startNanos) {
+        borrowCount.increment();
+        borrowWaitNanos.add(System.nanoTime() - startNanos);
+      }
+    }
+
     @Override
     protected Object determineCurrentLookupKey() {
       return CdrVersionContext.getCdrVersion().getCdrVersionId();
     }
+
+    @Override
+    protected DataSource determineTargetDataSource() {
+      return getCurrentPool().dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      final CdrPool pool = getCurrentPool();
+      final long startNanos = System.nanoTime();
+      try {
+        return pool.dataSource.getConnection();
+      } finally {
+        pool.recordBorrow(startNanos);
+      }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      final CdrPool pool = getCurrentPool();
+      final long startNanos = System.nanoTime();
+      try {
+        return pool.dataSource.getConnection(username, password);
+      } finally {
+        pool.recordBorrow(startNanos);
+      }
+    }
+
+    private CdrPool getCurrentPool() {
+      final long cdrVersionId = CdrVersionContext.getCdrVersion().getCdrVersionId();
+      final CdrPool pool = poolsByCdrVersionId.get(cdrVersionId);
+      if (pool != null) {
+        return pool;
+      }
+      // Only create pools for CDR versions which exist, and connect to the database named by the
+      // cdr_version row rather than by the request's copy of it.
+      final DbCdrVersion cdrVersion =
+          cdrVersionDao
+              .findById(cdrVersionId)
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "Cannot determine target DataSource for unknown CDR version "
+                              + cdrVersionId));
+      return poolsByCdrVersionId.computeIfAbsent(
+          cdrVersionId, unused -> new CdrPool(createDataSource(cdrVersion)));
+    }
+
+    @VisibleForTesting
+    DataSource createDataSource(DbCdrVersion cdrVersion) {
+      int slashIndex = originalDbUrl.lastIndexOf('/');
+      String dbUrl =
+          originalDbUrl.substring(0, slashIndex + 1) + cdrVersion.getCdrDbName() + "?useSSL=false";
+      DataSource dataSource =
+          DataSourceBuilder.create()
+              .driverClassName(basePoolConfig.getDriverClassName())
+              .username(dbUser)
+              .password(dbPassword)
+              .url(dbUrl)
+              .build();
+      if (dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+        org.apache.tomcat.jdbc.pool.DataSource tomcatSource =
+            (org.apache.tomcat.jdbc.pool.DataSource) dataSource;
+        // A Tomcat DataSource implements PoolConfiguration, therefore these pool parameters can
+        // normally be populated via @ConfigurationProperties. Since we are directly initializing
+        // DataSources here without a hook to @ConfigurationProperties, we instead need to
+        // explicitly initialize the pool parameters here. We override the primary connection
+        // info, as the autowired PoolConfiguration is initialized from the same set of properties
+        // as the workbench DB.
+        PoolConfiguration cdrPool = new PoolProperties();
+        BeanUtils.copyProperties(basePoolConfig, cdrPool);
+        cdrPool.setUsername(dbUser);
+        cdrPool.setPassword(dbPassword);
+        cdrPool.setUrl(dbUrl);
+        cdrPool.setMinIdle(0);
+        cdrPool.setTestOnBorrow(false);
+        cdrPool.setTestWhileIdle(true);
+        cdrPool.setTimeBetweenEvictionRunsMillis((int) POOL_CLEANER_INTERVAL.toMillis());
+        cdrPool.setMinEvictableIdleTimeMillis((int) POOL_IDLE_EVICTION.toMillis());
+        tomcatSource.setPoolProperties(cdrPool);
+
+        // The Spring autowiring is a bit of a maze here, log something concrete which will allow
+        // verification that the DB settings in application.properties are actually being loaded.
+        log.info(
+            String.format(
+                "using Tomcat pool for CDR version %d, with initialSize: %d",
+                cdrVersion.getCdrVersionId(), cdrPool.getInitialSize()));
+      } else {
+        log.warning(
+            "not using Tomcat pool or initializing pool configuration; "
+                + "this should only happen within tests");
+      }
+      return dataSource;
+    }
+
+    @Override
+    public Collection<MeasurementBundle> getGaugeData() {
+      final List<MeasurementBundle> bundles = new ArrayList<>();
+      poolsByCdrVersionId.forEach(
+          (cdrVersionId, pool) -> {
+            final MeasurementBundle.Builder builder =
+                MeasurementBundle.builder()
+                    .addMeasurement(GaugeMetric.CDR_POOL_BORROW_COUNT, pool.borrowCount.sum())
+                    .addMeasurement(
+                        GaugeMetric.CDR_POOL_BORROW_WAIT_TIME,
+                        TimeUnit.NANOSECONDS.toMillis(pool.borrowWaitNanos.sum()))
+                    .addTag(MetricLabel.CDR_VERSION_ID, cdrVersionId.toString());
+            if (pool.dataSource instanceof org.apache.tomcat.jdbc.pool.DataSource) {
+              org.apache.tomcat.jdbc.pool.DataSource tomcatSource =
+                  (org.apache.tomcat.jdbc.pool.DataSource) pool.dataSource;
+              builder
+                  .addMeasurement(GaugeMetric.CDR_POOL_ACTIVE_CONNECTIONS, tomcatSource.getActive())
+                  .addMeasurement(GaugeMetric.CDR_POOL_IDLE_CONNECTIONS, tomcatSource.getIdle());
+            }
+            bundles.add(builder.build());
+          });
+      return bundles;
+    }
   }
 
   @Bean("cdrDataSource")
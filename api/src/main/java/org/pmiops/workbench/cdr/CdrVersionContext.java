@@ -37,6 +37,11 @@ public class CdrVersionContext {
     return version;
   }
 
+  /** @return the CDR version in context, or EMPTY if none has been set */
+  public static Optional<DbCdrVersion> maybeGetCdrVersion() {
+    return Optional.ofNullable(cdrVersion.get());
+  }
+
   /**
    * BigQueryService.getBigQueryService() operates in two modes: with and without a CDR context
    *
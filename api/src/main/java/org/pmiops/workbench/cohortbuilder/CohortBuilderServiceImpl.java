@@ -6,11 +6,20 @@ import static org.pmiops.workbench.model.FilterColumns.RACE;
 import static org.pmiops.workbench.model.FilterColumns.SEXATBIRTH;
 
 import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.QueryJobConfiguration;
 import com.google.cloud.bigquery.TableResult;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Table;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -18,6 +27,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -25,6 +36,7 @@ import java.util.stream.StreamSupport;
 import javax.inject.Provider;
 import org.jetbrains.annotations.NotNull;
 import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.cdr.CdrVersionContext;
 import org.pmiops.workbench.cdr.cache.MySQLStopWords;
 import org.pmiops.workbench.cdr.dao.CBCriteriaAttributeDao;
 import org.pmiops.workbench.cdr.dao.CBCriteriaDao;
@@ -37,7 +49,9 @@ import org.pmiops.workbench.cdr.model.DbCardCount;
 import org.pmiops.workbench.cdr.model.DbCriteria;
 import org.pmiops.workbench.cdr.model.DbCriteriaAttribute;
 import org.pmiops.workbench.cohortbuilder.mapper.CohortBuilderMapper;
+import org.pmiops.workbench.db.model.DbCdrVersion;
 import org.pmiops.workbench.db.model.DbConceptSetConceptId;
+import org.pmiops.workbench.exceptions.ServerErrorException;
 import org.pmiops.workbench.model.AgeTypeCount;
 import org.pmiops.workbench.model.CardCount;
 import org.pmiops.workbench.model.CohortDefinition;
@@ -55,6 +69,9 @@ import org.pmiops.workbench.model.FilterColumns;
 import org.pmiops.workbench.model.ParticipantDemographics;
 import org.pmiops.workbench.model.SurveyModule;
 import org.pmiops.workbench.model.SurveyVersion;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -62,10 +79,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 @Service
-public class CohortBuilderServiceImpl implements CohortBuilderService {
+public class CohortBuilderServiceImpl implements CohortBuilderService, GaugeDataCollector {
 
   private static final Integer DEFAULT_TREE_SEARCH_LIMIT = 100;
   private static final Integer DEFAULT_CRITERIA_SEARCH_LIMIT = 250;
+  private static final int MAX_CACHED_PARTICIPANT_COUNTS = 10000;
+  private static final Duration PARTICIPANT_COUNT_CACHE_EXPIRY = Duration.ofDays(1);
   private static final ImmutableList<String> MYSQL_FULL_TEXT_CHARS =
       ImmutableList.of("\"", "+", "-", "*");
   private static final List<String> CONDITION_PROCEDURE_SOURCE_DOMAINS =
@@ -96,6 +115,16 @@ public class CohortBuilderServiceImpl implements CohortBuilderService {
   private final CohortBuilderMapper cohortBuilderMapper;
   private final Provider<MySQLStopWords> mySQLStopWordsProvider;
 
+  // Participant counts by a hash of the CDR version and the generated count query. CDR data never
+  // changes within a version, so the expiry only bounds how long unused counts take up memory.
+  // Concurrent requests for the same count wait on a single BigQuery job.
+  private final Cache<HashCode, Long> participantCountCache =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_CACHED_PARTICIPANT_COUNTS)
+          .expireAfterWrite(PARTICIPANT_COUNT_CACHE_EXPIRY)
+          .recordStats()
+          .build();
+
   @Autowired
   public CohortBuilderServiceImpl(
       BigQueryService bigQueryService,
@@ -180,14 +209,48 @@ public class CohortBuilderServiceImpl implements CohortBuilderService {
 
   @Override
   public Long countParticipants(CohortDefinition cohortDefinition) {
-    TableResult result =
-        bigQueryService.filterBigQueryConfigAndExecuteQuery(
-            cohortQueryBuilder.buildParticipantCounterQuery(
-                new ParticipantCriteria(cohortDefinition)));
+    QueryJobConfiguration query =
+        cohortQueryBuilder.buildParticipantCounterQuery(new ParticipantCriteria(cohortDefinition));
+    Optional<DbCdrVersion> cdrVersion = CdrVersionContext.maybeGetCdrVersion();
+    if (!cdrVersion.isPresent()) {
+      return executeParticipantCounterQuery(query);
+    }
+    try {
+      return participantCountCache.get(
+          participantCountCacheKey(cdrVersion.get().getCdrVersionId(), query),
+          () -> executeParticipantCounterQuery(query));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new ServerErrorException("Failed to count participants", e.getCause());
+    }
+  }
+
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    return CacheMetrics.getGaugeData("cohort_participant_count", participantCountCache);
+  }
+
+  private Long executeParticipantCounterQuery(QueryJobConfiguration query) {
+    TableResult result = bigQueryService.filterBigQueryConfigAndExecuteQuery(query);
     FieldValueList row = result.iterateAll().iterator().next();
     return row.get("count").getLongValue();
   }
 
+  /**
+   * The generated query is the canonical form of a CohortDefinition: search groups have been
+   * expanded into SQL and values bound as named parameters, so equivalent definitions produce the
+   * same query. The query still has placeholders for the CDR project and dataset, which the CDR
+   * version identifies.
+   */
+  private static HashCode participantCountCacheKey(long cdrVersionId, QueryJobConfiguration query) {
+    return Hashing.sha256()
+        .newHasher()
+        .putLong(cdrVersionId)
+        .putString(query.getQuery(), StandardCharsets.UTF_8)
+        .putString(new TreeMap<>(query.getNamedParameters()).toString(), StandardCharsets.UTF_8)
+        .hash();
+  }
+
   @Override
   public List<AgeTypeCount> findAgeTypeCounts() {
     return personDao.findAgeTypeCounts().stream()
@@ -9,6 +9,7 @@ import com.google.gson.Gson;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -574,4 +575,9 @@ public class CohortReviewServiceImpl implements CohortReviewService, GaugeDataCo
             .addMeasurement(GaugeMetric.COHORT_REVIEW_COUNT, cohortReviewDao.count())
             .build());
   }
+
+  @Override
+  public Duration getGaugeRefreshInterval() {
+    return COUNT_QUERY_REFRESH_INTERVAL;
+  }
 }
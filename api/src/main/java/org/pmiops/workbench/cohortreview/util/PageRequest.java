@@ -13,6 +13,7 @@ public class PageRequest {
   private SortOrder sortOrder;
   private String sortColumn;
   private List<Filter> filters = new ArrayList<>();
+  private String continuationToken;
 
   public PageRequest page(Integer page) {
     this.page = page;
@@ -104,6 +105,25 @@ public class PageRequest {
     this.filters = filters;
   }
 
+  public PageRequest continuationToken(String continuationToken) {
+    this.continuationToken = continuationToken;
+    return this;
+  }
+
+  /**
+   * Token from a previous page of results, see {@link ParticipantCohortStatusPageToken}. When set,
+   * the page is read by seeking past the previous page's last row, and page is ignored.
+   *
+   * @return continuationToken
+   */
+  public String getContinuationToken() {
+    return continuationToken;
+  }
+
+  public void setContinuationToken(String continuationToken) {
+    this.continuationToken = continuationToken;
+  }
+
   @Override
   public boolean equals(java.lang.Object o) {
     if (this == o) {
@@ -117,12 +137,13 @@ public class PageRequest {
         && Objects.equals(this.pageSize, pageRequest.pageSize)
         && Objects.equals(this.sortOrder, pageRequest.sortOrder)
         && Objects.equals(this.sortColumn, pageRequest.sortColumn)
-        && Objects.equals(this.filters, pageRequest.filters);
+        && Objects.equals(this.filters, pageRequest.filters)
+        && Objects.equals(this.continuationToken, pageRequest.continuationToken);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(page, pageSize, sortOrder, sortColumn, filters);
+    return Objects.hash(page, pageSize, sortOrder, sortColumn, filters, continuationToken);
   }
 
   @Override
@@ -135,6 +156,7 @@ public class PageRequest {
     sb.append("    sortOrder: ").append(toIndentedString(sortOrder)).append("\n");
     sb.append("    sortColumn: ").append(toIndentedString(sortColumn)).append("\n");
     sb.append("    filters: ").append(toIndentedString(filters)).append("\n");
+    sb.append("    continuationToken: ").append(toIndentedString(continuationToken)).append("\n");
     sb.append("}");
     return sb.toString();
   }
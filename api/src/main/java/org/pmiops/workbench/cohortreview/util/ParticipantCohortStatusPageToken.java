@@ -0,0 +1,149 @@
+package org.pmiops.workbench.cohortreview.util;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.annotations.SerializedName;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.pmiops.workbench.db.model.DbStorageEnums;
+import org.pmiops.workbench.exceptions.BadRequestException;
+import org.pmiops.workbench.model.Filter;
+import org.pmiops.workbench.model.FilterColumns;
+import org.pmiops.workbench.model.ParticipantCohortStatus;
+import org.pmiops.workbench.model.SortOrder;
+
+/**
+ * Continuation token for seek (keyset) paging through a cohort review's participants. It records
+ * the sort key of the last row of a page, so the next page starts with a "where (sort column,
+ * participant_id) > last key" predicate instead of skipping over every earlier row with an offset.
+ *
+ * <p>Only non-null, numeric sort columns support seek paging. Sorting by any other column falls
+ * back to page/offset paging and never produces a token.
+ */
+public final class ParticipantCohortStatusPageToken {
+  private static final Set<String> SEEKABLE_SORT_COLUMNS =
+      ImmutableSet.of(FilterColumns.PARTICIPANTID.name(), FilterColumns.STATUS.name());
+
+  @SerializedName("c")
+  private String sortColumn;
+
+  @SerializedName("o")
+  private SortOrder sortOrder;
+
+  @SerializedName("v")
+  private long lastSortValue;
+
+  @SerializedName("p")
+  private long lastParticipantId;
+
+  @SerializedName("h")
+  private int filterHash;
+
+  private ParticipantCohortStatusPageToken(
+      String sortColumn,
+      SortOrder sortOrder,
+      long lastSortValue,
+      long lastParticipantId,
+      int filterHash) {
+    this.sortColumn = sortColumn;
+    this.sortOrder = sortOrder;
+    this.lastSortValue = lastSortValue;
+    this.lastParticipantId = lastParticipantId;
+    this.filterHash = filterHash;
+  }
+
+  public String getSortColumn() {
+    return sortColumn;
+  }
+
+  public SortOrder getSortOrder() {
+    return sortOrder;
+  }
+
+  public long getLastSortValue() {
+    return lastSortValue;
+  }
+
+  public long getLastParticipantId() {
+    return lastParticipantId;
+  }
+
+  public static boolean supportsSortColumn(String sortColumn) {
+    return SEEKABLE_SORT_COLUMNS.contains(sortColumn);
+  }
+
+  /**
+   * Returns the token for the page after the given one, or empty if the page is the last one or the
+   * request's sort column doesn't support seek paging. The request's sort column must be the
+   * FilterColumns name, before any conversion to SQL.
+   */
+  public static Optional<String> nextPageToken(
+      PageRequest pageRequest, List<ParticipantCohortStatus> page) {
+    if (!supportsSortColumn(pageRequest.getSortColumn())
+        || page.isEmpty()
+        || page.size() < pageRequest.getPageSize()) {
+      return Optional.empty();
+    }
+    final ParticipantCohortStatus last = page.get(page.size() - 1);
+    final long lastSortValue =
+        FilterColumns.STATUS.name().equals(pageRequest.getSortColumn())
+            ? DbStorageEnums.cohortStatusToStorage(last.getStatus())
+            : last.getParticipantId();
+    return Optional.of(
+        new ParticipantCohortStatusPageToken(
+                pageRequest.getSortColumn(),
+                pageRequest.getSortOrder(),
+                lastSortValue,
+                last.getParticipantId(),
+                filterHash(pageRequest.getFilters()))
+            .toBase64());
+  }
+
+  /**
+   * Decodes the request's continuation token, and checks that it was issued for the same sort and
+   * filters as the request.
+   */
+  public static ParticipantCohortStatusPageToken fromPageRequest(PageRequest pageRequest) {
+    final ParticipantCohortStatusPageToken token = fromBase64(pageRequest.getContinuationToken());
+    if (!token.sortColumn.equals(pageRequest.getSortColumn())
+        || token.sortOrder != pageRequest.getSortOrder()
+        || token.filterHash != filterHash(pageRequest.getFilters())) {
+      throw new BadRequestException(
+          "Bad Request: continuation token does not match the requested sort and filters.");
+    }
+    return token;
+  }
+
+  // Hashes the filters' string form, since enum hash codes differ between JVMs.
+  private static int filterHash(List<Filter> filters) {
+    return String.valueOf(filters).hashCode();
+  }
+
+  private String toBase64() {
+    return Base64.getUrlEncoder()
+        .encodeToString(new Gson().toJson(this).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static ParticipantCohortStatusPageToken fromBase64(String str) {
+    final String json;
+    try {
+      json = new String(Base64.getUrlDecoder().decode(str), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid continuation token");
+    }
+    final ParticipantCohortStatusPageToken token;
+    try {
+      token = new Gson().fromJson(json, ParticipantCohortStatusPageToken.class);
+    } catch (JsonSyntaxException e) {
+      throw new BadRequestException(String.format("Invalid continuation token: %s", str));
+    }
+    if (token == null || !supportsSortColumn(token.sortColumn) || token.sortOrder == null) {
+      throw new BadRequestException(String.format("Invalid continuation token: %s", str));
+    }
+    return token;
+  }
+}
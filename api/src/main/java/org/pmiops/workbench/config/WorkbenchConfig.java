@@ -123,6 +123,11 @@ public class WorkbenchConfig {
     // workspace free tier usage to be updated. To account for charges that may occur after the
     // workspace gets deleted and after the last cron had run
     public Long numberOfDaysToConsiderForFreeTierUsageUpdate;
+
+    // If true, the free tier cron only recomputes the totals of projects with billing export rows
+    // exported since the last run, keeping them in the billing_project_cost table, and only checks
+    // the creators of workspaces whose totals changed, instead of every user on every run.
+    public Boolean incrementalCostIngestion;
   }
 
   public static class FireCloudConfig {
@@ -143,6 +148,11 @@ public class WorkbenchConfig {
     // value should be >= timeoutInSeconds. Intended for use with offline jobs only (crons, cloud
     // tasks) where we are not subject to the 60s GAE request deadline.
     public Integer lenientTimeoutInSeconds;
+    // How long WorkspaceAuthService may reuse a user's Terra workspace response, including their
+    // access level, across requests. Unset or 0 disables the cache. Caps at 1 minute. ACL changes
+    // only discard the entries of the instance which made them, so other instances may keep
+    // serving a removed collaborator's access for this long; keep it short.
+    public Integer workspaceCacheTtlSeconds;
     // The docker image that we use for our jupyter images
     public String jupyterDockerImage;
     // Base URL for the Shibboleth API server, e.g.
@@ -209,6 +219,9 @@ public class WorkbenchConfig {
 
   public static class CdrConfig {
     public boolean debugQueries;
+    // Max asynchronous query jobs (e.g. dataset previews) a user may have pending or running at
+    // once. Enforced by each app instance for the jobs it started.
+    public int maxInFlightQueryJobsPerUser;
   }
 
   public static class GoogleCloudStorageServiceConfig {
@@ -337,6 +350,21 @@ public class WorkbenchConfig {
     public String bigQueryTable;
     // The column used to partition the action audit dataset.
     public String partitionColumn;
+    // If true, log entries are queued and written to Cloud Logging in batches by a background
+    // thread, instead of being written on the request thread. Not safe on App Engine, where
+    // background threads get no CPU between requests and queued entries may be lost when an
+    // instance is shut down. Every deployed environment runs on App Engine, so this is only
+    // enabled locally.
+    public Boolean asyncWrites;
+    // What to do with log entries which don't fit in the queue. Defaults to WRITE_SYNCHRONOUSLY.
+    public QueueOverflowPolicy queueOverflowPolicy;
+
+    public enum QueueOverflowPolicy {
+      // Write the entries on the request thread, as if asyncWrites were false.
+      WRITE_SYNCHRONOUSLY,
+      // Discard the entries. Discarded entries are counted in a gauge metric.
+      DROP
+    }
   }
 
   public static class BucketAuditConfig {
@@ -367,6 +395,16 @@ public class WorkbenchConfig {
     // possible is 10000, though around 2500 may be the most Workspace rows we can load into memory
     // on the smallest App Engine machine.
     public Integer maxRowsPerInsert;
+    // Optional JDBC fetch size hint for the keyset batch queries. Leave unset to use the driver
+    // default. With MySQL Connector/J, Integer.MIN_VALUE streams rows one at a time, while a
+    // positive value only takes effect if the connection sets useCursorFetch=true.
+    public Integer queryFetchSize;
+    // Max batch uploads in flight per table while the next batches are read from MySQL. Each
+    // pending batch holds up to maxRowsPerInsert rows in memory.
+    public int maxInFlightUploadsPerTable;
+    // If true, upload through the BigQuery Storage Write API (protobuf rows appended to each
+    // table's default stream) instead of legacy insertAll streaming inserts.
+    public boolean useStorageWriteApi;
   }
 
   /** RAS(Researcher Auth Service) configurations. */
@@ -389,6 +427,17 @@ public class WorkbenchConfig {
     public Integer usersPerAuditTask;
     // Number of users to process within a single access synchronization task.
     public Integer usersPerSynchronizeAccessTask;
+    // Number of users whose Google API calls (project listing, 2FA lookup) a single audit or
+    // access synchronization task makes concurrently.
+    public Integer userTaskConcurrency;
+    // The maximum rate at which an API server instance makes those calls, across all tasks.
+    public Double googleApiRequestsPerSecond;
+    // Number of Leonardo runtimes or persistent disks which the runtime and disk check crons
+    // process concurrently.
+    public Integer runtimeSweepConcurrency;
+    // The maximum rate at which those crons call Leonardo and Terra for individual runtimes or
+    // disks.
+    public Double runtimeSweepRequestsPerSecond;
   }
 
   /**
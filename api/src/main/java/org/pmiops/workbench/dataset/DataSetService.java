@@ -1,5 +1,6 @@
 package org.pmiops.workbench.dataset;
 
+import com.google.cloud.bigquery.JobId;
 import com.google.cloud.bigquery.QueryJobConfiguration;
 import com.google.cloud.bigquery.TableResult;
 import java.util.List;
@@ -30,6 +31,12 @@ public interface DataSetService {
 
   TableResult previewBigQueryJobConfig(DataSetPreviewRequest dataSetPreviewRequest);
 
+  /** Starts the preview query for a user, without waiting for it to finish. */
+  JobId startPreviewQuery(DataSetPreviewRequest dataSetPreviewRequest, long userId);
+
+  /** Returns the results of a preview query, or EMPTY if it's still running. */
+  Optional<TableResult> getPreviewQueryResults(JobId jobId, long userId);
+
   Map<String, QueryJobConfiguration> domainToBigQueryConfig(DataSetRequest dataSet);
 
   List<String> generateCodeCells(
@@ -5,18 +5,27 @@ import static org.pmiops.workbench.cohortbuilder.SearchGroupItemQueryBuilder.CHI
 import static org.pmiops.workbench.model.PrePackagedConceptSetEnum.SURVEY;
 
 import com.google.cloud.bigquery.FieldList;
+import com.google.cloud.bigquery.JobId;
 import com.google.cloud.bigquery.QueryJobConfiguration;
 import com.google.cloud.bigquery.QueryParameterValue;
 import com.google.cloud.bigquery.TableResult;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -39,6 +49,7 @@ import org.hibernate.engine.jdbc.internal.BasicFormatterImpl;
 import org.jetbrains.annotations.NotNull;
 import org.pmiops.workbench.api.BigQueryService;
 import org.pmiops.workbench.api.Etags;
+import org.pmiops.workbench.cdr.CdrVersionContext;
 import org.pmiops.workbench.cdr.dao.DSDataDictionaryDao;
 import org.pmiops.workbench.cdr.dao.DSLinkingDao;
 import org.pmiops.workbench.cdr.model.DbDSDataDictionary;
@@ -53,6 +64,7 @@ import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.dataset.mapper.DataSetMapper;
 import org.pmiops.workbench.db.dao.DataSetDao;
 import org.pmiops.workbench.db.dao.WgsExtractCromwellSubmissionDao;
+import org.pmiops.workbench.db.model.DbCdrVersion;
 import org.pmiops.workbench.db.model.DbCohort;
 import org.pmiops.workbench.db.model.DbConceptSet;
 import org.pmiops.workbench.db.model.DbConceptSetConceptId;
@@ -65,6 +77,7 @@ import org.pmiops.workbench.exceptions.ConflictException;
 import org.pmiops.workbench.exceptions.FailedPreconditionException;
 import org.pmiops.workbench.exceptions.NotFoundException;
 import org.pmiops.workbench.exceptions.NotImplementedException;
+import org.pmiops.workbench.exceptions.ServerErrorException;
 import org.pmiops.workbench.leonardo.LeonardoApiClient;
 import org.pmiops.workbench.model.Cohort;
 import org.pmiops.workbench.model.CohortDefinition;
@@ -85,6 +98,7 @@ import org.pmiops.workbench.model.ResourceType;
 import org.pmiops.workbench.model.SearchGroup;
 import org.pmiops.workbench.model.SearchGroupItem;
 import org.pmiops.workbench.model.SearchParameter;
+import org.pmiops.workbench.monitoring.CacheMetrics;
 import org.pmiops.workbench.monitoring.GaugeDataCollector;
 import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.pmiops.workbench.monitoring.labels.MetricLabel;
@@ -149,6 +163,9 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
   // See https://cloud.google.com/appengine/articles/deadlineexceedederrors for details
   private static final long APP_ENGINE_HARD_TIMEOUT_MSEC_MINUS_FIVE_SEC = 55000L;
 
+  private static final int MAX_COMPILED_COHORT_QUERIES = 1000;
+  private static final Duration COMPILED_COHORT_QUERY_EXPIRY = Duration.ofHours(1);
+
   private static final String SURVEY_QUESTION_CONCEPT_ID_SQL_TEMPLATE =
       "SELECT DISTINCT(question_concept_id) as concept_id \n"
           + "FROM `${projectId}.${dataSetId}.ds_survey`\n";
@@ -156,15 +173,23 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
   @Override
   public Collection<MeasurementBundle> getGaugeData() {
     Map<Boolean, Long> invalidToCount = dataSetDao.getInvalidToCountMap();
-    return ImmutableSet.of(
-        MeasurementBundle.builder()
-            .addMeasurement(GaugeMetric.DATASET_COUNT, invalidToCount.getOrDefault(false, 0L))
-            .addTag(MetricLabel.DATASET_INVALID, Boolean.valueOf(false).toString())
-            .build(),
-        MeasurementBundle.builder()
-            .addMeasurement(GaugeMetric.DATASET_COUNT, invalidToCount.getOrDefault(true, 0L))
-            .addTag(MetricLabel.DATASET_INVALID, Boolean.valueOf(true).toString())
-            .build());
+    return ImmutableSet.<MeasurementBundle>builder()
+        .add(
+            MeasurementBundle.builder()
+                .addMeasurement(GaugeMetric.DATASET_COUNT, invalidToCount.getOrDefault(false, 0L))
+                .addTag(MetricLabel.DATASET_INVALID, Boolean.valueOf(false).toString())
+                .build(),
+            MeasurementBundle.builder()
+                .addMeasurement(GaugeMetric.DATASET_COUNT, invalidToCount.getOrDefault(true, 0L))
+                .addTag(MetricLabel.DATASET_INVALID, Boolean.valueOf(true).toString())
+                .build())
+        .addAll(CacheMetrics.getGaugeData("compiled_cohort_query", compiledCohortQueries))
+        .build();
+  }
+
+  @Override
+  public Duration getGaugeRefreshInterval() {
+    return COUNT_QUERY_REFRESH_INTERVAL;
   }
 
   /*
@@ -246,6 +271,16 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
   private final Clock clock;
   private final Provider<DbUser> userProvider;
 
+  // Participant ID queries compiled from cohort definitions, which are slow to build for cohorts
+  // with many criteria. Keyed by CDR version and the cohort's ID, version and definition, so an
+  // edited cohort misses and its earlier entries expire unused.
+  private final Cache<HashCode, QueryAndParameters> compiledCohortQueries =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_COMPILED_COHORT_QUERIES)
+          .expireAfterAccess(COMPILED_COHORT_QUERY_EXPIRY)
+          .recordStats()
+          .build();
+
   @Autowired
   @VisibleForTesting
   public DataSetServiceImpl(
@@ -347,17 +382,30 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
 
   @Override
   public TableResult previewBigQueryJobConfig(DataSetPreviewRequest request) {
+    return bigQueryService.executeQuery(
+        bigQueryService.filterBigQueryConfig(buildPreviewQueryJobConfig(request)),
+        APP_ENGINE_HARD_TIMEOUT_MSEC_MINUS_FIVE_SEC);
+  }
+
+  @Override
+  public JobId startPreviewQuery(DataSetPreviewRequest request, long userId) {
+    return bigQueryService.startQueryForUser(
+        bigQueryService.filterBigQueryConfig(buildPreviewQueryJobConfig(request)), userId);
+  }
+
+  @Override
+  public Optional<TableResult> getPreviewQueryResults(JobId jobId, long userId) {
+    return bigQueryService.getQueryResultsIfDone(jobId, userId);
+  }
+
+  private QueryJobConfiguration buildPreviewQueryJobConfig(DataSetPreviewRequest request) {
     final Domain domain = request.getDomain();
     final List<String> values = request.getValues();
     Map<String, QueryParameterValue> mergedQueryParameterValues = new HashMap<>();
 
-    final List<String> domainValues =
-        bigQueryService
-            .getTableFieldsFromDomain(
-                Domain.PHYSICAL_MEASUREMENT_CSS.equals(domain) ? Domain.MEASUREMENT : domain)
-            .stream()
-            .map(field -> field.getName().toLowerCase())
-            .collect(Collectors.toList());
+    final Set<String> domainValues =
+        bigQueryService.getTableColumnNamesFromDomain(
+            Domain.PHYSICAL_MEASUREMENT_CSS.equals(domain) ? Domain.MEASUREMENT : domain);
 
     final List<String> filteredDomainColumns =
         values.stream().distinct().filter(domainValues::contains).collect(Collectors.toList());
@@ -463,11 +511,7 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
               .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
     }
     queryBuilder.append(LIMIT_20);
-    QueryJobConfiguration previewBigQueryJobConfig =
-        buildQueryJobConfiguration(mergedQueryParameterValues, queryBuilder.toString());
-    return bigQueryService.executeQuery(
-        bigQueryService.filterBigQueryConfig(previewBigQueryJobConfig),
-        APP_ENGINE_HARD_TIMEOUT_MSEC_MINUS_FIVE_SEC);
+    return buildQueryJobConfiguration(mergedQueryParameterValues, queryBuilder.toString());
   }
 
   @Override
@@ -576,13 +620,38 @@ public class DataSetServiceImpl implements DataSetService, GaugeDataCollector {
 
   @VisibleForTesting
   public QueryAndParameters getCohortQueryStringAndCollectNamedParameters(DbCohort cohortDbModel) {
-    String dbCohortDescription = cohortDbModel.getCriteria();
-    if (dbCohortDescription == null) {
+    if (cohortDbModel.getCriteria() == null) {
       throw new NotFoundException(
           String.format(
               "Not Found: No Cohort definition matching cohortId: %s",
               cohortDbModel.getCohortId()));
     }
+    Optional<DbCdrVersion> cdrVersion = CdrVersionContext.maybeGetCdrVersion();
+    if (!cdrVersion.isPresent()) {
+      return compileCohortQuery(cohortDbModel);
+    }
+    try {
+      return compiledCohortQueries.get(
+          compiledCohortQueryKey(cdrVersion.get().getCdrVersionId(), cohortDbModel),
+          () -> compileCohortQuery(cohortDbModel));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new ServerErrorException("Failed to build the cohort query", e.getCause());
+    }
+  }
+
+  private static HashCode compiledCohortQueryKey(long cdrVersionId, DbCohort cohort) {
+    return Hashing.sha256()
+        .newHasher()
+        .putLong(cdrVersionId)
+        .putLong(cohort.getCohortId())
+        .putInt(cohort.getVersion())
+        .putString(cohort.getCriteria(), StandardCharsets.UTF_8)
+        .hash();
+  }
+
+  private QueryAndParameters compileCohortQuery(DbCohort cohortDbModel) {
+    final String dbCohortDescription = cohortDbModel.getCriteria();
     final CohortDefinition cohortDefinition =
         new Gson().fromJson(dbCohortDescription, CohortDefinition.class);
     final QueryJobConfiguration participantIdQuery =
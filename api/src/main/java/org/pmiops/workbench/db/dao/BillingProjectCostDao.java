@@ -0,0 +1,63 @@
+package org.pmiops.workbench.db.dao;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.pmiops.workbench.db.model.DbBillingProjectCost;
+import org.pmiops.workbench.db.model.DbUser;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BillingProjectCostDao extends CrudRepository<DbBillingProjectCost, String> {
+
+  @Query("SELECT MAX(c.lastExportTime) FROM DbBillingProjectCost c")
+  Timestamp findMaxLastExportTime();
+
+  /** The export_time up to which the billing export has been ingested, if it ever has been. */
+  default Optional<Timestamp> getWatermark() {
+    return Optional.ofNullable(findMaxLastExportTime());
+  }
+
+  @Query(
+      "SELECT c FROM DbBillingProjectCost c "
+          + "JOIN DbWorkspace w ON c.googleProject = w.googleProject "
+          + "WHERE w.creator IN (:creators)")
+  List<DbBillingProjectCost> findAllByWorkspaceCreatorIn(@Param("creators") Set<DbUser> creators);
+
+  default Map<String, Double> getCostByProjectForCreators(Set<DbUser> creators) {
+    return findAllByWorkspaceCreatorIn(creators).stream()
+        .collect(
+            Collectors.toMap(
+                DbBillingProjectCost::getGoogleProject,
+                DbBillingProjectCost::getCost,
+                (a, b) -> a));
+  }
+
+  /**
+   * Finds the creators of workspaces whose ingested cost hasn't been passed to
+   * FreeTierBillingService since it last changed. Like FreeTierBillingService, only active
+   * workspaces and workspaces modified (e.g. deleted) after modifiedSince are considered.
+   */
+  @Query(
+      "SELECT DISTINCT w.creator FROM DbWorkspace w "
+          + "JOIN DbBillingProjectCost c ON c.googleProject = w.googleProject "
+          + "WHERE w.creator IS NOT NULL "
+          + "AND (w.activeStatus = 0 OR w.lastModifiedTime > :modifiedSince) "
+          + "AND (c.appliedCost IS NULL OR ABS(c.appliedCost - c.cost) > :tolerance)")
+  Set<DbUser> findCreatorsWithUnappliedCosts(
+      @Param("modifiedSince") Timestamp modifiedSince, @Param("tolerance") double tolerance);
+
+  /** The projects of the creators' workspaces whose free tier usage was updated after a time. */
+  @Query(
+      "SELECT w.googleProject FROM DbWorkspace w "
+          + "JOIN DbWorkspaceFreeTierUsage f ON w.workspaceId = f.workspace.id "
+          + "WHERE w.creator IN (:creators) AND f.lastUpdateTime > :updatedAfter")
+  Set<String> findProjectsWithUsageUpdatedAfter(
+      @Param("creators") Set<DbUser> creators, @Param("updatedAfter") Timestamp updatedAfter);
+}
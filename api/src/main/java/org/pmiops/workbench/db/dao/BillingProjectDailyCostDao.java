@@ -0,0 +1,33 @@
+package org.pmiops.workbench.db.dao;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCost;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCostKey;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BillingProjectDailyCostDao
+    extends CrudRepository<DbBillingProjectDailyCost, DbBillingProjectDailyCostKey> {
+
+  interface ProjectCostTotal {
+    String getGoogleProject();
+
+    Double getCost();
+
+    Timestamp getLastExportTime();
+  }
+
+  /** Sums the daily costs of each of the projects, over all the partitions ingested for it. */
+  @Query(
+      "SELECT d.key.googleProject AS googleProject, SUM(d.cost) AS cost, "
+          + "MAX(d.lastExportTime) AS lastExportTime "
+          + "FROM DbBillingProjectDailyCost d "
+          + "WHERE d.key.googleProject IN (:projects) "
+          + "GROUP BY d.key.googleProject")
+  List<ProjectCostTotal> getTotalsForProjects(@Param("projects") Collection<String> projects);
+}
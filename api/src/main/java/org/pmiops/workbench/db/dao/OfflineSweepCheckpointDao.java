@@ -0,0 +1,9 @@
+package org.pmiops.workbench.db.dao;
+
+import org.pmiops.workbench.db.model.DbOfflineSweepCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OfflineSweepCheckpointDao
+    extends CrudRepository<DbOfflineSweepCheckpoint, String> {}
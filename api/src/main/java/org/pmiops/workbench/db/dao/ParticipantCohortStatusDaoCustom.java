@@ -5,15 +5,19 @@ import org.pmiops.workbench.cohortreview.util.PageRequest;
 import org.pmiops.workbench.db.model.DbParticipantCohortStatus;
 
 /**
- * This implementation manually creates batched sql statements. For unknown reasons Spring JPA nor
- * JDBC batching works in appengine running in the cloud. It's old school but it solves our batching
- * issue and can handle inserts up to 10,000 participants.
+ * Bulk inserts bypass JPA and use a JDBC batch over a single prepared statement. The deployed
+ * connection URLs set rewriteBatchedStatements=true, without which MySQL Connector/J sends every
+ * batched row as its own insert.
  */
 public interface ParticipantCohortStatusDaoCustom {
 
   void saveParticipantCohortStatusesCustom(
       List<DbParticipantCohortStatus> participantCohortStatuses);
 
+  /** Inserts the statuses in one transaction, executing a JDBC batch every batchSize rows. */
+  void saveParticipantCohortStatusesCustom(
+      List<DbParticipantCohortStatus> participantCohortStatuses, int batchSize);
+
   List<DbParticipantCohortStatus> findAll(Long cohortReviewId, PageRequest pageRequest);
 
   Long findCount(Long cohortReviewId, PageRequest pageRequest);
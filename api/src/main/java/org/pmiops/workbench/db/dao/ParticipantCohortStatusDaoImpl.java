@@ -2,21 +2,24 @@ package org.pmiops.workbench.db.dao;
 
 import com.google.common.collect.ImmutableList;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.pmiops.workbench.cohortreview.util.PageRequest;
 import org.pmiops.workbench.cohortreview.util.ParticipantCohortStatusDbInfo;
+import org.pmiops.workbench.cohortreview.util.ParticipantCohortStatusPageToken;
 import org.pmiops.workbench.db.model.DbParticipantCohortStatus;
 import org.pmiops.workbench.db.model.DbParticipantCohortStatusKey;
 import org.pmiops.workbench.model.Filter;
 import org.pmiops.workbench.model.FilterColumns;
+import org.pmiops.workbench.model.SortOrder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
@@ -51,13 +54,41 @@ public class ParticipantCohortStatusDaoImpl implements ParticipantCohortStatusDa
 
   private static final String LIMIT_SQL_TEMPLATE = "limit %d, %d";
 
-  private static final String INSERT_SQL_TEMPLATE =
+  private static final String SEEK_LIMIT_SQL_TEMPLATE = "limit %d";
+
+  private static final String SEEK_BY_PARTICIPANT_ID_SQL_TEMPLATE =
+      "participant_id %s :lastParticipantId\n";
+
+  // Ties on the sort column are always broken by ascending participant_id, see getSortColumn.
+  private static final String SEEK_BY_STATUS_SQL_TEMPLATE =
+      "(status %s :lastSortValue\n"
+          + "or (status = :lastSortValue and participant_id > :lastParticipantId))\n";
+
+  // Maps by column index, in the order of SELECT_SQL_TEMPLATE's select list.
+  private static final RowMapper<DbParticipantCohortStatus> PARTICIPANT_COHORT_STATUS_ROW_MAPPER =
+      (rs, rowNum) ->
+          new DbParticipantCohortStatus()
+              .participantKey(
+                  new DbParticipantCohortStatusKey()
+                      .cohortReviewId(rs.getLong(1))
+                      .participantId(rs.getLong(2)))
+              .status(rs.getShort(3))
+              .genderConceptId(getNullableLong(rs, 4))
+              .birthDate(rs.getDate(5))
+              .raceConceptId(getNullableLong(rs, 6))
+              .ethnicityConceptId(getNullableLong(rs, 7))
+              .sexAtBirthConceptId(getNullableLong(rs, 8))
+              .deceased(rs.getBoolean(9));
+
+  private static final String INSERT_SQL =
       "insert into participant_cohort_status("
           + "birth_date, ethnicity_concept_id, gender_concept_id, race_concept_id, sex_at_birth_concept_id,"
           + "status, cohort_review_id, participant_id, deceased) "
-          + "values";
-  private static final String NEXT_INSERT = " (%s, %d, %d, %d, %d, %d, %d, %d, %s)";
-  private static final int BATCH_SIZE = 50;
+          + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  // With rewriteBatchedStatements=true on the connection URL, MySQL Connector/J sends each batch as
+  // a single multi-values insert, so this is the number of rows per round trip.
+  public static final int DEFAULT_INSERT_BATCH_SIZE = 1000;
 
   @Autowired private JdbcTemplate jdbcTemplate;
 
@@ -69,45 +100,44 @@ public class ParticipantCohortStatusDaoImpl implements ParticipantCohortStatusDa
   @Override
   public void saveParticipantCohortStatusesCustom(
       List<DbParticipantCohortStatus> participantCohortStatuses) {
-    Statement statement = null;
+    saveParticipantCohortStatusesCustom(participantCohortStatuses, DEFAULT_INSERT_BATCH_SIZE);
+  }
+
+  @Override
+  public void saveParticipantCohortStatusesCustom(
+      List<DbParticipantCohortStatus> participantCohortStatuses, int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    PreparedStatement statement = null;
     Connection connection = null;
     int index = 0;
-    String sqlStatement = INSERT_SQL_TEMPLATE;
 
     try {
       connection = jdbcTemplate.getDataSource().getConnection();
-      statement = connection.createStatement();
+      statement = connection.prepareStatement(INSERT_SQL);
       connection.setAutoCommit(false);
 
       for (DbParticipantCohortStatus pcs : participantCohortStatuses) {
-        String birthDate =
-            pcs.getBirthDate() == null ? "NULL" : "'" + pcs.getBirthDate().toString() + "'";
-        String nextSql =
-            String.format(
-                NEXT_INSERT,
-                birthDate,
-                pcs.getEthnicityConceptId(),
-                pcs.getGenderConceptId(),
-                pcs.getRaceConceptId(),
-                pcs.getSexAtBirthConceptId(),
-                // this represents NOT_REVIEWED
-                3,
-                pcs.getParticipantKey().getCohortReviewId(),
-                pcs.getParticipantKey().getParticipantId(),
-                pcs.getDeceased());
-        sqlStatement =
-            sqlStatement.equals(INSERT_SQL_TEMPLATE)
-                ? sqlStatement + nextSql
-                : sqlStatement + ", " + nextSql;
-
-        if (++index % BATCH_SIZE == 0) {
-          statement.execute(sqlStatement);
-          sqlStatement = INSERT_SQL_TEMPLATE;
+        statement.setDate(1, pcs.getBirthDate());
+        setNullableLong(statement, 2, pcs.getEthnicityConceptId());
+        setNullableLong(statement, 3, pcs.getGenderConceptId());
+        setNullableLong(statement, 4, pcs.getRaceConceptId());
+        setNullableLong(statement, 5, pcs.getSexAtBirthConceptId());
+        // this represents NOT_REVIEWED
+        statement.setShort(6, (short) 3);
+        statement.setLong(7, pcs.getParticipantKey().getCohortReviewId());
+        statement.setLong(8, pcs.getParticipantKey().getParticipantId());
+        statement.setBoolean(9, pcs.getDeceased());
+        statement.addBatch();
+
+        if (++index % batchSize == 0) {
+          statement.executeBatch();
         }
       }
 
-      if (!sqlStatement.equals(INSERT_SQL_TEMPLATE)) {
-        statement.execute(sqlStatement);
+      if (index % batchSize != 0) {
+        statement.executeBatch();
       }
 
       connection.commit();
@@ -128,17 +158,27 @@ public class ParticipantCohortStatusDaoImpl implements ParticipantCohortStatusDa
     MapSqlParameterSource parameters = new MapSqlParameterSource();
     parameters.addValue("cohortReviewId", cohortReviewId);
 
+    String filteringSql = buildFilteringSql(pageRequest.getFilters(), parameters);
+    String limitSql;
+    if (pageRequest.getContinuationToken() == null) {
+      limitSql =
+          String.format(
+              LIMIT_SQL_TEMPLATE,
+              pageRequest.getPage() * pageRequest.getPageSize(),
+              pageRequest.getPageSize());
+    } else {
+      filteringSql += " and " + buildSeekSql(pageRequest, parameters);
+      limitSql = String.format(SEEK_LIMIT_SQL_TEMPLATE, pageRequest.getPageSize());
+    }
+
     String sqlStatement =
         SELECT_SQL_TEMPLATE
-            + buildFilteringSql(pageRequest.getFilters(), parameters)
+            + filteringSql
             + String.format(ORDERBY_SQL_TEMPLATE, getSortColumn(pageRequest))
-            + String.format(
-                LIMIT_SQL_TEMPLATE,
-                pageRequest.getPage() * pageRequest.getPageSize(),
-                pageRequest.getPageSize());
+            + limitSql;
 
     return namedParameterJdbcTemplate.query(
-        sqlStatement, parameters, new ParticipantCohortStatusRowMapper());
+        sqlStatement, parameters, PARTICIPANT_COHORT_STATUS_ROW_MAPPER);
   }
 
   @Override
@@ -171,6 +211,23 @@ public class ParticipantCohortStatusDaoImpl implements ParticipantCohortStatusDa
     return sortColumn;
   }
 
+  /**
+   * Builds the predicate selecting the rows after the continuation token's position. Rows are
+   * ordered by (sort column, participant_id), so with an index on cohort_review_id and those
+   * columns, MySQL can start reading at the token instead of counting past an offset.
+   */
+  private String buildSeekSql(PageRequest pageRequest, MapSqlParameterSource parameters) {
+    ParticipantCohortStatusPageToken token =
+        ParticipantCohortStatusPageToken.fromPageRequest(pageRequest);
+    String comparison = pageRequest.getSortOrder() == SortOrder.DESC ? "<" : ">";
+    parameters.addValue("lastParticipantId", token.getLastParticipantId());
+    if (FilterColumns.STATUS.name().equals(token.getSortColumn())) {
+      parameters.addValue("lastSortValue", token.getLastSortValue());
+      return String.format(SEEK_BY_STATUS_SQL_TEMPLATE, comparison);
+    }
+    return String.format(SEEK_BY_PARTICIPANT_ID_SQL_TEMPLATE, comparison);
+  }
+
   private String buildFilteringSql(List<Filter> filtersList, MapSqlParameterSource parameters) {
     List<String> sqlParts = new ArrayList<>();
 
@@ -183,16 +240,17 @@ public class ParticipantCohortStatusDaoImpl implements ParticipantCohortStatusDa
     return (!sqlParts.isEmpty()) ? String.join(" and ", sqlParts) : "";
   }
 
-  private class ParticipantCohortStatusRowMapper implements RowMapper<DbParticipantCohortStatus> {
+  private static Long getNullableLong(ResultSet rs, int columnIndex) throws SQLException {
+    long value = rs.getLong(columnIndex);
+    return rs.wasNull() ? null : value;
+  }
 
-    @Override
-    public DbParticipantCohortStatus mapRow(ResultSet rs, int rowNum) throws SQLException {
-      DbParticipantCohortStatusKey key =
-          (new BeanPropertyRowMapper<>(DbParticipantCohortStatusKey.class)).mapRow(rs, rowNum);
-      DbParticipantCohortStatus participantCohortStatus =
-          (new BeanPropertyRowMapper<>(DbParticipantCohortStatus.class)).mapRow(rs, rowNum);
-      participantCohortStatus.setParticipantKey(key);
-      return participantCohortStatus;
+  private static void setNullableLong(PreparedStatement statement, int index, Long value)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, Types.BIGINT);
+    } else {
+      statement.setLong(index, value);
     }
   }
 
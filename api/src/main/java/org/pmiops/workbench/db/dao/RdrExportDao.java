@@ -1,6 +1,7 @@
 package org.pmiops.workbench.db.dao;
 
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
 import javax.transaction.Transactional;
 import org.pmiops.workbench.db.model.DbRdrExport;
@@ -44,6 +45,8 @@ public interface RdrExportDao extends CrudRepository<DbRdrExport, Long> {
 
   DbRdrExport findByEntityTypeAndEntityId(short entityType, long entityId);
 
+  List<DbRdrExport> findAllByEntityTypeAndEntityIdIn(short entityType, Collection<Long> entityIds);
+
   @Transactional
   void deleteDbRdrExportsByEntityTypeAndEntityId(short entityType, Long entityId);
 }
@@ -1,5 +1,6 @@
 package org.pmiops.workbench.db.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.pmiops.workbench.db.model.DbAccessTier;
@@ -12,5 +13,7 @@ public interface UserAccessTierDao extends CrudRepository<DbUserAccessTier, Long
 
   List<DbUserAccessTier> getAllByUser(DbUser user);
 
+  List<DbUserAccessTier> getAllByUserIn(Collection<DbUser> users);
+
   List<DbUserAccessTier> getAllByAccessTier(DbAccessTier accessTier);
 }
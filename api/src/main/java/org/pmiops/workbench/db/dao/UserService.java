@@ -156,6 +156,13 @@ public interface UserService {
   /** Send an Access Renewal Expiration or Warning email to the user, if appropriate */
   void maybeSendAccessExpirationEmail(DbUser user);
 
+  /**
+   * Send Access Renewal Expiration or Warning emails to each of the users for whom it is
+   * appropriate, as maybeSendAccessExpirationEmail does, but in batches of users who get the same
+   * email.
+   */
+  void sendAccessExpirationEmails(List<DbUser> users);
+
   /** Signs a user out of all web and device sessions and reset their sign-in cookies. */
   void signOut(DbUser user);
 }
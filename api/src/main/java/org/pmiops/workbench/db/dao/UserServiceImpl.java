@@ -4,14 +4,17 @@ import com.google.api.services.oauth2.model.Userinfo;
 import com.google.common.collect.ImmutableList;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -725,6 +728,11 @@ public class UserServiceImpl implements UserService, GaugeDataCollector {
         .collect(ImmutableList.toImmutableList());
   }
 
+  @Override
+  public Duration getGaugeRefreshInterval() {
+    return COUNT_QUERY_REFRESH_INTERVAL;
+  }
+
   @Override
   public Optional<DbUser> getByUsername(String username) {
     return Optional.ofNullable(userDao.findUserByUsername(username));
@@ -814,6 +822,43 @@ public class UserServiceImpl implements UserService, GaugeDataCollector {
     rtExpiration.ifPresent(expiration -> maybeSendRegisteredTierExpirationEmail(user, expiration));
   }
 
+  @Override
+  public void sendAccessExpirationEmails(List<DbUser> users) {
+    final Map<DbUser, Instant> expiredToday = new LinkedHashMap<>();
+    final Map<Long, Map<DbUser, Instant>> expiringByDaysRemaining = new TreeMap<>();
+    for (DbUser user : users) {
+      final Optional<Timestamp> rtExpiration = getRegisteredTierExpirationForEmails(user);
+      if (!rtExpiration.isPresent()) {
+        continue;
+      }
+      final Timestamp expiration = rtExpiration.get();
+      final long daysRemaining = getDaysRemaining(expiration);
+      if (isExpirationDay(expiration)) {
+        expiredToday.put(user, expiration.toInstant());
+      } else if (isExpirationWarningDay(daysRemaining)) {
+        expiringByDaysRemaining
+            .computeIfAbsent(daysRemaining, unused -> new LinkedHashMap<>())
+            .put(user, expiration.toInstant());
+      }
+    }
+
+    try {
+      if (!expiredToday.isEmpty()) {
+        mailService.alertUsersRegisteredTierExpiration(expiredToday);
+      }
+    } catch (final MessagingException e) {
+      log.log(Level.WARNING, e.getMessage());
+    }
+    expiringByDaysRemaining.forEach(
+        (daysRemaining, expirationTimes) -> {
+          try {
+            mailService.alertUsersRegisteredTierWarningThreshold(expirationTimes, daysRemaining);
+          } catch (final MessagingException e) {
+            log.log(Level.WARNING, e.getMessage());
+          }
+        });
+  }
+
   @Override
   public void signOut(DbUser user) {
     directoryService.signOut(user.getUsername());
@@ -859,25 +904,32 @@ public class UserServiceImpl implements UserService, GaugeDataCollector {
   }
 
   private void maybeSendRegisteredTierExpirationEmail(DbUser user, Timestamp expiration) {
-    long millisRemaining = expiration.getTime() - clock.millis();
-    long daysRemaining = TimeUnit.DAYS.convert(millisRemaining, TimeUnit.MILLISECONDS);
-
-    final List<Long> thresholds = configProvider.get().access.renewal.expiryDaysWarningThresholds;
+    final long daysRemaining = getDaysRemaining(expiration);
     try {
-      // we only want to send the expiration email on the day of the actual expiration
-      if (millisRemaining < 0 && daysRemaining == 0) {
+      if (isExpirationDay(expiration)) {
         mailService.alertUserRegisteredTierExpiration(user, expiration.toInstant());
-      } else {
-        if (thresholds.contains(daysRemaining)) {
-          mailService.alertUserRegisteredTierWarningThreshold(
-              user, daysRemaining, expiration.toInstant());
-        }
+      } else if (isExpirationWarningDay(daysRemaining)) {
+        mailService.alertUserRegisteredTierWarningThreshold(
+            user, daysRemaining, expiration.toInstant());
       }
     } catch (final MessagingException e) {
       log.log(Level.WARNING, e.getMessage());
     }
   }
 
+  private long getDaysRemaining(Timestamp expiration) {
+    return TimeUnit.DAYS.convert(expiration.getTime() - clock.millis(), TimeUnit.MILLISECONDS);
+  }
+
+  // we only want to send the expiration email on the day of the actual expiration
+  private boolean isExpirationDay(Timestamp expiration) {
+    return expiration.getTime() < clock.millis() && getDaysRemaining(expiration) == 0;
+  }
+
+  private boolean isExpirationWarningDay(long daysRemaining) {
+    return configProvider.get().access.renewal.expiryDaysWarningThresholds.contains(daysRemaining);
+  }
+
   private Timestamp clockNow() {
     return new Timestamp(clock.instant().toEpochMilli());
   }
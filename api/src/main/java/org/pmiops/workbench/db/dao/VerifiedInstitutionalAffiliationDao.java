@@ -1,6 +1,7 @@
 package org.pmiops.workbench.db.dao;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.pmiops.workbench.db.model.DbInstitution;
 import org.pmiops.workbench.db.model.DbUser;
@@ -12,4 +13,6 @@ public interface VerifiedInstitutionalAffiliationDao
   Collection<DbVerifiedInstitutionalAffiliation> findAllByInstitution(DbInstitution institution);
 
   Optional<DbVerifiedInstitutionalAffiliation> findFirstByUser(DbUser user);
+
+  List<DbVerifiedInstitutionalAffiliation> findAllByUserIn(Collection<DbUser> users);
 }
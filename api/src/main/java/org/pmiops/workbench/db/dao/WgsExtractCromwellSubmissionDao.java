@@ -22,6 +22,17 @@ public interface WgsExtractCromwellSubmissionDao
       findFirstByDatasetAndTerraStatusInOrderByCreationTimeDesc(
           DbDataset dataset, List<Short> terraStatuses);
 
+  List<DbWgsExtractCromwellSubmission> findAllByTerraStatusInOrTerraStatusIsNull(
+      List<Short> terraStatuses);
+
+  /** Returns the submissions, across all workspaces, which haven't reached a terminal status. */
+  default List<DbWgsExtractCromwellSubmission> findAllNonTerminal() {
+    return findAllByTerraStatusInOrTerraStatusIsNull(
+        ImmutableList.of(
+            DbStorageEnums.terraJobStatusToStorage(TerraJobStatus.RUNNING),
+            DbStorageEnums.terraJobStatusToStorage(TerraJobStatus.ABORTING)));
+  }
+
   default Optional<DbWgsExtractCromwellSubmission> findMostRecentValidExtractionByDataset(
       DbDataset dataset) {
     return findFirstByDatasetAndTerraStatusInOrderByCreationTimeDesc(
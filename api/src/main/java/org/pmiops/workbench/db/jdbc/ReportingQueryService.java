@@ -1,9 +1,11 @@
 package org.pmiops.workbench.db.jdbc;
 
+import com.google.common.collect.AbstractIterator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import org.pmiops.workbench.model.ReportingCohort;
@@ -35,32 +37,49 @@ public interface ReportingQueryService {
 
   List<ReportingWorkspace> getWorkspaces(long limit, long offset);
 
+  /** Keyset version of getWorkspaces(): returns up to limit rows with workspace_id > afterId. */
+  List<ReportingWorkspace> getWorkspacesAfter(long limit, long afterId);
+
   int getWorkspacesCount();
 
   default Stream<List<ReportingWorkspace>> getWorkspacesStream() {
-    return getStream(this::getWorkspaces);
+    return getKeysetStream(this::getWorkspacesAfter, ReportingWorkspace::getWorkspaceId);
   }
 
   List<ReportingUser> getUsers(long limit, long offset);
 
+  /** Keyset version of getUsers(): returns up to limit rows with user_id > afterId. */
+  List<ReportingUser> getUsersAfter(long limit, long afterId);
+
   default Stream<List<ReportingUser>> getUserStream() {
-    return getStream(this::getUsers);
+    return getKeysetStream(this::getUsersAfter, ReportingUser::getUserId);
   }
 
   int getUserCount();
 
   List<ReportingCohort> getCohorts(long limit, long offset);
 
+  /** Keyset version of getCohorts(): returns up to limit rows with cohort_id > afterId. */
+  List<ReportingCohort> getCohortsAfter(long limit, long afterId);
+
   default Stream<List<ReportingCohort>> getCohortsStream() {
-    return getStream(this::getCohorts);
+    return getKeysetStream(this::getCohortsAfter, ReportingCohort::getCohortId);
   }
 
   int getCohortsCount();
 
   List<ReportingNewUserSatisfactionSurvey> getNewUserSatisfactionSurveys(long limit, long offset);
 
+  /**
+   * Keyset version of getNewUserSatisfactionSurveys(): returns up to limit rows with
+   * new_user_satisfaction_survey_id > afterId.
+   */
+  List<ReportingNewUserSatisfactionSurvey> getNewUserSatisfactionSurveysAfter(
+      long limit, long afterId);
+
   default Stream<List<ReportingNewUserSatisfactionSurvey>> getNewUserSatisfactionSurveysStream() {
-    return getStream(this::getNewUserSatisfactionSurveys);
+    return getKeysetStream(
+        this::getNewUserSatisfactionSurveysAfter, ReportingNewUserSatisfactionSurvey::getId);
   }
 
   int getNewUserSatisfactionSurveysCount();
@@ -150,4 +169,54 @@ public interface ReportingQueryService {
     final Iterable<List<T>> iterable = () -> batchIterator;
     return StreamSupport.stream(iterable.spliterator(), false);
   }
+
+  /**
+   * Get an iterator to batches of rows, seeking by primary key rather than by offset. Each query
+   * asks for rows with a key greater than the last key of the previous batch, so (given an index on
+   * the key) every batch costs the same regardless of how deep into the table it is.
+   *
+   * @param getter - method to retrieve a batch given a limit and the last key seen, typically a
+   *     method reference against this interface
+   * @param keyExtractor - extracts the (ascending, positive) primary key from a DTO
+   * @param <T> - DTO type
+   * @return
+   */
+  default <T> Iterator<List<T>> getKeysetBatchIterator(
+      BiFunction<Long, Long, List<T>> getter, Function<T, Long> keyExtractor) {
+    return new AbstractIterator<List<T>>() {
+      // auto-increment keys start at 1
+      private long lastKey = 0;
+      private boolean exhausted = false;
+
+      @Override
+      protected List<T> computeNext() {
+        if (exhausted) {
+          return endOfData();
+        }
+        final List<T> batch = getter.apply(getQueryBatchSize(), lastKey);
+        if (batch.isEmpty()) {
+          return endOfData();
+        }
+        // a short batch means there's nothing left, so we can skip the final empty query
+        exhausted = batch.size() < getQueryBatchSize();
+        lastKey = keyExtractor.apply(batch.get(batch.size() - 1));
+        return batch;
+      }
+    };
+  }
+
+  /**
+   * Construct a Stream of batches from one of the keyset query methods
+   *
+   * @param getter - limit & last-key version of query method, e.g. getWorkspacesAfter()
+   * @param keyExtractor - extracts the primary key from a DTO
+   * @param <T> - DTO type
+   * @return
+   */
+  default <T> Stream<List<T>> getKeysetStream(
+      BiFunction<Long, Long, List<T>> getter, Function<T, Long> keyExtractor) {
+    final Iterator<List<T>> batchIterator = getKeysetBatchIterator(getter, keyExtractor);
+    final Iterable<List<T>> iterable = () -> batchIterator;
+    return StreamSupport.stream(iterable.spliterator(), false);
+  }
 }
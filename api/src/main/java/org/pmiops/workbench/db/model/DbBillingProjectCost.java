@@ -0,0 +1,65 @@
+package org.pmiops.workbench.db.model;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The total cost of a Google project in the BigQuery billing export, as of the latest export_time
+ * ingested for it, and the total which was last passed to FreeTierBillingService. Maintained
+ * incrementally by FreeTierBillingBatchUpdateService, as the sum of the project's {@link
+ * DbBillingProjectDailyCost} rows.
+ */
+@Entity
+@Table(name = "billing_project_cost")
+public class DbBillingProjectCost {
+  private String googleProject;
+  private double cost;
+  private Timestamp lastExportTime;
+  private Double appliedCost;
+
+  public DbBillingProjectCost() {}
+
+  @Id
+  @Column(name = "google_project")
+  public String getGoogleProject() {
+    return googleProject;
+  }
+
+  public DbBillingProjectCost setGoogleProject(String googleProject) {
+    this.googleProject = googleProject;
+    return this;
+  }
+
+  @Column(name = "cost")
+  public double getCost() {
+    return cost;
+  }
+
+  public DbBillingProjectCost setCost(double cost) {
+    this.cost = cost;
+    return this;
+  }
+
+  @Column(name = "last_export_time")
+  public Timestamp getLastExportTime() {
+    return lastExportTime;
+  }
+
+  public DbBillingProjectCost setLastExportTime(Timestamp lastExportTime) {
+    this.lastExportTime = lastExportTime;
+    return this;
+  }
+
+  @Column(name = "applied_cost")
+  public Double getAppliedCost() {
+    return appliedCost;
+  }
+
+  public DbBillingProjectCost setAppliedCost(Double appliedCost) {
+    this.appliedCost = appliedCost;
+    return this;
+  }
+}
@@ -0,0 +1,52 @@
+package org.pmiops.workbench.db.model;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * The cost of a Google project in one daily partition of the BigQuery billing export, as of the
+ * latest export_time ingested for it. A project's total in {@link DbBillingProjectCost} is the sum
+ * of its daily costs, so FreeTierBillingBatchUpdateService only re-aggregates recent partitions.
+ */
+@Entity
+@Table(name = "billing_project_daily_cost")
+public class DbBillingProjectDailyCost {
+  private DbBillingProjectDailyCostKey key;
+  private double cost;
+  private Timestamp lastExportTime;
+
+  public DbBillingProjectDailyCost() {}
+
+  @EmbeddedId
+  public DbBillingProjectDailyCostKey getKey() {
+    return key;
+  }
+
+  public DbBillingProjectDailyCost setKey(DbBillingProjectDailyCostKey key) {
+    this.key = key;
+    return this;
+  }
+
+  @Column(name = "cost")
+  public double getCost() {
+    return cost;
+  }
+
+  public DbBillingProjectDailyCost setCost(double cost) {
+    this.cost = cost;
+    return this;
+  }
+
+  @Column(name = "last_export_time")
+  public Timestamp getLastExportTime() {
+    return lastExportTime;
+  }
+
+  public DbBillingProjectDailyCost setLastExportTime(Timestamp lastExportTime) {
+    this.lastExportTime = lastExportTime;
+    return this;
+  }
+}
@@ -0,0 +1,63 @@
+package org.pmiops.workbench.db.model;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+import java.util.Objects;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+@Embeddable
+public class DbBillingProjectDailyCostKey implements Serializable {
+
+  @Column(name = "google_project")
+  private String googleProject;
+
+  @Column(name = "partition_time")
+  private Timestamp partitionTime;
+
+  public DbBillingProjectDailyCostKey() {}
+
+  public DbBillingProjectDailyCostKey(String googleProject, Timestamp partitionTime) {
+    this.googleProject = googleProject;
+    this.partitionTime = partitionTime;
+  }
+
+  public String getGoogleProject() {
+    return googleProject;
+  }
+
+  public void setGoogleProject(String googleProject) {
+    this.googleProject = googleProject;
+  }
+
+  public Timestamp getPartitionTime() {
+    return partitionTime;
+  }
+
+  public void setPartitionTime(Timestamp partitionTime) {
+    this.partitionTime = partitionTime;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    DbBillingProjectDailyCostKey that = (DbBillingProjectDailyCostKey) o;
+    return Objects.equals(googleProject, that.googleProject)
+        && Objects.equals(partitionTime, that.partitionTime);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(googleProject, partitionTime);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("googleProject", googleProject)
+        .append("partitionTime", partitionTime)
+        .toString();
+  }
+}
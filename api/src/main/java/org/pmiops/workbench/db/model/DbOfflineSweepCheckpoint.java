@@ -0,0 +1,52 @@
+package org.pmiops.workbench.db.model;
+
+import java.sql.Timestamp;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * How far an offline sweep over a list of items (e.g. Leonardo runtimes) got before it ran out of
+ * time. The next run of the sweep resumes after the item whose key is resumeAfter.
+ */
+@Entity
+@Table(name = "offline_sweep_checkpoint")
+public class DbOfflineSweepCheckpoint {
+  private String sweepName;
+  private Timestamp sweepStartTime;
+  private String resumeAfter;
+
+  public DbOfflineSweepCheckpoint() {}
+
+  @Id
+  @Column(name = "sweep_name")
+  public String getSweepName() {
+    return sweepName;
+  }
+
+  public DbOfflineSweepCheckpoint setSweepName(String sweepName) {
+    this.sweepName = sweepName;
+    return this;
+  }
+
+  @Column(name = "sweep_start_time")
+  public Timestamp getSweepStartTime() {
+    return sweepStartTime;
+  }
+
+  public DbOfflineSweepCheckpoint setSweepStartTime(Timestamp sweepStartTime) {
+    this.sweepStartTime = sweepStartTime;
+    return this;
+  }
+
+  @Column(name = "resume_after")
+  public String getResumeAfter() {
+    return resumeAfter;
+  }
+
+  public DbOfflineSweepCheckpoint setResumeAfter(String resumeAfter) {
+    this.resumeAfter = resumeAfter;
+    return this;
+  }
+}
@@ -31,6 +31,7 @@ public class DbWgsExtractCromwellSubmission {
   private Timestamp completionTime;
   private Short terraStatus;
   private Timestamp terraSubmissionDate;
+  private Timestamp lastStatusCheckTime;
 
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -178,6 +179,16 @@ public class DbWgsExtractCromwellSubmission {
     return this;
   }
 
+  @Column(name = "last_status_check_time")
+  public Timestamp getLastStatusCheckTime() {
+    return lastStatusCheckTime;
+  }
+
+  public DbWgsExtractCromwellSubmission setLastStatusCheckTime(Timestamp lastStatusCheckTime) {
+    this.lastStatusCheckTime = lastStatusCheckTime;
+    return this;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -9,11 +9,18 @@ import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -52,6 +59,10 @@ import org.pmiops.workbench.jira.model.CreatedIssue;
 import org.pmiops.workbench.model.GenomicExtractionJob;
 import org.pmiops.workbench.model.TerraJobStatus;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.pmiops.workbench.utils.mappers.CommonMappers;
 import org.pmiops.workbench.workspaces.WorkspaceAuthService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,7 +70,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
-public class GenomicExtractionService {
+public class GenomicExtractionService implements GaugeDataCollector {
   private static final Logger log = Logger.getLogger(GenomicExtractionService.class.getName());
 
   public static final String EXTRACT_WORKFLOW_NAME = "GvsExtractCohortFromSampleNames";
@@ -68,6 +79,13 @@ public class GenomicExtractionService {
   // Scatter count maximum for extraction. Affects number of workers and numbers of shards.
   private static final int MAX_EXTRACTION_SCATTER = 2_000;
 
+  private static final int STATUS_CHECK_CONCURRENCY = 8;
+  private static final int MAX_STATUS_CHECKS_PER_POLL = 200;
+  private static final int STATUS_CHECK_BACKOFF_DIVISOR = 10;
+  // Shorter than the cron interval, so that new jobs are checked on every poll.
+  private static final Duration MIN_STATUS_CHECK_INTERVAL = Duration.ofSeconds(30);
+  private static final Duration MAX_STATUS_CHECK_INTERVAL = Duration.ofMinutes(15);
+
   private final DataSetService dataSetService;
   private final FireCloudService fireCloudService;
   private final JiraService jiraService;
@@ -80,6 +98,9 @@ public class GenomicExtractionService {
   private final Provider<WorkbenchConfig> workbenchConfigProvider;
   private final WorkspaceAuthService workspaceAuthService;
   private final Clock clock;
+  private final ExecutorService statusCheckExecutor =
+      ConcurrencyUtils.newFixedDaemonThreadPool(
+          "genomic-extraction-status", STATUS_CHECK_CONCURRENCY);
 
   @Autowired
   public GenomicExtractionService(
@@ -134,6 +155,10 @@ public class GenomicExtractionService {
     return !(status == TerraJobStatus.RUNNING || status == TerraJobStatus.ABORTING);
   }
 
+  /**
+   * Lists the workspace's extraction jobs as last recorded in the database. Statuses of running
+   * jobs are refreshed from Terra in the background, see {@link #refreshActiveJobStatuses}.
+   */
   public List<GenomicExtractionJob> getGenomicExtractionJobs(
       String workspaceNamespace, String workspaceId) {
     DbWorkspace dbWorkspace =
@@ -141,62 +166,195 @@ public class GenomicExtractionService {
             workspaceNamespace, workspaceId, WorkspaceAccessLevel.READER);
 
     return wgsExtractCromwellSubmissionDao.findAllByWorkspace(dbWorkspace).stream()
-        .map(
-            dbSubmission -> {
-              try {
-                // Don't bother checking if we already know the job is in a terminal status.
-                if (dbSubmission.getTerraStatusEnum() == null
-                    || !isTerminal(dbSubmission.getTerraStatusEnum())) {
-                  WgsCohortExtractionConfig cohortExtractionConfig =
-                      workbenchConfigProvider.get().wgsCohortExtraction;
-                  FirecloudSubmission firecloudSubmission =
-                      submissionApiProvider
-                          .get()
-                          .getSubmission(
-                              cohortExtractionConfig.operationalTerraWorkspaceNamespace,
-                              cohortExtractionConfig.operationalTerraWorkspaceName,
-                              dbSubmission.getSubmissionId());
-
-                  TerraJobStatus oldStatus = dbSubmission.getTerraStatusEnum();
-                  TerraJobStatus status =
-                      genomicExtractionMapper.convertWorkflowStatus(
-                          // Extraction submissions should only have one workflow.
-                          firecloudSubmission.getWorkflows().get(0).getStatus());
-                  dbSubmission.setTerraStatusEnum(status);
-
-                  if (TerraJobStatus.SUCCEEDED.equals(status)) {
-                    dbSubmission.setVcfSizeMb(getWorkflowSize(firecloudSubmission));
-                  }
-
-                  if (isTerminal(status)) {
-                    dbSubmission.setCompletionTime(
-                        CommonMappers.timestamp(
-                            firecloudSubmission.getWorkflows().get(0).getStatusLastChangedDate()));
-                  }
-
-                  if (TerraJobStatus.FAILED.equals(status) && !status.equals(oldStatus)) {
-                    maybeNotifyOnJobFailure(dbSubmission, firecloudSubmission);
-                  }
-
-                  wgsExtractCromwellSubmissionDao.save(dbSubmission);
-                }
-                return genomicExtractionMapper.toApi(dbSubmission);
-              } catch (ApiException e) {
-                throw new ServerErrorException("Could not fetch submission status from Terra", e);
-              }
-            })
+        .map(genomicExtractionMapper::toApi)
         .collect(Collectors.toList());
   }
 
-  private Long getWorkflowSize(FirecloudSubmission firecloudSubmission) throws ApiException {
+  /**
+   * Refreshes the Terra status of extraction jobs which haven't reached a terminal status, across
+   * all workspaces. Jobs are checked less often as they age, and Terra is called for up to
+   * STATUS_CHECK_CONCURRENCY jobs at once. Returns the number of jobs checked.
+   */
+  public int refreshActiveJobStatuses() {
+    final Instant now = clock.instant();
+    final List<DbWgsExtractCromwellSubmission> dueSubmissions =
+        wgsExtractCromwellSubmissionDao.findAllNonTerminal().stream()
+            .filter(dbSubmission -> isDueForStatusCheck(dbSubmission, now))
+            .sorted(
+                Comparator.comparing(
+                    DbWgsExtractCromwellSubmission::getLastStatusCheckTime,
+                    Comparator.nullsFirst(Comparator.naturalOrder())))
+            .limit(MAX_STATUS_CHECKS_PER_POLL)
+            .collect(Collectors.toList());
+
+    // Only the Terra calls run concurrently. Updates are applied on this thread, since they may
+    // load lazy associations of the submission, e.g. for the Jira ticket on failure.
+    final WgsCohortExtractionConfig cohortExtractionConfig =
+        workbenchConfigProvider.get().wgsCohortExtraction;
+    final Map<DbWgsExtractCromwellSubmission, Future<TerraSubmissionStatus>> pendingStatuses =
+        new LinkedHashMap<>();
+    for (DbWgsExtractCromwellSubmission dbSubmission : dueSubmissions) {
+      final String submissionId = dbSubmission.getSubmissionId();
+      final Callable<TerraSubmissionStatus> fetchStatus =
+          () -> fetchSubmissionStatus(cohortExtractionConfig, submissionId);
+      pendingStatuses.put(
+          dbSubmission,
+          statusCheckExecutor.submit(ConcurrencyUtils.withRequestAttributes(fetchStatus)));
+    }
+
+    pendingStatuses.forEach(
+        (dbSubmission, pending) -> {
+          final TerraSubmissionStatus terraStatus;
+          try {
+            terraStatus = ConcurrencyUtils.getUnchecked(pending);
+          } catch (RuntimeException e) {
+            log.log(
+                Level.WARNING,
+                String.format(
+                    "Could not fetch the status of genomic extraction submission %s",
+                    dbSubmission.getSubmissionId()),
+                e);
+            // Record the attempt so that the job backs off like a successful check, rather than
+            // sorting first and taking up the poll budget on every run while Terra fails.
+            dbSubmission.setLastStatusCheckTime(Timestamp.from(now));
+            wgsExtractCromwellSubmissionDao.save(dbSubmission);
+            return;
+          }
+          try {
+            applySubmissionStatus(dbSubmission, terraStatus, now);
+          } catch (RuntimeException e) {
+            log.log(
+                Level.WARNING,
+                String.format(
+                    "Could not refresh the status of genomic extraction submission %s",
+                    dbSubmission.getSubmissionId()),
+                e);
+          }
+        });
+    return dueSubmissions.size();
+  }
+
+  /**
+   * A job is checked at most once per its age divided by STATUS_CHECK_BACKOFF_DIVISOR, bounded by
+   * MIN_STATUS_CHECK_INTERVAL and MAX_STATUS_CHECK_INTERVAL. Extractions run for tens of minutes to
+   * hours, so a new job is checked on every poll and a long-running one every few minutes.
+   */
+  private boolean isDueForStatusCheck(DbWgsExtractCromwellSubmission dbSubmission, Instant now) {
+    if (dbSubmission.getLastStatusCheckTime() == null) {
+      return true;
+    }
+    final Duration age = Duration.between(getSubmissionTime(dbSubmission, now), now);
+    Duration interval = age.dividedBy(STATUS_CHECK_BACKOFF_DIVISOR);
+    if (interval.compareTo(MIN_STATUS_CHECK_INTERVAL) < 0) {
+      interval = MIN_STATUS_CHECK_INTERVAL;
+    } else if (interval.compareTo(MAX_STATUS_CHECK_INTERVAL) > 0) {
+      interval = MAX_STATUS_CHECK_INTERVAL;
+    }
+    return !now.isBefore(dbSubmission.getLastStatusCheckTime().toInstant().plus(interval));
+  }
+
+  private static Instant getSubmissionTime(
+      DbWgsExtractCromwellSubmission dbSubmission, Instant defaultTime) {
+    final Timestamp submissionTime =
+        dbSubmission.getTerraSubmissionDate() != null
+            ? dbSubmission.getTerraSubmissionDate()
+            : dbSubmission.getCreationTime();
+    return submissionTime != null ? submissionTime.toInstant() : defaultTime;
+  }
+
+  /** What Terra reports for a submission. The VCF size is only fetched for succeeded jobs. */
+  private static class TerraSubmissionStatus {
+    private final FirecloudSubmission firecloudSubmission;
+    private final TerraJobStatus status;
+    private final Long vcfSizeMb;
+
+    private TerraSubmissionStatus(
+        FirecloudSubmission firecloudSubmission, TerraJobStatus status, Long vcfSizeMb) {
+      this.firecloudSubmission = firecloudSubmission;
+      this.status = status;
+      this.vcfSizeMb = vcfSizeMb;
+    }
+  }
+
+  private TerraSubmissionStatus fetchSubmissionStatus(
+      WgsCohortExtractionConfig cohortExtractionConfig, String submissionId) throws ApiException {
+    FirecloudSubmission firecloudSubmission =
+        submissionApiProvider
+            .get()
+            .getSubmission(
+                cohortExtractionConfig.operationalTerraWorkspaceNamespace,
+                cohortExtractionConfig.operationalTerraWorkspaceName,
+                submissionId);
+    TerraJobStatus status =
+        genomicExtractionMapper.convertWorkflowStatus(
+            // Extraction submissions should only have one workflow.
+            firecloudSubmission.getWorkflows().get(0).getStatus());
+    Long vcfSizeMb =
+        TerraJobStatus.SUCCEEDED.equals(status)
+            ? getWorkflowSize(cohortExtractionConfig, firecloudSubmission)
+            : null;
+    return new TerraSubmissionStatus(firecloudSubmission, status, vcfSizeMb);
+  }
+
+  private void applySubmissionStatus(
+      DbWgsExtractCromwellSubmission dbSubmission,
+      TerraSubmissionStatus terraStatus,
+      Instant checkTime) {
+    TerraJobStatus oldStatus = dbSubmission.getTerraStatusEnum();
+    TerraJobStatus status = terraStatus.status;
+    FirecloudSubmission firecloudSubmission = terraStatus.firecloudSubmission;
+    dbSubmission.setTerraStatusEnum(status);
+    dbSubmission.setLastStatusCheckTime(Timestamp.from(checkTime));
+
+    if (TerraJobStatus.SUCCEEDED.equals(status)) {
+      dbSubmission.setVcfSizeMb(terraStatus.vcfSizeMb);
+    }
+
+    if (isTerminal(status)) {
+      dbSubmission.setCompletionTime(
+          CommonMappers.timestamp(
+              firecloudSubmission.getWorkflows().get(0).getStatusLastChangedDate()));
+    }
+
+    if (TerraJobStatus.FAILED.equals(status) && !status.equals(oldStatus)) {
+      maybeNotifyOnJobFailure(dbSubmission, firecloudSubmission);
+    }
+
+    wgsExtractCromwellSubmissionDao.save(dbSubmission);
+  }
+
+  /**
+   * Reports how far behind the status refresh is: the time since the least recently checked
+   * non-terminal job was checked, or was submitted if it was never checked.
+   */
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    final Instant now = clock.instant();
+    final long lagMillis =
+        wgsExtractCromwellSubmissionDao.findAllNonTerminal().stream()
+            .map(
+                dbSubmission ->
+                    Optional.ofNullable(dbSubmission.getLastStatusCheckTime())
+                        .map(Timestamp::toInstant)
+                        .orElseGet(() -> getSubmissionTime(dbSubmission, now)))
+            .min(Comparator.naturalOrder())
+            .map(oldest -> Duration.between(oldest, now).toMillis())
+            .orElse(0L);
+    return ImmutableList.of(
+        MeasurementBundle.builder()
+            .addMeasurement(GaugeMetric.GENOMIC_EXTRACTION_STATUS_LAG, lagMillis)
+            .build());
+  }
+
+  private Long getWorkflowSize(
+      WgsCohortExtractionConfig cohortExtractionConfig, FirecloudSubmission firecloudSubmission)
+      throws ApiException {
     final FirecloudWorkflowOutputsResponse outputsResponse =
         submissionApiProvider
             .get()
             .getWorkflowOutputs(
-                workbenchConfigProvider.get()
-                    .wgsCohortExtraction
-                    .operationalTerraWorkspaceNamespace,
-                workbenchConfigProvider.get().wgsCohortExtraction.operationalTerraWorkspaceName,
+                cohortExtractionConfig.operationalTerraWorkspaceNamespace,
+                cohortExtractionConfig.operationalTerraWorkspaceName,
                 firecloudSubmission.getSubmissionId(),
                 firecloudSubmission.getWorkflows().get(0).getWorkflowId());
 
@@ -1,6 +1,7 @@
 /**
- * Note: this file is tested with integration tests rather than unit tests. See
- * src/integration/.../DirectoryServiceImplIntegrationTest.java for test cases.
+ * Note: the Directory API calls in this file are tested with integration tests rather than unit
+ * tests. See src/integration/.../DirectoryServiceImplIntegrationTest.java for test cases. The
+ * user count gauges are unit tested in DirectoryServiceImplTest.
  */
 package org.pmiops.workbench.google;
 
@@ -17,12 +18,15 @@ import com.google.api.services.directory.model.Users;
 import com.google.auth.http.HttpCredentialsAdapter;
 import com.google.auth.oauth2.OAuth2Credentials;
 import com.google.cloud.iam.credentials.v1.IamCredentialsClient;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import java.io.IOException;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -30,6 +34,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import javax.inject.Provider;
@@ -48,6 +54,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+/**
+ * Manages the GSuite accounts of Workbench users, and reports the number of users in each GSuite
+ * domain as a gauge.
+ *
+ * <p>Each instance recounts the users with the Directory API every
+ * USER_COUNT_RECONCILIATION_INTERVAL, and only reports the counts of its last recount. Creations
+ * and deletions, whichever instance handles them, show up at the next recount, so all instances
+ * report the same counts between recounts. A new instance reports no counts until its first
+ * recount is done.
+ */
 @Service
 public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollector {
 
@@ -68,6 +84,13 @@ public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollecto
   private static final String EMAIL_USER_FIELD = "email";
   private static final String USER_VIEW_TYPE = "domain_public";
 
+  // How often the GSuite user counts are recounted from the Directory API.
+  @VisibleForTesting
+  static final Duration USER_COUNT_RECONCILIATION_INTERVAL = Duration.ofHours(1);
+  // How long one gauge recording may spend recounting. A longer recount resumes at the next one.
+  @VisibleForTesting
+  static final Duration USER_COUNT_RECONCILIATION_BUDGET = Duration.ofSeconds(10);
+
   private static final String ADMIN_SERVICE_ACCOUNT_NAME = "gsuite-admin";
 
   // The username of the G Suite user which will be used to make service-level Directory API
@@ -98,6 +121,35 @@ public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollecto
   private final HttpTransport httpTransport;
   private final GoogleRetryHandler retryHandler;
   private final IamCredentialsClient iamCredentialsClient;
+  private final Ticker ticker;
+
+  // GSuite user counts by domain, as of this instance's last recount, reported by getGaugeData().
+  // They are not adjusted as users are created or deleted, since other instances would miss those
+  // adjustments, so every instance reports the same counts between recounts. A domain is absent,
+  // and not reported, until this instance has counted it once.
+  private final Map<String, Long> userCountsByDomain = new ConcurrentHashMap<>();
+  // Held by the request which is advancing the recount, so that only one does at a time.
+  private final ReentrantLock userCountReconciliationLock = new ReentrantLock();
+  // The recount in progress, or null if there is none. Guarded by userCountReconciliationLock.
+  private UserCountReconciliation userCountReconciliation;
+  // ticker time of the last completed recount; null if there has been none
+  private volatile Long lastUserCountReconciliationNanos;
+
+  /** The position of a recount which may span several gauge recordings. */
+  private static class UserCountReconciliation {
+    private final List<String> domains;
+    private int domainIndex = 0;
+    private String pageToken = null;
+    private long domainUserCount = 0;
+
+    private UserCountReconciliation(List<String> domains) {
+      this.domains = domains;
+    }
+
+    private boolean isDone() {
+      return domainIndex == domains.size();
+    }
+  }
 
   @Autowired
   public DirectoryServiceImpl(
@@ -105,13 +157,25 @@ public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollecto
       HttpTransport httpTransport,
       GoogleRetryHandler retryHandler,
       IamCredentialsClient iamCredentialsClient) {
+    this(configProvider, httpTransport, retryHandler, iamCredentialsClient, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  DirectoryServiceImpl(
+      Provider<WorkbenchConfig> configProvider,
+      HttpTransport httpTransport,
+      GoogleRetryHandler retryHandler,
+      IamCredentialsClient iamCredentialsClient,
+      Ticker ticker) {
     this.configProvider = configProvider;
     this.httpTransport = httpTransport;
     this.retryHandler = retryHandler;
     this.iamCredentialsClient = iamCredentialsClient;
+    this.ticker = ticker;
   }
 
-  private Directory getGoogleDirectoryService() {
+  @VisibleForTesting
+  Directory getGoogleDirectoryService() {
     final OAuth2Credentials delegatedCreds =
         new DelegatedUserCredentials(
             ServiceAccounts.getServiceAccountEmail(
@@ -298,21 +362,102 @@ public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollecto
     retryHandler.run((context) -> getGoogleDirectoryService().users().signOut(username).execute());
   }
 
+  /**
+   * Reports the GSuite user counts of the last recount, after advancing a recount if they are
+   * missing or stale. Each recording spends at most USER_COUNT_RECONCILIATION_BUDGET recounting, so
+   * the gauge cron doesn't slow down as the domain grows.
+   */
   @Override
   public Collection<MeasurementBundle> getGaugeData() {
-    ImmutableSet.Builder<MeasurementBundle> resultBuilder = ImmutableSet.builder();
-
     final String localDomain = gSuiteDomain();
-    addDomainCountMeasurement(resultBuilder, localDomain, countUsersInDomain(localDomain));
-
     final String topLevelDomain = getTopLevelGSuiteDomain();
     // Avoid creating duplicate data point if the local domain is the top domain
-    if (!localDomain.equals(topLevelDomain)) {
-      addDomainCountMeasurement(resultBuilder, topLevelDomain, countUsersInDomain(topLevelDomain));
+    final List<String> domains =
+        localDomain.equals(topLevelDomain)
+            ? Collections.singletonList(localDomain)
+            : Arrays.asList(localDomain, topLevelDomain);
+    reconcileUserCountsIfDue(domains);
+
+    ImmutableSet.Builder<MeasurementBundle> resultBuilder = ImmutableSet.builder();
+    for (String domain : domains) {
+      final Long domainUserCount = userCountsByDomain.get(domain);
+      if (domainUserCount != null) {
+        addDomainCountMeasurement(resultBuilder, domain, domainUserCount);
+      }
     }
     return resultBuilder.build();
   }
 
+  /**
+   * Advances the recount of the user counts, if one is due or in progress, for up to
+   * USER_COUNT_RECONCILIATION_BUDGET. The recount runs on the calling thread and is resumed by
+   * later calls rather than handed to a background thread, since App Engine gives background
+   * threads no CPU between requests. If a page fails, it is retried at the next call.
+   */
+  private void reconcileUserCountsIfDue(List<String> domains) {
+    if (!userCountReconciliationLock.tryLock()) {
+      return;
+    }
+    try {
+      if (userCountReconciliation == null) {
+        final Long lastReconciliationNanos = lastUserCountReconciliationNanos;
+        if (lastReconciliationNanos != null
+            && ticker.read() - lastReconciliationNanos
+                < USER_COUNT_RECONCILIATION_INTERVAL.toNanos()) {
+          return;
+        }
+        userCountReconciliation = new UserCountReconciliation(domains);
+      }
+      final Directory directoryService = getGoogleDirectoryService();
+      final long deadlineNanos = ticker.read() + USER_COUNT_RECONCILIATION_BUDGET.toNanos();
+      while (!userCountReconciliation.isDone() && ticker.read() < deadlineNanos) {
+        try {
+          countNextUserPage(directoryService, userCountReconciliation);
+        } catch (IOException | RuntimeException e) {
+          log.warn("Failed to retrieve GSuite User List.", e);
+          return;
+        }
+      }
+      if (userCountReconciliation.isDone()) {
+        userCountReconciliation = null;
+        lastUserCountReconciliationNanos = ticker.read();
+      }
+    } finally {
+      userCountReconciliationLock.unlock();
+    }
+  }
+
+  private void countNextUserPage(
+      Directory directoryService, UserCountReconciliation reconciliation) throws IOException {
+    final String gSuiteDomain = reconciliation.domains.get(reconciliation.domainIndex);
+    final Directory.Users.List listQuery =
+        directoryService
+            .users()
+            .list()
+            .setDomain(gSuiteDomain)
+            .setViewType(USER_VIEW_TYPE)
+            .setCustomFieldMask("email")
+            .setMaxResults(MAX_USERS_LIST_PAGE_SIZE)
+            .setOrderBy(EMAIL_USER_FIELD);
+    if (reconciliation.pageToken != null) {
+      listQuery.setPageToken(reconciliation.pageToken);
+    }
+
+    final Users usersQueryResult = listQuery.execute();
+
+    if (usersQueryResult.getUsers() != null) {
+      reconciliation.domainUserCount += usersQueryResult.getUsers().size();
+    }
+    reconciliation.pageToken = Strings.emptyToNull(usersQueryResult.getNextPageToken());
+    if (reconciliation.pageToken == null) {
+      // Users created or deleted while counting may be missed or counted twice; the next
+      // recount corrects this.
+      userCountsByDomain.put(gSuiteDomain, reconciliation.domainUserCount);
+      reconciliation.domainIndex++;
+      reconciliation.domainUserCount = 0;
+    }
+  }
+
   private void addDomainCountMeasurement(
       ImmutableSet.Builder<MeasurementBundle> resultBuilder,
       String gSuiteDomain,
@@ -324,35 +469,6 @@ public class DirectoryServiceImpl implements DirectoryService, GaugeDataCollecto
             .build());
   }
 
-  private long countUsersInDomain(String gSuiteDomain) {
-    long result = 0;
-    try {
-      final Directory directoryService = getGoogleDirectoryService();
-      Optional<String> nextPageToken = Optional.empty();
-      do {
-        final Directory.Users.List listQuery =
-            directoryService
-                .users()
-                .list()
-                .setDomain(gSuiteDomain)
-                .setViewType(USER_VIEW_TYPE)
-                .setCustomFieldMask("email")
-                .setMaxResults(MAX_USERS_LIST_PAGE_SIZE)
-                .setOrderBy(EMAIL_USER_FIELD);
-        nextPageToken.ifPresent(listQuery::setPageToken);
-
-        final Users usersQueryResult = listQuery.execute();
-
-        result += usersQueryResult.getUsers().size();
-        nextPageToken = Optional.ofNullable(usersQueryResult.getNextPageToken());
-      } while (nextPageToken.isPresent());
-      return result;
-    } catch (IOException e) {
-      log.warn("Failed to retrieve GSuite User List.", e);
-      return 0;
-    }
-  }
-
   private String randomString() {
     return IntStream.range(0, 17)
         .boxed()
@@ -0,0 +1,226 @@
+package org.pmiops.workbench.institution;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.pmiops.workbench.db.dao.InstitutionDao;
+import org.pmiops.workbench.db.dao.InstitutionEmailAddressDao;
+import org.pmiops.workbench.db.dao.InstitutionEmailDomainDao;
+import org.pmiops.workbench.db.dao.InstitutionTierRequirementDao;
+import org.pmiops.workbench.db.model.DbInstitution;
+import org.pmiops.workbench.db.model.DbInstitutionEmailAddress;
+import org.pmiops.workbench.db.model.DbInstitutionEmailDomain;
+import org.pmiops.workbench.db.model.DbInstitutionTierRequirement;
+import org.pmiops.workbench.db.model.DbInstitutionTierRequirement.MembershipRequirement;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * An in-memory index from lowercased email address and email domain to the institutions whose
+ * tier requirements accept them, so that matching a contact email against every institution is a
+ * pair of hash lookups rather than a scan of each institution's address and domain lists.
+ *
+ * <p>Only addresses under an ADDRESSES requirement and domains under a DOMAINS requirement are
+ * indexed, mirroring InstitutionService.validateInstitutionalEmail.
+ *
+ * <p>The index is an immutable snapshot, so lookups don't lock. It is rebuilt on the first lookup
+ * after invalidate() is called, which InstitutionServiceImpl does whenever it changes an
+ * institution, and after MAX_INDEX_AGE to pick up changes made through other instances.
+ */
+class InstitutionEmailIndex {
+  static final Duration MAX_INDEX_AGE = Duration.ofMinutes(5);
+
+  private final InstitutionDao institutionDao;
+  private final InstitutionEmailAddressDao institutionEmailAddressDao;
+  private final InstitutionEmailDomainDao institutionEmailDomainDao;
+  private final InstitutionTierRequirementDao institutionTierRequirementDao;
+
+  private volatile Snapshot snapshot;
+
+  // Bumped by every invalidation, so that a build which raced with one isn't kept.
+  private final AtomicLong invalidationCount = new AtomicLong();
+  private final AtomicLong buildCount = new AtomicLong();
+
+  InstitutionEmailIndex(
+      InstitutionDao institutionDao,
+      InstitutionEmailAddressDao institutionEmailAddressDao,
+      InstitutionEmailDomainDao institutionEmailDomainDao,
+      InstitutionTierRequirementDao institutionTierRequirementDao) {
+    this.institutionDao = institutionDao;
+    this.institutionEmailAddressDao = institutionEmailAddressDao;
+    this.institutionEmailDomainDao = institutionEmailDomainDao;
+    this.institutionTierRequirementDao = institutionTierRequirementDao;
+  }
+
+  /** A tier of an institution which accepts an indexed address or domain. */
+  static class Match {
+    private final long institutionId;
+    private final String shortName;
+    private final String displayName;
+    private final String accessTierShortName;
+
+    Match(long institutionId, String shortName, String displayName, String accessTierShortName) {
+      this.institutionId = institutionId;
+      this.shortName = shortName;
+      this.displayName = displayName;
+      this.accessTierShortName = accessTierShortName;
+    }
+
+    long getInstitutionId() {
+      return institutionId;
+    }
+
+    String getShortName() {
+      return shortName;
+    }
+
+    String getDisplayName() {
+      return displayName;
+    }
+
+    String getAccessTierShortName() {
+      return accessTierShortName;
+    }
+  }
+
+  private static class Snapshot {
+    private final ImmutableListMultimap<String, Match> matchesByAddress;
+    private final ImmutableListMultimap<String, Match> matchesByDomain;
+    private final long builtAtNanos;
+
+    private Snapshot(
+        ListMultimap<String, Match> matchesByAddress, ListMultimap<String, Match> matchesByDomain) {
+      this.matchesByAddress = ImmutableListMultimap.copyOf(matchesByAddress);
+      this.matchesByDomain = ImmutableListMultimap.copyOf(matchesByDomain);
+      this.builtAtNanos = System.nanoTime();
+    }
+
+    private boolean isExpired() {
+      return System.nanoTime() - builtAtNanos > MAX_INDEX_AGE.toNanos();
+    }
+  }
+
+  /**
+   * Returns the short name of the institution which accepts the given email for the given tier,
+   * by exact address or by domain. If several do, returns the first by display name, as
+   * InstitutionService.getInstitutions() orders them.
+   */
+  Optional<String> findFirstMatchingShortName(String contactEmail, String accessTierShortName) {
+    final Snapshot current = getSnapshot();
+    final String address = contactEmail.toLowerCase(Locale.ROOT);
+    final String domain = address.substring(address.indexOf("@") + 1);
+    return Stream.concat(
+            current.matchesByAddress.get(address).stream(),
+            current.matchesByDomain.get(domain).stream())
+        .filter(match -> match.getAccessTierShortName().equals(accessTierShortName))
+        .min(
+            Comparator.comparing(Match::getDisplayName)
+                .thenComparingLong(Match::getInstitutionId))
+        .map(Match::getShortName);
+  }
+
+  /**
+   * Discards the index, so that the next lookup rebuilds it. Within a transaction it is discarded
+   * again once the transaction completes, since a lookup in the meantime may have rebuilt it from
+   * data which was not yet committed, or has been rolled back.
+   */
+  void invalidate() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              invalidateNow();
+            }
+          });
+    }
+    invalidateNow();
+  }
+
+  private void invalidateNow() {
+    invalidationCount.incrementAndGet();
+    snapshot = null;
+  }
+
+  private Snapshot getSnapshot() {
+    final Snapshot current = snapshot;
+    if (current != null && !current.isExpired()) {
+      return current;
+    }
+    final long invalidationCountBeforeBuild = invalidationCount.get();
+    final Snapshot built = build();
+    if (invalidationCount.get() == invalidationCountBeforeBuild) {
+      snapshot = built;
+    }
+    return built;
+  }
+
+  @VisibleForTesting
+  long getBuildCount() {
+    return buildCount.get();
+  }
+
+  private Snapshot build() {
+    buildCount.incrementAndGet();
+    final Map<Long, DbInstitution> institutionsById = new HashMap<>();
+    institutionDao.findAll().forEach(i -> institutionsById.put(i.getInstitutionId(), i));
+
+    final Map<String, MembershipRequirement> requirementsByInstitutionAndTier = new HashMap<>();
+    for (DbInstitutionTierRequirement requirement : institutionTierRequirementDao.findAll()) {
+      requirementsByInstitutionAndTier.put(
+          institutionAndTierKey(
+              requirement.getInstitution().getInstitutionId(),
+              requirement.getAccessTier().getShortName()),
+          requirement.getMembershipRequirement());
+    }
+
+    final ListMultimap<String, Match> matchesByAddress =
+        MultimapBuilder.hashKeys().arrayListValues().build();
+    for (DbInstitutionEmailAddress address : institutionEmailAddressDao.findAll()) {
+      final long institutionId = address.getInstitution().getInstitutionId();
+      final String tier = address.getAccessTier().getShortName();
+      if (requirementsByInstitutionAndTier.get(institutionAndTierKey(institutionId, tier))
+          == MembershipRequirement.ADDRESSES) {
+        matchesByAddress.put(
+            address.getEmailAddress().toLowerCase(Locale.ROOT),
+            toMatch(institutionsById.get(institutionId), tier));
+      }
+    }
+
+    final ListMultimap<String, Match> matchesByDomain =
+        MultimapBuilder.hashKeys().arrayListValues().build();
+    for (DbInstitutionEmailDomain domain : institutionEmailDomainDao.findAll()) {
+      final long institutionId = domain.getInstitution().getInstitutionId();
+      final String tier = domain.getAccessTier().getShortName();
+      if (requirementsByInstitutionAndTier.get(institutionAndTierKey(institutionId, tier))
+          == MembershipRequirement.DOMAINS) {
+        matchesByDomain.put(
+            domain.getEmailDomain().toLowerCase(Locale.ROOT),
+            toMatch(institutionsById.get(institutionId), tier));
+      }
+    }
+
+    return new Snapshot(matchesByAddress, matchesByDomain);
+  }
+
+  private static Match toMatch(DbInstitution institution, String accessTierShortName) {
+    return new Match(
+        institution.getInstitutionId(),
+        institution.getShortName(),
+        institution.getDisplayName(),
+        accessTierShortName);
+  }
+
+  private static String institutionAndTierKey(long institutionId, String accessTierShortName) {
+    return institutionId + "/" + accessTierShortName;
+  }
+}
@@ -74,6 +74,8 @@ public class InstitutionServiceImpl implements InstitutionService {
   private final InstitutionTierConfigMapper institutionTierConfigMapper;
   private final PublicInstitutionDetailsMapper publicInstitutionDetailsMapper;
 
+  private final InstitutionEmailIndex institutionEmailIndex;
+
   @Autowired
   InstitutionServiceImpl(
       AccessTierDao accessTierDao,
@@ -98,6 +100,12 @@ public class InstitutionServiceImpl implements InstitutionService {
     this.institutionUserInstructionsMapper = institutionUserInstructionsMapper;
     this.institutionTierConfigMapper = institutionTierConfigMapper;
     this.publicInstitutionDetailsMapper = publicInstitutionDetailsMapper;
+    this.institutionEmailIndex =
+        new InstitutionEmailIndex(
+            institutionDao,
+            institutionEmailAddressDao,
+            institutionEmailDomainDao,
+            institutionTierRequirementDao);
   }
 
   @Override
@@ -150,6 +158,8 @@ public class InstitutionServiceImpl implements InstitutionService {
     } catch (DataIntegrityViolationException ex) {
       throw new ConflictException(
           "DataIntegrityException: Please check that you are not creating an Institute which already exists");
+    } finally {
+      institutionEmailIndex.invalidate();
     }
   }
 
@@ -159,6 +169,7 @@ public class InstitutionServiceImpl implements InstitutionService {
     if (verifiedInstitutionalAffiliationDao.findAllByInstitution(institution).isEmpty()) {
       // no verified user affiliations: safe to delete
       institutionDao.delete(institution);
+      institutionEmailIndex.invalidate();
     } else {
       throw new ConflictException(
           String.format(
@@ -207,6 +218,7 @@ public class InstitutionServiceImpl implements InstitutionService {
           ex);
     }
 
+    institutionEmailIndex.invalidate();
     return toModel(dbObjectToUpdate);
   }
 
@@ -564,11 +576,14 @@ public class InstitutionServiceImpl implements InstitutionService {
   }
 
   public Optional<Institution> getFirstMatchingInstitution(final String contactEmail) {
-    return getInstitutions().stream()
-        .filter(
-            institution ->
-                validateInstitutionalEmail(institution, contactEmail, REGISTERED_TIER_SHORT_NAME))
-        .findFirst();
+    try {
+      new InternetAddress(contactEmail).validate();
+    } catch (AddressException | NullPointerException e) {
+      return Optional.empty();
+    }
+    return institutionEmailIndex
+        .findFirstMatchingShortName(contactEmail, REGISTERED_TIER_SHORT_NAME)
+        .flatMap(this::getInstitution);
   }
 
   /** Validates list of email addresses, and throw {@link BadRequestException} if not valid. */
@@ -1,18 +1,23 @@
 package org.pmiops.workbench.interceptors;
 
 import com.google.api.client.http.HttpMethods;
+import com.google.api.services.oauth2.model.Tokeninfo;
 import com.google.api.services.oauth2.model.Userinfo;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.Authorization;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.inject.Provider;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.pmiops.workbench.annotations.AuthorityRequired;
+import org.pmiops.workbench.auth.TokenIdentityCache;
+import org.pmiops.workbench.auth.TokenIdentityCache.CachedIdentity;
 import org.pmiops.workbench.auth.UserAuthentication;
 import org.pmiops.workbench.auth.UserAuthentication.UserType;
 import org.pmiops.workbench.auth.UserInfoService;
@@ -53,6 +58,7 @@ public class AuthInterceptor extends HandlerInterceptorAdapter {
   private final UserDao userDao;
   private final UserService userService;
   private final DevUserRegistrationService devUserRegistrationService;
+  private final TokenIdentityCache tokenIdentityCache;
 
   @Autowired
   public AuthInterceptor(
@@ -61,13 +67,15 @@ public class AuthInterceptor extends HandlerInterceptorAdapter {
       Provider<WorkbenchConfig> workbenchConfigProvider,
       UserDao userDao,
       UserService userService,
-      DevUserRegistrationService devUserRegistrationService) {
+      DevUserRegistrationService devUserRegistrationService,
+      TokenIdentityCache tokenIdentityCache) {
     this.userInfoService = userInfoService;
     this.fireCloudService = fireCloudService;
     this.workbenchConfigProvider = workbenchConfigProvider;
     this.userDao = userDao;
     this.userService = userService;
     this.devUserRegistrationService = devUserRegistrationService;
+    this.tokenIdentityCache = tokenIdentityCache;
   }
 
   /**
@@ -114,61 +122,82 @@ public class AuthInterceptor extends HandlerInterceptorAdapter {
     }
 
     final String token = authorizationHeader.substring("Bearer".length()).trim();
-    final Userinfo userInfo = userInfoService.getUserInfo(token);
 
-    // The Workbench considers the user's generated GSuite email to be their userName
-    // Don't confuse this with the user's Contact Email, which is unrelated
-    String userName = userInfo.getEmail();
+    final Optional<CachedIdentity> cachedIdentity = tokenIdentityCache.get(token);
+    final Userinfo userInfo;
+    final UserType userType;
+    DbUser user =
+        cachedIdentity.map(identity -> userDao.findUserByUserId(identity.getUserId())).orElse(null);
+    if (user != null) {
+      userInfo = cachedIdentity.get().getUserInfo();
+      userType = cachedIdentity.get().getUserType();
+    } else {
+      userInfo = userInfoService.getUserInfo(token);
 
-    // TODO: check Google group membership to ensure user is in registered user group
+      // The Workbench considers the user's generated GSuite email to be their userName
+      // Don't confuse this with the user's Contact Email, which is unrelated
+      String userName = userInfo.getEmail();
 
-    if (workbenchConfigProvider.get().auth.serviceAccountApiUsers.contains(userName)) {
-      // Whitelisted service accounts are able to make API calls, too.
-      // TODO: stop treating service accounts as normal users, have a separate table for them,
-      // administrators.
-      DbUser user = userDao.findUserByUsername(userName);
-      if (user == null) {
-        user = userService.createServiceAccountUser(userName);
+      // TODO: check Google group membership to ensure user is in registered user group
+
+      if (workbenchConfigProvider.get().auth.serviceAccountApiUsers.contains(userName)) {
+        // Whitelisted service accounts are able to make API calls, too.
+        // TODO: stop treating service accounts as normal users, have a separate table for them,
+        // administrators.
+        userType = UserType.SERVICE_ACCOUNT;
+        user = userDao.findUserByUsername(userName);
+        if (user == null) {
+          user = userService.createServiceAccountUser(userName);
+        }
+      } else {
+        userType = UserType.RESEARCHER;
+        String gsuiteDomainSuffix =
+            "@" + workbenchConfigProvider.get().googleDirectoryService.gSuiteDomain;
+        if (!userName.endsWith(gsuiteDomainSuffix)) {
+          // Temporarily set the authentication with no user, so we can look up what user this
+          // corresponds to in FireCloud.
+          SecurityContextHolder.getContext()
+              .setAuthentication(
+                  new UserAuthentication(null, userInfo, token, UserType.SERVICE_ACCOUNT));
+          // If the email isn't in our GSuite domain, try FireCloud; we could be dealing with a
+          // pet service account. In both AofU and FireCloud, the pet SA is treated as if it were
+          // the user it was created for.
+          userName = fireCloudService.getMe().getUserInfo().getUserEmail();
+          if (!userName.endsWith(gsuiteDomainSuffix)) {
+            log.info(
+                String.format(
+                    "User %s isn't in domain %s, can't access the workbench",
+                    userName, gsuiteDomainSuffix));
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return false;
+          }
+        }
+        user = userDao.findUserByUsername(userName);
+        if (user == null) {
+          if (workbenchConfigProvider.get().access.unsafeAllowUserCreationFromGSuiteData) {
+            user = devUserRegistrationService.createUser(userInfo);
+            log.info(String.format("Dev user '%s' has been re-created.", user.getUsername()));
+          } else {
+            log.severe(String.format("No User row exists for user '%s'", userName));
+            return false;
+          }
+        }
       }
+      if (!user.getDisabled()) {
+        cacheIdentity(token, userInfo, user, userType);
+      }
+    }
+
+    if (userType == UserType.SERVICE_ACCOUNT) {
       SecurityContextHolder.getContext()
           .setAuthentication(
               new UserAuthentication(user, userInfo, token, UserType.SERVICE_ACCOUNT));
-      log.log(Level.INFO, "{0} service account in use", userName);
+      log.log(Level.INFO, "{0} service account in use", user.getUsername());
       return true;
     }
-    String gsuiteDomainSuffix =
-        "@" + workbenchConfigProvider.get().googleDirectoryService.gSuiteDomain;
-    if (!userName.endsWith(gsuiteDomainSuffix)) {
-      // Temporarily set the authentication with no user, so we can look up what user this
-      // corresponds to in FireCloud.
-      SecurityContextHolder.getContext()
-          .setAuthentication(
-              new UserAuthentication(null, userInfo, token, UserType.SERVICE_ACCOUNT));
-      // If the email isn't in our GSuite domain, try FireCloud; we could be dealing with a
-      // pet service account. In both AofU and FireCloud, the pet SA is treated as if it were
-      // the user it was created for.
-      userName = fireCloudService.getMe().getUserInfo().getUserEmail();
-      if (!userName.endsWith(gsuiteDomainSuffix)) {
-        log.info(
-            String.format(
-                "User %s isn't in domain %s, can't access the workbench",
-                userName, gsuiteDomainSuffix));
-        response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
-        return false;
-      }
-    }
-    DbUser user = userDao.findUserByUsername(userName);
-    if (user == null) {
-      if (workbenchConfigProvider.get().access.unsafeAllowUserCreationFromGSuiteData) {
-        user = devUserRegistrationService.createUser(userInfo);
-        log.info(String.format("Dev user '%s' has been re-created.", user.getUsername()));
-      } else {
-        log.severe(String.format("No User row exists for user '%s'", userName));
-        return false;
-      }
-    }
 
     if (user.getDisabled()) {
+      tokenIdentityCache.invalidateUser(user.getUserId());
       throw new ForbiddenException(
           WorkbenchException.errorResponse(
               "Rejecting request for disabled user account: " + user.getUsername(),
@@ -193,6 +222,25 @@ public class AuthInterceptor extends HandlerInterceptorAdapter {
     return true;
   }
 
+  /**
+   * Caches the token's identity for the rest of its lifetime, capped by the cache's TTL. If the
+   * token's lifetime can't be determined, the identity isn't cached.
+   */
+  private void cacheIdentity(String token, Userinfo userInfo, DbUser user, UserType userType) {
+    final Tokeninfo tokenInfo;
+    try {
+      tokenInfo = userInfoService.getTokenInfo(token);
+    } catch (RuntimeException e) {
+      log.log(Level.WARNING, "Could not introspect token, not caching its identity", e);
+      return;
+    }
+    if (tokenInfo == null || tokenInfo.getExpiresIn() == null) {
+      return;
+    }
+    tokenIdentityCache.put(
+        token, userInfo, user.getUserId(), userType, Duration.ofSeconds(tokenInfo.getExpiresIn()));
+  }
+
   @Override
   public void postHandle(
       HttpServletRequest request,
@@ -7,6 +7,7 @@ import java.time.Instant;
 import java.util.Optional;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import org.pmiops.workbench.monitoring.ApiLatencyHistograms;
 import org.pmiops.workbench.monitoring.LogsBasedMetricService;
 import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.pmiops.workbench.monitoring.labels.MetricLabel;
@@ -20,10 +21,15 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
 public class RequestTimeMetricInterceptor extends HandlerInterceptorAdapter {
 
   private final LogsBasedMetricService logsBasedMetricService;
+  private final ApiLatencyHistograms apiLatencyHistograms;
   private Clock clock;
 
-  public RequestTimeMetricInterceptor(LogsBasedMetricService logsBasedMetricService, Clock clock) {
+  public RequestTimeMetricInterceptor(
+      LogsBasedMetricService logsBasedMetricService,
+      ApiLatencyHistograms apiLatencyHistograms,
+      Clock clock) {
     this.logsBasedMetricService = logsBasedMetricService;
+    this.apiLatencyHistograms = apiLatencyHistograms;
     this.clock = clock;
   }
 
@@ -76,4 +82,35 @@ public class RequestTimeMetricInterceptor extends HandlerInterceptorAdapter {
                         .addTag(MetricLabel.METHOD_NAME, methodName)
                         .build()));
   }
+
+  /**
+   * Record the elapsed time since preHandle to the in-process API latency histograms, by method
+   * name and response status. Unlike postHandle, this is called when the handler throws, so failed
+   * requests are counted too.
+   *
+   * @param request - request that was just handled
+   * @param response - response, for its status code
+   * @param handler - handler object. Only interested in the HandlerMethod variety
+   * @param ex - an exception which escaped the handler and any exception resolvers, if any
+   */
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    if (shouldSkip(request, handler)) {
+      return;
+    }
+
+    final String methodName = ((HandlerMethod) handler).getMethod().getName();
+    // An exception which got this far will be reported as a server error.
+    final int statusCode =
+        ex == null ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+
+    Optional.ofNullable(request.getAttribute(RequestAttribute.START_INSTANT.getKeyName()))
+        .map(obj -> (Instant) obj)
+        .map(start -> Duration.between(start, clock.instant()))
+        .map(Duration::toMillis)
+        .ifPresent(
+            elapsedMillis -> apiLatencyHistograms.record(methodName, statusCode, elapsedMillis));
+    apiLatencyHistograms.exportIfDue();
+  }
 }
@@ -0,0 +1,80 @@
+package org.pmiops.workbench.mail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Resources;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An email body template, split once into its literal text and ${FIELD} references so that each
+ * email is built in a single pass over the segments. As with StringSubstitutor, a reference to a
+ * field without a value is left in the output unchanged. Unlike it, substituted values are not
+ * themselves searched for references.
+ */
+class EmailTemplate {
+  private static final Pattern FIELD_REFERENCE = Pattern.compile("\\$\\{([A-Za-z0-9_]+)}");
+
+  // literals.get(i) precedes references.get(i); the final literal follows the last reference.
+  private final ImmutableList<String> literals;
+  private final ImmutableList<String> references;
+  private final ImmutableList<Optional<EmailSubstitutionField>> fields;
+  private final int literalLength;
+
+  private EmailTemplate(
+      ImmutableList<String> literals,
+      ImmutableList<String> references,
+      ImmutableList<Optional<EmailSubstitutionField>> fields) {
+    this.literals = literals;
+    this.references = references;
+    this.fields = fields;
+    this.literalLength = literals.stream().mapToInt(String::length).sum();
+  }
+
+  static EmailTemplate fromResource(String resource) {
+    try {
+      return parse(
+          String.join(
+              "\n", Resources.readLines(Resources.getResource(resource), StandardCharsets.UTF_8)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error reading email template " + resource, e);
+    }
+  }
+
+  static EmailTemplate parse(String content) {
+    final ImmutableList.Builder<String> literals = ImmutableList.builder();
+    final ImmutableList.Builder<String> references = ImmutableList.builder();
+    final ImmutableList.Builder<Optional<EmailSubstitutionField>> fields = ImmutableList.builder();
+    final Matcher matcher = FIELD_REFERENCE.matcher(content);
+    int literalStart = 0;
+    while (matcher.find()) {
+      literals.add(content.substring(literalStart, matcher.start()));
+      references.add(matcher.group());
+      fields.add(fieldNamed(matcher.group(1)));
+      literalStart = matcher.end();
+    }
+    literals.add(content.substring(literalStart));
+    return new EmailTemplate(literals.build(), references.build(), fields.build());
+  }
+
+  private static Optional<EmailSubstitutionField> fieldNamed(String name) {
+    return Arrays.stream(EmailSubstitutionField.values())
+        .filter(field -> field.toString().equals(name))
+        .findFirst();
+  }
+
+  String render(Map<EmailSubstitutionField, String> values) {
+    final StringBuilder html = new StringBuilder(literalLength + 64 * references.size());
+    for (int i = 0; i < references.size(); i++) {
+      html.append(literals.get(i));
+      final String value = fields.get(i).map(values::get).orElse(null);
+      html.append(value == null ? references.get(i) : value);
+    }
+    return html.append(literals.get(references.size())).toString();
+  }
+}
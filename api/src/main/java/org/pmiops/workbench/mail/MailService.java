@@ -2,6 +2,7 @@ package org.pmiops.workbench.mail;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 import javax.mail.MessagingException;
 import org.pmiops.workbench.db.model.DbUser;
@@ -37,6 +38,24 @@ public interface MailService {
   void alertUserRegisteredTierExpiration(final DbUser user, Instant expirationTime)
       throws MessagingException;
 
+  /**
+   * Sends each user the reminder of alertUserRegisteredTierWarningThreshold, batching users into
+   * as few Mandrill calls as possible.
+   *
+   * @param expirationTimes each user's registered tier access expiration time
+   */
+  void alertUsersRegisteredTierWarningThreshold(
+      Map<DbUser, Instant> expirationTimes, long daysRemaining) throws MessagingException;
+
+  /**
+   * Sends each user the notice of alertUserRegisteredTierExpiration, batching users into as few
+   * Mandrill calls as possible.
+   *
+   * @param expirationTimes each user's registered tier access expiration time
+   */
+  void alertUsersRegisteredTierExpiration(Map<DbUser, Instant> expirationTimes)
+      throws MessagingException;
+
   /**
    * Notifies the specified users via BCC that there is an unused persistent disk. CC could also be
    * considered here, but may require a policy discussion, as we'd be introducing the sharing of
@@ -3,21 +3,28 @@ package org.pmiops.workbench.mail;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import com.google.common.html.HtmlEscapers;
-import com.google.common.io.Resources;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
 import java.text.NumberFormat;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -28,7 +35,6 @@ import javax.mail.internet.AddressException;
 import javax.mail.internet.InternetAddress;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.text.StringSubstitutor;
 import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.config.WorkbenchConfig.EgressAlertRemediationPolicy;
 import org.pmiops.workbench.db.model.DbUser;
@@ -38,14 +44,18 @@ import org.pmiops.workbench.exfiltration.EgressRemediationAction;
 import org.pmiops.workbench.google.CloudStorageClient;
 import org.pmiops.workbench.leonardo.PersistentDiskUtils;
 import org.pmiops.workbench.leonardo.model.LeonardoListPersistentDiskResponse;
+import org.pmiops.workbench.mandrill.ApiException;
 import org.pmiops.workbench.mandrill.api.MandrillApi;
 import org.pmiops.workbench.mandrill.model.MandrillApiKeyAndMessage;
+import org.pmiops.workbench.mandrill.model.MandrillMergeVar;
 import org.pmiops.workbench.mandrill.model.MandrillMessage;
 import org.pmiops.workbench.mandrill.model.MandrillMessageStatus;
 import org.pmiops.workbench.mandrill.model.MandrillMessageStatuses;
+import org.pmiops.workbench.mandrill.model.MandrillRecipientMergeVars;
 import org.pmiops.workbench.mandrill.model.RecipientAddress;
 import org.pmiops.workbench.mandrill.model.RecipientType;
 import org.pmiops.workbench.model.SendBillingSetupEmailRequest;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -85,6 +95,29 @@ public class MailServiceImpl implements MailService {
   private static final String WELCOME_RESOURCE = "emails/welcome/content.html";
   private static final String WORKSPACE_ADMIN_LOCKING_RESOURCE =
       "emails/workspace_admin_locking/content.html";
+  static final ImmutableList<String> TEMPLATE_RESOURCES =
+      ImmutableList.of(
+          EGRESS_REMEDIATION_RESOURCE,
+          FILE_LENGTHS_EGRESS_REMEDIATION_EMAIL,
+          INITIAL_CREDITS_DOLLAR_THRESHOLD_RESOURCE,
+          INITIAL_CREDITS_EXPIRATION_RESOURCE,
+          INSTRUCTIONS_RESOURCE,
+          REGISTERED_TIER_ACCESS_EXPIRED_RESOURCE,
+          REGISTERED_TIER_ACCESS_THRESHOLD_RESOURCE,
+          SETUP_BILLING_ACCOUNT_RESOURCE,
+          UNUSED_DISK_RESOURCE,
+          WELCOME_RESOURCE,
+          WORKSPACE_ADMIN_LOCKING_RESOURCE);
+
+  // Batched emails go out as one Mandrill message per MAX_RECIPIENTS_PER_BATCH recipients, so
+  // that a failed send affects a bounded number of users. Up to BATCH_SEND_CONCURRENCY messages
+  // are sent at once.
+  private static final int MAX_RECIPIENTS_PER_BATCH = 500;
+  private static final int BATCH_SEND_CONCURRENCY = 4;
+  private static final String MERGE_LANGUAGE = "mailchimp";
+  // Per-recipient statuses which mean Mandrill will not deliver to that recipient.
+  private static final ImmutableSet<String> REJECTED_STATUSES =
+      ImmutableSet.of("rejected", "invalid");
 
   private static final String RAB_SUPPORT_EMAIL = "aouresourceaccess@od.nih.gov";
 
@@ -107,6 +140,13 @@ public class MailServiceImpl implements MailService {
     SUCCESSFUL
   }
 
+  // Templates are parsed once rather than read for every email. Those in TEMPLATE_RESOURCES are
+  // parsed when the service is created, and any others on first use.
+  private final Map<String, EmailTemplate> templates = new ConcurrentHashMap<>();
+
+  private final ExecutorService batchSendExecutor =
+      ConcurrencyUtils.newFixedDaemonThreadPool("mail-batch-send", BATCH_SEND_CONCURRENCY);
+
   @Autowired
   public MailServiceImpl(
       Provider<MandrillApi> mandrillApiProvider,
@@ -115,6 +155,8 @@ public class MailServiceImpl implements MailService {
     this.mandrillApiProvider = mandrillApiProvider;
     this.cloudStorageClientProvider = cloudStorageClientProvider;
     this.workbenchConfigProvider = workbenchConfigProvider;
+    TEMPLATE_RESOURCES.forEach(
+        resource -> templates.put(resource, EmailTemplate.fromResource(resource)));
   }
 
   @Override
@@ -260,6 +302,39 @@ public class MailServiceImpl implements MailService {
         htmlMessage);
   }
 
+  @Override
+  public void alertUsersRegisteredTierWarningThreshold(
+      Map<DbUser, Instant> expirationTimes, long daysRemaining) throws MessagingException {
+    log.info(
+        String.format(
+            "Registered Tier access expiration will occur for %d users in %d days.",
+            expirationTimes.size(), daysRemaining));
+
+    sendBatchWithRetries(
+        REGISTERED_TIER_ACCESS_THRESHOLD_RESOURCE,
+        registeredTierAccessSharedSubstitutionMap(),
+        registeredTierAccessRecipientSubstitutionMaps(expirationTimes),
+        "Your access to All of Us Registered Tier Data will expire "
+            + (daysRemaining == 1 ? "tomorrow" : String.format("in %d days", daysRemaining)),
+        String.format(
+            "%d users will lose registered tier access in %d days",
+            expirationTimes.size(), daysRemaining));
+  }
+
+  @Override
+  public void alertUsersRegisteredTierExpiration(Map<DbUser, Instant> expirationTimes)
+      throws MessagingException {
+    log.info(
+        String.format("Registered Tier access expired for %d users.", expirationTimes.size()));
+
+    sendBatchWithRetries(
+        REGISTERED_TIER_ACCESS_EXPIRED_RESOURCE,
+        registeredTierAccessSharedSubstitutionMap(),
+        registeredTierAccessRecipientSubstitutionMaps(expirationTimes),
+        "Your access to All of Us Registered Tier Data has expired",
+        String.format("Registered Tier access expired for %d users", expirationTimes.size()));
+  }
+
   @Override
   public void alertUsersUnusedDiskWarningThreshold(
       List<DbUser> users,
@@ -482,15 +557,40 @@ public class MailServiceImpl implements MailService {
   private ImmutableMap<EmailSubstitutionField, String> registeredTierAccessSubstitutionMap(
       Instant expirationTime, String username) {
 
+    return new ImmutableMap.Builder<EmailSubstitutionField, String>()
+        .putAll(registeredTierAccessSharedSubstitutionMap())
+        .putAll(registeredTierAccessRecipientSubstitutionMap(expirationTime, username))
+        .build();
+  }
+
+  private ImmutableMap<EmailSubstitutionField, String> registeredTierAccessSharedSubstitutionMap() {
     return new ImmutableMap.Builder<EmailSubstitutionField, String>()
         .put(EmailSubstitutionField.HEADER_IMG, getAllOfUsLogo())
         .put(EmailSubstitutionField.ALL_OF_US, getAllOfUsItalicsText())
+        .put(EmailSubstitutionField.URL, getUiUrlAsHref())
+        .build();
+  }
+
+  private ImmutableMap<EmailSubstitutionField, String> registeredTierAccessRecipientSubstitutionMap(
+      Instant expirationTime, String username) {
+    return new ImmutableMap.Builder<EmailSubstitutionField, String>()
         .put(EmailSubstitutionField.EXPIRATION_DATE, formatCentralTime(expirationTime))
         .put(EmailSubstitutionField.USERNAME, username)
-        .put(EmailSubstitutionField.URL, getUiUrlAsHref())
         .build();
   }
 
+  private List<Map.Entry<String, Map<EmailSubstitutionField, String>>>
+      registeredTierAccessRecipientSubstitutionMaps(Map<DbUser, Instant> expirationTimes) {
+    return expirationTimes.entrySet().stream()
+        .map(
+            e ->
+                Maps.<String, Map<EmailSubstitutionField, String>>immutableEntry(
+                    e.getKey().getContactEmail(),
+                    registeredTierAccessRecipientSubstitutionMap(
+                        e.getValue(), e.getKey().getUsername())))
+        .collect(Collectors.toList());
+  }
+
   private ImmutableMap<EmailSubstitutionField, String> setupBillingAccountEmailMap(
       DbUser user, SendBillingSetupEmailRequest request) {
 
@@ -531,23 +631,8 @@ public class MailServiceImpl implements MailService {
   }
 
   private String buildHtml(
-      final String resource, final Map<EmailSubstitutionField, String> replacementMap)
-      throws MessagingException {
-
-    final String emailContent;
-    try {
-      emailContent =
-          String.join(
-              "\n", Resources.readLines(Resources.getResource(resource), StandardCharsets.UTF_8));
-    } catch (IOException e) {
-      throw new MessagingException("Error reading in email");
-    }
-
-    final Map<String, String> stringMap =
-        replacementMap.entrySet().stream()
-            .collect(Collectors.toMap(e -> e.getKey().toString(), Map.Entry::getValue));
-
-    return new StringSubstitutor(stringMap).replace(emailContent);
+      final String resource, final Map<EmailSubstitutionField, String> replacementMap) {
+    return templates.computeIfAbsent(resource, EmailTemplate::fromResource).render(replacementMap);
   }
 
   private RecipientAddress validatedRecipient(
@@ -609,6 +694,222 @@ public class MailServiceImpl implements MailService {
     MandrillApiKeyAndMessage keyAndMessage = new MandrillApiKeyAndMessage();
     keyAndMessage.setKey(apiKey);
     keyAndMessage.setMessage(msg);
+    sendWithRetries(keyAndMessage, retries, description);
+  }
+
+  /**
+   * Sends one copy of a template to each recipient, substituting the recipient's own fields into
+   * it, in as few Mandrill calls as possible. Fields shared by every recipient are substituted
+   * here; each recipient's fields are written as merge tags, which Mandrill fills in from the
+   * message's merge_vars. Recipients are not shown each other's addresses, and any with invalid
+   * addresses are skipped.
+   *
+   * @param recipients each recipient's email address, and the fields to substitute for them. Users
+   *     who share an address each appear, and each get their own email.
+   */
+  private void sendBatchWithRetries(
+      String resource,
+      Map<EmailSubstitutionField, String> sharedFields,
+      List<Map.Entry<String, Map<EmailSubstitutionField, String>>> recipients,
+      String subject,
+      String description)
+      throws MessagingException {
+    final Map<EmailSubstitutionField, String> templateFields = new HashMap<>(sharedFields);
+    recipients.stream()
+        .flatMap(recipient -> recipient.getValue().keySet().stream())
+        .forEach(field -> templateFields.put(field, "*|" + field + "|*"));
+    final String htmlMessage = buildHtml(resource, templateFields);
+
+    final List<Map.Entry<String, Map<EmailSubstitutionField, String>>> validRecipients =
+        recipients.stream()
+            .filter(recipient -> isValidEmail(recipient.getKey()))
+            .collect(Collectors.toList());
+    if (validRecipients.size() < recipients.size()) {
+      log.warning(
+          String.format(
+              "Email '%s' skips %d recipients with invalid addresses",
+              description, recipients.size() - validRecipients.size()));
+    }
+
+    final String from = workbenchConfigProvider.get().mandrill.fromEmail;
+    final String apiKey = cloudStorageClientProvider.get().readMandrillApiKey();
+    final int retries = workbenchConfigProvider.get().mandrill.sendRetries;
+    final List<Map<String, Map<EmailSubstitutionField, String>>> batches =
+        partitionRecipients(validRecipients);
+    final List<Future<Void>> sends = new ArrayList<>();
+    for (int i = 0; i < batches.size(); i++) {
+      final Map<String, Map<EmailSubstitutionField, String>> batch = batches.get(i);
+      final MandrillMessage msg =
+          new MandrillMessage()
+              .to(
+                  batch.keySet().stream()
+                      .map(email -> new RecipientAddress().email(email).type(RecipientType.TO))
+                      .collect(Collectors.toList()))
+              .html(htmlMessage)
+              .subject(subject)
+              .preserveRecipients(false)
+              .merge(true)
+              .mergeLanguage(MERGE_LANGUAGE)
+              .mergeVars(
+                  batch.entrySet().stream()
+                      .map(e -> mergeVars(e.getKey(), e.getValue()))
+                      .collect(Collectors.toList()))
+              .fromEmail(from);
+      final MandrillApiKeyAndMessage keyAndMessage = new MandrillApiKeyAndMessage();
+      keyAndMessage.setKey(apiKey);
+      keyAndMessage.setMessage(msg);
+      final String batchDescription =
+          String.format("%s (batch %d of %d)", description, i + 1, batches.size());
+      sends.add(
+          batchSendExecutor.submit(
+              ConcurrencyUtils.withRequestAttributes(
+                  () -> {
+                    sendBatchMessageWithRetries(keyAndMessage, retries, batchDescription);
+                    return null;
+                  })));
+    }
+
+    // Wait for every batch, so that one failure doesn't abandon the rest mid-send.
+    int failedBatches = 0;
+    for (Future<Void> send : sends) {
+      try {
+        send.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MessagingException("Interrupted while sending email '" + description + "'");
+      } catch (ExecutionException e) {
+        failedBatches++;
+      }
+    }
+    if (failedBatches > 0) {
+      throw new MessagingException(
+          String.format(
+              "Sending email '%s' failed for %d of %d batches",
+              description, failedBatches, batches.size()));
+    }
+  }
+
+  /**
+   * Splits recipients into batches of at most MAX_RECIPIENTS_PER_BATCH, by address. Merge vars are
+   * keyed by address, so recipients who share an address are put in different batches.
+   */
+  private static List<Map<String, Map<EmailSubstitutionField, String>>> partitionRecipients(
+      List<Map.Entry<String, Map<EmailSubstitutionField, String>>> recipients) {
+    final List<Map<String, Map<EmailSubstitutionField, String>>> batches = new ArrayList<>();
+    for (Map.Entry<String, Map<EmailSubstitutionField, String>> recipient : recipients) {
+      final Map<String, Map<EmailSubstitutionField, String>> batch =
+          batches.stream()
+              .filter(
+                  b -> b.size() < MAX_RECIPIENTS_PER_BATCH && !b.containsKey(recipient.getKey()))
+              .findFirst()
+              .orElseGet(
+                  () -> {
+                    final Map<String, Map<EmailSubstitutionField, String>> newBatch =
+                        new LinkedHashMap<>();
+                    batches.add(newBatch);
+                    return newBatch;
+                  });
+      batch.put(recipient.getKey(), recipient.getValue());
+    }
+    return batches;
+  }
+
+  private static MandrillRecipientMergeVars mergeVars(
+      String email, Map<EmailSubstitutionField, String> fields) {
+    return new MandrillRecipientMergeVars()
+        .rcpt(email)
+        .vars(
+            fields.entrySet().stream()
+                .map(e -> new MandrillMergeVar().name(e.getKey().toString()).content(e.getValue()))
+                .collect(Collectors.toList()));
+  }
+
+  private static boolean isValidEmail(String email) {
+    try {
+      new InternetAddress(email).validate();
+      return true;
+    } catch (AddressException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Sends one message of a batch. Unlike sendWithRetries, each recipient's status is checked on its
+   * own: rejected recipients are counted and logged, and the message only fails if Mandrill
+   * accepted none of them. Since a message may reach MAX_RECIPIENTS_PER_BATCH users, it is only
+   * resent after an error which shows that it never reached Mandrill. After any other error it may
+   * already have been accepted, and resending it could send everyone a duplicate.
+   */
+  private void sendBatchMessageWithRetries(
+      MandrillApiKeyAndMessage keyAndMessage, int retries, String description)
+      throws MessagingException {
+    while (true) {
+      retries--;
+      final MandrillMessageStatuses msgStatuses;
+      try {
+        msgStatuses = mandrillApiProvider.get().send(keyAndMessage);
+      } catch (Exception e) {
+        if (wasNotSent(e) && retries > 0) {
+          log.log(
+              Level.WARNING,
+              String.format("ApiException: Email '%s' not sent, retrying: %s", description, e));
+          continue;
+        }
+        log.log(
+            Level.SEVERE,
+            String.format(
+                "ApiException: Email '%s' may not have been sent, and will not be retried: %s",
+                description, e));
+        throw new MessagingException("Sending email failed: " + e);
+      }
+
+      final Map<String, Long> rejectionsByReason =
+          msgStatuses.stream()
+              .filter(msgStatus -> !isAccepted(msgStatus))
+              .collect(
+                  Collectors.groupingBy(
+                      msgStatus -> Strings.nullToEmpty(msgStatus.getRejectReason()),
+                      Collectors.counting()));
+      final long rejected = rejectionsByReason.values().stream().mapToLong(Long::longValue).sum();
+      final long accepted = msgStatuses.size() - rejected;
+      if (accepted == 0) {
+        log.log(
+            Level.SEVERE,
+            String.format(
+                "Messaging Exception: Email '%s' was rejected for all %d recipients: %s",
+                description, msgStatuses.size(), rejectionsByReason));
+        throw new MessagingException("Sending email failed: " + rejectionsByReason);
+      }
+      if (rejected > 0) {
+        log.log(
+            Level.WARNING,
+            String.format(
+                "Email '%s' was rejected for %d of %d recipients: %s",
+                description, rejected, msgStatuses.size(), rejectionsByReason));
+      }
+      log.log(
+          Level.INFO,
+          String.format("Email '%s' was sent to %d recipients.", description, accepted));
+      return;
+    }
+  }
+
+  // Mandrill may have accepted a message when its response was lost, so only failures to connect
+  // show that it was not sent.
+  private static boolean wasNotSent(Exception e) {
+    return e instanceof ApiException
+        && (e.getCause() instanceof ConnectException
+            || e.getCause() instanceof UnknownHostException);
+  }
+
+  private static boolean isAccepted(MandrillMessageStatus msgStatus) {
+    return msgStatus.getRejectReason() == null
+        && !REJECTED_STATUSES.contains(Strings.nullToEmpty(msgStatus.getStatus()));
+  }
+
+  private void sendWithRetries(
+      MandrillApiKeyAndMessage keyAndMessage, int retries, String description)
+      throws MessagingException {
     do {
       retries--;
       Pair<Status, String> attempt = trySend(keyAndMessage);
@@ -0,0 +1,169 @@
+package org.pmiops.workbench.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.pmiops.workbench.model.ApiLatencyResponse;
+import org.pmiops.workbench.model.ApiMethodLatency;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process latency histograms of API handling time, one per handler method and response status
+ * code, recorded by RequestTimeMetricInterceptor. Unlike the API_METHOD_TIME logs-based metric,
+ * percentiles are available without waiting on log export.
+ *
+ * <p>Each instance exports the percentiles of the requests it handled over the last
+ * EXPORT_INTERVAL to Cloud Monitoring, from whichever request finishes first once the interval has
+ * elapsed. Exporting from a request thread rather than a background one means every instance
+ * exports its own histograms, with the request-scoped configuration the exporter needs.
+ */
+@Service
+public class ApiLatencyHistograms {
+  private static final Logger log = Logger.getLogger(ApiLatencyHistograms.class.getName());
+
+  static final Duration EXPORT_INTERVAL = Duration.ofMinutes(1);
+  private static final Map<String, Double> EXPORTED_PERCENTILES =
+      ImmutableMap.of("p50", 50.0, "p90", 90.0, "p99", 99.0, "max", 100.0);
+  public static final Set<String> PERCENTILE_LABELS = EXPORTED_PERCENTILES.keySet();
+
+  private final MonitoringService monitoringService;
+  private final Clock clock;
+  private final Instant startTime;
+
+  private final Map<MethodAndStatus, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+  private final AtomicLong nextExportMillis;
+
+  // Guarded by itself, in case an export outlasts EXPORT_INTERVAL and the next one starts.
+  private final Map<MethodAndStatus, LatencyHistogram.Snapshot> lastExportedSnapshots =
+      new HashMap<>();
+
+  public ApiLatencyHistograms(MonitoringService monitoringService, Clock clock) {
+    this.monitoringService = monitoringService;
+    this.clock = clock;
+    this.startTime = clock.instant();
+    this.nextExportMillis = new AtomicLong(startTime.plus(EXPORT_INTERVAL).toEpochMilli());
+  }
+
+  private static class MethodAndStatus {
+    private final String methodName;
+    private final int statusCode;
+
+    private MethodAndStatus(String methodName, int statusCode) {
+      this.methodName = methodName;
+      this.statusCode = statusCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof MethodAndStatus)) {
+        return false;
+      }
+      MethodAndStatus that = (MethodAndStatus) o;
+      return statusCode == that.statusCode && methodName.equals(that.methodName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(methodName, statusCode);
+    }
+  }
+
+  public void record(String methodName, int statusCode, long elapsedMillis) {
+    histograms
+        .computeIfAbsent(
+            new MethodAndStatus(methodName, statusCode), unused -> new LatencyHistogram())
+        .record(elapsedMillis);
+  }
+
+  /**
+   * Exports the requests handled since the last export, if EXPORT_INTERVAL has elapsed. Only one
+   * caller per interval does so; the rest return immediately.
+   */
+  public void exportIfDue() {
+    final long now = clock.millis();
+    final long due = nextExportMillis.get();
+    if (now < due || !nextExportMillis.compareAndSet(due, now + EXPORT_INTERVAL.toMillis())) {
+      return;
+    }
+    try {
+      synchronized (lastExportedSnapshots) {
+        export();
+      }
+    } catch (RuntimeException e) {
+      // Metrics must not fail the request which happened to export them.
+      log.log(Level.WARNING, "Failed to export API latency histograms", e);
+    }
+  }
+
+  private void export() {
+    histograms.forEach(
+        (key, histogram) -> {
+          final LatencyHistogram.Snapshot current = histogram.snapshot();
+          final LatencyHistogram.Snapshot previous = lastExportedSnapshots.put(key, current);
+          final LatencyHistogram.Snapshot interval =
+              previous == null ? current : current.minus(previous);
+          if (interval.getCount() == 0) {
+            return;
+          }
+          monitoringService.recordBundle(
+              MeasurementBundle.builder()
+                  .addMeasurement(GaugeMetric.API_METHOD_REQUEST_COUNT, interval.getCount())
+                  .addTag(MetricLabel.METHOD_NAME, key.methodName)
+                  .addTag(MetricLabel.STATUS_CODE, String.valueOf(key.statusCode))
+                  .build());
+          EXPORTED_PERCENTILES.forEach(
+              (label, percentile) ->
+                  monitoringService.recordBundle(
+                      MeasurementBundle.builder()
+                          .addMeasurement(
+                              GaugeMetric.API_METHOD_LATENCY,
+                              interval.getValueAtPercentile(percentile))
+                          .addTag(MetricLabel.METHOD_NAME, key.methodName)
+                          .addTag(MetricLabel.STATUS_CODE, String.valueOf(key.statusCode))
+                          .addTag(MetricLabel.LATENCY_PERCENTILE, label)
+                          .build()));
+        });
+  }
+
+  /** Returns the latencies recorded by this instance since it started. */
+  public ApiLatencyResponse getLatencies() {
+    final List<ApiMethodLatency> latencies =
+        histograms.entrySet().stream()
+            .map(
+                entry -> {
+                  final LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+                  return new ApiMethodLatency()
+                      .methodName(entry.getKey().methodName)
+                      .statusCode(entry.getKey().statusCode)
+                      .count(snapshot.getCount())
+                      .p50Millis(snapshot.getValueAtPercentile(50.0))
+                      .p90Millis(snapshot.getValueAtPercentile(90.0))
+                      .p99Millis(snapshot.getValueAtPercentile(99.0))
+                      .maxMillis(snapshot.getMaxMillis());
+                })
+            .sorted(
+                Comparator.comparing(ApiMethodLatency::getMethodName)
+                    .thenComparing(ApiMethodLatency::getStatusCode))
+            .collect(Collectors.toList());
+    return new ApiLatencyResponse()
+        .instanceStartTime(startTime.toEpochMilli())
+        .latencies(latencies);
+  }
+}
@@ -0,0 +1,38 @@
+package org.pmiops.workbench.monitoring;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import java.util.Collection;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+
+/**
+ * Gauge data for in-process Guava caches, for GaugeDataCollectors which own one. The cache must be
+ * built with recordStats(). Counts are cumulative since the cache was created, so hit rates over a
+ * window come from the change in the hit and miss counts.
+ */
+public class CacheMetrics {
+  public static final String HIT = "hit";
+  public static final String MISS = "miss";
+
+  public static Collection<MeasurementBundle> getGaugeData(String cacheName, Cache<?, ?> cache) {
+    final CacheStats stats = cache.stats();
+    return ImmutableList.of(
+        lookupCount(cacheName, HIT, stats.hitCount()),
+        lookupCount(cacheName, MISS, stats.missCount()),
+        MeasurementBundle.builder()
+            .addMeasurement(GaugeMetric.CACHE_SIZE, cache.size())
+            .addMeasurement(GaugeMetric.CACHE_EVICTION_COUNT, stats.evictionCount())
+            .addTag(MetricLabel.CACHE_NAME, cacheName)
+            .build());
+  }
+
+  private static MeasurementBundle lookupCount(String cacheName, String result, long count) {
+    return MeasurementBundle.builder()
+        .addMeasurement(GaugeMetric.CACHE_LOOKUP_COUNT, count)
+        .addTag(MetricLabel.CACHE_NAME, cacheName)
+        .addTag(MetricLabel.CACHE_LOOKUP_RESULT, result)
+        .build();
+  }
+}
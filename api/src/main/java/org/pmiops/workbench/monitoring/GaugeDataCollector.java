@@ -1,5 +1,6 @@
 package org.pmiops.workbench.monitoring;
 
+import java.time.Duration;
 import java.util.Collection;
 
 /**
@@ -8,11 +9,18 @@ import java.util.Collection;
  * in getGaugeData(), the class is ensured that these values are polled at the configured polling
  * interval (currently a minimum of once per minute for Stackdriver).
  *
+ * <p>Collectors are run concurrently, each within a time budget. A collector whose data is costly
+ * to compute, e.g. a count over a large table, can override getGaugeRefreshInterval() so that its
+ * latest data is re-recorded in between refreshes instead.
+ *
  * <p>Using this arrangement minimizes the added dependencies for instrumented classes. In
  * particular, they do not depend on the MonitoringService.
  */
 public interface GaugeDataCollector {
 
+  /** A refresh interval for collectors whose data comes from counts over whole tables. */
+  Duration COUNT_QUERY_REFRESH_INTERVAL = Duration.ofMinutes(10);
+
   /**
    * Return a collection of @link {MeasurementBundle} objects. Each bundle can have one or more
    * View/Value pairs and zero or more metadata AttachmentKey/String pairs. There a 1:1
@@ -25,4 +33,12 @@ public interface GaugeDataCollector {
    * @return collection of MeasurementBundles to be recorded.
    */
   Collection<MeasurementBundle> getGaugeData();
+
+  /**
+   * The minimum time between calls to getGaugeData() by the gauge cron job. Until it has elapsed,
+   * the data returned by the previous call is recorded again.
+   */
+  default Duration getGaugeRefreshInterval() {
+    return Duration.ZERO;
+  }
 }
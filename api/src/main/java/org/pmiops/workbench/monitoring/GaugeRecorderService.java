@@ -1,21 +1,47 @@
 package org.pmiops.workbench.monitoring;
 
 import com.google.common.collect.ImmutableList;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
 import org.pmiops.workbench.monitoring.views.DistributionMetric;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
 
 @Service
 public class GaugeRecorderService {
   private static final Logger logger = Logger.getLogger(GaugeRecorderService.class.getName());
 
+  // The gauge cron runs every minute, so collection must finish well within that.
+  static final Duration COLLECTION_TIMEOUT = Duration.ofSeconds(30);
+  private static final int COLLECTOR_THREAD_COUNT = 8;
+
   private final List<GaugeDataCollector> gaugeDataCollectors;
   private final MonitoringService monitoringService;
   private LogsBasedMetricService logsBasedMetricService;
+  private final Clock clock;
+
+  private final ExecutorService collectorExecutor =
+      ConcurrencyUtils.newFixedDaemonThreadPool("gauge-collector", COLLECTOR_THREAD_COUNT);
+
+  // The latest data from each collector, re-recorded until its refresh interval has elapsed
+  private final Map<GaugeDataCollector, CollectedGaugeData> latestDataByCollector =
+      new ConcurrentHashMap<>();
 
   // For local debugging, change this to Level.INFO or higher
   private final Level logLevel = Level.FINE;
@@ -23,27 +49,107 @@ public class GaugeRecorderService {
   public GaugeRecorderService(
       List<GaugeDataCollector> gaugeDataCollectors,
       MonitoringService monitoringService,
-      LogsBasedMetricService logsBasedMetricService) {
+      LogsBasedMetricService logsBasedMetricService,
+      Clock clock) {
     this.gaugeDataCollectors = gaugeDataCollectors;
     this.monitoringService = monitoringService;
     this.logsBasedMetricService = logsBasedMetricService;
+    this.clock = clock;
   }
 
+  private static class CollectedGaugeData {
+    private final Instant collectionTime;
+    private final Collection<MeasurementBundle> bundles;
+
+    private CollectedGaugeData(Instant collectionTime, Collection<MeasurementBundle> bundles) {
+      this.collectionTime = collectionTime;
+      this.bundles = bundles;
+    }
+  }
+
+  /**
+   * Gets data from all collectors whose refresh interval has elapsed, concurrently, and records it
+   * along with the latest data from the others. A collector which fails or doesn't finish within
+   * COLLECTION_TIMEOUT is logged and skipped; the data from the rest is still recorded.
+   */
   public void record() {
     logsBasedMetricService.recordElapsedTime(
         MeasurementBundle.builder(),
         DistributionMetric.GAUGE_COLLECTION_TIME,
         () -> {
+          final Instant now = clock.instant();
           ImmutableList.Builder<MeasurementBundle> bundlesToLogBuilder = ImmutableList.builder();
+          final Map<GaugeDataCollector, Future<Collection<MeasurementBundle>>> pendingData =
+              new LinkedHashMap<>();
           for (GaugeDataCollector collector : gaugeDataCollectors) {
-            Collection<MeasurementBundle> bundles = collector.getGaugeData();
-            monitoringService.recordBundles(bundles);
-            bundlesToLogBuilder.addAll(bundles);
+            final CollectedGaugeData latestData = latestDataByCollector.get(collector);
+            if (latestData != null && !isRefreshDue(collector, latestData, now)) {
+              monitoringService.recordBundles(latestData.bundles);
+              bundlesToLogBuilder.addAll(latestData.bundles);
+            } else {
+              // Collectors may read request-scoped beans such as WorkbenchConfig. One which
+              // outlives this request will fail to, but its data would be discarded anyway.
+              pendingData.put(
+                  collector,
+                  collectorExecutor.submit(
+                      ConcurrencyUtils.withRequestAttributes(() -> collect(collector))));
+            }
+          }
+
+          final long deadlineNanos = System.nanoTime() + COLLECTION_TIMEOUT.toNanos();
+          for (Map.Entry<GaugeDataCollector, Future<Collection<MeasurementBundle>>> entry :
+              pendingData.entrySet()) {
+            final String collectorName = getCollectorName(entry.getKey());
+            try {
+              final Collection<MeasurementBundle> bundles =
+                  entry
+                      .getValue()
+                      .get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+              latestDataByCollector.put(entry.getKey(), new CollectedGaugeData(now, bundles));
+              monitoringService.recordBundles(bundles);
+              bundlesToLogBuilder.addAll(bundles);
+            } catch (TimeoutException e) {
+              entry.getValue().cancel(true);
+              logger.warning(
+                  String.format(
+                      "Gauge data collector %s did not finish within %s, skipping it",
+                      collectorName, COLLECTION_TIMEOUT));
+            } catch (ExecutionException e) {
+              logger.log(
+                  Level.WARNING,
+                  String.format("Gauge data collector %s failed, skipping it", collectorName),
+                  e.getCause());
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              pendingData.values().forEach(f -> f.cancel(true));
+              break;
+            }
           }
           logValues(bundlesToLogBuilder.build());
         });
   }
 
+  private static boolean isRefreshDue(
+      GaugeDataCollector collector, CollectedGaugeData latestData, Instant now) {
+    return !now.isBefore(latestData.collectionTime.plus(collector.getGaugeRefreshInterval()));
+  }
+
+  private Collection<MeasurementBundle> collect(GaugeDataCollector collector) {
+    return logsBasedMetricService.recordElapsedTime(
+        MeasurementBundle.builder()
+            .addTag(MetricLabel.GAUGE_COLLECTOR, getCollectorName(collector)),
+        DistributionMetric.GAUGE_COLLECTOR_TIME,
+        collector::getGaugeData);
+  }
+
+  private static String getCollectorName(GaugeDataCollector collector) {
+    // Spring proxies are subclasses of the bean's class; report the class itself
+    final Class<?> collectorClass = ClassUtils.getUserClass(collector);
+    return collectorClass.isAnonymousClass()
+        ? collectorClass.getName()
+        : collectorClass.getSimpleName();
+  }
+
   private void logValues(Collection<MeasurementBundle> bundles) {
     logger.log(
         logLevel,
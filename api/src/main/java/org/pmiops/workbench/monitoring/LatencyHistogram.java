@@ -0,0 +1,116 @@
+package org.pmiops.workbench.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in milliseconds, with log-linear buckets in the style of
+ * HdrHistogram: each power of two is split into SUB_BUCKET_COUNT equal buckets, so that a recorded
+ * value is known to within 1/SUB_BUCKET_COUNT (12.5%) of itself. Values above MAX_TRACKED_MILLIS
+ * share the last bucket, which bounds the histogram to BUCKET_COUNT counters.
+ *
+ * <p>Recording is a pair of atomic updates, so it is safe to call from every request thread.
+ * Percentiles are read from a Snapshot, which may be a moment out of date.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // Tracks values below 2^21 ms, about 35 minutes, which is beyond any request deadline.
+  private static final int MAX_EXPONENT = 20;
+  static final long MAX_TRACKED_MILLIS = (1L << (MAX_EXPONENT + 1)) - 1;
+  static final int BUCKET_COUNT = bucketIndex(MAX_TRACKED_MILLIS) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong maxMillis = new AtomicLong();
+
+  public void record(long millis) {
+    final long value = Math.max(0, millis);
+    counts.incrementAndGet(bucketIndex(Math.min(value, MAX_TRACKED_MILLIS)));
+    maxMillis.accumulateAndGet(value, Math::max);
+  }
+
+  public Snapshot snapshot() {
+    final long[] snapshotCounts = new long[BUCKET_COUNT];
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshotCounts[i] = counts.get(i);
+    }
+    return new Snapshot(snapshotCounts, maxMillis.get());
+  }
+
+  /** The counts of a histogram at one point, or between two points. */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long maxMillis;
+    private final long totalCount;
+
+    private Snapshot(long[] counts, long maxMillis) {
+      this.counts = counts;
+      this.maxMillis = maxMillis;
+      long total = 0;
+      for (long count : counts) {
+        total += count;
+      }
+      this.totalCount = total;
+    }
+
+    public long getCount() {
+      return totalCount;
+    }
+
+    /**
+     * Returns the highest value which the given percentile of the recorded values are at or
+     * below, to within the bucket precision, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (totalCount == 0) {
+        return 0;
+      }
+      final long rank = Math.max(1, (long) Math.ceil(totalCount * percentile / 100.0));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          // The last bucket is unbounded, so fall back to the max.
+          return i == counts.length - 1 ? maxMillis : Math.min(bucketUpperBound(i), maxMillis);
+        }
+      }
+      return maxMillis;
+    }
+
+    public long getMaxMillis() {
+      return getValueAtPercentile(100.0);
+    }
+
+    /**
+     * Returns the counts recorded since the given earlier snapshot of the same histogram. The max
+     * of the difference is only known to within the bucket precision.
+     */
+    public Snapshot minus(Snapshot earlier) {
+      final long[] difference = new long[counts.length];
+      for (int i = 0; i < counts.length; i++) {
+        difference[i] = counts[i] - earlier.counts[i];
+      }
+      return new Snapshot(difference, maxMillis);
+    }
+  }
+
+  static int bucketIndex(long millis) {
+    if (millis < SUB_BUCKET_COUNT) {
+      return (int) millis;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(millis);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    final int subBucket = (int) (millis >> shift) & (SUB_BUCKET_COUNT - 1);
+    return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+    final int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+    final long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
@@ -1,8 +1,11 @@
 package org.pmiops.workbench.monitoring.labels;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Collections;
 import java.util.Set;
 import org.pmiops.workbench.model.WorkspaceActiveStatus;
+import org.pmiops.workbench.monitoring.ApiLatencyHistograms;
+import org.pmiops.workbench.monitoring.CacheMetrics;
 import org.pmiops.workbench.utils.Booleans;
 import org.pmiops.workbench.utils.Enums;
 
@@ -13,12 +16,18 @@ import org.pmiops.workbench.utils.Enums;
 public enum MetricLabel implements MetricLabelBase {
   ACCESS_TIER_SHORT_NAME("access_tier_short_name"),
   ACCESS_TIER_SHORT_NAMES("access_tier_short_names"),
+  CACHE_LOOKUP_RESULT("cache_lookup_result", ImmutableSet.of(CacheMetrics.HIT, CacheMetrics.MISS)),
+  CACHE_NAME("cache_name"),
+  CDR_VERSION_ID("cdr_version_id"),
   CRON_JOB_NAME("cron_job_name"),
   CRON_JOB_SUCCEEDED("cron_job_completion_status", Booleans.VALUE_STRINGS),
   DATASET_INVALID("Invalid", Booleans.VALUE_STRINGS),
+  GAUGE_COLLECTOR("gauge_collector"),
   GSUITE_DOMAIN("gsuite_domain"),
+  LATENCY_PERCENTILE("latency_percentile", ApiLatencyHistograms.PERCENTILE_LABELS),
   METHOD_NAME("method_name"),
   OPERATION_NAME("OperationName"),
+  STATUS_CODE("status_code"),
   USER_DISABLED("Disabled", Booleans.VALUE_STRINGS),
   WORKSPACE_ACTIVE_STATUS("ActiveStatus", Enums.getValueStrings(WorkspaceActiveStatus.class));
 
@@ -39,6 +39,18 @@ public enum DistributionMetric implements Metric {
       Collections.singletonList(MetricLabel.OPERATION_NAME),
       DistributionAggregation.OPERATION_TIME,
       MeasureLong.class),
+  GAUGE_COLLECTOR_TIME(
+      "gauge_collector_time",
+      "Time to get data from a single gauge data collector",
+      Collections.singletonList(MetricLabel.GAUGE_COLLECTOR),
+      DistributionAggregation.OPERATION_TIME,
+      MeasureLong.class),
+  GENOMIC_EXTRACTION_STATUS_POLL_TIME(
+      "genomic_extraction_status_poll_time",
+      "Time to refresh the Terra status of running genomic extraction jobs",
+      Collections.emptyList(),
+      DistributionAggregation.OPERATION_TIME,
+      MeasureLong.class),
   UNIFORM_RANDOM_SAMPLE(
       "random_sample_2",
       "Random values",
@@ -14,12 +14,65 @@ public enum GaugeMetric implements Metric {
   // 2. update workbench-terraform-modules with the new name
   // See https://github.com/all-of-us/workbench/wiki/Monitoring,-Alerts,-and-Dashboards for details.
 
+  ACTION_AUDIT_DROPPED_ENTRY_COUNT(
+      "action_audit_dropped_entry_count",
+      "Action audit log entries discarded because the write queue was full, since startup"),
+  ACTION_AUDIT_QUEUE_SIZE(
+      "action_audit_queue_size", "Action audit log entries waiting to be written to Cloud Logging"),
+  API_METHOD_LATENCY(
+      "api_method_latency",
+      "Percentiles of API handling time on an instance over the last export interval",
+      ImmutableList.of(
+          MetricLabel.METHOD_NAME, MetricLabel.STATUS_CODE, MetricLabel.LATENCY_PERCENTILE),
+      UnitOfMeasure.MILLISECOND,
+      MeasureLong.class),
+  API_METHOD_REQUEST_COUNT(
+      "api_method_request_count",
+      "API requests handled by an instance over the last export interval",
+      ImmutableList.of(MetricLabel.METHOD_NAME, MetricLabel.STATUS_CODE)),
+  CACHE_EVICTION_COUNT(
+      "cache_eviction_count",
+      "Entries evicted from an in-process cache since it was created",
+      ImmutableList.of(MetricLabel.CACHE_NAME)),
+  CACHE_LOOKUP_COUNT(
+      "cache_lookup_count",
+      "Lookups in an in-process cache since it was created, by hit or miss",
+      ImmutableList.of(MetricLabel.CACHE_NAME, MetricLabel.CACHE_LOOKUP_RESULT)),
+  CACHE_SIZE(
+      "cache_size",
+      "Current number of entries in an in-process cache",
+      ImmutableList.of(MetricLabel.CACHE_NAME)),
+  CDR_POOL_ACTIVE_CONNECTIONS(
+      "cdr_pool_active_connections",
+      "Connections currently borrowed from an instance's pool for a CDR database",
+      ImmutableList.of(MetricLabel.CDR_VERSION_ID)),
+  CDR_POOL_BORROW_COUNT(
+      "cdr_pool_borrow_count",
+      "Connections borrowed from an instance's pool for a CDR database since it was created",
+      ImmutableList.of(MetricLabel.CDR_VERSION_ID)),
+  CDR_POOL_BORROW_WAIT_TIME(
+      "cdr_pool_borrow_wait_time",
+      "Total time spent waiting for connections from an instance's pool for a CDR database since it"
+          + " was created",
+      ImmutableList.of(MetricLabel.CDR_VERSION_ID),
+      UnitOfMeasure.MILLISECOND,
+      MeasureLong.class),
+  CDR_POOL_IDLE_CONNECTIONS(
+      "cdr_pool_idle_connections",
+      "Open connections currently idle in an instance's pool for a CDR database",
+      ImmutableList.of(MetricLabel.CDR_VERSION_ID)),
   COHORT_COUNT("cohort_count_2", "Count of all cohorts in existence"),
   COHORT_REVIEW_COUNT("cohort_review_count_2", "Total number of cohort reviews in existence"),
   DATASET_COUNT(
       "dataset_count_2",
       "Count of all datasets in existence",
       ImmutableList.of(MetricLabel.DATASET_INVALID)),
+  GENOMIC_EXTRACTION_STATUS_LAG(
+      "genomic_extraction_status_lag",
+      "Time since the least recently refreshed running genomic extraction job was checked in Terra",
+      Collections.emptyList(),
+      UnitOfMeasure.MILLISECOND,
+      MeasureLong.class),
   GSUITE_USER_COUNT(
       "gsuite_user_count",
       "Number of users in GSuite Directory.",
@@ -5,11 +5,24 @@ import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nullable;
 import javax.inject.Provider;
 import org.pmiops.workbench.access.AccessTierService;
@@ -18,20 +31,25 @@ import org.pmiops.workbench.db.dao.RdrExportDao;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.VerifiedInstitutionalAffiliationDao;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
+import org.pmiops.workbench.db.model.DbAccessTier;
 import org.pmiops.workbench.db.model.DbRdrExport;
 import org.pmiops.workbench.db.model.DbUser;
+import org.pmiops.workbench.db.model.DbVerifiedInstitutionalAffiliation;
 import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.db.model.RdrEntityEnums;
 import org.pmiops.workbench.exceptions.ServerErrorException;
+import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceAccessEntry;
 import org.pmiops.workbench.institution.InstitutionService;
 import org.pmiops.workbench.model.RdrEntity;
-import org.pmiops.workbench.model.UserRole;
+import org.pmiops.workbench.model.WorkspaceAccessLevel;
 import org.pmiops.workbench.model.WorkspaceActiveStatus;
 import org.pmiops.workbench.rdr.api.RdrApi;
 import org.pmiops.workbench.rdr.model.RdrResearcher;
 import org.pmiops.workbench.rdr.model.RdrWorkspace;
 import org.pmiops.workbench.rdr.model.RdrWorkspaceUser;
-import org.pmiops.workbench.workspaces.WorkspaceService;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
+import org.pmiops.workbench.workspaces.WorkspaceAuthService;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,7 +59,17 @@ import org.springframework.stereotype.Service;
  * @author nsaxena
  */
 @Service
-public class RdrExportServiceImpl implements RdrExportService {
+public class RdrExportServiceImpl implements RdrExportService, DisposableBean {
+  // The number of FireCloud ACL requests made at once while exporting a batch of workspaces.
+  private static final int ACL_FETCH_CONCURRENCY = 8;
+  // Same order as WorkspaceService.getFirecloudUserRoles: by descending role, then email.
+  private static final Comparator<Map.Entry<String, FirecloudWorkspaceAccessEntry>>
+      COLLABORATOR_ORDER =
+          Comparator.comparing(
+                  (Map.Entry<String, FirecloudWorkspaceAccessEntry> acl) ->
+                      WorkspaceAccessLevel.fromValue(acl.getValue().getAccessLevel()))
+              .thenComparing(Map.Entry::getKey)
+              .reversed();
 
   private final Clock clock;
   private final Provider<WorkbenchConfig> workbenchConfigProvider;
@@ -52,9 +80,11 @@ public class RdrExportServiceImpl implements RdrExportService {
 
   private final InstitutionService institutionService;
   private final AccessTierService accessTierService;
-  private final WorkspaceService workspaceService;
+  private final WorkspaceAuthService workspaceAuthService;
   private final VerifiedInstitutionalAffiliationDao verifiedInstitutionalAffiliationDao;
   private final RdrMapper rdrMapper;
+  private final ExecutorService aclFetchExecutor =
+      ConcurrencyUtils.newFixedDaemonThreadPool("rdr-export-acl", ACL_FETCH_CONCURRENCY);
   private static final Logger log = Logger.getLogger(RdrExportService.class.getName());
 
   @Autowired
@@ -67,7 +97,7 @@ public class RdrExportServiceImpl implements RdrExportService {
       WorkspaceDao workspaceDao,
       InstitutionService institutionService,
       AccessTierService accessTierService,
-      WorkspaceService workspaceService,
+      WorkspaceAuthService workspaceAuthService,
       UserDao userDao,
       VerifiedInstitutionalAffiliationDao verifiedInstitutionalAffiliationDao) {
     this.clock = clock;
@@ -78,11 +108,16 @@ public class RdrExportServiceImpl implements RdrExportService {
     this.workspaceDao = workspaceDao;
     this.institutionService = institutionService;
     this.accessTierService = accessTierService;
-    this.workspaceService = workspaceService;
+    this.workspaceAuthService = workspaceAuthService;
     this.userDao = userDao;
     this.verifiedInstitutionalAffiliationDao = verifiedInstitutionalAffiliationDao;
   }
 
+  @Override
+  public void destroy() {
+    aclFetchExecutor.shutdownNow();
+  }
+
   private List<String> excludedExportUserEmails() {
     return workbenchConfigProvider.get().auth.serviceAccountApiUsers;
   }
@@ -139,8 +174,27 @@ public class RdrExportServiceImpl implements RdrExportService {
    */
   @Override
   public void exportUsers(List<Long> userIds, boolean backfill) {
+    // Load the users, their tiers and their affiliations with one query each, not one per user.
+    final Map<Long, DbUser> usersById =
+        StreamSupport.stream(userDao.findAllById(userIds).spliterator(), false)
+            .collect(Collectors.toMap(DbUser::getUserId, Function.identity()));
+    final Map<Long, List<DbAccessTier>> accessTiersByUserId =
+        accessTierService.getAccessTiersForUsers(usersById.values());
+    final Map<Long, DbVerifiedInstitutionalAffiliation> affiliationsByUserId =
+        getAffiliationsByUserId(usersById.values());
+
     List<RdrResearcher> rdrResearchersList =
-        userIds.stream().map(this::toRdrResearcher).collect(Collectors.toList());
+        userIds.stream()
+            .map(usersById::get)
+            .filter(Objects::nonNull)
+            .map(
+                dbUser ->
+                    toRdrResearcher(
+                        dbUser,
+                        accessTiersByUserId.getOrDefault(
+                            dbUser.getUserId(), Collections.emptyList()),
+                        affiliationsByUserId.get(dbUser.getUserId())))
+            .collect(Collectors.toList());
 
     try {
       rdrApiProvider.get().exportResearchers(rdrResearchersList, backfill);
@@ -169,12 +223,40 @@ public class RdrExportServiceImpl implements RdrExportService {
   public void exportWorkspaces(List<Long> workspaceIds, boolean backfill) {
     List<RdrWorkspace> rdrWorkspacesList;
     try {
+      final Map<Long, DbWorkspace> workspacesById =
+          StreamSupport.stream(workspaceDao.findAllById(workspaceIds).spliterator(), false)
+              .collect(Collectors.toMap(DbWorkspace::getWorkspaceId, Function.identity()));
+      final List<DbWorkspace> dbWorkspaces =
+          workspaceIds.stream()
+              .map(workspacesById::get)
+              .filter(Objects::nonNull)
+              .collect(Collectors.toList());
+      final Map<Long, DbVerifiedInstitutionalAffiliation> creatorAffiliationsByUserId =
+          getAffiliationsByUserId(
+              dbWorkspaces.stream()
+                  .map(DbWorkspace::getCreator)
+                  .filter(Objects::nonNull)
+                  .collect(Collectors.toSet()));
+      final Map<Long, Map<String, FirecloudWorkspaceAccessEntry>> aclsByWorkspaceId =
+          getAclsOfActiveWorkspaces(dbWorkspaces);
+      final Map<String, Long> userIdsByUsername =
+          getUserIdsByUsername(
+              aclsByWorkspaceId.values().stream()
+                  .flatMap(acls -> acls.keySet().stream())
+                  .collect(Collectors.toSet()));
+
       // toRdrWorkspace may fail and will return null, skip failures and continue.
       rdrWorkspacesList =
-          workspaceIds.stream()
+          dbWorkspaces.stream()
               .map(
-                  workspaceId ->
-                      toRdrWorkspace(workspaceDao.findDbWorkspaceByWorkspaceId(workspaceId)))
+                  dbWorkspace ->
+                      toRdrWorkspace(
+                          dbWorkspace,
+                          Optional.ofNullable(dbWorkspace.getCreator())
+                              .map(creator -> creatorAffiliationsByUserId.get(creator.getUserId()))
+                              .orElse(null),
+                          aclsByWorkspaceId,
+                          userIdsByUsername))
               .filter(Objects::nonNull)
               .collect(Collectors.toList());
       if (!rdrWorkspacesList.isEmpty()) {
@@ -209,13 +291,11 @@ public class RdrExportServiceImpl implements RdrExportService {
     }
   }
 
-  private RdrResearcher toRdrResearcher(long userId) {
-    DbUser dbUser = userDao.findUserByUserId(userId);
-    RdrResearcher researcher =
-        rdrMapper.toRdrResearcher(
-            dbUser,
-            accessTierService.getAccessTiersForUser(dbUser),
-            verifiedInstitutionalAffiliationDao.findFirstByUser(dbUser).orElse(null));
+  private RdrResearcher toRdrResearcher(
+      DbUser dbUser,
+      List<DbAccessTier> accessTiers,
+      @Nullable DbVerifiedInstitutionalAffiliation affiliation) {
+    RdrResearcher researcher = rdrMapper.toRdrResearcher(dbUser, accessTiers, affiliation);
     return Optional.ofNullable(workbenchConfigProvider.get().rdrExport.exportDemoSurveyV2)
             .orElse(false)
         ? researcher
@@ -223,26 +303,39 @@ public class RdrExportServiceImpl implements RdrExportService {
   }
 
   @Nullable
-  private RdrWorkspace toRdrWorkspace(DbWorkspace dbWorkspace) {
+  private RdrWorkspace toRdrWorkspace(
+      DbWorkspace dbWorkspace,
+      @Nullable DbVerifiedInstitutionalAffiliation creatorAffiliation,
+      Map<Long, Map<String, FirecloudWorkspaceAccessEntry>> aclsByWorkspaceId,
+      Map<String, Long> userIdsByUsername) {
     RdrWorkspace rdrWorkspace = rdrMapper.toRdrWorkspace(dbWorkspace);
-    setExcludeFromPublicDirectory(dbWorkspace.getCreator(), rdrWorkspace);
+    setExcludeFromPublicDirectory(creatorAffiliation, rdrWorkspace);
 
     rdrWorkspace.setWorkspaceUsers(new ArrayList<>());
     if (WorkspaceActiveStatus.ACTIVE.equals(dbWorkspace.getWorkspaceActiveStatusEnum())) {
+      final Map<String, FirecloudWorkspaceAccessEntry> acls =
+          aclsByWorkspaceId.get(dbWorkspace.getWorkspaceId());
+      if (acls == null) {
+        // The ACL fetch failed, and has been logged already
+        return null;
+      }
       try {
-        // Call Firecloud to get a list of Collaborators
-        List<UserRole> collaborators =
-            workspaceService.getFirecloudUserRoles(
-                dbWorkspace.getWorkspaceNamespace(), dbWorkspace.getFirecloudName());
+        // Collaborators are the ACL entries which are users, rather than groups
+        acls.keySet().stream()
+            .filter(email -> !userIdsByUsername.containsKey(email))
+            .forEach(email -> log.log(Level.WARNING, "No user found for " + email));
         rdrWorkspace.setWorkspaceUsers(
-            collaborators.stream()
+            acls.entrySet().stream()
+                .filter(acl -> userIdsByUsername.containsKey(acl.getKey()))
+                .sorted(COLLABORATOR_ORDER)
                 .map(
-                    (userRole) ->
+                    acl ->
                         new RdrWorkspaceUser()
-                            .userId(
-                                (int) userDao.findUserByUsername(userRole.getEmail()).getUserId())
+                            .userId(userIdsByUsername.get(acl.getKey()).intValue())
                             .role(
-                                RdrWorkspaceUser.RoleEnum.fromValue(userRole.getRole().toString()))
+                                RdrWorkspaceUser.RoleEnum.fromValue(
+                                    WorkspaceAccessLevel.fromValue(acl.getValue().getAccessLevel())
+                                        .toString()))
                             .status(RdrWorkspaceUser.StatusEnum.ACTIVE))
                 .collect(Collectors.toList()));
       } catch (Exception ex) {
@@ -257,6 +350,65 @@ public class RdrExportServiceImpl implements RdrExportService {
     return rdrWorkspace;
   }
 
+  /**
+   * Fetches the FireCloud ACLs of the active workspaces, with up to ACL_FETCH_CONCURRENCY requests
+   * in flight at once. Workspaces whose ACLs can't be fetched are left out of the result.
+   */
+  private Map<Long, Map<String, FirecloudWorkspaceAccessEntry>> getAclsOfActiveWorkspaces(
+      List<DbWorkspace> dbWorkspaces) {
+    final Map<Long, Future<Map<String, FirecloudWorkspaceAccessEntry>>> pendingAcls =
+        new LinkedHashMap<>();
+    for (DbWorkspace dbWorkspace : dbWorkspaces) {
+      if (WorkspaceActiveStatus.ACTIVE.equals(dbWorkspace.getWorkspaceActiveStatusEnum())) {
+        final String namespace = dbWorkspace.getWorkspaceNamespace();
+        final String firecloudName = dbWorkspace.getFirecloudName();
+        final Callable<Map<String, FirecloudWorkspaceAccessEntry>> fetchAcls =
+            () -> workspaceAuthService.getFirecloudWorkspaceAcls(namespace, firecloudName);
+        pendingAcls.put(
+            dbWorkspace.getWorkspaceId(),
+            aclFetchExecutor.submit(ConcurrencyUtils.withRequestAttributes(fetchAcls)));
+      }
+    }
+
+    final Map<Long, Map<String, FirecloudWorkspaceAccessEntry>> aclsByWorkspaceId =
+        new HashMap<>();
+    pendingAcls.forEach(
+        (workspaceId, pending) -> {
+          try {
+            aclsByWorkspaceId.put(workspaceId, ConcurrencyUtils.getUnchecked(pending));
+          } catch (RuntimeException ex) {
+            log.warning(
+                String.format(
+                    "Exception while retrieving workspace collaborators for workspace id %s,"
+                        + " skipping this workspace for RDR Export: %s",
+                    workspaceId, ex.getMessage()));
+          }
+        });
+    return aclsByWorkspaceId;
+  }
+
+  /** Resolves usernames to user IDs in one query. Names of non-users, e.g. groups, are absent. */
+  private Map<String, Long> getUserIdsByUsername(Set<String> usernames) {
+    if (usernames.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return userDao.findUserByUsernameIn(new ArrayList<>(usernames)).stream()
+        .collect(Collectors.toMap(DbUser::getUsername, DbUser::getUserId, (a, b) -> a));
+  }
+
+  private Map<Long, DbVerifiedInstitutionalAffiliation> getAffiliationsByUserId(
+      Collection<DbUser> users) {
+    if (users.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return verifiedInstitutionalAffiliationDao.findAllByUserIn(users).stream()
+        .collect(
+            Collectors.toMap(
+                affiliation -> affiliation.getUser().getUserId(),
+                Function.identity(),
+                (a, b) -> a));
+  }
+
   /**
    * For Each entityType and entity id update lastExportDate to current date time if it exist in
    * rdr_export table else add a new entry
@@ -269,13 +421,19 @@ public class RdrExportServiceImpl implements RdrExportService {
   public void updateDbRdrExport(RdrEntity entity, List<Long> idList) {
     Timestamp now = new Timestamp(clock.instant().toEpochMilli());
 
+    final Map<Long, DbRdrExport> existingExportsById =
+        idList.isEmpty()
+            ? Collections.emptyMap()
+            : rdrExportDao
+                .findAllByEntityTypeAndEntityIdIn(RdrEntityEnums.entityToStorage(entity), idList)
+                .stream()
+                .collect(
+                    Collectors.toMap(DbRdrExport::getEntityId, Function.identity(), (a, b) -> a));
     List<DbRdrExport> exportList =
         idList.stream()
             .map(
                 id -> {
-                  DbRdrExport rd =
-                      rdrExportDao.findByEntityTypeAndEntityId(
-                          RdrEntityEnums.entityToStorage(entity), id);
+                  DbRdrExport rd = existingExportsById.get(id);
                   // If Entry doesn't exist in rdr_export create an object else just update the
                   // export Date
                   // to right now
@@ -307,13 +465,13 @@ public class RdrExportServiceImpl implements RdrExportService {
    * Set excludeFromPublicDirectory to true if the workspace creator is an operational user i.e has
    * Institution as All of Us Program operational Use
    *
-   * @param creatorUser
+   * @param creatorAffiliation
    * @param rdrWorkspace
    */
-  void setExcludeFromPublicDirectory(DbUser creatorUser, RdrWorkspace rdrWorkspace) {
+  void setExcludeFromPublicDirectory(
+      @Nullable DbVerifiedInstitutionalAffiliation creatorAffiliation, RdrWorkspace rdrWorkspace) {
     rdrWorkspace.setExcludeFromPublicDirectory(false);
-    verifiedInstitutionalAffiliationDao
-        .findFirstByUser(creatorUser)
+    Optional.ofNullable(creatorAffiliation)
         .ifPresent(
             verifiedInstitutionalAffiliation ->
                 rdrWorkspace.setExcludeFromPublicDirectory(
@@ -0,0 +1,126 @@
+package org.pmiops.workbench.reporting;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.bigquery.storage.v1.AppendRowsResponse;
+import com.google.cloud.bigquery.storage.v1.BigQueryWriteClient;
+import com.google.cloud.bigquery.storage.v1.ProtoRows;
+import com.google.cloud.bigquery.storage.v1.ProtoSchema;
+import com.google.cloud.bigquery.storage.v1.StreamWriter;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import org.pmiops.workbench.exceptions.ServerErrorException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes to each table's default stream via the BigQuery Storage Write API. The default stream has
+ * committed semantics, so there's no stream to create, finalize, or commit. One StreamWriter (a
+ * long-lived gRPC connection) is kept per table and row schema for the life of the app.
+ */
+@Service
+public class BigQueryCommittedStreamWriter implements CommittedStreamWriter, DisposableBean {
+  // Created on first use, so that instances which never upload don't open a client.
+  private BigQueryWriteClient writeClient;
+  private final Map<WriterKey, StreamWriter> streamWriters = new ConcurrentHashMap<>();
+
+  @Override
+  public void appendRows(
+      TableId tableId, DescriptorProto rowDescriptor, List<ByteString> serializedRows) {
+    final StreamWriter streamWriter =
+        streamWriters.computeIfAbsent(
+            new WriterKey(tableId, rowDescriptor), this::createStreamWriter);
+    final ApiFuture<AppendRowsResponse> responseFuture =
+        streamWriter.append(ProtoRows.newBuilder().addAllSerializedRows(serializedRows).build());
+
+    final AppendRowsResponse response;
+    try {
+      response = responseFuture.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServerErrorException("Interrupted while appending rows to " + tableId, e);
+    } catch (ExecutionException e) {
+      throw new ServerErrorException("Error appending rows to " + tableId, e.getCause());
+    }
+
+    if (response.hasError() || response.getRowErrorsCount() > 0) {
+      final String rowErrors =
+          response.getRowErrorsList().stream()
+              .map(error -> String.format("row %d: %s", error.getIndex(), error.getMessage()))
+              .collect(Collectors.joining("; "));
+      throw new ServerErrorException(
+          String.format(
+              "Error appending rows to %s: %s %s",
+              tableId.getTable(), response.getError().getMessage(), rowErrors));
+    }
+  }
+
+  private StreamWriter createStreamWriter(WriterKey key) {
+    final String defaultStreamName =
+        String.format(
+            "projects/%s/datasets/%s/tables/%s/streams/_default",
+            key.tableId.getProject(), key.tableId.getDataset(), key.tableId.getTable());
+    try {
+      return StreamWriter.newBuilder(defaultStreamName, getWriteClient())
+          .setWriterSchema(ProtoSchema.newBuilder().setProtoDescriptor(key.rowDescriptor).build())
+          .build();
+    } catch (IOException e) {
+      throw new ServerErrorException("Could not open a write stream to " + defaultStreamName, e);
+    }
+  }
+
+  private synchronized BigQueryWriteClient getWriteClient() {
+    if (writeClient == null) {
+      try {
+        writeClient = BigQueryWriteClient.create();
+      } catch (IOException e) {
+        throw new ServerErrorException("Could not create a BigQuery write client", e);
+      }
+    }
+    return writeClient;
+  }
+
+  @Override
+  public synchronized void destroy() {
+    streamWriters.values().forEach(StreamWriter::close);
+    streamWriters.clear();
+    if (writeClient != null) {
+      writeClient.close();
+      writeClient = null;
+    }
+  }
+
+  private static class WriterKey {
+    private final TableId tableId;
+    private final DescriptorProto rowDescriptor;
+
+    private WriterKey(TableId tableId, DescriptorProto rowDescriptor) {
+      this.tableId = tableId;
+      this.rowDescriptor = rowDescriptor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final WriterKey that = (WriterKey) o;
+      return tableId.equals(that.tableId) && rowDescriptor.equals(that.rowDescriptor);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(tableId, rowDescriptor);
+    }
+  }
+}
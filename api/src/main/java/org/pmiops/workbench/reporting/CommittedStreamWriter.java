@@ -0,0 +1,19 @@
+package org.pmiops.workbench.reporting;
+
+import com.google.cloud.bigquery.TableId;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import java.util.List;
+
+/**
+ * Appends serialized protobuf rows to a BigQuery table through a committed write stream, i.e. rows
+ * are visible in the table as soon as an append succeeds. Implementations must be thread-safe.
+ */
+public interface CommittedStreamWriter {
+
+  /**
+   * Appends one batch of rows, all encoded with rowDescriptor, and blocks until BigQuery has
+   * acknowledged them. Throws if any row is rejected.
+   */
+  void appendRows(TableId tableId, DescriptorProto rowDescriptor, List<ByteString> serializedRows);
+}
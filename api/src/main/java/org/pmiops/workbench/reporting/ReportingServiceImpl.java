@@ -29,7 +29,8 @@ public class ReportingServiceImpl implements ReportingService {
 
   private final ReportingSnapshotService reportingSnapshotService;
   private final ReportingQueryService reportingQueryService;
-  private final ReportingUploadService reportingUploadService;
+  private final ReportingUploadService insertAllUploadService;
+  private final ReportingUploadService storageWriteUploadService;
   private final Provider<WorkbenchConfig> workbenchConfigProvider;
   private final ReportingVerificationService reportingVerificationService;
 
@@ -43,12 +44,14 @@ public class ReportingServiceImpl implements ReportingService {
 
   public ReportingServiceImpl(
       ReportingQueryService reportingQueryService,
-      ReportingUploadService reportingUploadService,
+      ReportingUploadService insertAllUploadService,
+      ReportingStorageWriteUploadServiceImpl storageWriteUploadService,
       ReportingSnapshotService reportingSnapshotService,
       Provider<WorkbenchConfig> workbenchConfigProvider,
       ReportingVerificationService reportingVerificationService) {
     this.reportingQueryService = reportingQueryService;
-    this.reportingUploadService = reportingUploadService;
+    this.insertAllUploadService = insertAllUploadService;
+    this.storageWriteUploadService = storageWriteUploadService;
     this.workbenchConfigProvider = workbenchConfigProvider;
     this.reportingSnapshotService = reportingSnapshotService;
     this.reportingVerificationService = reportingVerificationService;
@@ -58,25 +61,38 @@ public class ReportingServiceImpl implements ReportingService {
   @Transactional
   @Override
   public void collectRecordsAndUpload() {
+    final ReportingUploadService reportingUploadService = getUploadService();
+
     // First: Obtain the snapshot data.
     final ReportingSnapshot snapshot = reportingSnapshotService.takeSnapshot();
     final long captureTimestamp = snapshot.getCaptureTimestamp();
     boolean snapshotUploadSuccess = reportingUploadService.uploadSnapshot(snapshot);
 
-    // Second: Obtain data on smaller batches for larger data.
-    reportingQueryService
-        .getWorkspacesStream()
-        .forEach(b -> reportingUploadService.uploadBatchWorkspace(b, captureTimestamp));
-    reportingQueryService
-        .getUserStream()
-        .forEach(b -> reportingUploadService.uploadBatchUser(b, captureTimestamp));
-    reportingQueryService
-        .getCohortsStream()
-        .forEach(b -> reportingUploadService.uploadBatchCohort(b, captureTimestamp));
-    reportingQueryService
-        .getNewUserSatisfactionSurveysStream()
-        .forEach(
-            b -> reportingUploadService.uploadBatchNewUserSatisfactionSurveys(b, captureTimestamp));
+    // Second: Obtain data on smaller batches for larger data. Each table's batches are read here
+    // and uploaded on a bounded pool, so the MySQL reads overlap with the BigQuery round-trips and
+    // the tables upload in parallel. Reads stay on this thread, inside the transaction.
+    try (ReportingUploadPipeline pipeline =
+        new ReportingUploadPipeline(
+            workbenchConfigProvider.get().reporting.maxInFlightUploadsPerTable,
+            BATCH_UPLOADED_TABLES.size())) {
+      pipeline.upload(
+          WorkspaceColumnValueExtractor.TABLE_NAME,
+          reportingQueryService.getWorkspacesStream(),
+          b -> reportingUploadService.uploadBatchWorkspace(b, captureTimestamp));
+      pipeline.upload(
+          UserColumnValueExtractor.TABLE_NAME,
+          reportingQueryService.getUserStream(),
+          b -> reportingUploadService.uploadBatchUser(b, captureTimestamp));
+      pipeline.upload(
+          CohortColumnValueExtractor.TABLE_NAME,
+          reportingQueryService.getCohortsStream(),
+          b -> reportingUploadService.uploadBatchCohort(b, captureTimestamp));
+      pipeline.upload(
+          NewUserSatisfactionSurveyColumnValueExtractor.TABLE_NAME,
+          reportingQueryService.getNewUserSatisfactionSurveysStream(),
+          b -> reportingUploadService.uploadBatchNewUserSatisfactionSurveys(b, captureTimestamp));
+      pipeline.awaitCompletion();
+    }
 
     // Third: Verify the count.
     boolean batchUploadSuccess =
@@ -92,4 +108,10 @@ public class ReportingServiceImpl implements ReportingService {
               snapshotUploadSuccess, batchUploadSuccess));
     }
   }
+
+  private ReportingUploadService getUploadService() {
+    return workbenchConfigProvider.get().reporting.useStorageWriteApi
+        ? storageWriteUploadService
+        : insertAllUploadService;
+  }
 }
@@ -0,0 +1,207 @@
+package org.pmiops.workbench.reporting;
+
+import static org.pmiops.workbench.reporting.insertion.ColumnValueExtractorUtils.getBigQueryTableName;
+
+import com.google.cloud.bigquery.TableId;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.inject.Provider;
+import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.model.ReportingCohort;
+import org.pmiops.workbench.model.ReportingNewUserSatisfactionSurvey;
+import org.pmiops.workbench.model.ReportingSnapshot;
+import org.pmiops.workbench.model.ReportingUser;
+import org.pmiops.workbench.model.ReportingWorkspace;
+import org.pmiops.workbench.reporting.insertion.CohortColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.ColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.DatasetCohortColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.DatasetColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.DatasetConceptSetColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.DatasetDomainColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.InstitutionColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.NewUserSatisfactionSurveyColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.ProtoRowsPayloadTransformer;
+import org.pmiops.workbench.reporting.insertion.UserColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.WorkspaceColumnValueExtractor;
+import org.pmiops.workbench.reporting.insertion.WorkspaceFreeTierUsageColumnValueExtractor;
+import org.pmiops.workbench.utils.LogFormatters;
+import org.springframework.stereotype.Service;
+
+/**
+ * Uploads reporting data through the BigQuery Storage Write API instead of legacy streaming
+ * inserts. Rows are serialized to protobuf by a {@link ProtoRowsPayloadTransformer}, built once
+ * per table, and appended through a {@link CommittedStreamWriter}. There is no per-request row cap;
+ * batches are only split to stay under the API's request size limit.
+ */
+@Service
+public class ReportingStorageWriteUploadServiceImpl implements ReportingUploadService {
+  private static final Logger log =
+      Logger.getLogger(ReportingStorageWriteUploadServiceImpl.class.getName());
+
+  // AppendRows requests are limited to 10MB. Leave headroom for the request envelope.
+  private static final long MAX_APPEND_REQUEST_BYTES = 9L * 1024 * 1024;
+
+  private static final String VERIFIED_SNAPSHOT_TABLE_NAME = "verified_snapshot";
+
+  private final BigQueryService bigQueryService;
+  private final CommittedStreamWriter committedStreamWriter;
+  private final ReportingVerificationService reportingVerificationService;
+  private final Provider<WorkbenchConfig> configProvider;
+  private final Provider<Stopwatch> stopwatchProvider;
+
+  // Schemas don't change while the app is running, so each table's transformer is built once.
+  private final Map<TableId, ProtoRowsPayloadTransformer<?>> transformersByTable =
+      new ConcurrentHashMap<>();
+
+  public ReportingStorageWriteUploadServiceImpl(
+      BigQueryService bigQueryService,
+      CommittedStreamWriter committedStreamWriter,
+      ReportingVerificationService reportingVerificationService,
+      Provider<WorkbenchConfig> configProvider,
+      Provider<Stopwatch> stopwatchProvider) {
+    this.bigQueryService = bigQueryService;
+    this.committedStreamWriter = committedStreamWriter;
+    this.reportingVerificationService = reportingVerificationService;
+    this.configProvider = configProvider;
+    this.stopwatchProvider = stopwatchProvider;
+  }
+
+  /**
+   * @deprecated Retrieve data using stream approach then upload as batch.
+   *     <p>Uploads {@link ReportingSnapshot} to bigquery and verifies the row counts.
+   */
+  @Deprecated
+  @Override
+  public boolean uploadSnapshot(ReportingSnapshot reportingSnapshot) {
+    final long captureTimestamp = reportingSnapshot.getCaptureTimestamp();
+    upload(
+        DatasetColumnValueExtractor.values(), reportingSnapshot.getDatasets(), captureTimestamp);
+    upload(
+        DatasetCohortColumnValueExtractor.values(),
+        reportingSnapshot.getDatasetCohorts(),
+        captureTimestamp);
+    upload(
+        DatasetConceptSetColumnValueExtractor.values(),
+        reportingSnapshot.getDatasetConceptSets(),
+        captureTimestamp);
+    upload(
+        DatasetDomainColumnValueExtractor.values(),
+        reportingSnapshot.getDatasetDomainIdValues(),
+        captureTimestamp);
+    upload(
+        InstitutionColumnValueExtractor.values(),
+        reportingSnapshot.getInstitutions(),
+        captureTimestamp);
+    upload(
+        WorkspaceFreeTierUsageColumnValueExtractor.values(),
+        reportingSnapshot.getWorkspaceFreeTierUsage(),
+        captureTimestamp);
+    return reportingVerificationService.verifyAndLog(reportingSnapshot);
+  }
+
+  @Override
+  public void uploadBatchWorkspace(List<ReportingWorkspace> batch, long captureTimestamp) {
+    upload(WorkspaceColumnValueExtractor.values(), batch, captureTimestamp);
+  }
+
+  @Override
+  public void uploadBatchUser(List<ReportingUser> batch, long captureTimestamp) {
+    upload(UserColumnValueExtractor.values(), batch, captureTimestamp);
+  }
+
+  @Override
+  public void uploadBatchCohort(List<ReportingCohort> batch, long captureTimestamp) {
+    upload(CohortColumnValueExtractor.values(), batch, captureTimestamp);
+  }
+
+  @Override
+  public void uploadBatchNewUserSatisfactionSurveys(
+      List<ReportingNewUserSatisfactionSurvey> batch, long captureTimestamp) {
+    upload(NewUserSatisfactionSurveyColumnValueExtractor.values(), batch, captureTimestamp);
+  }
+
+  /** Uploads a record into verified_snapshot BigQuery table. */
+  @Override
+  public void uploadVerifiedSnapshot(long captureTimestamp) {
+    final TableId tableId = getTableId(VERIFIED_SNAPSHOT_TABLE_NAME);
+    // The table has no columns besides snapshot_timestamp, so write a single fixed-values row.
+    final ProtoRowsPayloadTransformer<Object> transformer =
+        getTransformer(tableId, ImmutableList.of());
+    append(
+        tableId,
+        transformer,
+        transformer.toSerializedRows(
+            ImmutableList.of(new Object()), getFixedValues(captureTimestamp)));
+    log.info(String.format("Verified snapshot at %d", captureTimestamp));
+  }
+
+  private <E extends Enum<E> & ColumnValueExtractor<T>, T> void upload(
+      E[] columns, List<T> models, long captureTimestamp) {
+    if (models.isEmpty()) {
+      return;
+    }
+    final TableId tableId = getTableId(getBigQueryTableName(columns[0].getDeclaringClass()));
+    final ProtoRowsPayloadTransformer<T> transformer =
+        getTransformer(tableId, Arrays.asList(columns));
+
+    final Stopwatch stopwatch = stopwatchProvider.get().start();
+    final List<ByteString> rows =
+        transformer.toSerializedRows(models, getFixedValues(captureTimestamp));
+    append(tableId, transformer, rows);
+    stopwatch.stop();
+    log.info(
+        LogFormatters.rate(
+            String.format("Storage Write upload into %s table", tableId.getTable()),
+            stopwatch.elapsed(),
+            models.size(),
+            "rows"));
+  }
+
+  /** Appends the rows in as few requests as the request size limit allows. */
+  private void append(
+      TableId tableId, ProtoRowsPayloadTransformer<?> transformer, List<ByteString> rows) {
+    List<ByteString> request = new ArrayList<>();
+    long requestBytes = 0;
+    for (ByteString row : rows) {
+      if (!request.isEmpty() && requestBytes + row.size() > MAX_APPEND_REQUEST_BYTES) {
+        committedStreamWriter.appendRows(tableId, transformer.getRowDescriptor(), request);
+        request = new ArrayList<>();
+        requestBytes = 0;
+      }
+      request.add(row);
+      requestBytes += row.size();
+    }
+    if (!request.isEmpty()) {
+      committedStreamWriter.appendRows(tableId, transformer.getRowDescriptor(), request);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> ProtoRowsPayloadTransformer<T> getTransformer(
+      TableId tableId, List<? extends ColumnValueExtractor<T>> columns) {
+    return (ProtoRowsPayloadTransformer<T>)
+        transformersByTable.computeIfAbsent(
+            tableId,
+            t -> new ProtoRowsPayloadTransformer<>(columns, bigQueryService.getTableSchema(t)));
+  }
+
+  private TableId getTableId(String tableName) {
+    final String projectId = configProvider.get().server.projectId;
+    final String dataset = configProvider.get().reporting.dataset;
+
+    return TableId.of(projectId, dataset, tableName);
+  }
+
+  private Map<String, Object> getFixedValues(long snapshotTimestamp) {
+    return ImmutableMap.of("snapshot_timestamp", snapshotTimestamp);
+  }
+}
@@ -0,0 +1,90 @@
+package org.pmiops.workbench.reporting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.pmiops.workbench.utils.ConcurrencyUtils;
+
+/**
+ * A bounded producer/consumer pipeline for batch uploads. The calling thread reads batches (e.g.
+ * from MySQL) and hands them off to a pool of upload threads, so reads for one table overlap with
+ * BigQuery round-trips for that table and for any other tables already handed off.
+ *
+ * <p>Each table may have at most maxInFlightPerTable uploads pending at a time; when that many are
+ * pending, the reading thread blocks until one completes. This keeps memory bounded regardless of
+ * how far the reads get ahead of the uploads.
+ *
+ * <p>If any upload fails, no further batches are handed off and {@link #awaitCompletion()} rethrows
+ * the first failure.
+ */
+public class ReportingUploadPipeline implements AutoCloseable {
+  private final ExecutorService executor;
+  private final int maxInFlightPerTable;
+  private final Map<String, Semaphore> inFlightPermitsByTable = new ConcurrentHashMap<>();
+  private final List<Future<?>> pendingUploads = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicReference<RuntimeException> firstFailure = new AtomicReference<>();
+
+  public ReportingUploadPipeline(int maxInFlightPerTable, int tableCount) {
+    this.maxInFlightPerTable = Math.max(1, maxInFlightPerTable);
+    this.executor =
+        ConcurrencyUtils.newFixedDaemonThreadPool(
+            "reporting-upload", this.maxInFlightPerTable * Math.max(1, tableCount));
+  }
+
+  /**
+   * Reads every batch from the stream on the calling thread and uploads each one asynchronously.
+   * Returns once all batches have been handed off, not when they have been uploaded.
+   */
+  public <T> void upload(String tableName, Stream<List<T>> batches, Consumer<List<T>> uploader) {
+    final Semaphore inFlightPermits =
+        inFlightPermitsByTable.computeIfAbsent(tableName, t -> new Semaphore(maxInFlightPerTable));
+    batches.forEach(
+        batch -> {
+          throwIfFailed();
+          inFlightPermits.acquireUninterruptibly();
+          final Runnable task =
+              () -> {
+                try {
+                  uploader.accept(batch);
+                } catch (RuntimeException e) {
+                  firstFailure.compareAndSet(null, e);
+                  throw e;
+                } finally {
+                  inFlightPermits.release();
+                }
+              };
+          pendingUploads.add(executor.submit(ConcurrencyUtils.withRequestAttributes(task)));
+        });
+  }
+
+  /** Blocks until every upload handed off so far has finished, rethrowing the first failure. */
+  public void awaitCompletion() {
+    final List<Future<?>> uploads;
+    synchronized (pendingUploads) {
+      uploads = new ArrayList<>(pendingUploads);
+      pendingUploads.clear();
+    }
+    uploads.forEach(ConcurrencyUtils::getUnchecked);
+    throwIfFailed();
+  }
+
+  private void throwIfFailed() {
+    final RuntimeException failure = firstFailure.get();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -43,8 +43,10 @@ import org.pmiops.workbench.reporting.insertion.UserColumnValueExtractor;
 import org.pmiops.workbench.reporting.insertion.WorkspaceColumnValueExtractor;
 import org.pmiops.workbench.reporting.insertion.WorkspaceFreeTierUsageColumnValueExtractor;
 import org.pmiops.workbench.utils.LogFormatters;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
+@Primary
 @Service
 public class ReportingUploadServiceImpl implements ReportingUploadService {
   private static final Logger log = Logger.getLogger(ReportingUploadServiceImpl.class.getName());
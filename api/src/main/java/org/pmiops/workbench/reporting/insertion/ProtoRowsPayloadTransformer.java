@@ -0,0 +1,218 @@
+package org.pmiops.workbench.reporting.insertion;
+
+import static org.pmiops.workbench.cohortbuilder.util.QueryParameterValues.rowToInsertStringToOffsetTimestamp;
+
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.Schema;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.pmiops.workbench.exceptions.ServerErrorException;
+
+/**
+ * Payload transformer for the BigQuery Storage Write API. Where InsertAllRequestPayloadTransformer
+ * builds a map (plus a random insert ID) for every row and sends it as JSON, this class maps each
+ * ColumnValueExtractor column to a protobuf field once, when it's constructed from the destination
+ * table's schema, and then writes each row straight into protobuf wire format.
+ *
+ * <p>The fields of the row message mirror the table schema: field N is the Nth column of the table.
+ * Values are converted to the Storage Write API representation of their column type, e.g.
+ * TIMESTAMP columns are written as int64 microseconds since the epoch.
+ */
+public class ProtoRowsPayloadTransformer<MODEL_T> {
+  private static final String ROW_MESSAGE_NAME = "ReportingRow";
+
+  private final List<ColumnValueExtractor<MODEL_T>> columns;
+  // Parallel to columns
+  private final ProtoField[] columnFields;
+  private final Map<String, ProtoField> fieldsByName;
+  private final DescriptorProto rowDescriptor;
+
+  public ProtoRowsPayloadTransformer(
+      List<? extends ColumnValueExtractor<MODEL_T>> columns, Schema tableSchema) {
+    this.columns = ImmutableList.copyOf(columns);
+
+    final ImmutableMap.Builder<String, ProtoField> fieldsBuilder = ImmutableMap.builder();
+    final DescriptorProto.Builder descriptorBuilder =
+        DescriptorProto.newBuilder().setName(ROW_MESSAGE_NAME);
+    int fieldNumber = 1;
+    for (Field field : tableSchema.getFields()) {
+      final ProtoField protoField = new ProtoField(fieldNumber++, field);
+      fieldsBuilder.put(field.getName(), protoField);
+      descriptorBuilder.addField(protoField.toFieldDescriptorProto());
+    }
+    this.fieldsByName = fieldsBuilder.build();
+    this.rowDescriptor = descriptorBuilder.build();
+
+    this.columnFields = new ProtoField[this.columns.size()];
+    for (int i = 0; i < columnFields.length; ++i) {
+      columnFields[i] = getField(this.columns.get(i).getParameterName());
+    }
+  }
+
+  /** The protobuf descriptor of the serialized rows, i.e. the writer schema for the upload. */
+  public DescriptorProto getRowDescriptor() {
+    return rowDescriptor;
+  }
+
+  /**
+   * Serializes one row per model. The fixedValues (e.g. snapshot_timestamp) are the same for every
+   * row, so they are encoded once and shared, which protobuf's wire format allows since a message
+   * may be split across concatenated byte strings.
+   */
+  public List<ByteString> toSerializedRows(List<MODEL_T> models, Map<String, Object> fixedValues) {
+    final ByteString.Output buffer = ByteString.newOutput();
+    final CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+
+    fixedValues.forEach((name, value) -> getField(name).write(output, value));
+    final ByteString fixedValuesBytes = flush(output, buffer);
+
+    final ImmutableList.Builder<ByteString> rows = ImmutableList.builder();
+    for (MODEL_T model : models) {
+      for (int i = 0; i < columnFields.length; ++i) {
+        final Object value = columns.get(i).getRowToInsertValue(model);
+        if (value != null) {
+          columnFields[i].write(output, value);
+        }
+      }
+      rows.add(fixedValuesBytes.concat(flush(output, buffer)));
+    }
+    return rows.build();
+  }
+
+  private ProtoField getField(String columnName) {
+    final ProtoField field = fieldsByName.get(columnName);
+    if (field == null) {
+      throw new ServerErrorException(
+          String.format("Column %s is not in the destination table's schema", columnName));
+    }
+    return field;
+  }
+
+  private static ByteString flush(CodedOutputStream output, ByteString.Output buffer) {
+    try {
+      output.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    final ByteString bytes = buffer.toByteString();
+    buffer.reset();
+    return bytes;
+  }
+
+  private enum ProtoKind {
+    INT64(FieldDescriptorProto.Type.TYPE_INT64),
+    DOUBLE(FieldDescriptorProto.Type.TYPE_DOUBLE),
+    BOOL(FieldDescriptorProto.Type.TYPE_BOOL),
+    STRING(FieldDescriptorProto.Type.TYPE_STRING),
+    TIMESTAMP_MICROS(FieldDescriptorProto.Type.TYPE_INT64),
+    DATE_EPOCH_DAYS(FieldDescriptorProto.Type.TYPE_INT32);
+
+    private final FieldDescriptorProto.Type protoType;
+
+    ProtoKind(FieldDescriptorProto.Type protoType) {
+      this.protoType = protoType;
+    }
+  }
+
+  private static class ProtoField {
+    private final int number;
+    private final String name;
+    private final ProtoKind kind;
+
+    private ProtoField(int number, Field field) {
+      this.number = number;
+      this.name = field.getName();
+      this.kind = toProtoKind(field);
+    }
+
+    private static ProtoKind toProtoKind(Field field) {
+      if (field.getMode() == Field.Mode.REPEATED) {
+        throw new ServerErrorException(
+            String.format("Repeated column %s is not supported", field.getName()));
+      }
+      switch (field.getType().getStandardType()) {
+        case INT64:
+          return ProtoKind.INT64;
+        case FLOAT64:
+          return ProtoKind.DOUBLE;
+        case BOOL:
+          return ProtoKind.BOOL;
+        case STRING:
+        case NUMERIC:
+        case BIGNUMERIC:
+          return ProtoKind.STRING;
+        case TIMESTAMP:
+          return ProtoKind.TIMESTAMP_MICROS;
+        case DATE:
+          return ProtoKind.DATE_EPOCH_DAYS;
+        default:
+          throw new ServerErrorException(
+              String.format(
+                  "Column %s has unsupported type %s", field.getName(), field.getType()));
+      }
+    }
+
+    private FieldDescriptorProto toFieldDescriptorProto() {
+      return FieldDescriptorProto.newBuilder()
+          .setName(name)
+          .setNumber(number)
+          .setType(kind.protoType)
+          .setLabel(FieldDescriptorProto.Label.LABEL_OPTIONAL)
+          .build();
+    }
+
+    private void write(CodedOutputStream output, Object value) {
+      try {
+        switch (kind) {
+          case INT64:
+            output.writeInt64(number, ((Number) value).longValue());
+            break;
+          case DOUBLE:
+            output.writeDouble(number, ((Number) value).doubleValue());
+            break;
+          case BOOL:
+            output.writeBool(number, Boolean.parseBoolean(value.toString()));
+            break;
+          case STRING:
+            output.writeString(number, value.toString());
+            break;
+          case TIMESTAMP_MICROS:
+            output.writeInt64(number, toEpochMicros(value));
+            break;
+          case DATE_EPOCH_DAYS:
+            output.writeInt32(number, (int) LocalDate.parse(value.toString()).toEpochDay());
+            break;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // Extractors format timestamps for InsertAllRequests, so convert them back here.
+    private long toEpochMicros(Object value) {
+      final OffsetDateTime timestamp =
+          value instanceof OffsetDateTime
+              ? (OffsetDateTime) value
+              : rowToInsertStringToOffsetTimestamp(value.toString())
+                  .orElseThrow(
+                      () ->
+                          new ServerErrorException(
+                              String.format("Invalid timestamp '%s' for column %s", value, name)));
+      final Instant instant = timestamp.toInstant();
+      return TimeUnit.SECONDS.toMicros(instant.getEpochSecond())
+          + TimeUnit.NANOSECONDS.toMicros(instant.getNano());
+    }
+  }
+}
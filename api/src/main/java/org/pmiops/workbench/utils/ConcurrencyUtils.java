@@ -0,0 +1,73 @@
+package org.pmiops.workbench.utils;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+public class ConcurrencyUtils {
+
+  /** A fixed-size pool of daemon threads named after the prefix, e.g. "reporting-upload-3". */
+  public static ExecutorService newFixedDaemonThreadPool(String namePrefix, int threadCount) {
+    return Executors.newFixedThreadPool(
+        threadCount,
+        new ThreadFactoryBuilder().setNameFormat(namePrefix + "-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Wraps a task so that it runs with the calling thread's request attributes bound. This lets
+   * request-scoped beans (e.g. WorkbenchConfig) be resolved from a worker thread. The caller must
+   * wait for the task to complete before its own request completes.
+   */
+  public static <T> Callable<T> withRequestAttributes(Callable<T> task) {
+    final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    return () -> {
+      final RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+      RequestContextHolder.setRequestAttributes(requestAttributes);
+      try {
+        return task.call();
+      } finally {
+        RequestContextHolder.setRequestAttributes(previousAttributes);
+      }
+    };
+  }
+
+  /** Runnable version of {@link #withRequestAttributes(Callable)}. */
+  public static Runnable withRequestAttributes(Runnable task) {
+    final Callable<Void> callable =
+        withRequestAttributes(
+            () -> {
+              task.run();
+              return null;
+            });
+    return () -> {
+      try {
+        callable.call();
+      } catch (Exception e) {
+        Throwables.throwIfUnchecked(e);
+        throw new RuntimeException(e);
+      }
+    };
+  }
+
+  /**
+   * Waits for a future to complete. Unchecked exceptions thrown by its task are rethrown as-is, so
+   * callers see the same exceptions as if they had run the task themselves.
+   */
+  public static <T> T getUnchecked(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for a concurrent task", e);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+}
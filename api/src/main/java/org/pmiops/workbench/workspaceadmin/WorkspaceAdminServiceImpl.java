@@ -399,6 +399,8 @@ public class WorkspaceAdminServiceImpl implements WorkspaceAdminService {
         dbWorkspace.getWorkspaceNamespace(),
         dbWorkspace.getFirecloudName(),
         Collections.singletonList(aclUpdate));
+    workspaceAuthService.invalidateFirecloudWorkspace(
+        dbWorkspace.getWorkspaceNamespace(), dbWorkspace.getFirecloudName());
 
     dbWorkspace.setPublished(publish);
     return workspaceDao.saveWithLastModified(dbWorkspace, userProvider.get());
@@ -1,13 +1,23 @@
 package org.pmiops.workbench.workspaces;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.inject.Provider;
 import org.pmiops.workbench.cdr.CdrVersionContext;
+import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.db.model.DbWorkspace;
@@ -19,31 +29,104 @@ import org.pmiops.workbench.firecloud.FirecloudTransforms;
 import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceACLUpdate;
 import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceACLUpdateResponseList;
 import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceAccessEntry;
+import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceResponse;
 import org.pmiops.workbench.model.BillingStatus;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
-public class WorkspaceAuthService {
+public class WorkspaceAuthService implements GaugeDataCollector {
 
   private static final Logger log = Logger.getLogger(WorkspaceAuthService.class.getName());
 
   public static final String PROJECT_OWNER_ACCESS_LEVEL = "PROJECT_OWNER";
   private static final String FC_OWNER_ROLE = "OWNER";
 
+  // firecloud.workspaceCacheTtlSeconds may be lower, but not higher. Other instances only see ACL
+  // changes once their entries expire, so this is kept short.
+  private static final Duration MAX_WORKSPACE_CACHE_TTL = Duration.ofMinutes(1);
+  private static final long MAX_WORKSPACE_CACHE_ENTRIES = 10_000;
+
   private final FireCloudService fireCloudService;
   private final Provider<DbUser> userProvider;
+  private final Provider<WorkbenchConfig> workbenchConfigProvider;
   private final WorkspaceDao workspaceDao;
 
+  // Each user's Terra workspace responses, which carry their access level and the bucket name.
+  // Concurrent lookups of the same entry share a single Terra call.
+  private final Cache<UserWorkspaceKey, CachedWorkspace> workspacesByUser =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_WORKSPACE_CACHE_ENTRIES)
+          .expireAfterWrite(MAX_WORKSPACE_CACHE_TTL)
+          .recordStats()
+          .build();
+
   @Autowired
   public WorkspaceAuthService(
-      FireCloudService fireCloudService, Provider<DbUser> userProvider, WorkspaceDao workspaceDao) {
+      FireCloudService fireCloudService,
+      Provider<DbUser> userProvider,
+      Provider<WorkbenchConfig> workbenchConfigProvider,
+      WorkspaceDao workspaceDao) {
     this.fireCloudService = fireCloudService;
     this.userProvider = userProvider;
+    this.workbenchConfigProvider = workbenchConfigProvider;
     this.workspaceDao = workspaceDao;
   }
 
+  private static class UserWorkspaceKey {
+    private final long userId;
+    private final String workspaceNamespace;
+    private final String firecloudName;
+
+    private UserWorkspaceKey(long userId, String workspaceNamespace, String firecloudName) {
+      this.userId = userId;
+      this.workspaceNamespace = workspaceNamespace;
+      this.firecloudName = firecloudName;
+    }
+
+    private boolean isForWorkspace(String workspaceNamespace, String firecloudName) {
+      return this.workspaceNamespace.equals(workspaceNamespace)
+          && this.firecloudName.equals(firecloudName);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof UserWorkspaceKey)) {
+        return false;
+      }
+      UserWorkspaceKey that = (UserWorkspaceKey) o;
+      return userId == that.userId
+          && workspaceNamespace.equals(that.workspaceNamespace)
+          && firecloudName.equals(that.firecloudName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(userId, workspaceNamespace, firecloudName);
+    }
+  }
+
+  private static class CachedWorkspace {
+    private final FirecloudWorkspaceResponse response;
+    private final long loadedAtNanos;
+
+    private CachedWorkspace(FirecloudWorkspaceResponse response) {
+      this.response = response;
+      this.loadedAtNanos = System.nanoTime();
+    }
+
+    private boolean isOlderThan(Duration ttl) {
+      return System.nanoTime() - loadedAtNanos > ttl.toNanos();
+    }
+  }
+
   /*
    * This function will check the workspace's billing status and throw a ForbiddenException
    * if it is inactive.
@@ -62,10 +145,69 @@ public class WorkspaceAuthService {
     }
   }
 
+  /**
+   * Returns the current user's view of the Terra workspace, including their access level and the
+   * workspace bucket. Responses are reused for up to firecloud.workspaceCacheTtlSeconds, so that
+   * the access check and any later lookup in a request, or in the user's next few requests, don't
+   * each call Terra. The cached response is shared, so callers must not modify it.
+   *
+   * <p>Changes to a workspace's ACL made through this service, or WorkspaceAdminService, discard
+   * its entries on this instance only. Other instances, and changes made directly in Terra, pick
+   * them up once the TTL elapses. Until then, another instance may still serve a removed
+   * collaborator their old access level.
+   */
+  public FirecloudWorkspaceResponse getFirecloudWorkspace(
+      String workspaceNamespace, String firecloudName) {
+    final Duration ttl = getWorkspaceCacheTtl();
+    final DbUser user = userProvider.get();
+    if (ttl.isZero() || user == null) {
+      return fireCloudService.getWorkspace(workspaceNamespace, firecloudName);
+    }
+
+    final UserWorkspaceKey key =
+        new UserWorkspaceKey(user.getUserId(), workspaceNamespace, firecloudName);
+    final CachedWorkspace cached = workspacesByUser.getIfPresent(key);
+    if (cached != null && cached.isOlderThan(ttl)) {
+      workspacesByUser.asMap().remove(key, cached);
+    }
+    try {
+      return workspacesByUser.get(
+              key,
+              () ->
+                  new CachedWorkspace(
+                      fireCloudService.getWorkspace(workspaceNamespace, firecloudName)))
+          .response;
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new ServerErrorException(e.getCause());
+    }
+  }
+
+  /** Discards every user's cached Terra response for the workspace, e.g. after an ACL change. */
+  public void invalidateFirecloudWorkspace(String workspaceNamespace, String firecloudName) {
+    workspacesByUser
+        .asMap()
+        .keySet()
+        .removeIf(key -> key.isForWorkspace(workspaceNamespace, firecloudName));
+  }
+
+  private Duration getWorkspaceCacheTtl() {
+    final Integer ttlSeconds = workbenchConfigProvider.get().firecloud.workspaceCacheTtlSeconds;
+    if (ttlSeconds == null || ttlSeconds <= 0) {
+      return Duration.ZERO;
+    }
+    final Duration ttl = Duration.ofSeconds(ttlSeconds);
+    return ttl.compareTo(MAX_WORKSPACE_CACHE_TTL) > 0 ? MAX_WORKSPACE_CACHE_TTL : ttl;
+  }
+
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    return CacheMetrics.getGaugeData("firecloud_workspace", workspacesByUser);
+  }
+
   public WorkspaceAccessLevel getWorkspaceAccessLevel(String workspaceNamespace, String workspaceId)
       throws IllegalArgumentException {
-    String userAccess =
-        fireCloudService.getWorkspace(workspaceNamespace, workspaceId).getAccessLevel();
+    String userAccess = getFirecloudWorkspace(workspaceNamespace, workspaceId).getAccessLevel();
     if (PROJECT_OWNER_ACCESS_LEVEL.equals(userAccess)) {
       return WorkspaceAccessLevel.OWNER;
     }
@@ -114,9 +256,17 @@ public class WorkspaceAuthService {
   private void updateAcl(
       DbWorkspace workspace, List<FirecloudWorkspaceACLUpdate> updateACLRequestList) {
 
-    FirecloudWorkspaceACLUpdateResponseList fireCloudResponse =
-        fireCloudService.updateWorkspaceACL(
-            workspace.getWorkspaceNamespace(), workspace.getFirecloudName(), updateACLRequestList);
+    FirecloudWorkspaceACLUpdateResponseList fireCloudResponse;
+    try {
+      fireCloudResponse =
+          fireCloudService.updateWorkspaceACL(
+              workspace.getWorkspaceNamespace(),
+              workspace.getFirecloudName(),
+              updateACLRequestList);
+    } finally {
+      // Even a failed update may have been partially applied.
+      invalidateFirecloudWorkspace(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
+    }
 
     if (!fireCloudResponse.getUsersNotFound().isEmpty()) {
       throw new BadRequestException(
@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -181,7 +182,7 @@ public class WorkspaceServiceImpl implements WorkspaceService, GaugeDataCollecto
 
     // This enforces access controls.
     fcResponse =
-        fireCloudService.getWorkspace(
+        workspaceAuthService.getFirecloudWorkspace(
             dbWorkspace.getWorkspaceNamespace(), dbWorkspace.getFirecloudName());
     fcWorkspace = fcResponse.getWorkspace();
 
@@ -210,6 +211,8 @@ public class WorkspaceServiceImpl implements WorkspaceService, GaugeDataCollecto
     // This automatically handles access control to the workspace.
     fireCloudService.deleteWorkspace(
         dbWorkspace.getWorkspaceNamespace(), dbWorkspace.getFirecloudName());
+    workspaceAuthService.invalidateFirecloudWorkspace(
+        dbWorkspace.getWorkspaceNamespace(), dbWorkspace.getFirecloudName());
     dbWorkspace.setWorkspaceActiveStatusEnum(WorkspaceActiveStatus.DELETED);
     dbWorkspace = workspaceDao.saveWithLastModified(dbWorkspace, userProvider.get());
 
@@ -460,6 +463,11 @@ public class WorkspaceServiceImpl implements WorkspaceService, GaugeDataCollecto
         .collect(ImmutableList.toImmutableList());
   }
 
+  @Override
+  public Duration getGaugeRefreshInterval() {
+    return COUNT_QUERY_REFRESH_INTERVAL;
+  }
+
   @Override
   public boolean notebookTransferComplete(String workspaceNamespace, String workspaceId) {
     return fireCloudService.workspaceFileTransferComplete(workspaceNamespace, workspaceId);
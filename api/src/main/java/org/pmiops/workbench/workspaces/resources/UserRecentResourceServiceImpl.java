@@ -25,6 +25,7 @@ public class UserRecentResourceServiceImpl implements UserRecentResourceService
   private DataSetDao datasetDao;
   private UserRecentlyModifiedResourceDao userRecentlyModifiedResourceDao;
   private final Provider<WorkbenchConfig> workbenchConfigProvider;
+  private final UserRecentResourcesCache userRecentResourcesCache;
 
   @Autowired
   public UserRecentResourceServiceImpl(
@@ -32,12 +33,14 @@ public class UserRecentResourceServiceImpl implements UserRecentResourceService
       CohortReviewDao cohortReviewDao,
       DataSetDao datasetDao,
       UserRecentlyModifiedResourceDao userRecentlyModifiedResourceDao,
-      Provider<WorkbenchConfig> workbenchConfigProvider) {
+      Provider<WorkbenchConfig> workbenchConfigProvider,
+      UserRecentResourcesCache userRecentResourcesCache) {
     this.clock = clock;
     this.cohortReviewDao = cohortReviewDao;
     this.datasetDao = datasetDao;
     this.userRecentlyModifiedResourceDao = userRecentlyModifiedResourceDao;
     this.workbenchConfigProvider = workbenchConfigProvider;
+    this.userRecentResourcesCache = userRecentResourcesCache;
   }
 
   /**
@@ -121,7 +124,10 @@ public class UserRecentResourceServiceImpl implements UserRecentResourceService
     } else {
       recentResource.setLastAccessDate(now);
     }
-    return userRecentlyModifiedResourceDao.save(recentResource);
+    final DbUserRecentlyModifiedResource saved =
+        userRecentlyModifiedResourceDao.save(recentResource);
+    userRecentResourcesCache.invalidate(userId);
+    return saved;
   }
 
   /** Deletes notebook entry from user_recently_modified_resource */
@@ -199,6 +205,7 @@ public class UserRecentResourceServiceImpl implements UserRecentResourceService
         userRecentlyModifiedResourceDao.getResource(userId, workspaceId, resourceType, resourceId);
     if (resourceById != null) {
       userRecentlyModifiedResourceDao.delete(resourceById);
+      userRecentResourcesCache.invalidate(userId);
     }
   }
 
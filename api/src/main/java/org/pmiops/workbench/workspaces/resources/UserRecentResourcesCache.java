@@ -0,0 +1,62 @@
+package org.pmiops.workbench.workspaces.resources;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.pmiops.workbench.model.WorkspaceResource;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.GaugeDataCollector;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches each user's resolved recent resources, as returned by getUserRecentResources. Resolving
+ * them takes a FireCloud call per recent workspace, and the homepage asks for them on every load.
+ *
+ * <p>UserRecentResourceService drops a user's entry whenever it changes their recent resources.
+ * Other changes, e.g. losing access to a workspace, are picked up once the entry's TTL elapses.
+ */
+@Service
+public class UserRecentResourcesCache implements GaugeDataCollector {
+  static final Duration TTL = Duration.ofSeconds(30);
+  private static final long MAX_ENTRIES = 10_000;
+
+  private final Cache<Long, ImmutableList<WorkspaceResource>> resourcesByUserId =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_ENTRIES)
+          .expireAfterWrite(TTL)
+          .recordStats()
+          .build();
+
+  // Bumped by every invalidation, so that a load which raced with one isn't cached.
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  /** Returns the user's cached resources, or loads and caches them. */
+  public List<WorkspaceResource> get(long userId, Supplier<List<WorkspaceResource>> loader) {
+    final ImmutableList<WorkspaceResource> cached = resourcesByUserId.getIfPresent(userId);
+    if (cached != null) {
+      return cached;
+    }
+    final long invalidationCountBeforeLoad = invalidationCount.get();
+    final ImmutableList<WorkspaceResource> loaded = ImmutableList.copyOf(loader.get());
+    if (invalidationCount.get() == invalidationCountBeforeLoad) {
+      resourcesByUserId.put(userId, loaded);
+    }
+    return loaded;
+  }
+
+  public void invalidate(long userId) {
+    invalidationCount.incrementAndGet();
+    resourcesByUserId.invalidate(userId);
+  }
+
+  @Override
+  public Collection<MeasurementBundle> getGaugeData() {
+    return CacheMetrics.getGaugeData("user_recent_resources", resourcesByUserId);
+  }
+}
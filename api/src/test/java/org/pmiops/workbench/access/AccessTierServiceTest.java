@@ -3,10 +3,13 @@ package org.pmiops.workbench.access;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 
+import com.google.common.collect.ImmutableList;
 import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -126,6 +129,26 @@ public class AccessTierServiceTest {
         .inOrder(); // enforce a consistent ordering: alphabetical by shortName
   }
 
+  @Test
+  public void test_getAccessTiersForUsers() {
+    final DbAccessTier registeredTier = TestMockFactory.createRegisteredTierForTests(accessTierDao);
+    final DbAccessTier controlledTier = TestMockFactory.createControlledTierForTests(accessTierDao);
+    addDaoEntry(user, registeredTier, TierAccessStatus.ENABLED);
+    addDaoEntry(user, controlledTier, TierAccessStatus.ENABLED);
+
+    final DbUser disabledUser = userDao.save(new DbUser().setUsername("disabled"));
+    addDaoEntry(disabledUser, registeredTier, TierAccessStatus.DISABLED);
+    final DbUser unregisteredUser = userDao.save(new DbUser().setUsername("unregistered"));
+
+    final Map<Long, List<DbAccessTier>> tiersByUser =
+        accessTierService.getAccessTiersForUsers(
+            ImmutableList.of(user, disabledUser, unregisteredUser));
+    assertThat(tiersByUser.keySet()).containsExactly(user.getUserId());
+    assertThat(tiersByUser.get(user.getUserId()))
+        .containsExactly(controlledTier, registeredTier)
+        .inOrder(); // enforce a consistent ordering: alphabetical by shortName
+  }
+
   @Test
   public void test_addUserToRegisteredTier_new() {
     assertThat(userAccessTierDao.findAll()).isEmpty();
@@ -2,11 +2,13 @@ package org.pmiops.workbench.access;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.Duration;
@@ -502,6 +504,29 @@ public class UserServiceAccessTest {
     verify(mailService).alertUserRegisteredTierWarningThreshold(dbUser, 1, expirationTime);
   }
 
+  @Test
+  public void test_sendAccessExpirationEmails_expiring_1() throws MessagingException {
+    final Timestamp now = new Timestamp(PROVIDED_CLOCK.millis());
+    accessModuleService.updateCompletionTime(
+        dbUser, DbAccessModuleName.PUBLICATION_CONFIRMATION, now);
+    accessModuleService.updateCompletionTime(dbUser, DbAccessModuleName.PROFILE_CONFIRMATION, now);
+    accessModuleService.updateCompletionTime(
+        dbUser, DbAccessModuleName.DATA_USER_CODE_OF_CONDUCT, now);
+    dbUser.setDuccAgreement(signCurrentDucc(dbUser));
+
+    final Duration oneDayPlusSome = daysPlusSome(1);
+    final Instant expirationTime = PROVIDED_CLOCK.instant().plus(oneDayPlusSome);
+    accessModuleService.updateCompletionTime(
+        dbUser, DbAccessModuleName.RT_COMPLIANCE_TRAINING, willExpireAfter(oneDayPlusSome));
+
+    userService.sendAccessExpirationEmails(ImmutableList.of(dbUser));
+
+    // expiring users are sent one batched email per warning threshold
+    verify(mailService)
+        .alertUsersRegisteredTierWarningThreshold(ImmutableMap.of(dbUser, expirationTime), 1);
+    verify(mailService, never()).alertUsersRegisteredTierExpiration(any());
+  }
+
   // if any module is incomplete, we don't send an email
   // because the user is not expiring soon - they never had access at all
 
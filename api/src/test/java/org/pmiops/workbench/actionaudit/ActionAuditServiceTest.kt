@@ -8,18 +8,24 @@ import com.google.common.collect.ImmutableList
 import com.google.common.truth.Truth.assertThat
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.argumentCaptor
+import com.nhaarman.mockitokotlin2.doAnswer
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.never
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import java.util.Arrays
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 import javax.inject.Provider
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.extension.ExtendWith
 import org.pmiops.workbench.config.WorkbenchConfig
 import org.pmiops.workbench.config.WorkbenchConfig.ActionAuditConfig
+import org.pmiops.workbench.config.WorkbenchConfig.ActionAuditConfig.QueueOverflowPolicy
 import org.pmiops.workbench.config.WorkbenchConfig.ServerConfig
+import org.pmiops.workbench.monitoring.views.GaugeMetric
 import org.springframework.test.context.junit.jupiter.SpringExtension
 
 @ExtendWith(SpringExtension::class)
@@ -29,10 +35,11 @@ class ActionAuditServiceTest {
     private val mockConfigProvider = mock<Provider<WorkbenchConfig>>()
 
     private var actionAuditService: ActionAuditService? = null
+    private lateinit var actionAuditConfig: ActionAuditConfig
 
     @BeforeEach
     fun setUp() {
-        val actionAuditConfig = ActionAuditConfig()
+        actionAuditConfig = ActionAuditConfig()
                 .apply { logName = "log_path_1" }
 
         val serverConfig = ServerConfig()
@@ -114,6 +121,71 @@ class ActionAuditServiceTest {
         }
     }
 
+    @Test
+    fun testAsyncWritesAreFlushedInOrderOnDestroy() {
+        actionAuditConfig.asyncWrites = true
+        val written = recordWrittenEntries()
+        val asyncService = ActionAuditServiceImpl(mockConfigProvider, mockLogging)
+
+        asyncService.send(EVENT_1)
+        asyncService.send(EVENT_2)
+        asyncService.destroy()
+
+        assertThat(written.map { it.getPayload<JsonPayload>().dataAsMap[AuditColumn.NEW_VALUE.name] })
+                .containsExactly("shod", "about that tall")
+                .inOrder()
+    }
+
+    @Test
+    fun testAsyncWritesDropOverflowWhenQueueIsFull() {
+        actionAuditConfig.asyncWrites = true
+        actionAuditConfig.queueOverflowPolicy = QueueOverflowPolicy.DROP
+        // Hold the writer in its first write, so that later entries stay queued
+        val writeStarted = CountDownLatch(1)
+        val releaseWriter = CountDownLatch(1)
+        doAnswer {
+            writeStarted.countDown()
+            releaseWriter.await()
+        }.whenever(mockLogging).write(any())
+        val asyncService = ActionAuditServiceImpl(mockConfigProvider, mockLogging, 1)
+
+        asyncService.send(EVENT_1)
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue()
+        asyncService.send(ImmutableList.of(EVENT_1, EVENT_2))
+
+        val measurements = asyncService.getGaugeData().single().measurements
+        assertThat(measurements[GaugeMetric.ACTION_AUDIT_QUEUE_SIZE]).isEqualTo(1L)
+        assertThat(measurements[GaugeMetric.ACTION_AUDIT_DROPPED_ENTRY_COUNT]).isEqualTo(1L)
+
+        releaseWriter.countDown()
+        asyncService.destroy()
+        assertThat(asyncService.getGaugeData().single().measurements[GaugeMetric.ACTION_AUDIT_QUEUE_SIZE])
+                .isEqualTo(0L)
+    }
+
+    @Test
+    fun testAsyncWritesFallBackToSynchronousWriteWhenQueueIsFull() {
+        actionAuditConfig.asyncWrites = true
+        actionAuditConfig.queueOverflowPolicy = QueueOverflowPolicy.WRITE_SYNCHRONOUSLY
+        val written = recordWrittenEntries()
+        val asyncService = ActionAuditServiceImpl(mockConfigProvider, mockLogging, 1)
+
+        asyncService.send(ImmutableList.of(EVENT_1, EVENT_2))
+        asyncService.destroy()
+
+        assertThat(written).hasSize(2)
+        assertThat(asyncService.getGaugeData().single()
+                .measurements[GaugeMetric.ACTION_AUDIT_DROPPED_ENTRY_COUNT]).isEqualTo(0L)
+    }
+
+    private fun recordWrittenEntries(): List<LogEntry> {
+        val written = Collections.synchronizedList(ArrayList<LogEntry>())
+        doAnswer {
+            written.addAll(it.getArgument<Iterable<LogEntry>>(0))
+        }.whenever(mockLogging).write(any())
+        return written
+    }
+
     companion object {
         private const val AGENT_ID_1 = 101L
         private const val AGENT_ID_2 = 102L
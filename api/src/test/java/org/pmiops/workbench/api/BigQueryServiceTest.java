@@ -0,0 +1,299 @@
+package org.pmiops.workbench.api;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobId;
+import com.google.cloud.bigquery.JobInfo;
+import com.google.cloud.bigquery.JobStatus;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.StandardTableDefinition;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.pmiops.workbench.cdr.CdrVersionContext;
+import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.db.model.DbCdrVersion;
+import org.pmiops.workbench.exceptions.NotFoundException;
+import org.pmiops.workbench.exceptions.TooManyRequestsException;
+import org.pmiops.workbench.model.Domain;
+import org.pmiops.workbench.monitoring.CacheMetrics;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BigQueryServiceTest {
+  private static final long USER_ID = 101L;
+  private static final int MAX_IN_FLIGHT_JOBS = 2;
+  private static final Map<String, BigQuery> createdClients = new HashMap<>();
+
+  @MockBean private BigQuery defaultBigQuery;
+
+  @Autowired private BigQueryService bigQueryService;
+
+  @TestConfiguration
+  static class Configuration {
+    @Bean
+    BigQueryService bigQueryService() {
+      return new BigQueryService() {
+        @Override
+        protected BigQuery createBigQueryClient(String projectId) {
+          final BigQuery client = mock(BigQuery.class);
+          createdClients.put(projectId, client);
+          return client;
+        }
+      };
+    }
+
+    @Bean
+    WorkbenchConfig workbenchConfig() {
+      WorkbenchConfig workbenchConfig = WorkbenchConfig.createEmptyConfig();
+      workbenchConfig.cdr.maxInFlightQueryJobsPerUser = MAX_IN_FLIGHT_JOBS;
+      return workbenchConfig;
+    }
+
+    @Bean
+    Duration defaultBigQueryTimeout() {
+      return Duration.ofSeconds(5);
+    }
+  }
+
+  @BeforeEach
+  public void setUp() {
+    createdClients.clear();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    CdrVersionContext.clearCdrVersion();
+  }
+
+  @Test
+  public void testGetBigQueryService_reusesClientPerProject() {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(
+        new DbCdrVersion().setBigqueryProject("cdr-project-a"));
+    final BigQuery first = bigQueryService.getBigQueryService();
+    assertThat(bigQueryService.getBigQueryService()).isSameInstanceAs(first);
+
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(
+        new DbCdrVersion().setBigqueryProject("cdr-project-b"));
+    assertThat(bigQueryService.getBigQueryService()).isNotSameInstanceAs(first);
+
+    assertThat(createdClients.keySet()).containsExactly("cdr-project-a", "cdr-project-b");
+  }
+
+  @Test
+  public void testGetCdrTableSchema_cachedPerCdr() {
+    final DbCdrVersion cdrA =
+        new DbCdrVersion().setBigqueryProject("cdr-project-a").setBigqueryDataset("cdr_a");
+    final DbCdrVersion cdrB =
+        new DbCdrVersion().setBigqueryProject("cdr-project-a").setBigqueryDataset("cdr_b");
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrA);
+    final BigQuery client = bigQueryService.getBigQueryService();
+    final TableId tableA = TableId.of("cdr-project-a", "cdr_a", "ds_measurement");
+    final TableId tableB = TableId.of("cdr-project-a", "cdr_b", "ds_measurement");
+    stubTable(client, tableA, "PERSON_ID", "Value_As_Number");
+    stubTable(client, tableB, "PERSON_ID");
+
+    assertThat(bigQueryService.getTableColumnNamesFromDomain(Domain.MEASUREMENT))
+        .containsExactly("person_id", "value_as_number")
+        .inOrder();
+    assertThat(bigQueryService.getTableFieldsFromDomain(Domain.MEASUREMENT)).hasSize(2);
+    verify(client, times(1)).getTable(tableA);
+
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrB);
+    assertThat(bigQueryService.getTableColumnNamesFromDomain(Domain.MEASUREMENT))
+        .containsExactly("person_id");
+    verify(client, times(1)).getTable(tableB);
+  }
+
+  @Test
+  public void testGetGaugeData_countsHitsAndMisses() {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(
+        new DbCdrVersion().setBigqueryProject("cdr-project-a"));
+    bigQueryService.getBigQueryService();
+    bigQueryService.getBigQueryService();
+    bigQueryService.getBigQueryService();
+
+    assertThat(getLookupCount(CacheMetrics.HIT)).isEqualTo(2L);
+    assertThat(getLookupCount(CacheMetrics.MISS)).isEqualTo(1L);
+  }
+
+  @Test
+  public void testStartQueryForUser_labelsJobWithSubmitter() {
+    stubStartedJobs("job-1");
+
+    assertThat(bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID))
+        .isEqualTo(JobId.of("job-1"));
+
+    final ArgumentCaptor<JobInfo> jobInfoCaptor = ArgumentCaptor.forClass(JobInfo.class);
+    verify(defaultBigQuery).create(jobInfoCaptor.capture());
+    final QueryJobConfiguration submitted = jobInfoCaptor.getValue().getConfiguration();
+    assertThat(submitted.getLabels())
+        .containsExactly(BigQueryService.SUBMITTER_LABEL, Long.toString(USER_ID));
+  }
+
+  @Test
+  public void testStartQueryForUser_limitsInFlightJobsPerUser() {
+    stubStartedJobs("job-1", "job-2");
+    doReturn(mockJob(USER_ID, JobStatus.State.RUNNING))
+        .when(defaultBigQuery)
+        .getJob(any(JobId.class));
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () -> bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID));
+    verify(defaultBigQuery, times(2)).create(any(JobInfo.class));
+    // Only the user's own jobs are looked up; the project's jobs are never listed.
+    verify(defaultBigQuery, times(2)).getJob(any(JobId.class));
+    verify(defaultBigQuery, never()).listJobs(any());
+
+    // Another user has their own limit.
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID + 1);
+  }
+
+  @Test
+  public void testStartQueryForUser_finishedJobsFreeTheLimit() {
+    stubStartedJobs("job-1", "job-2", "job-3");
+    doReturn(mockJob(USER_ID, JobStatus.State.DONE))
+        .when(defaultBigQuery)
+        .getJob(JobId.of("job-1"));
+    doReturn(mockJob(USER_ID, JobStatus.State.RUNNING))
+        .when(defaultBigQuery)
+        .getJob(JobId.of("job-2"));
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+
+    assertThat(bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID))
+        .isEqualTo(JobId.of("job-3"));
+  }
+
+  @Test
+  public void testStartQueryForUser_polledJobsFreeTheLimit() throws Exception {
+    stubStartedJobs("job-1", "job-2", "job-3");
+    final Job doneJob = mockJob(USER_ID, JobStatus.State.DONE);
+    doReturn(mock(TableResult.class)).when(doneJob).getQueryResults();
+    doReturn(doneJob).when(defaultBigQuery).getJob(JobId.of("job-1"));
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+    bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID);
+    bigQueryService.getQueryResultsIfDone(JobId.of("job-1"), USER_ID);
+
+    assertThat(bigQueryService.startQueryForUser(QueryJobConfiguration.of("select 1"), USER_ID))
+        .isEqualTo(JobId.of("job-3"));
+    // The polled job was already known to be done, so no job states were looked up.
+    verify(defaultBigQuery, times(1)).getJob(any(JobId.class));
+  }
+
+  @Test
+  public void testGetQueryResultsIfDone_running() {
+    doReturn(mockJob(USER_ID, JobStatus.State.RUNNING))
+        .when(defaultBigQuery)
+        .getJob(any(JobId.class));
+
+    assertThat(bigQueryService.getQueryResultsIfDone(JobId.of("job-1"), USER_ID)).isEmpty();
+  }
+
+  @Test
+  public void testGetQueryResultsIfDone_done() throws Exception {
+    final Job job = mockJob(USER_ID, JobStatus.State.DONE);
+    final TableResult result = mock(TableResult.class);
+    doReturn(result).when(job).getQueryResults();
+    doReturn(job).when(defaultBigQuery).getJob(any(JobId.class));
+
+    assertThat(bigQueryService.getQueryResultsIfDone(JobId.of("job-1"), USER_ID))
+        .hasValue(result);
+  }
+
+  @Test
+  public void testGetQueryResultsIfDone_otherUsersJob() {
+    doReturn(mockJob(USER_ID + 1, JobStatus.State.DONE))
+        .when(defaultBigQuery)
+        .getJob(any(JobId.class));
+
+    assertThrows(
+        NotFoundException.class,
+        () -> bigQueryService.getQueryResultsIfDone(JobId.of("job-1"), USER_ID));
+  }
+
+  private void stubStartedJobs(String... jobNames) {
+    final Job[] startedJobs =
+        Arrays.stream(jobNames)
+            .map(
+                jobName -> {
+                  final Job job = mockJob(USER_ID, JobStatus.State.PENDING);
+                  doReturn(JobId.of(jobName)).when(job).getJobId();
+                  return job;
+                })
+            .toArray(Job[]::new);
+    when(defaultBigQuery.create(any(JobInfo.class)))
+        .thenReturn(startedJobs[0], Arrays.copyOfRange(startedJobs, 1, startedJobs.length));
+  }
+
+  private static void stubTable(BigQuery client, TableId tableId, String... columnNames) {
+    final Schema schema =
+        Schema.of(
+            Arrays.stream(columnNames)
+                .map(name -> Field.of(name, LegacySQLTypeName.STRING))
+                .toArray(Field[]::new));
+    final Table table = mock(Table.class);
+    doReturn(StandardTableDefinition.of(schema)).when(table).getDefinition();
+    doReturn(table).when(client).getTable(tableId);
+  }
+
+  private static Job mockJob(long submitterId, JobStatus.State state) {
+    final Job job = mock(Job.class);
+    final JobStatus status = mock(JobStatus.class);
+    doReturn(state).when(status).getState();
+    doReturn(status).when(job).getStatus();
+    doReturn(
+            QueryJobConfiguration.newBuilder("select 1")
+                .setLabels(
+                    ImmutableMap.of(BigQueryService.SUBMITTER_LABEL, Long.toString(submitterId)))
+                .build())
+        .when(job)
+        .getConfiguration();
+    return job;
+  }
+
+  private Number getLookupCount(String result) {
+    return bigQueryService.getGaugeData().stream()
+        .filter(b -> b.getMeasurements().containsKey(GaugeMetric.CACHE_LOOKUP_COUNT))
+        .filter(b -> b.getTagValue(MetricLabel.CACHE_LOOKUP_RESULT).equals(Optional.of(result)))
+        .map(MeasurementBundle::getMeasurements)
+        .map(m -> m.get(GaugeMetric.CACHE_LOOKUP_COUNT))
+        .findFirst()
+        .orElse(null);
+  }
+}
@@ -1,39 +1,50 @@
 package org.pmiops.workbench.api;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import com.google.api.services.cloudresourcemanager.v3.model.Project;
+import com.google.api.services.directory.model.User;
 import com.google.common.collect.ImmutableList;
+import java.io.IOException;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.access.AccessModuleService;
 import org.pmiops.workbench.actionaudit.Agent;
+import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.UserService;
 import org.pmiops.workbench.db.model.DbAccessModule.DbAccessModuleName;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.google.CloudResourceManagerService;
+import org.pmiops.workbench.google.DirectoryService;
 import org.pmiops.workbench.model.AccessModuleStatus;
 import org.pmiops.workbench.model.AuditProjectAccessRequest;
 import org.pmiops.workbench.model.SynchronizeUserAccessRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Scope;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
 
 @DataJpaTest
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class CloudTaskUserControllerTest {
   @Autowired private CloudResourceManagerService mockCloudResourceManagerService;
+  @Autowired private DirectoryService mockDirectoryService;
 
   private long incrementedUserId = 1L;
   private DbUser userA;
@@ -50,9 +61,18 @@ public class CloudTaskUserControllerTest {
   @MockBean({
     AccessModuleService.class,
     CloudResourceManagerService.class,
+    DirectoryService.class,
     UserService.class,
   })
-  static class Configuration {}
+  static class Configuration {
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    WorkbenchConfig workbenchConfig() {
+      final WorkbenchConfig config = WorkbenchConfig.createEmptyConfig();
+      config.offlineBatch.userTaskConcurrency = 2;
+      return config;
+    }
+  }
 
   @BeforeEach
   public void setUp() {
@@ -82,6 +102,26 @@ public class CloudTaskUserControllerTest {
     verify(mockCloudResourceManagerService, times(2)).getAllProjectsForUser(any());
   }
 
+  @Test
+  public void testBulkProjectAudit_countsFailedUsers() throws Exception {
+    doThrow(new IOException("listing failed"))
+        .when(mockCloudResourceManagerService)
+        .getAllProjectsForUser(userA);
+    doReturn(ImmutableList.of()).when(mockCloudResourceManagerService).getAllProjectsForUser(userB);
+
+    assertThat(
+            controller
+                .auditProjectAccess(
+                    new AuditProjectAccessRequest()
+                        .addUserIdsItem(userA.getUserId())
+                        .addUserIdsItem(userB.getUserId()))
+                .getStatusCode())
+        .isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+
+    // a failure for one user doesn't stop the others from being audited
+    verify(mockCloudResourceManagerService).getAllProjectsForUser(userB);
+  }
+
   @Test
   public void testSynchronizeAccess() {
     when(mockAccessModuleService.getAccessModuleStatus(userA, DbAccessModuleName.TWO_FACTOR_AUTH))
@@ -89,8 +129,11 @@ public class CloudTaskUserControllerTest {
     when(mockAccessModuleService.getAccessModuleStatus(userB, DbAccessModuleName.TWO_FACTOR_AUTH))
         .thenReturn(Optional.of(new AccessModuleStatus()));
 
+    when(mockDirectoryService.getUserOrThrow(userA.getUsername()))
+        .thenReturn(new User().setIsEnrolledIn2Sv(true));
+
     // kluge to ensure a valid return value for syncTwoFactorAuthStatus()
-    when(mockUserService.syncTwoFactorAuthStatus(userA, Agent.asSystem())).thenReturn(userA);
+    when(mockUserService.syncTwoFactorAuthStatus(userA, Agent.asSystem(), true)).thenReturn(userA);
 
     controller.synchronizeUserAccess(
         new SynchronizeUserAccessRequest()
@@ -101,7 +144,9 @@ public class CloudTaskUserControllerTest {
     // unfortunately UserService is too sprawling to replicate in a unit test.
 
     // we only sync 2FA users with completed 2FA
-    verify(mockUserService).syncTwoFactorAuthStatus(userA, Agent.asSystem());
+    verify(mockUserService).syncTwoFactorAuthStatus(userA, Agent.asSystem(), true);
+    verify(mockDirectoryService).getUserOrThrow(userA.getUsername());
+    verifyNoMoreInteractions(mockDirectoryService);
 
     // we sync DUCC for all users
     verify(mockUserService).syncDuccVersionStatus(userA, Agent.asSystem());
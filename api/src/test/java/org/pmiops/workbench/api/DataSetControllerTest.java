@@ -2,6 +2,7 @@ package org.pmiops.workbench.api;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
@@ -20,9 +21,11 @@ import com.google.cloud.bigquery.FieldList;
 import com.google.cloud.bigquery.FieldValue;
 import com.google.cloud.bigquery.FieldValue.Attribute;
 import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.JobId;
 import com.google.cloud.bigquery.LegacySQLTypeName;
 import com.google.cloud.bigquery.QueryJobConfiguration;
 import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.Schema;
 import com.google.cloud.bigquery.StandardSQLTypeName;
 import com.google.cloud.bigquery.TableResult;
 import com.google.common.collect.ImmutableList;
@@ -93,6 +96,7 @@ import org.pmiops.workbench.exceptions.BadRequestException;
 import org.pmiops.workbench.exceptions.FailedPreconditionException;
 import org.pmiops.workbench.exceptions.ForbiddenException;
 import org.pmiops.workbench.exceptions.NotFoundException;
+import org.pmiops.workbench.exceptions.TooManyRequestsException;
 import org.pmiops.workbench.exfiltration.EgressRemediationService;
 import org.pmiops.workbench.exfiltration.ObjectNameLengthServiceImpl;
 import org.pmiops.workbench.firecloud.FireCloudService;
@@ -115,6 +119,8 @@ import org.pmiops.workbench.model.CreateConceptSetRequest;
 import org.pmiops.workbench.model.DataSet;
 import org.pmiops.workbench.model.DataSetCodeResponse;
 import org.pmiops.workbench.model.DataSetExportRequest;
+import org.pmiops.workbench.model.DataSetPreviewOperation;
+import org.pmiops.workbench.model.DataSetPreviewRequest;
 import org.pmiops.workbench.model.DataSetPreviewValueList;
 import org.pmiops.workbench.model.DataSetRequest;
 import org.pmiops.workbench.model.Domain;
@@ -124,6 +130,7 @@ import org.pmiops.workbench.model.DomainWithDomainValues;
 import org.pmiops.workbench.model.KernelTypeEnum;
 import org.pmiops.workbench.model.MarkDataSetRequest;
 import org.pmiops.workbench.model.PrePackagedConceptSetEnum;
+import org.pmiops.workbench.model.QueryJobStatus;
 import org.pmiops.workbench.model.ResearchPurpose;
 import org.pmiops.workbench.model.ResourceType;
 import org.pmiops.workbench.model.Workspace;
@@ -182,6 +189,9 @@ public class DataSetControllerTest {
   private static final QueryParameterValue NAMED_PARAMETER_ARRAY_VALUE =
       QueryParameterValue.array(new Integer[] {2, 5}, StandardSQLTypeName.INT64);
 
+  private static final JobId PREVIEW_JOB_ID =
+      JobId.newBuilder().setJob("preview-job").setLocation("US").build();
+
   private static final Instant NOW = Instant.now();
   private static final FakeClock CLOCK = new FakeClock(NOW, ZoneId.systemDefault());
 
@@ -554,6 +564,135 @@ public class DataSetControllerTest {
         .isEqualTo(DataSetController.EMPTY_CELL_MARKER);
   }
 
+  private DataSetPreviewRequest buildPersonPreviewRequest() {
+    return new DataSetPreviewRequest()
+        .domain(Domain.PERSON)
+        .includesAllParticipants(true)
+        .values(ImmutableList.of("PERSON_ID"));
+  }
+
+  @Test
+  public void testPreviewDataSetByDomainAsync_startsJob() {
+    when(mockBigQueryService.startQueryForUser(any(), eq(currentUser.getUserId())))
+        .thenReturn(PREVIEW_JOB_ID);
+
+    DataSetPreviewOperation operation =
+        dataSetController
+            .previewDataSetByDomainAsync(
+                workspace.getNamespace(), workspace.getName(), buildPersonPreviewRequest())
+            .getBody();
+
+    assertThat(operation.getJobId()).isEqualTo(PREVIEW_JOB_ID.getJob());
+    assertThat(operation.getLocation()).isEqualTo(PREVIEW_JOB_ID.getLocation());
+    assertThat(operation.getStatus()).isEqualTo(QueryJobStatus.RUNNING);
+    assertThat(operation.getPreview()).isNull();
+    verify(mockBigQueryService, never()).executeQuery(any(), anyLong());
+  }
+
+  @Test
+  public void testPreviewDataSetByDomainAsync_tooManyInFlight() {
+    when(mockBigQueryService.startQueryForUser(any(), eq(currentUser.getUserId())))
+        .thenThrow(new TooManyRequestsException("At most 2 queries may run at once"));
+
+    assertThrows(
+        TooManyRequestsException.class,
+        () ->
+            dataSetController.previewDataSetByDomainAsync(
+                workspace.getNamespace(), workspace.getName(), buildPersonPreviewRequest()));
+  }
+
+  @Test
+  public void testGetDataSetPreviewOperation_stillRunning() {
+    when(mockBigQueryService.getQueryResultsIfDone(PREVIEW_JOB_ID, currentUser.getUserId()))
+        .thenReturn(Optional.empty());
+
+    DataSetPreviewOperation operation =
+        dataSetController
+            .getDataSetPreviewOperation(
+                workspace.getNamespace(),
+                workspace.getName(),
+                PREVIEW_JOB_ID.getJob(),
+                buildPersonPreviewRequest(),
+                PREVIEW_JOB_ID.getLocation())
+            .getBody();
+
+    assertThat(operation.getJobId()).isEqualTo(PREVIEW_JOB_ID.getJob());
+    assertThat(operation.getStatus()).isEqualTo(QueryJobStatus.RUNNING);
+    assertThat(operation.getPreview()).isNull();
+  }
+
+  @Test
+  public void testGetDataSetPreviewOperation_done() {
+    final TableResult tableResultMock = mock(TableResult.class);
+    final FieldList schema =
+        FieldList.of(ImmutableList.of(Field.of("PERSON_ID", LegacySQLTypeName.INTEGER)));
+    doReturn(1L).when(tableResultMock).getTotalRows();
+    doReturn(Schema.of(schema)).when(tableResultMock).getSchema();
+    doReturn(
+            ImmutableList.of(
+                FieldValueList.of(
+                    ImmutableList.of(FieldValue.of(Attribute.PRIMITIVE, "1")), schema)))
+        .when(tableResultMock)
+        .getValues();
+    when(mockBigQueryService.getQueryResultsIfDone(PREVIEW_JOB_ID, currentUser.getUserId()))
+        .thenReturn(Optional.of(tableResultMock));
+
+    DataSetPreviewOperation operation =
+        dataSetController
+            .getDataSetPreviewOperation(
+                workspace.getNamespace(),
+                workspace.getName(),
+                PREVIEW_JOB_ID.getJob(),
+                buildPersonPreviewRequest(),
+                PREVIEW_JOB_ID.getLocation())
+            .getBody();
+
+    assertThat(operation.getStatus()).isEqualTo(QueryJobStatus.DONE);
+    assertThat(operation.getPreview().getDomain()).isEqualTo(Domain.PERSON);
+    assertThat(operation.getPreview().getValues())
+        .containsExactly(
+            new DataSetPreviewValueList().value("PERSON_ID").queryValue(ImmutableList.of("1")));
+  }
+
+  @Test
+  public void testGetDataSetPreviewOperation_unknownJob() {
+    final JobId unknownJobId = JobId.newBuilder().setJob("unknown").setLocation("US").build();
+    when(mockBigQueryService.getQueryResultsIfDone(unknownJobId, currentUser.getUserId()))
+        .thenThrow(new NotFoundException("Query job unknown not found"));
+
+    assertThrows(
+        NotFoundException.class,
+        () ->
+            dataSetController.getDataSetPreviewOperation(
+                workspace.getNamespace(),
+                workspace.getName(),
+                unknownJobId.getJob(),
+                buildPersonPreviewRequest(),
+                unknownJobId.getLocation()));
+  }
+
+  @Test
+  public void testGetDataSetPreviewOperation_otherUsersJob() {
+    // BigQueryService only returns a job's results to the user who started it.
+    final long otherUserId = currentUser.getUserId() + 1;
+    doReturn(Optional.of(mock(TableResult.class)))
+        .when(mockBigQueryService)
+        .getQueryResultsIfDone(PREVIEW_JOB_ID, otherUserId);
+    when(mockBigQueryService.getQueryResultsIfDone(PREVIEW_JOB_ID, currentUser.getUserId()))
+        .thenThrow(new NotFoundException("Query job preview-job not found"));
+
+    assertThrows(
+        NotFoundException.class,
+        () ->
+            dataSetController.getDataSetPreviewOperation(
+                workspace.getNamespace(),
+                workspace.getName(),
+                PREVIEW_JOB_ID.getJob(),
+                buildPersonPreviewRequest(),
+                PREVIEW_JOB_ID.getLocation()));
+    verify(mockBigQueryService, never()).getQueryResultsIfDone(any(), eq(otherUserId));
+  }
+
   @Test
   public void testGetQueryFailsWithNoCohort() {
     DataSetRequest dataSet = buildEmptyDataSetRequest();
@@ -14,6 +14,7 @@ import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -27,9 +28,11 @@ import org.pmiops.workbench.billing.FreeTierBillingService;
 import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.AccessTierDao;
 import org.pmiops.workbench.db.dao.CdrVersionDao;
+import org.pmiops.workbench.db.dao.OfflineSweepCheckpointDao;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
 import org.pmiops.workbench.db.model.DbCdrVersion;
+import org.pmiops.workbench.db.model.DbOfflineSweepCheckpoint;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.exceptions.ServerErrorException;
@@ -48,6 +51,7 @@ import org.pmiops.workbench.leonardo.model.LeonardoListRuntimeResponse;
 import org.pmiops.workbench.leonardo.model.LeonardoRuntimeStatus;
 import org.pmiops.workbench.mail.MailService;
 import org.pmiops.workbench.model.WorkspaceAccessLevel;
+import org.pmiops.workbench.test.FakeClock;
 import org.pmiops.workbench.utils.TestMockFactory;
 import org.pmiops.workbench.utils.mappers.LeonardoMapper;
 import org.pmiops.workbench.utils.mappers.LeonardoMapperImpl;
@@ -95,11 +99,14 @@ public class OfflineRuntimeControllerTest {
   @Autowired private FreeTierBillingService mockFreeTierBillingService;
   @Autowired private MailService mockMailService;
 
+  @Autowired private FakeClock fakeClock;
   @Autowired private LeonardoMapper leonardoMapper;
   @Autowired private OfflineRuntimeController controller;
+  @Autowired private WorkbenchConfig workbenchConfig;
 
   @Autowired private AccessTierDao accessTierDao;
   @Autowired private CdrVersionDao cdrVersionDao;
+  @Autowired private OfflineSweepCheckpointDao offlineSweepCheckpointDao;
   @Autowired private UserDao userDao;
   @Autowired private WorkspaceDao workspaceDao;
 
@@ -132,6 +139,8 @@ public class OfflineRuntimeControllerTest {
 
   @AfterEach
   public void tearDown() {
+    fakeClock.setInstant(NOW);
+    workbenchConfig.offlineBatch.runtimeSweepConcurrency = null;
     workspaceDao.deleteAll();
     cdrVersionDao.deleteAll();
     userDao.deleteAll();
@@ -397,4 +406,86 @@ public class OfflineRuntimeControllerTest {
         .alertUsersUnusedDiskWarningThreshold(
             eq(ImmutableList.of(user1)), eq(workspace), any(), eq(14), eq(123.0));
   }
+
+  @Test
+  public void testCheckRuntimesResumesFromCheckpoint() throws Exception {
+    stubRuntimes(
+        ImmutableList.of(
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1)),
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1))));
+    offlineSweepCheckpointDao.save(
+        new DbOfflineSweepCheckpoint()
+            .setSweepName("checkRuntimes")
+            .setSweepStartTime(Timestamp.from(NOW.minus(Duration.ofHours(1))))
+            .setResumeAfter("proj-0/all-of-us"));
+
+    assertThat(controller.checkRuntimes().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+    verify(mockRuntimesApi, never()).getRuntime(eq("proj-0"), any());
+    verify(mockRuntimesApi).deleteRuntime(eq("proj-1"), any(), any());
+    verify(mockRuntimesApi, times(1)).deleteRuntime(any(), any(), any());
+    assertThat(offlineSweepCheckpointDao.existsById("checkRuntimes")).isFalse();
+  }
+
+  @Test
+  public void testCheckRuntimesIgnoresStaleCheckpoint() throws Exception {
+    stubRuntimes(
+        ImmutableList.of(
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1)),
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1))));
+    offlineSweepCheckpointDao.save(
+        new DbOfflineSweepCheckpoint()
+            .setSweepName("checkRuntimes")
+            .setSweepStartTime(Timestamp.from(NOW.minus(Duration.ofDays(3))))
+            .setResumeAfter("proj-0/all-of-us"));
+
+    assertThat(controller.checkRuntimes().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+    verify(mockRuntimesApi, times(2)).deleteRuntime(any(), any(), any());
+    assertThat(offlineSweepCheckpointDao.existsById("checkRuntimes")).isFalse();
+  }
+
+  @Test
+  public void testCheckRuntimesStopsAtTimeBudget() throws Exception {
+    workbenchConfig.offlineBatch.runtimeSweepConcurrency = 1;
+    List<LeonardoGetRuntimeResponse> runtimes =
+        ImmutableList.of(
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1)),
+            runtimeWithAge(RUNTIME_MAX_AGE.plusDays(1)));
+    stubRuntimes(runtimes);
+    when(mockRuntimesApi.getRuntime("proj-0", "all-of-us"))
+        .thenAnswer(
+            invocation -> {
+              fakeClock.increment(Duration.ofMinutes(9).toMillis());
+              return runtimes.get(0);
+            });
+
+    assertThat(controller.checkRuntimes().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+    verify(mockRuntimesApi).deleteRuntime(eq("proj-0"), any(), any());
+    verify(mockRuntimesApi, never()).getRuntime(eq("proj-1"), any());
+    DbOfflineSweepCheckpoint checkpoint = offlineSweepCheckpointDao.findById("checkRuntimes").get();
+    assertThat(checkpoint.getResumeAfter()).isEqualTo("proj-0/all-of-us");
+    assertThat(checkpoint.getSweepStartTime()).isEqualTo(Timestamp.from(NOW));
+  }
+
+  @Test
+  public void testCheckPersistentDisksResumesAsOfCheckpointStart() throws Exception {
+    stubWorkspaceOwners(workspace, ImmutableList.of(user1));
+    // Unused for 14 days as of the interrupted sweep, which started a day ago.
+    stubDisks(ImmutableList.of(idleDisk(Duration.ofDays(14L))));
+    fakeClock.setInstant(NOW.plus(Duration.ofDays(1)));
+    offlineSweepCheckpointDao.save(
+        new DbOfflineSweepCheckpoint()
+            .setSweepName("checkPersistentDisks")
+            .setSweepStartTime(Timestamp.from(NOW))
+            .setResumeAfter("a-project/a-disk"));
+
+    assertThat(controller.checkPersistentDisks().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+    verify(mockMailService)
+        .alertUsersUnusedDiskWarningThreshold(
+            eq(ImmutableList.of(user1)), eq(workspace), any(), eq(14), any());
+    assertThat(offlineSweepCheckpointDao.existsById("checkPersistentDisks")).isFalse();
+  }
 }
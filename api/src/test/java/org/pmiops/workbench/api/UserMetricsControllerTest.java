@@ -4,6 +4,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +57,7 @@ import org.pmiops.workbench.utils.mappers.CommonMappers;
 import org.pmiops.workbench.utils.mappers.FirecloudMapperImpl;
 import org.pmiops.workbench.workspaces.WorkspaceAuthService;
 import org.pmiops.workbench.workspaces.resources.UserRecentResourceService;
+import org.pmiops.workbench.workspaces.resources.UserRecentResourcesCache;
 import org.pmiops.workbench.workspaces.resources.WorkspaceResourceMapper;
 import org.pmiops.workbench.workspaces.resources.WorkspaceResourceMapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -85,6 +87,7 @@ public class UserMetricsControllerTest {
   @Autowired private WorkspaceResourceMapper workspaceResourceMapper;
 
   private UserMetricsController userMetricsController;
+  private UserRecentResourcesCache userRecentResourcesCache;
 
   private DbUser dbUser;
 
@@ -224,6 +227,7 @@ public class UserMetricsControllerTest {
               return ImmutableSet.copyOf(ids);
             });
 
+    userRecentResourcesCache = new UserRecentResourcesCache();
     userMetricsController =
         new UserMetricsController(
             mockCloudStorageClient,
@@ -234,6 +238,7 @@ public class UserMetricsControllerTest {
             mockFireCloudService,
             mockUserProvider,
             mockUserRecentResourceService,
+            userRecentResourcesCache,
             workspaceAuthService,
             workspaceDao,
             workspaceResourceMapper);
@@ -401,6 +406,20 @@ public class UserMetricsControllerTest {
         .isEqualTo(dbUserRecentlyModifiedResource2.getWorkspaceId());
   }
 
+  @Test
+  public void testGetUserRecentResources_cachedPerUser() {
+    assertThat(userMetricsController.getUserRecentResources().getBody()).hasSize(3);
+    when(mockUserRecentResourceService.findAllRecentlyModifiedResourcesByUser(dbUser.getUserId()))
+        .thenReturn(Collections.singletonList(dbUserRecentlyModifiedResource1));
+
+    assertThat(userMetricsController.getUserRecentResources().getBody()).hasSize(3);
+    verify(mockUserRecentResourceService, times(1))
+        .findAllRecentlyModifiedResourcesByUser(dbUser.getUserId());
+
+    userRecentResourcesCache.invalidate(dbUser.getUserId());
+    assertThat(userMetricsController.getUserRecentResources().getBody()).hasSize(1);
+  }
+
   @Test
   public void testWorkspaceLimit() {
     userMetricsController.setDistinctWorkspaceLimit(1);
@@ -0,0 +1,275 @@
+package org.pmiops.workbench.billing;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.PageImpl;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldValue;
+import com.google.cloud.bigquery.FieldValue.Attribute;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.db.dao.BillingProjectCostDao;
+import org.pmiops.workbench.db.dao.BillingProjectDailyCostDao;
+import org.pmiops.workbench.db.dao.UserDao;
+import org.pmiops.workbench.db.dao.WorkspaceDao;
+import org.pmiops.workbench.db.dao.WorkspaceFreeTierUsageDao;
+import org.pmiops.workbench.db.model.DbBillingProjectCost;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCost;
+import org.pmiops.workbench.db.model.DbBillingProjectDailyCostKey;
+import org.pmiops.workbench.db.model.DbUser;
+import org.pmiops.workbench.db.model.DbWorkspace;
+import org.pmiops.workbench.db.model.DbWorkspaceFreeTierUsage;
+import org.pmiops.workbench.test.FakeClock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Scope;
+
+@DataJpaTest
+public class FreeTierBillingBatchUpdateServiceTest {
+
+  private static final Instant START_INSTANT = Instant.parse("2000-01-01T00:00:00.00Z");
+  private static final FakeClock CLOCK = new FakeClock(START_INSTANT);
+
+  // _PARTITIONTIME and export_time values, in seconds since the epoch as BigQuery returns them
+  private static final String START_PARTITION_TIME = "946684800";
+  private static final String FIRST_EXPORT_TIME = "946684800.5";
+  private static final String SECOND_EXPORT_TIME = "946688400.25";
+
+  private static WorkbenchConfig workbenchConfig;
+
+  @MockBean private BigQueryService bigQueryService;
+  @MockBean private FreeTierBillingService freeTierBillingService;
+
+  @Autowired BillingProjectCostDao billingProjectCostDao;
+  @Autowired BillingProjectDailyCostDao billingProjectDailyCostDao;
+  @Autowired FreeTierBillingBatchUpdateService freeTierBillingBatchUpdateService;
+  @Autowired UserDao userDao;
+  @Autowired WorkspaceDao workspaceDao;
+  @Autowired WorkspaceFreeTierUsageDao workspaceFreeTierUsageDao;
+
+  @TestConfiguration
+  @Import(FreeTierBillingBatchUpdateService.class)
+  static class Configuration {
+    @Bean
+    public Clock clock() {
+      return CLOCK;
+    }
+
+    @Bean
+    @Scope(value = ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    public WorkbenchConfig workbenchConfig() {
+      return workbenchConfig;
+    }
+  }
+
+  @BeforeEach
+  public void setUp() {
+    workbenchConfig = WorkbenchConfig.createEmptyConfig();
+    workbenchConfig.billing.exportBigQueryTable = "billing.export";
+    workbenchConfig.billing.freeTierCronUserBatchSize = 10;
+    workbenchConfig.billing.incrementalCostIngestion = true;
+  }
+
+  @Test
+  public void testCheckFreeTierBillingUsage_firstRunIngestsWholeExport() {
+    final DbUser user = createUser("user@test.com");
+    createWorkspace(user, "project-1");
+    createWorkspace(user, "project-2");
+    doReturn(
+            mockBQTableResult(
+                ImmutableMap.of("project-1", 10.0, "project-2", 20.0),
+                START_PARTITION_TIME,
+                FIRST_EXPORT_TIME))
+        .when(bigQueryService)
+        .executeQuery(any(QueryJobConfiguration.class));
+
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+
+    assertThat(getPartitionsFromParameter()).isEqualTo(QueryParameterValue.timestamp(0L));
+    assertThat(billingProjectCostDao.findById("project-1").get().getCost()).isEqualTo(10.0);
+    assertThat(billingProjectCostDao.findById("project-1").get().getAppliedCost()).isEqualTo(10.0);
+    assertThat(billingProjectCostDao.getWatermark().get().toInstant())
+        .isEqualTo(Instant.parse("2000-01-01T00:00:00.50Z"));
+    verify(freeTierBillingService)
+        .checkFreeTierBillingUsageForUsers(
+            ImmutableSet.of(user), ImmutableMap.of("project-1", 10.0, "project-2", 20.0));
+  }
+
+  @Test
+  public void testCheckFreeTierBillingUsage_reaggregatesPartitionsFromWatermark() {
+    final DbUser changedUser = createUser("changed@test.com");
+    final DbUser unchangedUser = createUser("unchanged@test.com");
+    createWorkspace(changedUser, "project-1");
+    createWorkspace(unchangedUser, "project-2");
+    saveProjectCost("project-1", START_INSTANT.minus(Duration.ofDays(10)), 10.0);
+    saveProjectCost("project-2", START_INSTANT.minus(Duration.ofDays(10)), 20.0);
+    doReturn(
+            mockBQTableResult(
+                ImmutableMap.of("project-1", 2.5), START_PARTITION_TIME, SECOND_EXPORT_TIME))
+        .when(bigQueryService)
+        .executeQuery(any(QueryJobConfiguration.class));
+
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+
+    // Partitions are re-aggregated from the day before the watermark, to catch rows exported late.
+    assertThat(getPartitionsFromParameter())
+        .isEqualTo(
+            QueryParameterValue.timestamp(
+                START_INSTANT.minus(Duration.ofDays(1)).toEpochMilli() * 1000));
+    // The project's older partitions are not scanned again, but still count towards its total.
+    assertThat(billingProjectCostDao.findById("project-1").get().getCost()).isEqualTo(12.5);
+    assertThat(billingProjectCostDao.findById("project-2").get().getCost()).isEqualTo(20.0);
+    verify(freeTierBillingService)
+        .checkFreeTierBillingUsageForUsers(
+            ImmutableSet.of(changedUser), ImmutableMap.of("project-1", 12.5));
+  }
+
+  @Test
+  public void testCheckFreeTierBillingUsage_nothingToApply() {
+    final DbUser user = createUser("user@test.com");
+    createWorkspace(user, "project-1");
+    saveProjectCost("project-1", START_INSTANT, 10.0);
+    doReturn(
+            mockBQTableResult(
+                ImmutableMap.of("project-1", 10.0), START_PARTITION_TIME, FIRST_EXPORT_TIME))
+        .when(bigQueryService)
+        .executeQuery(any(QueryJobConfiguration.class));
+
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+
+    verify(freeTierBillingService, never()).checkFreeTierBillingUsageForUsers(anySet(), anyMap());
+  }
+
+  @Test
+  public void testCheckFreeTierBillingUsage_rerunIsIdempotent() {
+    final DbUser user = createUser("user@test.com");
+    final DbWorkspace workspace = createWorkspace(user, "project-1");
+    // The workspace's usage won't be updated, e.g. because it was deleted long ago.
+    workspaceFreeTierUsageDao.save(
+        new DbWorkspaceFreeTierUsage(workspace)
+            .setCost(5.0)
+            .setLastUpdateTime(Timestamp.from(START_INSTANT)));
+    doReturn(
+            mockBQTableResult(
+                ImmutableMap.of("project-1", 10.0), START_PARTITION_TIME, FIRST_EXPORT_TIME))
+        .when(bigQueryService)
+        .executeQuery(any(QueryJobConfiguration.class));
+
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+
+    // The rows ingested twice are not counted twice, and the cost is only passed on once.
+    assertThat(billingProjectCostDao.findById("project-1").get().getCost()).isEqualTo(10.0);
+    verify(freeTierBillingService, times(1))
+        .checkFreeTierBillingUsageForUsers(anySet(), anyMap());
+  }
+
+  @Test
+  public void testCheckFreeTierBillingUsage_recentlyUpdatedUsageIsRetried() {
+    final DbUser user = createUser("user@test.com");
+    final DbWorkspace workspace = createWorkspace(user, "project-1");
+    // FreeTierBillingService skips workspaces whose usage was updated in the last two hours.
+    workspaceFreeTierUsageDao.save(new DbWorkspaceFreeTierUsage(workspace).setCost(5.0));
+    doReturn(
+            mockBQTableResult(
+                ImmutableMap.of("project-1", 10.0), START_PARTITION_TIME, FIRST_EXPORT_TIME))
+        .when(bigQueryService)
+        .executeQuery(any(QueryJobConfiguration.class));
+
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+    freeTierBillingBatchUpdateService.checkFreeTierBillingUsage();
+
+    assertThat(billingProjectCostDao.findById("project-1").get().getAppliedCost()).isNull();
+    verify(freeTierBillingService, times(2))
+        .checkFreeTierBillingUsageForUsers(
+            ImmutableSet.of(user), ImmutableMap.of("project-1", 10.0));
+  }
+
+  private void saveProjectCost(String project, Instant partitionTime, double cost) {
+    billingProjectDailyCostDao.save(
+        new DbBillingProjectDailyCost()
+            .setKey(new DbBillingProjectDailyCostKey(project, Timestamp.from(partitionTime)))
+            .setCost(cost)
+            .setLastExportTime(Timestamp.from(START_INSTANT)));
+    billingProjectCostDao.save(
+        new DbBillingProjectCost()
+            .setGoogleProject(project)
+            .setCost(cost)
+            .setAppliedCost(cost)
+            .setLastExportTime(Timestamp.from(START_INSTANT)));
+  }
+
+  private QueryParameterValue getPartitionsFromParameter() {
+    final ArgumentCaptor<QueryJobConfiguration> queryCaptor =
+        ArgumentCaptor.forClass(QueryJobConfiguration.class);
+    verify(bigQueryService).executeQuery(queryCaptor.capture());
+    return queryCaptor.getValue().getNamedParameters().get("partitionsFrom");
+  }
+
+  private TableResult mockBQTableResult(
+      final Map<String, Double> costMap, String partitionTime, String exportTime) {
+    Field idField = Field.of("id", LegacySQLTypeName.STRING);
+    Field partitionTimeField = Field.of("partition_time", LegacySQLTypeName.TIMESTAMP);
+    Field costField = Field.of("cost", LegacySQLTypeName.FLOAT);
+    Field exportTimeField = Field.of("last_export_time", LegacySQLTypeName.TIMESTAMP);
+    Schema s = Schema.of(idField, partitionTimeField, costField, exportTimeField);
+
+    List<FieldValueList> tableRows =
+        costMap.entrySet().stream()
+            .map(
+                e -> {
+                  FieldValue id = FieldValue.of(Attribute.PRIMITIVE, e.getKey());
+                  FieldValue partition = FieldValue.of(Attribute.PRIMITIVE, partitionTime);
+                  FieldValue cost = FieldValue.of(Attribute.PRIMITIVE, e.getValue().toString());
+                  FieldValue lastExportTime = FieldValue.of(Attribute.PRIMITIVE, exportTime);
+                  return FieldValueList.of(
+                      Arrays.asList(id, partition, cost, lastExportTime), s.getFields());
+                })
+            .collect(Collectors.toList());
+
+    return new TableResult(s, tableRows.size(), new PageImpl<>(() -> null, null, tableRows));
+  }
+
+  private DbUser createUser(String email) {
+    return userDao.save(new DbUser().setUsername(email));
+  }
+
+  private DbWorkspace createWorkspace(DbUser creator, String project) {
+    return workspaceDao.save(
+        new DbWorkspace()
+            .setCreator(creator)
+            .setWorkspaceNamespace(project + "-ns")
+            .setGoogleProject(project));
+  }
+}
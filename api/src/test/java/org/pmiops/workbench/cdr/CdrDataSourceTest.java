@@ -0,0 +1,131 @@
+package org.pmiops.workbench.cdr;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.sql.DataSource;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pmiops.workbench.cdr.CdrDbConfig.CdrDataSource;
+import org.pmiops.workbench.db.dao.CdrVersionDao;
+import org.pmiops.workbench.db.model.DbCdrVersion;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+
+public class CdrDataSourceTest {
+  private CdrVersionDao mockCdrVersionDao;
+  private DbCdrVersion cdrVersion1;
+  private DbCdrVersion cdrVersion2;
+
+  // The data sources created by the CdrDataSource under test, by CDR database name.
+  private Map<String, DataSource> createdDataSources;
+  private CdrDataSource cdrDataSource;
+
+  @BeforeEach
+  public void setUp() {
+    mockCdrVersionDao = mock(CdrVersionDao.class);
+    cdrVersion1 = new DbCdrVersion().setCdrVersionId(1L).setCdrDbName("cdr1");
+    cdrVersion2 = new DbCdrVersion().setCdrVersionId(2L).setCdrDbName("cdr2");
+    when(mockCdrVersionDao.findById(1L)).thenReturn(Optional.of(cdrVersion1));
+    when(mockCdrVersionDao.findById(2L)).thenReturn(Optional.of(cdrVersion2));
+
+    final PoolConfiguration cdrPoolConfig = new PoolProperties();
+    cdrPoolConfig.setUrl("jdbc:mysql://localhost/cdr");
+    createdDataSources = new HashMap<>();
+    cdrDataSource =
+        new CdrDataSource(mockCdrVersionDao, new PoolProperties(), cdrPoolConfig) {
+          @Override
+          DataSource createDataSource(DbCdrVersion cdrVersion) {
+            final DataSource dataSource = mock(DataSource.class);
+            try {
+              when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+            } catch (SQLException e) {
+              throw new RuntimeException(e);
+            }
+            createdDataSources.put(cdrVersion.getCdrDbName(), dataSource);
+            return dataSource;
+          }
+        };
+  }
+
+  @AfterEach
+  public void tearDown() {
+    CdrVersionContext.clearCdrVersion();
+  }
+
+  @Test
+  public void testPoolCreatedOnFirstUse() throws SQLException {
+    assertThat(createdDataSources).isEmpty();
+    assertThat(cdrDataSource.getGaugeData()).isEmpty();
+
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion1);
+    cdrDataSource.getConnection();
+
+    assertThat(createdDataSources.keySet()).containsExactly("cdr1");
+    verify(mockCdrVersionDao, never()).findById(2L);
+  }
+
+  @Test
+  public void testPoolReused() throws SQLException {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion1);
+    cdrDataSource.getConnection();
+    cdrDataSource.getConnection();
+
+    assertThat(createdDataSources).hasSize(1);
+    verify(createdDataSources.get("cdr1"), times(2)).getConnection();
+  }
+
+  @Test
+  public void testRoutedByCdrVersion() throws SQLException {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion1);
+    cdrDataSource.getConnection();
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion2);
+    cdrDataSource.getConnection();
+    cdrDataSource.getConnection();
+
+    assertThat(createdDataSources.keySet()).containsExactly("cdr1", "cdr2");
+    verify(createdDataSources.get("cdr1")).getConnection();
+    verify(createdDataSources.get("cdr2"), times(2)).getConnection();
+  }
+
+  @Test
+  public void testUnknownCdrVersion() {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(
+        new DbCdrVersion().setCdrVersionId(3L).setCdrDbName("bogus"));
+
+    assertThrows(IllegalStateException.class, () -> cdrDataSource.getConnection());
+    assertThat(createdDataSources).isEmpty();
+  }
+
+  @Test
+  public void testGetGaugeData() throws SQLException {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion1);
+    cdrDataSource.getConnection();
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion2);
+    cdrDataSource.getConnection();
+    cdrDataSource.getConnection();
+
+    final Map<String, Number> borrowCounts = new HashMap<>();
+    for (MeasurementBundle bundle : cdrDataSource.getGaugeData()) {
+      assertThat(bundle.getMeasurements()).containsKey(GaugeMetric.CDR_POOL_BORROW_WAIT_TIME);
+      borrowCounts.put(
+          bundle.getTagValue(MetricLabel.CDR_VERSION_ID).get(),
+          bundle.getMeasurements().get(GaugeMetric.CDR_POOL_BORROW_COUNT));
+    }
+    assertThat(borrowCounts).containsExactly("1", 1L, "2", 2L);
+  }
+}
@@ -1,22 +1,42 @@
 package org.pmiops.workbench.cohortbuilder;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.apphosting.api.DeadlineExceededException;
+import com.google.cloud.PageImpl;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldValue;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import com.google.cloud.bigquery.QueryParameterValue;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.TableResult;
+import com.google.common.collect.ImmutableMap;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 import javax.inject.Provider;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.cdr.CdrVersionContext;
 import org.pmiops.workbench.cdr.cache.MySQLStopWords;
 import org.pmiops.workbench.cdr.dao.CBCriteriaAttributeDao;
 import org.pmiops.workbench.cdr.dao.CBCriteriaDao;
@@ -27,6 +47,8 @@ import org.pmiops.workbench.cdr.dao.PersonDao;
 import org.pmiops.workbench.cdr.dao.SurveyModuleDao;
 import org.pmiops.workbench.cohortbuilder.mapper.CohortBuilderMapper;
 import org.pmiops.workbench.cohortbuilder.mapper.CohortBuilderMapperImpl;
+import org.pmiops.workbench.db.model.DbCdrVersion;
+import org.pmiops.workbench.model.CohortDefinition;
 import org.pmiops.workbench.test.FakeClock;
 import org.pmiops.workbench.utils.mappers.CommonMappers;
 import org.pmiops.workbench.workspaces.WorkspaceAuthService;
@@ -84,6 +106,11 @@ class CohortBuilderServiceImplTest {
     when(mySQLStopWordsProvider.get()).thenReturn(mySQLStopWords);
   }
 
+  @AfterEach
+  public void tearDown() {
+    CdrVersionContext.clearCdrVersion();
+  }
+
   private static List<String> testCases = new ArrayList<>();
 
   @ParameterizedTest(name = "modifyTermMatch: {0} {1}=>{2}")
@@ -95,6 +122,47 @@ class CohortBuilderServiceImplTest {
         .isEqualTo(expected);
   }
 
+  @Test
+  void countParticipants_cachesCountPerCdrVersion() {
+    stubParticipantCounterQuery(countQuery("a"));
+    when(bigQueryService.filterBigQueryConfigAndExecuteQuery(any()))
+        .thenReturn(countResult(10L), countResult(20L));
+
+    setCdrVersion(1L);
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(10L);
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(10L);
+    setCdrVersion(2L);
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(20L);
+
+    verify(bigQueryService, times(2)).filterBigQueryConfigAndExecuteQuery(any());
+  }
+
+  @Test
+  void countParticipants_distinctQueriesAreNotShared() {
+    when(cohortQueryBuilder.buildParticipantCounterQuery(any()))
+        .thenReturn(countQuery("a"), countQuery("b"));
+    when(bigQueryService.filterBigQueryConfigAndExecuteQuery(any()))
+        .thenReturn(countResult(10L), countResult(20L));
+
+    setCdrVersion(1L);
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(10L);
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(20L);
+  }
+
+  @Test
+  void countParticipants_failuresAreNotCached() {
+    stubParticipantCounterQuery(countQuery("a"));
+    when(bigQueryService.filterBigQueryConfigAndExecuteQuery(any()))
+        .thenThrow(new DeadlineExceededException())
+        .thenReturn(countResult(10L));
+
+    setCdrVersion(1L);
+    assertThrows(
+        DeadlineExceededException.class,
+        () -> cohortBuilderService.countParticipants(new CohortDefinition()));
+    assertThat(cohortBuilderService.countParticipants(new CohortDefinition())).isEqualTo(10L);
+  }
+
   private static Stream<Arguments> getModifyTermMatchParameters() {
 
     return Stream.of(
@@ -120,6 +188,32 @@ class CohortBuilderServiceImplTest {
         Arguments.of("Search term: ", "covid-19", "+\"covid-19\""));
   }
 
+  private void stubParticipantCounterQuery(QueryJobConfiguration query) {
+    when(cohortQueryBuilder.buildParticipantCounterQuery(any())).thenReturn(query);
+  }
+
+  private static void setCdrVersion(long cdrVersionId) {
+    DbCdrVersion cdrVersion = new DbCdrVersion();
+    cdrVersion.setCdrVersionId(cdrVersionId);
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(cdrVersion);
+  }
+
+  private static QueryJobConfiguration countQuery(String paramValue) {
+    return QueryJobConfiguration.newBuilder("select count(*) as count from person where p = @p")
+        .setNamedParameters(ImmutableMap.of("p", QueryParameterValue.string(paramValue)))
+        .build();
+  }
+
+  private static TableResult countResult(long count) {
+    Schema schema = Schema.of(Field.of("count", LegacySQLTypeName.INTEGER));
+    List<FieldValueList> rows =
+        Collections.singletonList(
+            FieldValueList.of(
+                Collections.singletonList(
+                    FieldValue.of(FieldValue.Attribute.PRIMITIVE, Long.toString(count)))));
+    return new TableResult(schema, rows.size(), new PageImpl<>(() -> null, null, rows));
+  }
+
   private static List<String> getStopWords() {
     // SELECT * FROM INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD;
     String stopwords =
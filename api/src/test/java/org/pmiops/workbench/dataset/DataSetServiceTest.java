@@ -6,6 +6,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.pmiops.workbench.db.model.DbStorageEnums.domainToStorage;
@@ -36,10 +37,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.cdr.CdrVersionContext;
 import org.pmiops.workbench.cdr.ConceptBigQueryService;
 import org.pmiops.workbench.cdr.dao.DSDataDictionaryDao;
 import org.pmiops.workbench.cdr.dao.DSLinkingDao;
@@ -60,6 +63,7 @@ import org.pmiops.workbench.db.dao.DataSetDao;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.WgsExtractCromwellSubmissionDao;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
+import org.pmiops.workbench.db.model.DbCdrVersion;
 import org.pmiops.workbench.db.model.DbCohort;
 import org.pmiops.workbench.db.model.DbConceptSet;
 import org.pmiops.workbench.db.model.DbConceptSetConceptId;
@@ -168,6 +172,11 @@ public class DataSetServiceTest {
     dbDataset = createDbDataSetEntry();
   }
 
+  @AfterEach
+  public void tearDown() {
+    CdrVersionContext.clearCdrVersion();
+  }
+
   private DbCohort buildSimpleCohort(DbWorkspace workspace) {
     final CohortDefinition cohortDefinition = CohortDefinitions.males();
     final String cohortCriteria = new Gson().toJson(cohortDefinition);
@@ -225,6 +234,33 @@ public class DataSetServiceTest {
     assertThat(queryAndParameters.getNamedParameterValues()).isNotEmpty();
   }
 
+  @Test
+  public void testGetCohortQueryStringAndCollectNamedParameters_cached() {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(new DbCdrVersion().setCdrVersionId(1L));
+    final QueryAndParameters first =
+        dataSetServiceImpl.getCohortQueryStringAndCollectNamedParameters(cohort);
+    final QueryAndParameters second =
+        dataSetServiceImpl.getCohortQueryStringAndCollectNamedParameters(cohort);
+
+    assertThat(second).isSameInstanceAs(first);
+    verify(mockCohortQueryBuilder, times(1)).buildParticipantIdQuery(any());
+  }
+
+  @Test
+  public void testGetCohortQueryStringAndCollectNamedParameters_recompiledOnChange() {
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(new DbCdrVersion().setCdrVersionId(1L));
+    dataSetServiceImpl.getCohortQueryStringAndCollectNamedParameters(cohort);
+
+    cohort.setCriteria(new Gson().toJson(CohortDefinitions.females()));
+    cohort = cohortDao.save(cohort);
+    dataSetServiceImpl.getCohortQueryStringAndCollectNamedParameters(cohort);
+
+    CdrVersionContext.setCdrVersionNoCheckAuthDomain(new DbCdrVersion().setCdrVersionId(2L));
+    dataSetServiceImpl.getCohortQueryStringAndCollectNamedParameters(cohort);
+
+    verify(mockCohortQueryBuilder, times(3)).buildParticipantIdQuery(any());
+  }
+
   @Test
   public void testRejectsConceptSetListWithNoConcepts() {
     final DbConceptSet conceptSet1 = new DbConceptSet();
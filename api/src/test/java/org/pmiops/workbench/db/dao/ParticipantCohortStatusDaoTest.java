@@ -3,15 +3,25 @@ package org.pmiops.workbench.db.dao;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import java.sql.Date;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.cdr.CdrVersionContext;
 import org.pmiops.workbench.cohortreview.util.PageRequest;
+import org.pmiops.workbench.cohortreview.util.ParticipantCohortStatusPageToken;
 import org.pmiops.workbench.config.CommonConfig;
 import org.pmiops.workbench.db.model.DbCdrVersion;
 import org.pmiops.workbench.db.model.DbParticipantCohortStatus;
@@ -22,8 +32,10 @@ import org.pmiops.workbench.model.CohortStatus;
 import org.pmiops.workbench.model.Filter;
 import org.pmiops.workbench.model.FilterColumns;
 import org.pmiops.workbench.model.Operator;
+import org.pmiops.workbench.model.ParticipantCohortStatus;
 import org.pmiops.workbench.model.SortOrder;
 import org.pmiops.workbench.testconfig.TestJpaConfig;
+import org.pmiops.workbench.utils.LogFormatters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -35,6 +47,8 @@ import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 @DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
 @SpringJUnitConfig
 public class ParticipantCohortStatusDaoTest {
+  private static final Logger logger =
+      Logger.getLogger(ParticipantCohortStatusDaoTest.class.getName());
   private static final Long COHORT_REVIEW_ID = 1L;
   private static final Date birthDate = new Date(System.currentTimeMillis());
   private static final int PAGE = 0;
@@ -128,6 +142,71 @@ public class ParticipantCohortStatusDaoTest {
     assertThat(jdbcTemplate.queryForObject(sql, sqlParams, Integer.class)).isEqualTo(expectedCount);
   }
 
+  @Test
+  public void saveParticipantCohortStatusesCustomPartialBatch() {
+    final long cohortReviewId = 3L;
+    // 7 rows with a batch size of 3 leaves a final, partial batch.
+    participantCohortStatusDao.saveParticipantCohortStatusesCustom(
+        createParticipantCohortStatuses(cohortReviewId, 7), 3);
+
+    String sql = "select count(*) from participant_cohort_status where cohort_review_id = ?";
+    assertThat(jdbcTemplate.queryForObject(sql, new Object[] {cohortReviewId}, Integer.class))
+        .isEqualTo(7);
+
+    DbParticipantCohortStatus saved =
+        participantCohortStatusDao
+            .findByParticipantKey_CohortReviewIdAndParticipantKey_ParticipantId(cohortReviewId, 6);
+    assertThat(saved.getStatus())
+        .isEqualTo(DbStorageEnums.cohortStatusToStorage(CohortStatus.NOT_REVIEWED));
+    assertThat(saved.getSexAtBirthConceptId()).isNull();
+    assertThat(saved.getBirthDate()).isNull();
+  }
+
+  @Disabled("Benchmark; run manually, ideally against a local MySQL rather than H2")
+  @ParameterizedTest(name = "{0} participants, batch size {1}")
+  @MethodSource("getBenchmarkParameters")
+  public void benchmarkSaveParticipantCohortStatusesCustom(int participantCount, int batchSize) {
+    final long cohortReviewId = 4L;
+    List<DbParticipantCohortStatus> statuses =
+        createParticipantCohortStatuses(cohortReviewId, participantCount);
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    participantCohortStatusDao.saveParticipantCohortStatusesCustom(statuses, batchSize);
+    logger.info(
+        LogFormatters.rate(
+            String.format("Insert with batch size %d", batchSize),
+            stopwatch.elapsed(),
+            participantCount,
+            "rows"));
+  }
+
+  private static Stream<Arguments> getBenchmarkParameters() {
+    return Stream.of(1_000, 10_000, 100_000)
+        .flatMap(
+            count ->
+                Stream.of(50, ParticipantCohortStatusDaoImpl.DEFAULT_INSERT_BATCH_SIZE)
+                    .map(batchSize -> Arguments.of(count, batchSize)));
+  }
+
+  private static List<DbParticipantCohortStatus> createParticipantCohortStatuses(
+      long cohortReviewId, int count) {
+    List<DbParticipantCohortStatus> statuses = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      statuses.add(
+          new DbParticipantCohortStatus()
+              .participantKey(
+                  new DbParticipantCohortStatusKey()
+                      .cohortReviewId(cohortReviewId)
+                      .participantId(i))
+              .birthDate(i % 2 == 0 ? birthDate : null)
+              .ethnicityConceptId(38003564L)
+              .genderConceptId(8507L)
+              .raceConceptId(8515L)
+              .deceased(false));
+    }
+    return statuses;
+  }
+
   @Test
   public void findAllNoMatchingConcept() {
     PageRequest pageRequest =
@@ -365,6 +444,49 @@ public class ParticipantCohortStatusDaoTest {
     assertThat(results.get(0)).isEqualTo(expectedPCS);
   }
 
+  @Test
+  public void findAllSeekPaging() {
+    PageRequest pageRequest =
+        new PageRequest()
+            .page(PAGE)
+            .pageSize(1)
+            .sortOrder(SortOrder.DESC)
+            .sortColumn(FilterColumns.STATUS.toString());
+    List<Long> participantIds = new ArrayList<>();
+    Optional<String> continuationToken;
+    do {
+      List<DbParticipantCohortStatus> results = participantCohortStatusDao.findAll(1L, pageRequest);
+      results.forEach(r -> participantIds.add(r.getParticipantKey().getParticipantId()));
+      continuationToken =
+          ParticipantCohortStatusPageToken.nextPageToken(pageRequest, toClientModels(results));
+      pageRequest.continuationToken(continuationToken.orElse(null));
+      // Seek paging ignores the page number.
+      pageRequest.page(PAGE + 100);
+    } while (continuationToken.isPresent());
+
+    // INCLUDED sorts after EXCLUDED in storage order.
+    assertThat(participantIds).containsExactly(1L, 2L).inOrder();
+  }
+
+  @Test
+  public void findAllSeekPagingTokenForDifferentSort() {
+    PageRequest pageRequest =
+        new PageRequest()
+            .page(PAGE)
+            .pageSize(1)
+            .sortOrder(SortOrder.ASC)
+            .sortColumn(FilterColumns.PARTICIPANTID.toString());
+    String continuationToken =
+        ParticipantCohortStatusPageToken.nextPageToken(
+                pageRequest, toClientModels(participantCohortStatusDao.findAll(1L, pageRequest)))
+            .get();
+
+    pageRequest.sortOrder(SortOrder.DESC).continuationToken(continuationToken);
+    assertBadRequest(
+        pageRequest,
+        "Bad Request: continuation token does not match the requested sort and filters.");
+  }
+
   @Test
   public void findCount() {
     PageRequest pageRequest =
@@ -559,6 +681,17 @@ public class ParticipantCohortStatusDaoTest {
     }
   }
 
+  private static List<ParticipantCohortStatus> toClientModels(
+      List<DbParticipantCohortStatus> dbModels) {
+    return dbModels.stream()
+        .map(
+            db ->
+                new ParticipantCohortStatus()
+                    .participantId(db.getParticipantKey().getParticipantId())
+                    .status(DbStorageEnums.cohortStatusFromStorage(db.getStatus())))
+        .collect(Collectors.toList());
+  }
+
   private DbParticipantCohortStatus createExpectedPCS(
       DbParticipantCohortStatusKey key, CohortStatus status) {
     return new DbParticipantCohortStatus()
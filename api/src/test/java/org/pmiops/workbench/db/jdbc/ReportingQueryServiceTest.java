@@ -17,20 +17,26 @@ import static org.pmiops.workbench.testconfig.fixtures.ReportingUserFixture.USER
 import static org.pmiops.workbench.testconfig.fixtures.ReportingUserFixture.USER__TWO_FACTOR_AUTH_COMPLETION_TIME;
 import static org.pmiops.workbench.utils.mappers.CommonMappers.offsetDateTimeUtc;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Streams;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.pmiops.workbench.FakeClockConfiguration;
+import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.AccessModuleDao;
 import org.pmiops.workbench.db.dao.AccessTierDao;
 import org.pmiops.workbench.db.dao.CdrVersionDao;
@@ -79,6 +85,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.transaction.annotation.Transactional;
@@ -90,9 +97,12 @@ import org.springframework.transaction.annotation.Transactional;
 @DataJpaTest
 @DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
 public class ReportingQueryServiceTest {
+  private static final Logger logger = Logger.getLogger(ReportingQueryServiceTest.class.getName());
 
   public static final int BATCH_SIZE = 2;
   @Autowired private ReportingQueryService reportingQueryService;
+  @Autowired private JdbcTemplate jdbcTemplate;
+  @Autowired private WorkbenchConfig workbenchConfig;
 
   // It's necessary to bring in several Dao classes, since we aim to populate join tables
   // that have neither entities of their own nor stand-alone DAOs.
@@ -334,6 +344,34 @@ public class ReportingQueryServiceTest {
     assertThat(ids).hasSize(numWorkspaces);
   }
 
+  @Test
+  public void testWorkspacesAfter() {
+    createWorkspaces(5);
+
+    final List<ReportingWorkspace> allWorkspaces = reportingQueryService.getWorkspaces(10, 0);
+    final long thirdId = allWorkspaces.get(2).getWorkspaceId();
+
+    final List<ReportingWorkspace> afterThird =
+        reportingQueryService.getWorkspacesAfter(10, thirdId);
+    assertThat(afterThird).hasSize(2);
+    assertThat(afterThird.get(0).getWorkspaceId())
+        .isEqualTo(allWorkspaces.get(3).getWorkspaceId());
+    assertThat(afterThird.get(1).getWorkspaceId())
+        .isEqualTo(allWorkspaces.get(4).getWorkspaceId());
+
+    assertThat(reportingQueryService.getWorkspacesAfter(1, thirdId)).hasSize(1);
+  }
+
+  @Test
+  public void testWorkspaceStream_exactBatchMultiple() {
+    createWorkspaces(4);
+
+    final List<List<ReportingWorkspace>> batches =
+        reportingQueryService.getWorkspacesStream().collect(Collectors.toList());
+    assertThat(batches).hasSize(2);
+    assertThat(batches.stream().allMatch(b -> b.size() == BATCH_SIZE)).isTrue();
+  }
+
   @Test
   public void testEmptyStream() {
     workspaceDao.deleteAll();
@@ -432,6 +470,12 @@ public class ReportingQueryServiceTest {
     final List<List<ReportingUser>> stream =
         reportingQueryService.getUserStream().collect(Collectors.toList());
     assertThat(stream.size()).isEqualTo(3);
+    // The access tier derived table is restricted to each batch's users in turn.
+    for (List<ReportingUser> batch : stream) {
+      for (ReportingUser user : batch) {
+        assertThat(user.getAccessTierShortNames()).isEqualTo(registeredTier.getShortName());
+      }
+    }
   }
 
   @Test
@@ -566,6 +610,51 @@ public class ReportingQueryServiceTest {
     assertThat(reportingQueryService.getNewUserSatisfactionSurveysCount()).isEqualTo(5);
   }
 
+  @Disabled("Benchmark which inserts 1M rows. Run manually to compare offset and keyset paging.")
+  @Test
+  public void benchmarkOffsetVsKeysetPaging() {
+    final int rowCount = 1_000_000;
+    workbenchConfig.reporting.maxRowsPerInsert = 10_000;
+    insertCohortRows(rowCount);
+
+    final Stopwatch offsetStopwatch = Stopwatch.createStarted();
+    final long offsetRows =
+        Streams.stream(reportingQueryService.getCohortsBatchIterator()).mapToLong(List::size).sum();
+    offsetStopwatch.stop();
+
+    final Stopwatch keysetStopwatch = Stopwatch.createStarted();
+    final long keysetRows = reportingQueryService.getCohortsStream().mapToLong(List::size).sum();
+    keysetStopwatch.stop();
+
+    assertThat(offsetRows).isEqualTo(rowCount);
+    assertThat(keysetRows).isEqualTo(rowCount);
+    logger.info(
+        String.format(
+            "Read %d cohort rows: LIMIT/OFFSET took %s, keyset took %s",
+            rowCount, offsetStopwatch, keysetStopwatch));
+  }
+
+  // Bypass the DAO so we can load enough rows for benchmarking in a reasonable time.
+  private void insertCohortRows(int count) {
+    final DbUser user = createDbUserWithInstitute();
+    final DbWorkspace workspace = createDbWorkspace(user, createCdrVersion(registeredTier));
+    entityManager.flush();
+
+    final String sql =
+        "INSERT INTO cohort (name, version, creator_id, workspace_id, creation_time, "
+            + "last_modified_time) VALUES (?, 1, ?, ?, ?, ?)";
+    final Timestamp now = Timestamp.from(Instant.now());
+    final List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      rows.add(
+          new Object[] {"cohort " + i, user.getUserId(), workspace.getWorkspaceId(), now, now});
+      if (rows.size() == 10_000 || i == count - 1) {
+        jdbcTemplate.batchUpdate(sql, rows);
+        rows.clear();
+      }
+    }
+  }
+
   private void createWorkspaces(int count) {
     final DbUser user = createDbUserWithInstitute();
     final DbCdrVersion cdrVersion = createCdrVersion(registeredTier);
@@ -8,7 +8,9 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.matches;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,6 +22,7 @@ import com.google.common.collect.ImmutableMap;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
@@ -69,6 +72,7 @@ import org.pmiops.workbench.jira.JiraService;
 import org.pmiops.workbench.jira.model.CreatedIssue;
 import org.pmiops.workbench.model.GenomicExtractionJob;
 import org.pmiops.workbench.model.TerraJobStatus;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
 import org.pmiops.workbench.test.FakeClock;
 import org.pmiops.workbench.utils.mappers.CommonMappers;
 import org.pmiops.workbench.workspaces.WorkspaceAuthService;
@@ -256,6 +260,7 @@ public class GenomicExtractionServiceTest {
     mockGetFirecloudSubmission(submission);
     mockWorkflowOutputVcfSize(submission, 12345.0);
 
+    genomicExtractionService.refreshActiveJobStatuses();
     GenomicExtractionJob wgsCohortExtractionJob =
         genomicExtractionService
             .getGenomicExtractionJobs(
@@ -349,6 +354,7 @@ public class GenomicExtractionServiceTest {
             .getWgsExtractCromwellSubmissionId(),
         TerraJobStatus.RUNNING);
 
+    genomicExtractionService.refreshActiveJobStatuses();
     genomicExtractionService
         .getGenomicExtractionJobs(
             targetWorkspace.getWorkspaceNamespace(), targetWorkspace.getFirecloudName())
@@ -369,8 +375,7 @@ public class GenomicExtractionServiceTest {
 
     assertThat(dbSubmission.getVcfSizeMb()).isNull();
 
-    genomicExtractionService.getGenomicExtractionJobs(
-        targetWorkspace.getWorkspaceNamespace(), targetWorkspace.getFirecloudName());
+    genomicExtractionService.refreshActiveJobStatuses();
 
     assertThat(dbSubmission.getVcfSizeMb()).isEqualTo(expectedVcfSize.longValue());
   }
@@ -382,12 +387,94 @@ public class GenomicExtractionServiceTest {
         createSubmissionAndMockMonitorCall(
             FirecloudSubmissionStatus.DONE, FirecloudWorkflowStatus.FAILED);
 
-    genomicExtractionService.getGenomicExtractionJobs(
-        targetWorkspace.getWorkspaceNamespace(), targetWorkspace.getFirecloudName());
+    genomicExtractionService.refreshActiveJobStatuses();
 
     verify(mockJiraService).createIssue(any(), any(), any());
   }
 
+  @Test
+  public void getExtractionJobs_doesNotCallTerra() throws ApiException {
+    createSubmissionAndMockMonitorCall(
+        FirecloudSubmissionStatus.DONE, FirecloudWorkflowStatus.SUCCEEDED);
+
+    GenomicExtractionJob job =
+        genomicExtractionService
+            .getGenomicExtractionJobs(
+                targetWorkspace.getWorkspaceNamespace(), targetWorkspace.getFirecloudName())
+            .get(0);
+
+    assertThat(job.getStatus()).isNull();
+    verify(submissionsApi, never()).getSubmission(any(), any(), any());
+  }
+
+  @Test
+  public void refreshActiveJobStatuses_backsOffWithJobAge() throws ApiException {
+    DbWgsExtractCromwellSubmission dbSubmission =
+        createSubmissionAndMockMonitorCall(
+            FirecloudSubmissionStatus.EVALUATING, FirecloudWorkflowStatus.RUNNING);
+    dbSubmission.setTerraSubmissionDate(Timestamp.from(CLOCK.instant().minus(Duration.ofHours(1))));
+    wgsExtractCromwellSubmissionDao.save(dbSubmission);
+
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(1);
+    assertThat(dbSubmission.getLastStatusCheckTime()).isEqualTo(Timestamp.from(CLOCK.instant()));
+
+    // A job a little over an hour old is checked about every 6.5 minutes.
+    CLOCK.increment(Duration.ofMinutes(5).toMillis());
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(0);
+    CLOCK.increment(Duration.ofMinutes(2).toMillis());
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(1);
+    verify(submissionsApi, times(2))
+        .getSubmission(any(), any(), eq(dbSubmission.getSubmissionId()));
+  }
+
+  @Test
+  public void refreshActiveJobStatuses_backsOffAfterFailedCheck() throws ApiException {
+    DbWgsExtractCromwellSubmission dbSubmission = createDbWgsExtractCromwellSubmission();
+    dbSubmission.setTerraSubmissionDate(Timestamp.from(CLOCK.instant().minus(Duration.ofHours(1))));
+    wgsExtractCromwellSubmissionDao.save(dbSubmission);
+    doThrow(new ApiException(500, "Terra is unavailable"))
+        .when(submissionsApi)
+        .getSubmission(any(), any(), eq(dbSubmission.getSubmissionId()));
+
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(1);
+    assertThat(dbSubmission.getLastStatusCheckTime()).isEqualTo(Timestamp.from(CLOCK.instant()));
+    assertThat(dbSubmission.getTerraStatusEnum()).isNull();
+
+    // The failed check backs off the same as a successful one.
+    CLOCK.increment(Duration.ofMinutes(5).toMillis());
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(0);
+    CLOCK.increment(Duration.ofMinutes(2).toMillis());
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(1);
+  }
+
+  @Test
+  public void refreshActiveJobStatuses_skipsTerminalJobs() throws ApiException {
+    DbWgsExtractCromwellSubmission dbSubmission =
+        createSubmissionAndMockMonitorCall(
+            FirecloudSubmissionStatus.DONE, FirecloudWorkflowStatus.SUCCEEDED);
+
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(1);
+    assertThat(dbSubmission.getTerraStatusEnum()).isEqualTo(TerraJobStatus.SUCCEEDED);
+    CLOCK.increment(Duration.ofHours(1).toMillis());
+    assertThat(genomicExtractionService.refreshActiveJobStatuses()).isEqualTo(0);
+  }
+
+  @Test
+  public void getGaugeData_reportsStatusLag() throws ApiException {
+    DbWgsExtractCromwellSubmission dbSubmission =
+        createSubmissionAndMockMonitorCall(
+            FirecloudSubmissionStatus.EVALUATING, FirecloudWorkflowStatus.RUNNING);
+    dbSubmission.setLastStatusCheckTime(
+        Timestamp.from(CLOCK.instant().minus(Duration.ofMinutes(3))));
+    wgsExtractCromwellSubmissionDao.save(dbSubmission);
+
+    assertThat(
+            genomicExtractionService.getGaugeData().stream()
+                .map(b -> b.getMeasurements().get(GaugeMetric.GENOMIC_EXTRACTION_STATUS_LAG))
+                .collect(Collectors.toList()))
+        .containsExactly(Duration.ofMinutes(3).toMillis());
+  }
+
   private DbWgsExtractCromwellSubmission createDbWgsExtractCromwellSubmission() {
     DbWgsExtractCromwellSubmission dbWgsExtractCromwellSubmission =
         new DbWgsExtractCromwellSubmission();
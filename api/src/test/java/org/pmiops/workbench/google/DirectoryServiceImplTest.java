@@ -0,0 +1,159 @@
+package org.pmiops.workbench.google;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.services.directory.Directory;
+import com.google.api.services.directory.model.User;
+import com.google.api.services.directory.model.Users;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pmiops.workbench.config.WorkbenchConfig;
+import org.pmiops.workbench.monitoring.MeasurementBundle;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+
+public class DirectoryServiceImplTest {
+  private static final String GSUITE_DOMAIN = "fake-research-aou.org";
+
+  private long tickerNanos;
+  private Directory.Users mockDirectoryUsers;
+  private Directory.Users.List mockUsersList;
+  private DirectoryServiceImpl directoryService;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    final WorkbenchConfig workbenchConfig = WorkbenchConfig.createEmptyConfig();
+    workbenchConfig.googleDirectoryService.gSuiteDomain = GSUITE_DOMAIN;
+
+    final Directory mockDirectory = mock(Directory.class);
+    mockDirectoryUsers = mock(Directory.Users.class);
+    mockUsersList = mock(Directory.Users.List.class);
+    when(mockDirectory.users()).thenReturn(mockDirectoryUsers);
+    when(mockDirectoryUsers.list()).thenReturn(mockUsersList);
+    when(mockUsersList.setDomain(anyString())).thenReturn(mockUsersList);
+    when(mockUsersList.setViewType(anyString())).thenReturn(mockUsersList);
+    when(mockUsersList.setCustomFieldMask(anyString())).thenReturn(mockUsersList);
+    when(mockUsersList.setMaxResults(anyInt())).thenReturn(mockUsersList);
+    when(mockUsersList.setOrderBy(anyString())).thenReturn(mockUsersList);
+    when(mockUsersList.setPageToken(anyString())).thenReturn(mockUsersList);
+
+    final Directory.Users.Insert mockInsert = mock(Directory.Users.Insert.class);
+    when(mockDirectoryUsers.insert(any(User.class))).thenReturn(mockInsert);
+    final Directory.Users.Delete mockDelete = mock(Directory.Users.Delete.class);
+    when(mockDirectoryUsers.delete(anyString())).thenReturn(mockDelete);
+
+    tickerNanos = 0;
+    directoryService =
+        new DirectoryServiceImpl(
+            () -> workbenchConfig,
+            null,
+            new GoogleRetryHandler(new NoBackOffPolicy()),
+            null,
+            new Ticker() {
+              @Override
+              public long read() {
+                return tickerNanos;
+              }
+            }) {
+          @Override
+          Directory getGoogleDirectoryService() {
+            return mockDirectory;
+          }
+        };
+  }
+
+  private static Users usersPage(int userCount, String nextPageToken) {
+    final ImmutableList.Builder<User> users = ImmutableList.builder();
+    for (int i = 0; i < userCount; i++) {
+      users.add(new User());
+    }
+    return new Users().setUsers(users.build()).setNextPageToken(nextPageToken);
+  }
+
+  private Long getReportedUserCount() {
+    final Collection<MeasurementBundle> bundles = directoryService.getGaugeData();
+    if (bundles.isEmpty()) {
+      return null;
+    }
+    final MeasurementBundle bundle = bundles.iterator().next();
+    assertThat(bundle.getTagValue(MetricLabel.GSUITE_DOMAIN).get()).isEqualTo(GSUITE_DOMAIN);
+    return bundle.getMeasurements().get(GaugeMetric.GSUITE_USER_COUNT).longValue();
+  }
+
+  @Test
+  public void testGetGaugeData_countsPages() throws IOException {
+    when(mockUsersList.execute()).thenReturn(usersPage(3, "page2"), usersPage(2, null));
+
+    assertThat(getReportedUserCount()).isEqualTo(5L);
+    verify(mockUsersList).setPageToken("page2");
+  }
+
+  @Test
+  public void testGetGaugeData_notReportedUntilCounted() throws IOException {
+    // The first page takes the whole budget, so the recount resumes at the next recording.
+    when(mockUsersList.execute())
+        .thenAnswer(
+            invocation -> {
+              tickerNanos += DirectoryServiceImpl.USER_COUNT_RECONCILIATION_BUDGET.toNanos();
+              return usersPage(3, "page2");
+            })
+        .thenReturn(usersPage(2, null));
+
+    assertThat(getReportedUserCount()).isNull();
+    assertThat(getReportedUserCount()).isEqualTo(5L);
+    verify(mockUsersList, times(2)).execute();
+  }
+
+  @Test
+  public void testGetGaugeData_retriesFailedRecount() throws IOException {
+    when(mockUsersList.execute())
+        .thenThrow(new IOException("failed"))
+        .thenReturn(usersPage(4, null));
+
+    assertThat(getReportedUserCount()).isNull();
+    // A failed page is retried at the next recording, without waiting out the interval.
+    assertThat(getReportedUserCount()).isEqualTo(4L);
+  }
+
+  @Test
+  public void testGetGaugeData_recountedEachInterval() throws IOException {
+    when(mockUsersList.execute()).thenReturn(usersPage(4, null), usersPage(6, null));
+
+    assertThat(getReportedUserCount()).isEqualTo(4L);
+    tickerNanos += Duration.ofMinutes(1).toNanos();
+    assertThat(getReportedUserCount()).isEqualTo(4L);
+    verify(mockUsersList, times(1)).execute();
+
+    tickerNanos += DirectoryServiceImpl.USER_COUNT_RECONCILIATION_INTERVAL.toNanos();
+    assertThat(getReportedUserCount()).isEqualTo(6L);
+    verify(mockUsersList, times(2)).execute();
+  }
+
+  @Test
+  public void testCreateAndDeleteUser_countedAtNextRecount() throws IOException {
+    when(mockUsersList.execute()).thenReturn(usersPage(4, null), usersPage(3, null));
+    assertThat(getReportedUserCount()).isEqualTo(4L);
+
+    // Other instances wouldn't see an adjustment, so the count is left for the recount to update.
+    directoryService.createUser("given", "family", "new-user@" + GSUITE_DOMAIN, "contact@a.org");
+    directoryService.deleteUser("new-user@" + GSUITE_DOMAIN);
+    directoryService.deleteUser("other-user@" + GSUITE_DOMAIN);
+    assertThat(getReportedUserCount()).isEqualTo(4L);
+
+    tickerNanos += DirectoryServiceImpl.USER_COUNT_RECONCILIATION_INTERVAL.toNanos();
+    assertThat(getReportedUserCount()).isEqualTo(3L);
+  }
+}
@@ -5,20 +5,30 @@ import static com.google.common.truth.Truth8.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.pmiops.workbench.access.AccessTierService.REGISTERED_TIER_SHORT_NAME;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.logging.Logger;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.db.dao.AccessTierDao;
+import org.pmiops.workbench.db.dao.InstitutionDao;
+import org.pmiops.workbench.db.dao.InstitutionEmailAddressDao;
+import org.pmiops.workbench.db.dao.InstitutionEmailDomainDao;
+import org.pmiops.workbench.db.dao.InstitutionTierRequirementDao;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.VerifiedInstitutionalAffiliationDao;
 import org.pmiops.workbench.db.model.DbAccessTier;
 import org.pmiops.workbench.db.model.DbInstitution;
+import org.pmiops.workbench.db.model.DbInstitutionEmailDomain;
+import org.pmiops.workbench.db.model.DbInstitutionTierRequirement;
+import org.pmiops.workbench.db.model.DbInstitutionTierRequirement.MembershipRequirement;
 import org.pmiops.workbench.db.model.DbUser;
 import org.pmiops.workbench.db.model.DbVerifiedInstitutionalAffiliation;
 import org.pmiops.workbench.exceptions.BadRequestException;
@@ -46,11 +56,16 @@ import org.springframework.context.annotation.Import;
   InstitutionTierConfigMapperImpl.class,
 })
 public class InstitutionServiceTest {
+  private static final Logger logger = Logger.getLogger(InstitutionServiceTest.class.getName());
 
   @Autowired private InstitutionService service;
   @Autowired private UserDao userDao;
   @Autowired private AccessTierDao accessTierDao;
   @Autowired private VerifiedInstitutionalAffiliationDao verifiedInstitutionalAffiliationDao;
+  @Autowired private InstitutionDao institutionDao;
+  @Autowired private InstitutionEmailAddressDao institutionEmailAddressDao;
+  @Autowired private InstitutionEmailDomainDao institutionEmailDomainDao;
+  @Autowired private InstitutionTierRequirementDao institutionTierRequirementDao;
 
   private final Institution testInst =
       new Institution()
@@ -1092,6 +1107,160 @@ public class InstitutionServiceTest {
                 .eligible(false));
   }
 
+  @Test
+  public void testGetFirstMatchingInstitution() {
+    service.createInstitution(
+        new Institution()
+            .shortName("Verily")
+            .displayName("Verily Life Sciences")
+            .organizationTypeEnum(OrganizationType.INDUSTRY)
+            .addTierConfigsItem(
+                new InstitutionTierConfig()
+                    .membershipRequirement(InstitutionMembershipRequirement.DOMAINS)
+                    .eraRequired(false)
+                    .accessTierShortName(registeredTier.getShortName())
+                    .emailDomains(ImmutableList.of("Verily.com"))));
+    service.createInstitution(
+        new Institution()
+            .shortName("Broad")
+            .displayName("The Broad Institute")
+            .organizationTypeEnum(OrganizationType.ACADEMIC_RESEARCH_INSTITUTION)
+            .addTierConfigsItem(
+                new InstitutionTierConfig()
+                    .membershipRequirement(InstitutionMembershipRequirement.ADDRESSES)
+                    .eraRequired(false)
+                    .accessTierShortName(registeredTier.getShortName())
+                    .emailAddresses(ImmutableList.of("Scientist@verily.com"))));
+
+    // both match, and the first by display name wins
+    assertThat(
+            service
+                .getFirstMatchingInstitution("scientist@VERILY.com")
+                .map(Institution::getShortName))
+        .hasValue("Broad");
+    assertThat(
+            service
+                .getFirstMatchingInstitution("someone@verily.com")
+                .map(Institution::getShortName))
+        .hasValue("Verily");
+    assertThat(service.getFirstMatchingInstitution("someone@broad.org")).isEmpty();
+    assertThat(service.getFirstMatchingInstitution("yy@hacker@verily.com")).isEmpty();
+    assertThat(service.getFirstMatchingInstitution(null)).isEmpty();
+  }
+
+  @Test
+  public void testGetFirstMatchingInstitution_ignoresOtherRequirements() {
+    service.createInstitution(
+        new Institution()
+            .shortName("Broad")
+            .displayName("The Broad Institute")
+            .organizationTypeEnum(OrganizationType.ACADEMIC_RESEARCH_INSTITUTION)
+            .tierConfigs(
+                ImmutableList.of(
+                    rtTierConfig
+                        .membershipRequirement(InstitutionMembershipRequirement.ADDRESSES)
+                        .eraRequired(false)
+                        .emailDomains(ImmutableList.of("broad.org"))
+                        .emailAddresses(ImmutableList.of("user@broad.org")),
+                    ctTierConfig
+                        .membershipRequirement(InstitutionMembershipRequirement.DOMAINS)
+                        .eraRequired(false)
+                        .emailDomains(ImmutableList.of("broad.org")))));
+
+    assertThat(service.getFirstMatchingInstitution("user@broad.org")).isPresent();
+    // the domain is only accepted for the controlled tier
+    assertThat(service.getFirstMatchingInstitution("other@broad.org")).isEmpty();
+  }
+
+  @Test
+  public void testGetFirstMatchingInstitution_reflectsUpdateAndDelete() {
+    final Institution broad =
+        service.createInstitution(
+            new Institution()
+                .shortName("Broad")
+                .displayName("The Broad Institute")
+                .organizationTypeEnum(OrganizationType.ACADEMIC_RESEARCH_INSTITUTION)
+                .addTierConfigsItem(
+                    rtTierConfig
+                        .membershipRequirement(InstitutionMembershipRequirement.DOMAINS)
+                        .eraRequired(false)
+                        .emailDomains(ImmutableList.of("broad.org"))));
+    assertThat(service.getFirstMatchingInstitution("user@broad.org")).isPresent();
+
+    rtTierConfig.emailDomains(ImmutableList.of("broadinstitute.org"));
+    service.updateInstitution(
+        broad.getShortName(), broad.tierConfigs(ImmutableList.of(rtTierConfig)));
+    assertThat(service.getFirstMatchingInstitution("user@broad.org")).isEmpty();
+    assertThat(service.getFirstMatchingInstitution("user@broadinstitute.org")).isPresent();
+
+    service.deleteInstitution(broad.getShortName());
+    assertThat(service.getFirstMatchingInstitution("user@broadinstitute.org")).isEmpty();
+  }
+
+  @Disabled("Benchmark which inserts 5k institutions. Run manually to measure email matching.")
+  @Test
+  public void benchmarkGetFirstMatchingInstitution() {
+    final int institutionCount = 5000;
+    for (int i = 0; i < institutionCount; i++) {
+      final DbInstitution institution =
+          institutionDao.save(
+              new DbInstitution()
+                  .setShortName("inst" + i)
+                  .setDisplayName("Institution " + i)
+                  .setOrganizationTypeEnum(OrganizationType.ACADEMIC_RESEARCH_INSTITUTION));
+      institutionTierRequirementDao.save(
+          new DbInstitutionTierRequirement()
+              .setInstitution(institution)
+              .setAccessTier(registeredTier)
+              .setEraRequired(false)
+              .setMembershipRequirement(MembershipRequirement.DOMAINS));
+      institutionEmailDomainDao.save(
+          new DbInstitutionEmailDomain()
+              .setInstitution(institution)
+              .setAccessTier(registeredTier)
+              .setEmailDomain("inst" + i + ".edu"));
+    }
+    final InstitutionEmailIndex index =
+        new InstitutionEmailIndex(
+            institutionDao,
+            institutionEmailAddressDao,
+            institutionEmailDomainDao,
+            institutionTierRequirementDao);
+
+    final Stopwatch buildStopwatch = Stopwatch.createStarted();
+    assertThat(index.findFirstMatchingShortName("user@inst0.edu", REGISTERED_TIER_SHORT_NAME))
+        .hasValue("inst0");
+    buildStopwatch.stop();
+
+    final Stopwatch lookupStopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < institutionCount; i++) {
+      assertThat(
+              index.findFirstMatchingShortName(
+                  "user@INST" + i + ".edu", REGISTERED_TIER_SHORT_NAME))
+          .hasValue("inst" + i);
+    }
+    lookupStopwatch.stop();
+    assertThat(index.getBuildCount()).isEqualTo(1);
+
+    // the service's lookups go through its own index, and also map the matching institution
+    final Stopwatch serviceStopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < institutionCount; i++) {
+      service.getFirstMatchingInstitution("user@inst" + i + ".edu");
+    }
+    serviceStopwatch.stop();
+
+    logger.info(
+        String.format(
+            "Matching against %d institutions: building the index took %s, "
+                + "%d indexed lookups took %s, %d service lookups took %s",
+            institutionCount,
+            buildStopwatch,
+            institutionCount,
+            lookupStopwatch,
+            institutionCount,
+            serviceStopwatch));
+  }
+
   private DbUser createUser(String contactEmail) {
     DbUser user = new DbUser();
     user.setContactEmail(contactEmail);
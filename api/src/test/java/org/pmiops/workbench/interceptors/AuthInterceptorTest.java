@@ -5,12 +5,15 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.client.http.HttpMethods;
+import com.google.api.services.oauth2.model.Tokeninfo;
 import com.google.api.services.oauth2.model.Userinfo;
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Collections;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -24,16 +27,19 @@ import org.mockito.junit.MockitoRule;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.annotations.AuthorityRequired;
 import org.pmiops.workbench.api.ProfileApi;
+import org.pmiops.workbench.auth.TokenIdentityCache;
 import org.pmiops.workbench.auth.UserInfoService;
 import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.UserDao;
 import org.pmiops.workbench.db.dao.UserService;
 import org.pmiops.workbench.db.model.DbUser;
+import org.pmiops.workbench.exceptions.ForbiddenException;
 import org.pmiops.workbench.exceptions.NotFoundException;
 import org.pmiops.workbench.firecloud.FireCloudService;
 import org.pmiops.workbench.firecloud.model.FirecloudMe;
 import org.pmiops.workbench.firecloud.model.FirecloudUserInfo;
 import org.pmiops.workbench.model.Authority;
+import org.pmiops.workbench.test.FakeClock;
 import org.pmiops.workbench.user.DevUserRegistrationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -42,6 +48,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Scope;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
 import org.springframework.web.method.HandlerMethod;
 
@@ -57,6 +64,7 @@ class FakeController {
 }
 
 @SpringJUnitConfig
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
 public class AuthInterceptorTest {
 
   private static final long USER_ID = 123L;
@@ -76,9 +84,10 @@ public class AuthInterceptorTest {
   @Rule public MockitoRule mockitoRule = MockitoJUnit.rule();
 
   @Autowired private AuthInterceptor interceptor;
+  @Autowired private FakeClock fakeClock;
 
   @TestConfiguration
-  @Import({FakeClockConfiguration.class, AuthInterceptor.class})
+  @Import({FakeClockConfiguration.class, AuthInterceptor.class, TokenIdentityCache.class})
   @MockBean({UserService.class})
   static class Configuration {
     @Bean
@@ -215,6 +224,58 @@ public class AuthInterceptorTest {
     assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
   }
 
+  private void mockTokenExpiresIn(long seconds) {
+    Tokeninfo tokenInfo = new Tokeninfo();
+    tokenInfo.setExpiresIn((int) seconds);
+    when(userInfoService.getTokenInfo("foo")).thenReturn(tokenInfo);
+    when(userDao.findUserByUserId(USER_ID)).thenReturn(user);
+  }
+
+  @Test
+  public void preHandleGet_cachesIdentity() throws Exception {
+    mockGetCallWithBearerToken();
+    mockUserInfoSuccess();
+    mockTokenExpiresIn(3600);
+
+    assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
+    assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
+
+    verify(userInfoService, times(1)).getUserInfo("foo");
+    verify(userDao, times(1)).findUserByUserId(USER_ID);
+  }
+
+  @Test
+  public void preHandleGet_cachedIdentityExpiresWithToken() throws Exception {
+    mockGetCallWithBearerToken();
+    mockUserInfoSuccess();
+    mockTokenExpiresIn(30);
+
+    assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
+    fakeClock.increment(Duration.ofSeconds(31).toMillis());
+    assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
+
+    verify(userInfoService, times(2)).getUserInfo("foo");
+  }
+
+  @Test
+  public void preHandleGet_cachedIdentityOfDisabledUser() throws Exception {
+    mockGetCallWithBearerToken();
+    mockUserInfoSuccess();
+    mockTokenExpiresIn(3600);
+    assertThat(interceptor.preHandle(mockRequest, mockResponse, mockHandler)).isTrue();
+
+    user.setDisabled(true);
+    assertThrows(
+        ForbiddenException.class,
+        () -> interceptor.preHandle(mockRequest, mockResponse, mockHandler));
+
+    // The disabled user's token is no longer cached.
+    assertThrows(
+        ForbiddenException.class,
+        () -> interceptor.preHandle(mockRequest, mockResponse, mockHandler));
+    verify(userInfoService, times(2)).getUserInfo("foo");
+  }
+
   @Test
   public void preHandleGet_noUserRecord() throws Exception {
     workbenchConfig.access.unsafeAllowUserCreationFromGSuiteData = true;
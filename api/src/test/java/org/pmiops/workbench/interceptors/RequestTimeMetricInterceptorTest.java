@@ -2,6 +2,8 @@ package org.pmiops.workbench.interceptors;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
@@ -19,6 +21,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.pmiops.workbench.FakeClockConfiguration;
+import org.pmiops.workbench.monitoring.ApiLatencyHistograms;
 import org.pmiops.workbench.monitoring.LogsBasedMetricService;
 import org.pmiops.workbench.monitoring.MeasurementBundle;
 import org.pmiops.workbench.monitoring.labels.MetricLabel;
@@ -47,6 +50,7 @@ public class RequestTimeMetricInterceptorTest {
   @Mock private ModelAndView mockModelAndView;
 
   @MockBean private LogsBasedMetricService mockLogsBasedMetricService;
+  @MockBean private ApiLatencyHistograms mockApiLatencyHistograms;
 
   @Captor private ArgumentCaptor<String> attributeKeyCaptor;
   @Captor private ArgumentCaptor<Object> attributeValueCaptor;
@@ -140,4 +144,44 @@ public class RequestTimeMetricInterceptorTest {
     verify(mockHttpServletRequest, never()).setAttribute(anyString(), any());
     verifyZeroInteractions(mockLogsBasedMetricService);
   }
+
+  @Test
+  public void testAfterCompletion() {
+    fakeClock.setInstant(END_INSTANT);
+    doReturn(START_INSTANT)
+        .when(mockHttpServletRequest)
+        .getAttribute(RequestAttribute.START_INSTANT.getKeyName());
+    doReturn(HttpServletResponse.SC_NOT_FOUND).when(mockHttpServletResponse).getStatus();
+    requestTimeMetricInterceptor.afterCompletion(
+        mockHttpServletRequest, mockHttpServletResponse, mockHandlerMethod, null);
+
+    verify(mockApiLatencyHistograms)
+        .record(METHOD_NAME, HttpServletResponse.SC_NOT_FOUND, DURATION_MILLIS);
+    verify(mockApiLatencyHistograms).exportIfDue();
+  }
+
+  @Test
+  public void testAfterCompletion_unhandledException() {
+    fakeClock.setInstant(END_INSTANT);
+    doReturn(START_INSTANT)
+        .when(mockHttpServletRequest)
+        .getAttribute(RequestAttribute.START_INSTANT.getKeyName());
+    doReturn(HttpServletResponse.SC_OK).when(mockHttpServletResponse).getStatus();
+    requestTimeMetricInterceptor.afterCompletion(
+        mockHttpServletRequest,
+        mockHttpServletResponse,
+        mockHandlerMethod,
+        new IllegalStateException());
+
+    verify(mockApiLatencyHistograms)
+        .record(METHOD_NAME, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, DURATION_MILLIS);
+  }
+
+  @Test
+  public void testAfterCompletion_skipsOptionsRequest() {
+    doReturn(HttpMethods.OPTIONS).when(mockHttpServletRequest).getMethod();
+    requestTimeMetricInterceptor.afterCompletion(
+        mockHttpServletRequest, mockHttpServletResponse, mockHandlerMethod, null);
+    verify(mockApiLatencyHistograms, never()).record(anyString(), anyInt(), anyLong());
+  }
 }
@@ -0,0 +1,49 @@
+package org.pmiops.workbench.mail;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+public class EmailTemplateTest {
+
+  @Test
+  public void testRender() {
+    final EmailTemplate template =
+        EmailTemplate.parse("<p>Hello ${FIRST_NAME} ${LAST_NAME},</p><a href=\"${URL}\">here</a>");
+    assertThat(
+            template.render(
+                ImmutableMap.of(
+                    EmailSubstitutionField.FIRST_NAME, "Ada",
+                    EmailSubstitutionField.LAST_NAME, "Lovelace",
+                    EmailSubstitutionField.URL, "https://example.com")))
+        .isEqualTo("<p>Hello Ada Lovelace,</p><a href=\"https://example.com\">here</a>");
+  }
+
+  @Test
+  public void testRender_noReferences() {
+    assertThat(EmailTemplate.parse("plain $ text {}").render(ImmutableMap.of()))
+        .isEqualTo("plain $ text {}");
+  }
+
+  @Test
+  public void testRender_missingValuesAreLeftInPlace() {
+    final EmailTemplate template = EmailTemplate.parse("${FIRST_NAME} ${NOT_A_FIELD} ${URL}");
+    assertThat(template.render(ImmutableMap.of(EmailSubstitutionField.URL, "https://example.com")))
+        .isEqualTo("${FIRST_NAME} ${NOT_A_FIELD} https://example.com");
+  }
+
+  @Test
+  public void testRender_valuesAreNotSubstituted() {
+    final EmailTemplate template = EmailTemplate.parse("${FIRST_NAME}");
+    assertThat(template.render(ImmutableMap.of(EmailSubstitutionField.FIRST_NAME, "${URL}")))
+        .isEqualTo("${URL}");
+  }
+
+  @Test
+  public void testFromResource_allTemplates() {
+    for (String resource : MailServiceImpl.TEMPLATE_RESOURCES) {
+      assertThat(EmailTemplate.fromResource(resource).render(ImmutableMap.of())).isNotEmpty();
+    }
+  }
+}
@@ -9,8 +9,12 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.net.ConnectException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.mail.MessagingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -30,9 +34,11 @@ import org.pmiops.workbench.leonardo.model.LeonardoListPersistentDiskResponse;
 import org.pmiops.workbench.mandrill.ApiException;
 import org.pmiops.workbench.mandrill.api.MandrillApi;
 import org.pmiops.workbench.mandrill.model.MandrillApiKeyAndMessage;
+import org.pmiops.workbench.mandrill.model.MandrillMergeVar;
 import org.pmiops.workbench.mandrill.model.MandrillMessage;
 import org.pmiops.workbench.mandrill.model.MandrillMessageStatus;
 import org.pmiops.workbench.mandrill.model.MandrillMessageStatuses;
+import org.pmiops.workbench.mandrill.model.MandrillRecipientMergeVars;
 import org.pmiops.workbench.mandrill.model.RecipientAddress;
 import org.pmiops.workbench.mandrill.model.RecipientType;
 import org.pmiops.workbench.model.SendBillingSetupEmailRequest;
@@ -305,6 +311,144 @@ public class MailServiceImplTest {
     assertThat(gotHtml).doesNotContain("${");
   }
 
+  @Test
+  public void testAlertUsersRegisteredTierWarningThreshold_batched() throws Exception {
+    final DbUser user1 = createDbUser();
+    final DbUser user2 =
+        createDbUser().setContactEmail("other@contact.com").setUsername("other@research.org");
+    final Instant expirationTime = FakeClockConfiguration.NOW.toInstant().plus(Duration.ofDays(3));
+
+    mailService.alertUsersRegisteredTierWarningThreshold(
+        ImmutableMap.of(user1, expirationTime, user2, expirationTime), 3);
+
+    verify(mockMandrillApi, times(1)).send(mandrillCaptor.capture());
+    final MandrillMessage got = (MandrillMessage) mandrillCaptor.getValue().getMessage();
+    assertThat(got.getSubject())
+        .isEqualTo("Your access to All of Us Registered Tier Data will expire in 3 days");
+    assertThat(got.getPreserveRecipients()).isFalse();
+    assertThat(got.getTo())
+        .containsExactly(
+            new RecipientAddress().email("user@contact.com").type(RecipientType.TO),
+            new RecipientAddress().email("other@contact.com").type(RecipientType.TO));
+    assertThat(got.getHtml()).contains("*|USERNAME|*");
+    assertThat(got.getHtml()).doesNotContain("${");
+
+    final MandrillRecipientMergeVars user2Vars =
+        got.getMergeVars().stream()
+            .filter(v -> v.getRcpt().equals("other@contact.com"))
+            .findFirst()
+            .get();
+    assertThat(
+            user2Vars.getVars().stream()
+                .collect(Collectors.toMap(MandrillMergeVar::getName, MandrillMergeVar::getContent)))
+        .containsEntry(EmailSubstitutionField.USERNAME.toString(), "other@research.org");
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_skipsInvalidEmails() throws Exception {
+    final DbUser invalidUser = createDbUser().setContactEmail("Nota valid email");
+    final Instant expirationTime = FakeClockConfiguration.NOW.toInstant();
+
+    mailService.alertUsersRegisteredTierExpiration(
+        ImmutableMap.of(createDbUser(), expirationTime, invalidUser, expirationTime));
+
+    verify(mockMandrillApi, times(1)).send(mandrillCaptor.capture());
+    assertThat(((MandrillMessage) mandrillCaptor.getValue().getMessage()).getTo())
+        .containsExactly(new RecipientAddress().email("user@contact.com").type(RecipientType.TO));
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_notResentAfterAmbiguousError()
+      throws Exception {
+    doThrow(ApiException.class).when(mockMandrillApi).send(any());
+
+    assertThrows(
+        MessagingException.class,
+        () ->
+            mailService.alertUsersRegisteredTierExpiration(
+                ImmutableMap.of(createDbUser(), FakeClockConfiguration.NOW.toInstant())));
+    // the batch may have been accepted, so it isn't resent
+    verify(mockMandrillApi, times(1)).send(any());
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_resentAfterConnectionFailure()
+      throws Exception {
+    MandrillMessageStatuses msgStatuses = new MandrillMessageStatuses();
+    msgStatuses.add(new MandrillMessageStatus().email("user@contact.com").status("sent"));
+    when(mockMandrillApi.send(any()))
+        .thenThrow(new ApiException(new ConnectException()))
+        .thenReturn(msgStatuses);
+
+    mailService.alertUsersRegisteredTierExpiration(
+        ImmutableMap.of(createDbUser(), FakeClockConfiguration.NOW.toInstant()));
+    verify(mockMandrillApi, times(2)).send(any());
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_partiallyRejected() throws Exception {
+    MandrillMessageStatuses msgStatuses = new MandrillMessageStatuses();
+    msgStatuses.add(new MandrillMessageStatus().email("user@contact.com").status("sent"));
+    msgStatuses.add(
+        new MandrillMessageStatus()
+            .email("other@contact.com")
+            .status("rejected")
+            .rejectReason("hard-bounce"));
+    when(mockMandrillApi.send(any())).thenReturn(msgStatuses);
+    final Instant expirationTime = FakeClockConfiguration.NOW.toInstant();
+
+    // doesn't throw, since the batch reached some of its recipients
+    mailService.alertUsersRegisteredTierExpiration(
+        ImmutableMap.of(
+            createDbUser(),
+            expirationTime,
+            createDbUser().setContactEmail("other@contact.com"),
+            expirationTime));
+    verify(mockMandrillApi, times(1)).send(any());
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_allRejected() throws Exception {
+    MandrillMessageStatuses msgStatuses = new MandrillMessageStatuses();
+    msgStatuses.add(
+        new MandrillMessageStatus()
+            .email("user@contact.com")
+            .status("rejected")
+            .rejectReason("unsub"));
+    when(mockMandrillApi.send(any())).thenReturn(msgStatuses);
+
+    assertThrows(
+        MessagingException.class,
+        () ->
+            mailService.alertUsersRegisteredTierExpiration(
+                ImmutableMap.of(createDbUser(), FakeClockConfiguration.NOW.toInstant())));
+    verify(mockMandrillApi, times(1)).send(any());
+  }
+
+  @Test
+  public void testAlertUsersRegisteredTierExpiration_sharedContactEmail() throws Exception {
+    final Instant expirationTime = FakeClockConfiguration.NOW.toInstant();
+
+    mailService.alertUsersRegisteredTierExpiration(
+        ImmutableMap.of(
+            createDbUser(),
+            expirationTime,
+            createDbUser().setUsername("other@research.org"),
+            expirationTime));
+
+    // merge vars are keyed by address, so each user gets their own batch
+    verify(mockMandrillApi, times(2)).send(mandrillCaptor.capture());
+    assertThat(
+            mandrillCaptor.getAllValues().stream()
+                .map(keyAndMessage -> (MandrillMessage) keyAndMessage.getMessage())
+                .map(msg -> msg.getMergeVars().get(0).getVars())
+                .flatMap(List::stream)
+                .filter(v -> v.getName().equals(EmailSubstitutionField.USERNAME.toString()))
+                .map(MandrillMergeVar::getContent)
+                .collect(Collectors.toList()))
+        .containsExactly("username@research.org", "other@research.org");
+  }
+
   private DbUser createDbUser() {
     DbUser user = new DbUser();
     user.setFamilyName("family name");
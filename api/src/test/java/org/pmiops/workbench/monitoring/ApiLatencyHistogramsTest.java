@@ -0,0 +1,128 @@
+package org.pmiops.workbench.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.pmiops.workbench.FakeClockConfiguration;
+import org.pmiops.workbench.model.ApiLatencyResponse;
+import org.pmiops.workbench.model.ApiMethodLatency;
+import org.pmiops.workbench.monitoring.labels.MetricLabel;
+import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.pmiops.workbench.test.FakeClock;
+
+public class ApiLatencyHistogramsTest {
+  private MonitoringService mockMonitoringService;
+  private FakeClock fakeClock;
+  private ApiLatencyHistograms apiLatencyHistograms;
+
+  @BeforeEach
+  public void setUp() {
+    mockMonitoringService = mock(MonitoringService.class);
+    fakeClock = new FakeClock(FakeClockConfiguration.NOW.toInstant());
+    apiLatencyHistograms = new ApiLatencyHistograms(mockMonitoringService, fakeClock);
+  }
+
+  private List<MeasurementBundle> captureRecordedBundles() {
+    ArgumentCaptor<MeasurementBundle> captor = ArgumentCaptor.forClass(MeasurementBundle.class);
+    verify(mockMonitoringService, atLeastOnce()).recordBundle(captor.capture());
+    return captor.getAllValues();
+  }
+
+  @Test
+  public void testGetLatencies() {
+    apiLatencyHistograms.record("getWorkspaces", 200, 10);
+    apiLatencyHistograms.record("getWorkspaces", 200, 20);
+    apiLatencyHistograms.record("getWorkspaces", 404, 5);
+    apiLatencyHistograms.record("createWorkspace", 200, 300);
+
+    final ApiLatencyResponse response = apiLatencyHistograms.getLatencies();
+    assertThat(response.getInstanceStartTime())
+        .isEqualTo(FakeClockConfiguration.NOW.toInstant().toEpochMilli());
+    assertThat(
+            response.getLatencies().stream()
+                .map(l -> l.getMethodName() + "/" + l.getStatusCode())
+                .collect(Collectors.toList()))
+        .containsExactly("createWorkspace/200", "getWorkspaces/200", "getWorkspaces/404")
+        .inOrder();
+
+    final ApiMethodLatency getWorkspaces = response.getLatencies().get(1);
+    assertThat(getWorkspaces.getCount()).isEqualTo(2L);
+    assertThat(getWorkspaces.getP50Millis()).isEqualTo(10L);
+    assertThat(getWorkspaces.getMaxMillis()).isEqualTo(20L);
+  }
+
+  @Test
+  public void testExportIfDue_notDue() {
+    apiLatencyHistograms.record("getWorkspaces", 200, 10);
+    apiLatencyHistograms.exportIfDue();
+    verify(mockMonitoringService, never()).recordBundle(any());
+  }
+
+  @Test
+  public void testExportIfDue_exportsEachInterval() {
+    apiLatencyHistograms.record("getWorkspaces", 200, 10);
+    apiLatencyHistograms.record("getWorkspaces", 200, 30);
+    fakeClock.increment(ApiLatencyHistograms.EXPORT_INTERVAL.toMillis());
+    apiLatencyHistograms.exportIfDue();
+    // Only the first caller in an interval exports.
+    apiLatencyHistograms.exportIfDue();
+
+    // One request count, and one bundle per percentile
+    verify(mockMonitoringService, times(5)).recordBundle(any());
+    final MeasurementBundle countBundle =
+        captureRecordedBundles().stream()
+            .filter(b -> b.getMeasurements().containsKey(GaugeMetric.API_METHOD_REQUEST_COUNT))
+            .findFirst()
+            .get();
+    assertThat(countBundle.getMeasurements().get(GaugeMetric.API_METHOD_REQUEST_COUNT))
+        .isEqualTo(2L);
+    assertThat(countBundle.getTagValue(MetricLabel.METHOD_NAME).get()).isEqualTo("getWorkspaces");
+    assertThat(countBundle.getTagValue(MetricLabel.STATUS_CODE).get()).isEqualTo("200");
+
+    // The next interval only exports requests since the last export.
+    reset(mockMonitoringService);
+    apiLatencyHistograms.record("getWorkspaces", 200, 1000);
+    fakeClock.increment(ApiLatencyHistograms.EXPORT_INTERVAL.toMillis());
+    apiLatencyHistograms.exportIfDue();
+
+    final List<MeasurementBundle> bundles = captureRecordedBundles();
+    assertThat(bundles).hasSize(5);
+    for (MeasurementBundle bundle : bundles) {
+      if (bundle.getMeasurements().containsKey(GaugeMetric.API_METHOD_REQUEST_COUNT)) {
+        assertThat(bundle.getMeasurements().get(GaugeMetric.API_METHOD_REQUEST_COUNT))
+            .isEqualTo(1L);
+      } else {
+        assertThat(bundle.getMeasurements().get(GaugeMetric.API_METHOD_LATENCY)).isEqualTo(1000L);
+      }
+    }
+
+    // Nothing is exported for an idle interval.
+    reset(mockMonitoringService);
+    fakeClock.increment(ApiLatencyHistograms.EXPORT_INTERVAL.toMillis());
+    apiLatencyHistograms.exportIfDue();
+    verify(mockMonitoringService, never()).recordBundle(any());
+  }
+
+  @Test
+  public void testExportIfDue_swallowsFailures() {
+    doThrow(new IllegalStateException()).when(mockMonitoringService).recordBundle(any());
+    apiLatencyHistograms.record("getWorkspaces", 200, 10);
+    fakeClock.increment(ApiLatencyHistograms.EXPORT_INTERVAL.toMillis());
+
+    apiLatencyHistograms.exportIfDue();
+
+    verify(mockMonitoringService).recordBundle(any());
+  }
+}
@@ -3,8 +3,11 @@ package org.pmiops.workbench.monitoring;
 import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -16,6 +19,7 @@ import org.mockito.Captor;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.cohortreview.CohortReviewService;
 import org.pmiops.workbench.monitoring.views.GaugeMetric;
+import org.pmiops.workbench.test.FakeClock;
 import org.pmiops.workbench.workspaces.WorkspaceServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -49,6 +53,7 @@ public class GaugeRecorderServiceTest {
   private GaugeDataCollector standAloneGaugeDataCollector;
 
   @Autowired private GaugeRecorderService gaugeRecorderService;
+  @Autowired private FakeClock fakeClock;
 
   @TestConfiguration
   @Import({
@@ -78,6 +83,7 @@ public class GaugeRecorderServiceTest {
     doReturn(Collections.singleton(WORKSPACE_MEASUREMENT_BUNDLE))
         .when(mockWorkspaceServiceImpl)
         .getGaugeData();
+    doReturn(Duration.ZERO).when(mockWorkspaceServiceImpl).getGaugeRefreshInterval();
   }
 
   @Test
@@ -117,4 +123,44 @@ public class GaugeRecorderServiceTest {
                 .orElse(0))
         .isEqualTo(WORKSPACES_COUNT);
   }
+
+  @Test
+  public void testRecord_reusesDataWithinRefreshInterval() {
+    doReturn(Duration.ofMinutes(10)).when(mockWorkspaceServiceImpl).getGaugeRefreshInterval();
+    // start past any data collected by other tests
+    fakeClock.increment(Duration.ofDays(1).toMillis());
+
+    gaugeRecorderService.record();
+    fakeClock.increment(Duration.ofMinutes(9).toMillis());
+    gaugeRecorderService.record();
+
+    verify(mockWorkspaceServiceImpl, times(1)).getGaugeData();
+    verify(mockMonitoringService, times(2))
+        .recordBundles(Collections.singleton(WORKSPACE_MEASUREMENT_BUNDLE));
+
+    fakeClock.increment(Duration.ofMinutes(1).toMillis());
+    gaugeRecorderService.record();
+    verify(mockWorkspaceServiceImpl, times(2)).getGaugeData();
+  }
+
+  @Test
+  public void testRecord_skipsFailingCollector() {
+    doThrow(new RuntimeException("count query failed"))
+        .when(mockWorkspaceServiceImpl)
+        .getGaugeData();
+
+    gaugeRecorderService.record();
+
+    verify(mockMonitoringService, atLeast(1)).recordBundles(measurementBundlesListCaptor.capture());
+    assertThat(
+            measurementBundlesListCaptor.getAllValues().stream()
+                .flatMap(Collection::stream)
+                .anyMatch(b -> b.getMeasurements().containsKey(GaugeMetric.DATASET_COUNT)))
+        .isTrue();
+    assertThat(
+            measurementBundlesListCaptor.getAllValues().stream()
+                .flatMap(Collection::stream)
+                .anyMatch(b -> b.getMeasurements().containsKey(GaugeMetric.WORKSPACE_COUNT)))
+        .isFalse();
+  }
 }
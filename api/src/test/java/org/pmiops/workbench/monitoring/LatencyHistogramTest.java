@@ -0,0 +1,81 @@
+package org.pmiops.workbench.monitoring;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testEmpty() {
+    final LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(0);
+    assertThat(snapshot.getValueAtPercentile(50.0)).isEqualTo(0);
+    assertThat(snapshot.getMaxMillis()).isEqualTo(0);
+  }
+
+  @Test
+  public void testSmallValuesAreExact() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1);
+    histogram.record(3);
+    histogram.record(5);
+
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(3);
+    assertThat(snapshot.getValueAtPercentile(50.0)).isEqualTo(3);
+    assertThat(snapshot.getMaxMillis()).isEqualTo(5);
+  }
+
+  @Test
+  public void testPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long millis = 1; millis <= 100; millis++) {
+      histogram.record(millis);
+    }
+
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(100);
+    // 50 falls in the [48, 51] bucket
+    assertThat(snapshot.getValueAtPercentile(50.0)).isEqualTo(51);
+    // 99 falls in the [96, 103] bucket, but nothing above 100 was recorded
+    assertThat(snapshot.getValueAtPercentile(99.0)).isEqualTo(100);
+    assertThat(snapshot.getMaxMillis()).isEqualTo(100);
+  }
+
+  @Test
+  public void testBucketPrecision() {
+    for (long millis = 0; millis <= LatencyHistogram.MAX_TRACKED_MILLIS; millis += 997) {
+      final int index = LatencyHistogram.bucketIndex(millis);
+      assertThat(index).isLessThan(LatencyHistogram.BUCKET_COUNT);
+      assertThat(LatencyHistogram.bucketUpperBound(index)).isAtLeast(millis);
+      assertThat(LatencyHistogram.bucketUpperBound(index)).isAtMost(millis + millis / 8);
+    }
+  }
+
+  @Test
+  public void testValuesBeyondRange() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(LatencyHistogram.MAX_TRACKED_MILLIS * 10);
+
+    final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(2);
+    assertThat(snapshot.getValueAtPercentile(50.0)).isEqualTo(0);
+    assertThat(snapshot.getMaxMillis()).isEqualTo(LatencyHistogram.MAX_TRACKED_MILLIS * 10);
+  }
+
+  @Test
+  public void testMinus() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 10; i++) {
+      histogram.record(10);
+    }
+    final LatencyHistogram.Snapshot earlier = histogram.snapshot();
+    histogram.record(1000);
+
+    final LatencyHistogram.Snapshot difference = histogram.snapshot().minus(earlier);
+    assertThat(difference.getCount()).isEqualTo(1);
+    assertThat(difference.getValueAtPercentile(50.0)).isEqualTo(1000);
+  }
+}
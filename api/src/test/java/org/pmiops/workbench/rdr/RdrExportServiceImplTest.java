@@ -15,6 +15,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.sql.Timestamp;
 import java.time.Duration;
@@ -40,6 +41,7 @@ import org.pmiops.workbench.db.model.DbVerifiedInstitutionalAffiliation;
 import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.exceptions.ServerErrorException;
 import org.pmiops.workbench.exceptions.WorkbenchException;
+import org.pmiops.workbench.firecloud.model.FirecloudWorkspaceAccessEntry;
 import org.pmiops.workbench.institution.InstitutionService;
 import org.pmiops.workbench.model.Degree;
 import org.pmiops.workbench.model.InstitutionalRole;
@@ -52,8 +54,9 @@ import org.pmiops.workbench.rdr.model.RdrResearcher;
 import org.pmiops.workbench.rdr.model.RdrWorkspace;
 import org.pmiops.workbench.rdr.model.RdrWorkspaceCreator;
 import org.pmiops.workbench.rdr.model.RdrWorkspaceDemographic;
+import org.pmiops.workbench.rdr.model.RdrWorkspaceUser;
 import org.pmiops.workbench.test.FakeClock;
-import org.pmiops.workbench.workspaces.WorkspaceService;
+import org.pmiops.workbench.workspaces.WorkspaceAuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
@@ -72,7 +75,7 @@ public class RdrExportServiceImplTest {
   @Autowired private AccessTierService mockAccessTierService;
   @Autowired private ApiClient mockApiClient;
   @Autowired private RdrApi mockRdrApi;
-  @Autowired private WorkspaceService mockWorkspaceService;
+  @Autowired private WorkspaceAuthService mockWorkspaceAuthService;
   @Autowired private RdrExportDao rdrExportDao;
   @Autowired private UserDao userDao;
   @Autowired private WorkspaceDao workspaceDao;
@@ -102,7 +105,7 @@ public class RdrExportServiceImplTest {
     ApiClient.class,
     RdrApi.class,
     InstitutionService.class,
-    WorkspaceService.class,
+    WorkspaceAuthService.class,
     VerifiedInstitutionalAffiliationDao.class
   })
   static class Configuration {
@@ -312,8 +315,8 @@ public class RdrExportServiceImplTest {
   public void exportWorkspace() throws ApiException {
     RdrWorkspace rdrWorkspace = toDefaultRdrWorkspace(workspace);
     rdrExportService.exportWorkspaces(ImmutableList.of(workspace.getWorkspaceId()), NO_BACKFILL);
-    verify(mockWorkspaceService)
-        .getFirecloudUserRoles(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
+    verify(mockWorkspaceAuthService)
+        .getFirecloudWorkspaceAcls(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
     assertThat(rdrExportDao.findAll()).hasSize(1);
 
     verify(mockRdrApi).exportWorkspaces(ImmutableList.of(rdrWorkspace), NO_BACKFILL);
@@ -321,7 +324,7 @@ public class RdrExportServiceImplTest {
 
   @Test
   public void exportWorkspace_firecloudCallFail_skipUpdateRdrEntity() throws ApiException {
-    when(mockWorkspaceService.getFirecloudUserRoles(
+    when(mockWorkspaceAuthService.getFirecloudWorkspaceAcls(
             workspace.getWorkspaceNamespace(), workspace.getFirecloudName()))
         .thenThrow(WorkbenchException.class);
 
@@ -337,8 +340,8 @@ public class RdrExportServiceImplTest {
   public void exportWorkspaceBackfill() throws ApiException {
     RdrWorkspace rdrWorkspace = toDefaultRdrWorkspace(workspace);
     rdrExportService.exportWorkspaces(ImmutableList.of(workspace.getWorkspaceId()), true);
-    verify(mockWorkspaceService)
-        .getFirecloudUserRoles(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
+    verify(mockWorkspaceAuthService)
+        .getFirecloudWorkspaceAcls(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
     assertThat(rdrExportDao.findAll()).isEmpty();
 
     verify(mockRdrApi).exportWorkspaces(ImmutableList.of(rdrWorkspace), true);
@@ -353,8 +356,8 @@ public class RdrExportServiceImplTest {
     RdrWorkspace rdrWorkspace = toDefaultRdrWorkspace(workspace);
 
     rdrExportService.exportWorkspaces(ImmutableList.of(workspace.getWorkspaceId()), NO_BACKFILL);
-    verify(mockWorkspaceService)
-        .getFirecloudUserRoles(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
+    verify(mockWorkspaceAuthService)
+        .getFirecloudWorkspaceAcls(workspace.getWorkspaceNamespace(), workspace.getFirecloudName());
     assertThat(rdrExportDao.findAll()).hasSize(1);
 
     rdrWorkspace
@@ -389,8 +392,8 @@ public class RdrExportServiceImplTest {
 
     rdrExportService.exportWorkspaces(
         ImmutableList.of(deletedWorkspace.getWorkspaceId()), NO_BACKFILL);
-    verify(mockWorkspaceService, never())
-        .getFirecloudUserRoles(
+    verify(mockWorkspaceAuthService, never())
+        .getFirecloudWorkspaceAcls(
             deletedWorkspace.getWorkspaceNamespace(), deletedWorkspace.getFirecloudName());
     assertThat(rdrExportDao.findAll()).hasSize(1);
 
@@ -398,6 +401,47 @@ public class RdrExportServiceImplTest {
     verify(mockRdrApi).exportWorkspaces(ImmutableList.of(rdrWorkspace), NO_BACKFILL);
   }
 
+  @Test
+  public void exportWorkspace_resolvesCollaborators() throws ApiException {
+    when(mockWorkspaceAuthService.getFirecloudWorkspaceAcls(
+            workspace.getWorkspaceNamespace(), workspace.getFirecloudName()))
+        .thenReturn(
+            ImmutableMap.of(
+                dbUserWithEmail.getUsername(),
+                new FirecloudWorkspaceAccessEntry().accessLevel("OWNER"),
+                dbUserWithoutEmail.getUsername(),
+                new FirecloudWorkspaceAccessEntry().accessLevel("READER"),
+                "some-group@firecloud.org",
+                new FirecloudWorkspaceAccessEntry().accessLevel("WRITER")));
+
+    rdrExportService.exportWorkspaces(
+        ImmutableList.of(workspace.getWorkspaceId(), creatorWorkspace.getWorkspaceId()),
+        NO_BACKFILL);
+
+    RdrWorkspace rdrWorkspace =
+        toDefaultRdrWorkspace(workspace)
+            .workspaceUsers(
+                ImmutableList.of(
+                    new RdrWorkspaceUser()
+                        .userId((int) dbUserWithEmail.getUserId())
+                        .role(RdrWorkspaceUser.RoleEnum.OWNER)
+                        .status(RdrWorkspaceUser.StatusEnum.ACTIVE),
+                    new RdrWorkspaceUser()
+                        .userId((int) dbUserWithoutEmail.getUserId())
+                        .role(RdrWorkspaceUser.RoleEnum.READER)
+                        .status(RdrWorkspaceUser.StatusEnum.ACTIVE)));
+    RdrWorkspace rdrCreatorWorkspace =
+        toDefaultRdrWorkspace(creatorWorkspace)
+            .creator(
+                new RdrWorkspaceCreator()
+                    .userId(dbUserWithoutEmail.getUserId())
+                    .familyName("email")
+                    .givenName("icannothas"));
+    verify(mockRdrApi)
+        .exportWorkspaces(ImmutableList.of(rdrWorkspace, rdrCreatorWorkspace), NO_BACKFILL);
+    assertThat(rdrExportDao.findAll()).hasSize(2);
+  }
+
   @Test
   public void findUnchangedEntitiesForBackfill_users() {
     Supplier<List<Long>> findUnchangedUsers =
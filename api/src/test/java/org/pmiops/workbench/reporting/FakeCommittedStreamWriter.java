@@ -0,0 +1,71 @@
+package org.pmiops.workbench.reporting;
+
+import com.google.cloud.bigquery.TableId;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.DescriptorValidationException;
+import com.google.protobuf.Descriptors.FileDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory CommittedStreamWriter. Decodes every appended row against the writer schema it was
+ * sent with, so tests can assert on field values, and counts append requests per table.
+ */
+public class FakeCommittedStreamWriter implements CommittedStreamWriter {
+  private final ListMultimap<String, DynamicMessage> rowsByTable =
+      Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+  private final List<String> appendedTables = Collections.synchronizedList(new ArrayList<>());
+
+  @Override
+  public void appendRows(
+      TableId tableId, DescriptorProto rowDescriptor, List<ByteString> serializedRows) {
+    final Descriptor descriptor = toDescriptor(rowDescriptor);
+    appendedTables.add(tableId.getTable());
+    for (ByteString row : serializedRows) {
+      try {
+        rowsByTable.put(tableId.getTable(), DynamicMessage.parseFrom(descriptor, row));
+      } catch (InvalidProtocolBufferException e) {
+        throw new IllegalArgumentException("Row does not match the writer schema", e);
+      }
+    }
+  }
+
+  public List<DynamicMessage> getRows(String tableName) {
+    synchronized (rowsByTable) {
+      return ImmutableList.copyOf(rowsByTable.get(tableName));
+    }
+  }
+
+  public int getAppendCount(String tableName) {
+    synchronized (appendedTables) {
+      return Collections.frequency(appendedTables, tableName);
+    }
+  }
+
+  public void clear() {
+    rowsByTable.clear();
+    appendedTables.clear();
+  }
+
+  private static Descriptor toDescriptor(DescriptorProto rowDescriptor) {
+    try {
+      return FileDescriptor.buildFrom(
+              FileDescriptorProto.newBuilder().addMessageType(rowDescriptor).build(),
+              new FileDescriptor[0])
+          .getMessageTypes()
+          .get(0);
+    } catch (DescriptorValidationException e) {
+      throw new IllegalArgumentException("Invalid writer schema", e);
+    }
+  }
+}
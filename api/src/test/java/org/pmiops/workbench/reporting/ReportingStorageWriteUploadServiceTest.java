@@ -0,0 +1,185 @@
+package org.pmiops.workbench.reporting;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.StandardSQLTypeName;
+import com.google.cloud.bigquery.TableId;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.DynamicMessage;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pmiops.workbench.FakeClockConfiguration;
+import org.pmiops.workbench.api.BigQueryService;
+import org.pmiops.workbench.model.ReportingWorkspace;
+import org.pmiops.workbench.reporting.insertion.WorkspaceColumnValueExtractor;
+import org.pmiops.workbench.testconfig.ReportingTestConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+@SpringJUnitConfig
+public class ReportingStorageWriteUploadServiceTest {
+  private static final long NOW_MILLIS = FakeClockConfiguration.NOW.toInstant().toEpochMilli();
+  private static final Instant THEN_INSTANT = Instant.parse("1989-02-17T00:00:00.00Z");
+  private static final OffsetDateTime THEN = OffsetDateTime.ofInstant(THEN_INSTANT, ZoneOffset.UTC);
+
+  @MockBean private BigQueryService mockBigQueryService;
+
+  @Autowired private ReportingStorageWriteUploadServiceImpl reportingUploadService;
+  @Autowired private FakeCommittedStreamWriter fakeCommittedStreamWriter;
+
+  @TestConfiguration
+  @Import({
+    FakeClockConfiguration.class,
+    ReportingStorageWriteUploadServiceImpl.class,
+    ReportingTestConfig.class
+  })
+  @MockBean({ReportingVerificationService.class})
+  public static class Config {
+    @Bean
+    public FakeCommittedStreamWriter fakeCommittedStreamWriter() {
+      return new FakeCommittedStreamWriter();
+    }
+  }
+
+  @BeforeEach
+  public void setup() {
+    fakeCommittedStreamWriter.clear();
+    doAnswer(
+            invocation -> {
+              final TableId tableId = invocation.getArgument(0);
+              return WorkspaceColumnValueExtractor.TABLE_NAME.equals(tableId.getTable())
+                  ? workspaceSchema()
+                  : Schema.of(Field.of("snapshot_timestamp", StandardSQLTypeName.INT64));
+            })
+        .when(mockBigQueryService)
+        .getTableSchema(any(TableId.class));
+  }
+
+  @Test
+  public void testUploadBatch_workspace() {
+    reportingUploadService.uploadBatchWorkspace(
+        ImmutableList.of(
+            new ReportingWorkspace()
+                .workspaceId(201L)
+                .name("Circle K")
+                .creationTime(THEN)
+                .creatorId(101L),
+            new ReportingWorkspace().workspaceId(202L).name("Wyld Stallyns").creatorId(101L)),
+        NOW_MILLIS);
+
+    final List<DynamicMessage> rows =
+        fakeCommittedStreamWriter.getRows(WorkspaceColumnValueExtractor.TABLE_NAME);
+    assertThat(rows).hasSize(2);
+    assertThat(fakeCommittedStreamWriter.getAppendCount(WorkspaceColumnValueExtractor.TABLE_NAME))
+        .isEqualTo(1);
+
+    final DynamicMessage first = rows.get(0);
+    assertThat(getField(first, "workspace_id")).isEqualTo(201L);
+    assertThat(getField(first, "name")).isEqualTo("Circle K");
+    assertThat(getField(first, "creator_id")).isEqualTo(101L);
+    assertThat(getField(first, "creation_time"))
+        .isEqualTo(TimeUnit.MILLISECONDS.toMicros(THEN_INSTANT.toEpochMilli()));
+    assertThat(getField(first, "snapshot_timestamp")).isEqualTo(NOW_MILLIS);
+
+    // Null values are left unset rather than written.
+    final DynamicMessage second = rows.get(1);
+    assertThat(hasField(second, "creation_time")).isFalse();
+    assertThat(hasField(second, "rp_approved")).isFalse();
+    assertThat(getField(second, "snapshot_timestamp")).isEqualTo(NOW_MILLIS);
+  }
+
+  @Test
+  public void testUploadBatch_fetchesSchemaOnce() {
+    final List<ReportingWorkspace> batch =
+        ImmutableList.of(new ReportingWorkspace().workspaceId(201L));
+    reportingUploadService.uploadBatchWorkspace(batch, NOW_MILLIS);
+    reportingUploadService.uploadBatchWorkspace(batch, NOW_MILLIS);
+
+    assertThat(fakeCommittedStreamWriter.getRows(WorkspaceColumnValueExtractor.TABLE_NAME))
+        .hasSize(2);
+    verify(mockBigQueryService, times(1)).getTableSchema(any(TableId.class));
+  }
+
+  @Test
+  public void testUploadBatch_splitsLargeAppends() {
+    // 20 rows of ~1MB each can't fit in a single AppendRows request.
+    final String largeName = Strings.repeat("x", 1024 * 1024);
+    reportingUploadService.uploadBatchWorkspace(
+        IntStream.range(0, 20)
+            .mapToObj(i -> new ReportingWorkspace().workspaceId((long) i).name(largeName))
+            .collect(ImmutableList.toImmutableList()),
+        NOW_MILLIS);
+
+    assertThat(fakeCommittedStreamWriter.getRows(WorkspaceColumnValueExtractor.TABLE_NAME))
+        .hasSize(20);
+    assertThat(fakeCommittedStreamWriter.getAppendCount(WorkspaceColumnValueExtractor.TABLE_NAME))
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void testUploadBatch_empty() {
+    reportingUploadService.uploadBatchWorkspace(ImmutableList.of(), NOW_MILLIS);
+    assertThat(fakeCommittedStreamWriter.getAppendCount(WorkspaceColumnValueExtractor.TABLE_NAME))
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void testUploadVerifiedSnapshot() {
+    reportingUploadService.uploadVerifiedSnapshot(NOW_MILLIS);
+
+    final List<DynamicMessage> rows = fakeCommittedStreamWriter.getRows("verified_snapshot");
+    assertThat(rows).hasSize(1);
+    assertThat(getField(rows.get(0), "snapshot_timestamp")).isEqualTo(NOW_MILLIS);
+  }
+
+  // Every workspace column is a STRING except those the tests check for typed values.
+  private static Schema workspaceSchema() {
+    return Schema.of(
+        Stream.concat(
+                Stream.of(WorkspaceColumnValueExtractor.values())
+                    .map(WorkspaceColumnValueExtractor::getParameterName),
+                Stream.of("snapshot_timestamp"))
+            .map(name -> Field.of(name, workspaceColumnType(name)))
+            .collect(Collectors.toList()));
+  }
+
+  private static StandardSQLTypeName workspaceColumnType(String columnName) {
+    switch (columnName) {
+      case "workspace_id":
+      case "creator_id":
+      case "snapshot_timestamp":
+        return StandardSQLTypeName.INT64;
+      case "creation_time":
+        return StandardSQLTypeName.TIMESTAMP;
+      default:
+        return StandardSQLTypeName.STRING;
+    }
+  }
+
+  private static Object getField(DynamicMessage row, String fieldName) {
+    return row.getField(row.getDescriptorForType().findFieldByName(fieldName));
+  }
+
+  private static boolean hasField(DynamicMessage row, String fieldName) {
+    return row.hasField(row.getDescriptorForType().findFieldByName(fieldName));
+  }
+}
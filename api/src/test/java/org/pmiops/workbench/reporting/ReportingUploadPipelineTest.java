@@ -0,0 +1,77 @@
+package org.pmiops.workbench.reporting;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+public class ReportingUploadPipelineTest {
+  private static final int MAX_IN_FLIGHT = 3;
+
+  @Test
+  public void testUploadsEveryBatch() {
+    final ConcurrentLinkedQueue<Integer> uploaded = new ConcurrentLinkedQueue<>();
+    try (ReportingUploadPipeline pipeline = new ReportingUploadPipeline(MAX_IN_FLIGHT, 2)) {
+      pipeline.upload("table_a", batches(0, 20), uploaded::addAll);
+      pipeline.upload("table_b", batches(100, 20), uploaded::addAll);
+      pipeline.awaitCompletion();
+    }
+    assertThat(uploaded).hasSize(40);
+    assertThat(uploaded).containsNoDuplicates();
+  }
+
+  @Test
+  public void testBoundsInFlightUploadsPerTable() {
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxObservedInFlight = new AtomicInteger();
+    try (ReportingUploadPipeline pipeline = new ReportingUploadPipeline(MAX_IN_FLIGHT, 1)) {
+      pipeline.upload(
+          "table_a",
+          batches(0, 50),
+          batch -> {
+            maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleepBriefly();
+            inFlight.decrementAndGet();
+          });
+      pipeline.awaitCompletion();
+    }
+    assertThat(maxObservedInFlight.get()).isAtMost(MAX_IN_FLIGHT);
+  }
+
+  @Test
+  public void testRethrowsUploadFailure() {
+    try (ReportingUploadPipeline pipeline = new ReportingUploadPipeline(MAX_IN_FLIGHT, 1)) {
+      final IllegalStateException thrown =
+          assertThrows(
+              IllegalStateException.class,
+              () -> {
+                pipeline.upload(
+                    "table_a",
+                    batches(0, 10),
+                    batch -> {
+                      throw new IllegalStateException("insertAll failed");
+                    });
+                pipeline.awaitCompletion();
+              });
+      assertThat(thrown).hasMessageThat().isEqualTo("insertAll failed");
+    }
+  }
+
+  private static Stream<List<Integer>> batches(int start, int count) {
+    return IntStream.range(start, start + count).mapToObj(i -> ImmutableList.of(i));
+  }
+
+  private static void sleepBriefly() {
+    try {
+      Thread.sleep(5);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -23,6 +23,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.pmiops.workbench.FakeClockConfiguration;
 import org.pmiops.workbench.access.AccessTierService;
+import org.pmiops.workbench.config.WorkbenchConfig;
 import org.pmiops.workbench.db.dao.AccessTierDao;
 import org.pmiops.workbench.db.dao.WorkspaceDao;
 import org.pmiops.workbench.db.model.DbUser;
@@ -52,6 +53,7 @@ import org.springframework.context.annotation.Scope;
 @DataJpaTest
 public class WorkspaceAuthServiceTest {
   private static DbUser currentUser;
+  private static WorkbenchConfig workbenchConfig;
 
   @Autowired private AccessTierDao accessTierDao;
 
@@ -69,11 +71,18 @@ public class WorkspaceAuthServiceTest {
     DbUser user() {
       return currentUser;
     }
+
+    @Bean
+    @Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+    WorkbenchConfig workbenchConfig() {
+      return workbenchConfig;
+    }
   }
 
   @BeforeEach
   public void setUp() {
     currentUser = new DbUser();
+    workbenchConfig = WorkbenchConfig.createEmptyConfig();
   }
 
   @Test
@@ -170,6 +179,73 @@ public class WorkspaceAuthServiceTest {
         () -> workspaceAuthService.enforceWorkspaceAccessLevel(namespace, fcName, required));
   }
 
+  @Test
+  public void test_getFirecloudWorkspace_uncachedByDefault() {
+    final String namespace = "wsns";
+    final String fcName = "firecloudname";
+    stubFcGetWorkspace(namespace, fcName, "READER");
+
+    workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName);
+    workspaceAuthService.getFirecloudWorkspace(namespace, fcName);
+
+    verify(mockFireCloudService, times(2)).getWorkspace(namespace, fcName);
+  }
+
+  @Test
+  public void test_getFirecloudWorkspace_cached() {
+    workbenchConfig.firecloud.workspaceCacheTtlSeconds = 30;
+    currentUser.setUserId(101L);
+    final String namespace = "wsns-cached";
+    final String fcName = "firecloudname";
+    stubFcGetWorkspace(namespace, fcName, "WRITER");
+
+    assertThat(workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName))
+        .isEqualTo(WorkspaceAccessLevel.WRITER);
+    assertThat(
+            workspaceAuthService.getFirecloudWorkspace(namespace, fcName).getWorkspace().getName())
+        .isEqualTo(fcName);
+
+    verify(mockFireCloudService, times(1)).getWorkspace(namespace, fcName);
+  }
+
+  @Test
+  public void test_getFirecloudWorkspace_cachedPerUser() {
+    workbenchConfig.firecloud.workspaceCacheTtlSeconds = 30;
+    final String namespace = "wsns-per-user";
+    final String fcName = "firecloudname";
+    stubFcGetWorkspace(namespace, fcName, "WRITER");
+
+    currentUser.setUserId(102L);
+    workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName);
+    currentUser = new DbUser();
+    currentUser.setUserId(103L);
+    workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName);
+
+    verify(mockFireCloudService, times(2)).getWorkspace(namespace, fcName);
+  }
+
+  @Test
+  public void test_patchWorkspaceAcls_invalidatesCachedWorkspace() {
+    workbenchConfig.firecloud.workspaceCacheTtlSeconds = 30;
+    currentUser.setUserId(104L);
+    final String namespace = "wsns-patched";
+    final String fcName = "firecloudname";
+    stubRegisteredTier();
+    stubUpdateAcl(namespace, fcName);
+    stubFcGetAcl(namespace, fcName, ImmutableMap.of());
+    DbWorkspace workspace = stubDaoGetRequired(namespace, fcName, BillingStatus.ACTIVE);
+    stubFcGetWorkspace(namespace, fcName, "READER");
+    assertThat(workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName))
+        .isEqualTo(WorkspaceAccessLevel.READER);
+
+    workspaceAuthService.patchWorkspaceAcls(
+        workspace, ImmutableMap.of("user1", WorkspaceAccessLevel.WRITER));
+    stubFcGetWorkspace(namespace, fcName, "WRITER");
+
+    assertThat(workspaceAuthService.getWorkspaceAccessLevel(namespace, fcName))
+        .isEqualTo(WorkspaceAccessLevel.WRITER);
+  }
+
   // Arguments are (original Workspace ACL), (ACL updates to make), (expected result Workspace ACL),
   // (expected remove BP from owner count), (expected add BP to owner count)
   private static Stream<Arguments> patchWorkspaceAcls() {
@@ -28,6 +28,7 @@ import org.pmiops.workbench.db.model.DbUserRecentlyModifiedResource;
 import org.pmiops.workbench.db.model.DbUserRecentlyModifiedResource.DbUserRecentlyModifiedResourceType;
 import org.pmiops.workbench.db.model.DbWorkspace;
 import org.pmiops.workbench.model.Domain;
+import org.pmiops.workbench.model.WorkspaceResource;
 import org.pmiops.workbench.notebooks.NotebookUtils;
 import org.pmiops.workbench.test.FakeClock;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,6 +50,7 @@ public class UserRecentResourceServiceTest {
   @Autowired UserRecentlyModifiedResourceDao userRecentlyModifiedResourceDao;
   @Autowired WorkspaceDao workspaceDao;
   @Autowired UserRecentResourceService userRecentResourceService;
+  @Autowired UserRecentResourcesCache userRecentResourcesCache;
 
   private DbUser user;
   private DbWorkspace workspace;
@@ -61,7 +63,7 @@ public class UserRecentResourceServiceTest {
   private static final FakeClock CLOCK = new FakeClock(NOW, ZoneId.systemDefault());
 
   @TestConfiguration
-  @Import({UserRecentResourceServiceImpl.class})
+  @Import({UserRecentResourceServiceImpl.class, UserRecentResourcesCache.class})
   static class Configuration {
     @Bean
     public Clock clock() {
@@ -525,4 +527,19 @@ public class UserRecentResourceServiceTest {
     resources = userRecentResourceService.findAllRecentlyModifiedResourcesByUser(user.getUserId());
     assertThat(resources.size()).isEqualTo(0);
   }
+
+  @Test
+  public void testUpdateAndDeleteInvalidateCachedResources() {
+    final WorkspaceResource cachedResource = new WorkspaceResource().workspaceId(1L);
+    userRecentResourcesCache.get(user.getUserId(), () -> Collections.singletonList(cachedResource));
+
+    userRecentResourceService.updateCohortEntry(
+        workspace.getWorkspaceId(), user.getUserId(), cohort.getCohortId());
+    assertThat(userRecentResourcesCache.get(user.getUserId(), Collections::emptyList)).isEmpty();
+
+    userRecentResourcesCache.get(user.getUserId(), () -> Collections.singletonList(cachedResource));
+    userRecentResourceService.deleteCohortEntry(
+        workspace.getWorkspaceId(), user.getUserId(), cohort.getCohortId());
+    assertThat(userRecentResourcesCache.get(user.getUserId(), Collections::emptyList)).isEmpty();
+  }
 }